@@ -9,12 +9,14 @@ import android.widget.ToggleButton;
 import com.dvoiss.sensorannotations.OnAccuracyChanged;
 import com.dvoiss.sensorannotations.OnSensorChanged;
 import com.dvoiss.sensorannotations.OnSensorNotAvailable;
-import com.dvoiss.sensorannotations.SensorAnnotations;
+import com.dvoiss.sensorannotations.SensorScope;
 
 class AccelerometerManager {
     @NonNull private final MainActivity mMainActivity;
 
     private TextView mAccelerometerManagerTextView;
+    private ToggleButton mAccelerometerButton;
+    private SensorScope mSensorScope;
 
     AccelerometerManager(@NonNull MainActivity mainActivity) {
         mMainActivity = mainActivity;
@@ -22,18 +24,18 @@ class AccelerometerManager {
         mAccelerometerManagerTextView =
             (TextView) mMainActivity.findViewById(R.id.accelerometer_event_output);
 
-        ToggleButton accelerometerButton =
+        mAccelerometerButton =
             (ToggleButton) mMainActivity.findViewById(R.id.accelerometer_button);
 
-        accelerometerButton.setOnCheckedChangeListener(
+        mAccelerometerButton.setOnCheckedChangeListener(
             new CompoundButton.OnCheckedChangeListener() {
                 @Override
                 public void onCheckedChanged(CompoundButton buttonView, boolean isChecked) {
                     if (isChecked) {
-                        // Example of binding to another object, a Context is still needed:
-                        SensorAnnotations.bind(AccelerometerManager.this, buttonView.getContext());
+                        // Example of binding to another object in the scope of the activity:
+                        mSensorScope.bind(AccelerometerManager.this);
                     } else {
-                        SensorAnnotations.unbind(AccelerometerManager.this);
+                        mSensorScope.unbind(AccelerometerManager.this);
                         mMainActivity.updateTextViewWithSensorNotBound(
                             mAccelerometerManagerTextView);
                     }
@@ -41,6 +43,16 @@ class AccelerometerManager {
             });
     }
 
+    /**
+     * Bind in the scope of the resumed activity, which unbinds when the activity pauses.
+     */
+    void onResume(@NonNull SensorScope sensorScope) {
+        mSensorScope = sensorScope;
+        if (mAccelerometerButton.isChecked()) {
+            mSensorScope.bind(this);
+        }
+    }
+
     // region Accelerometer Tests
 
     @OnSensorChanged(Sensor.TYPE_ACCELEROMETER)
@@ -3,6 +3,7 @@ package com.example.sensorannotations;
 import android.annotation.TargetApi;
 import android.hardware.Sensor;
 import android.hardware.SensorEvent;
+import android.hardware.SensorManager;
 import android.hardware.TriggerEvent;
 import android.os.Build;
 import android.os.Bundle;
@@ -17,11 +18,17 @@ import com.dvoiss.sensorannotations.OnSensorChanged;
 import com.dvoiss.sensorannotations.OnSensorNotAvailable;
 import com.dvoiss.sensorannotations.OnTrigger;
 import com.dvoiss.sensorannotations.SensorAnnotations;
+import com.dvoiss.sensorannotations.SensorScope;
 
 public class MainActivity extends AppCompatActivity {
 
     AccelerometerManager mAccelerometerManager;
 
+    /**
+     * The targets bound while the activity is resumed, closed when it pauses.
+     */
+    SensorScope mSensorScope;
+
     @BindView(R.id.magnetic_field_event_output) TextView mMagneticFieldEventOutputTextView;
     @BindView(R.id.light_event_output) TextView mLightEventOutputTextView;
     @BindView(R.id.heart_rate_event_output) TextView mHeartRateEventOutputTextView;
@@ -35,17 +42,24 @@ public class MainActivity extends AppCompatActivity {
 
         // Accelerometer is an example of binding to another object.
         mAccelerometerManager = new AccelerometerManager(this);
+
+        // Binding should be done when the sensors are needed. The activity is bound while it is
+        // resumed, and while it is paused but still visible the sensors are only sampled at the
+        // normal rate. In the AccelerometerManager class binding is done when a button is clicked.
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.ICE_CREAM_SANDWICH) {
+            SensorAnnotations.bindToLifecycle(this, this, SensorManager.SENSOR_DELAY_NORMAL);
+        }
     }
 
     @Override
     protected void onResume() {
         super.onResume();
 
-        // Binding should be done when the sensors are needed,
-        // in this example the onResume is used,
-        // in the AccelerometerManager class it is when a button is clicked.
-
-        SensorAnnotations.bind(this);
+        mSensorScope = new SensorScope(this);
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.ICE_CREAM_SANDWICH) {
+            mSensorScope.bind(this);
+        }
+        mAccelerometerManager.onResume(mSensorScope);
     }
 
     @Override
@@ -60,9 +74,9 @@ public class MainActivity extends AppCompatActivity {
         //
         // If a sensor listener is registered and its activity is paused, the sensor will
         // continue to acquire data and use battery resources unless you unregister the sensor."
-
-        SensorAnnotations.unbind(this);
-        SensorAnnotations.unbind(mAccelerometerManager);
+        //
+        // Closing the scope unbinds everything bound in it, including the AccelerometerManager.
+        mSensorScope.close();
     }
 
     // region Magnetic Field Tests
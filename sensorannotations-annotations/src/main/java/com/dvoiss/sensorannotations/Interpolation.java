@@ -0,0 +1,16 @@
+package com.dvoiss.sensorannotations;
+
+/**
+ * How the values of a {@link Resample} method are computed between two events.
+ */
+public enum Interpolation {
+    /**
+     * Interpolate linearly between the events before and after the grid tick.
+     */
+    LINEAR,
+
+    /**
+     * Use the values of the event closest to the grid tick.
+     */
+    NEAREST
+}
@@ -15,4 +15,25 @@ public @interface OnAccuracyChanged {
     int value() default -1;
 
     int delay() default SENSOR_DELAY_NORMAL;
+
+    /**
+     * Only use sensors of the type with this wake-up behaviour.
+     */
+    WakeUp wakeUp() default WakeUp.ANY;
+
+    /**
+     * A regular expression the name of the sensor must match, any name if empty.
+     */
+    String nameMatches() default "";
+
+    /**
+     * A regular expression the vendor of the sensor must match, any vendor if empty.
+     */
+    String vendorMatches() default "";
+
+    /**
+     * Register to every matching sensor of the type instead of only one. The events of all
+     * sensors are delivered to the same method, {@code SensorEvent.sensor} tells them apart.
+     */
+    boolean all() default false;
 }
@@ -8,11 +8,47 @@ import java.lang.annotation.Target;
 
 import static android.hardware.SensorManager.SENSOR_DELAY_NORMAL;
 
+/**
+ * Call the method with the events of a sensor type. The method may declare a second {@code long}
+ * parameter which receives the wall clock time of the event in nanoseconds since the epoch, the
+ * {@code SensorEvent#timestamp} converted with an offset the library estimates once per second
+ * instead of calling {@code System.currentTimeMillis()} for every event. The offset is shared by
+ * every sensor, so the wall clock times of different sensors can be compared.
+ */
 @Retention(RetentionPolicy.CLASS)
 @Target(ElementType.METHOD)
-@ListenerMethod(parameters = { "android.hardware.SensorEvent" })
+@ListenerMethod(parameters = { "android.hardware.SensorEvent" }, optionalParameters = { "long" })
 public @interface OnSensorChanged {
     int value() default -1;
 
     int delay() default SENSOR_DELAY_NORMAL;
+
+    /**
+     * Opt in to adaptive sampling: while the sensor's signal stays quiet the listener is
+     * registered with this slower delay, and the {@link #delay()} is restored as soon as the
+     * signal or the significant motion sensor shows activity again. A negative value disables
+     * adaptive sampling.
+     */
+    int idleDelay() default -1;
+
+    /**
+     * Only use sensors of the type with this wake-up behaviour.
+     */
+    WakeUp wakeUp() default WakeUp.ANY;
+
+    /**
+     * A regular expression the name of the sensor must match, any name if empty.
+     */
+    String nameMatches() default "";
+
+    /**
+     * A regular expression the vendor of the sensor must match, any vendor if empty.
+     */
+    String vendorMatches() default "";
+
+    /**
+     * Register to every matching sensor of the type instead of only one. The events of all
+     * sensors are delivered to the same method, {@code SensorEvent.sensor} tells them apart.
+     */
+    boolean all() default false;
 }
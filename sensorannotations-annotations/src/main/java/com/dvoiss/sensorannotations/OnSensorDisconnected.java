@@ -0,0 +1,19 @@
+package com.dvoiss.sensorannotations;
+
+import com.dvoiss.sensorannotations.internal.ListenerMethod;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Called when the dynamic sensor of the given type that was bound disconnects. The binder
+ * registers again automatically when a sensor of the type connects. Without this annotation a
+ * method annotated with {@link OnSensorNotAvailable} for the type is called instead.
+ */
+@Retention(RetentionPolicy.CLASS)
+@Target(ElementType.METHOD)
+@ListenerMethod(parameters = { "android.hardware.Sensor" })
+public @interface OnSensorDisconnected {
+    int value() default -1;
+}
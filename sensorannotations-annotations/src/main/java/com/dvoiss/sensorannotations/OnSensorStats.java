@@ -0,0 +1,48 @@
+package com.dvoiss.sensorannotations;
+
+import com.dvoiss.sensorannotations.internal.ListenerMethod;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+import static android.hardware.SensorManager.SENSOR_DELAY_NORMAL;
+
+/**
+ * Receive rolling statistics (mean, variance, RMS, min, max) over a sliding window of sensor
+ * events instead of the raw events. The statistics are kept up to date incrementally as events
+ * arrive and the annotated method is only invoked every {@link #emitEveryMs()} milliseconds.
+ */
+@Retention(RetentionPolicy.CLASS)
+@Target(ElementType.METHOD)
+@ListenerMethod(parameters = { "com.dvoiss.sensorannotations.SensorStats" })
+public @interface OnSensorStats {
+    int value() default -1;
+
+    int delay() default SENSOR_DELAY_NORMAL;
+
+    /**
+     * Only use sensors of the type with this wake-up behaviour.
+     */
+    WakeUp wakeUp() default WakeUp.ANY;
+
+    /**
+     * A regular expression the name of the sensor must match, any name if empty.
+     */
+    String nameMatches() default "";
+
+    /**
+     * A regular expression the vendor of the sensor must match, any vendor if empty.
+     */
+    String vendorMatches() default "";
+
+    /**
+     * The length of the sliding window in milliseconds of sensor time.
+     */
+    int windowMs() default 1000;
+
+    /**
+     * How often the annotated method is invoked, in milliseconds of sensor time.
+     */
+    int emitEveryMs() default 250;
+}
@@ -0,0 +1,60 @@
+package com.dvoiss.sensorannotations;
+
+import com.dvoiss.sensorannotations.internal.ListenerMethod;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Receive the spectrum of a sensor axis, such as the vibration of an accelerometer, instead of
+ * the events. The events are interpolated onto a uniform grid of {@link #hz()} samples per second
+ * like with {@link Resample}, and every {@link #hop()} samples the last {@link #size()} samples
+ * are transformed. The spectrum gives the power of each frequency bin, the peak frequency and the
+ * energy of each band between the {@link #bands()} edges.
+ *
+ * The mean of the window is removed and a Hann window is applied before the transform. The
+ * spectrum passed to the annotated method is reused, copy what is needed instead of holding on
+ * to it.
+ */
+@Retention(RetentionPolicy.CLASS)
+@Target(ElementType.METHOD)
+@ListenerMethod(parameters = { "com.dvoiss.sensorannotations.Spectrum" })
+public @interface OnSpectrum {
+    /**
+     * The {@link #axis()} of the length of the vector of all values of an event.
+     */
+    int MAGNITUDE = -1;
+
+    int value() default -1;
+
+    /**
+     * The samples per second of the grid, the spectrum goes up to half of it.
+     */
+    int hz();
+
+    /**
+     * The samples of a window, a power of two of at least 8.
+     */
+    int size() default 256;
+
+    /**
+     * The samples between two spectra, the windows overlap when it is smaller than the size.
+     */
+    int hop() default 128;
+
+    /**
+     * The index of the transformed value of an event or {@link #MAGNITUDE}.
+     */
+    int axis() default MAGNITUDE;
+
+    /**
+     * The ascending edges of the bands in Hz, n edges make n - 1 bands.
+     */
+    float[] bands() default {};
+
+    /**
+     * The delay the listener is registered with, the period of the grid if negative.
+     */
+    int delay() default -1;
+}
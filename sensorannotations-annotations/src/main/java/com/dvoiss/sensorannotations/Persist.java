@@ -0,0 +1,23 @@
+package com.dvoiss.sensorannotations;
+
+import com.dvoiss.sensorannotations.internal.ListenerMethod;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+import static android.hardware.SensorManager.SENSOR_DELAY_NORMAL;
+
+/**
+ * Persist the events of a sensor type without handling them on the sensor thread. The annotated
+ * method returns the {@code WriteBehindPipeline} the events are offered to. It is called for
+ * every event, the events are dropped while it returns null.
+ */
+@Retention(RetentionPolicy.CLASS)
+@Target(ElementType.METHOD)
+@ListenerMethod(returnType = "com.dvoiss.sensorannotations.recording.WriteBehindPipeline")
+public @interface Persist {
+    int value() default -1;
+
+    int delay() default SENSOR_DELAY_NORMAL;
+}
@@ -0,0 +1,38 @@
+package com.dvoiss.sensorannotations;
+
+import com.dvoiss.sensorannotations.internal.ListenerMethod;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Receive the values of a sensor type on a uniform grid of {@link #hz()} ticks per second instead
+ * of the events, which the hardware delivers at irregular intervals. The annotated method takes
+ * the timestamp of the tick in nanoseconds and the values interpolated at the tick, and is called
+ * exactly once per tick. Each event can produce no tick when the sensor is faster than the grid
+ * or several when it is slower.
+ *
+ * The grid starts at the first event and restarts at the next event after a gap of more than a
+ * second or two ticks, such as while the target was unbound. The values are not low-pass
+ * filtered, a sensor faster than the grid aliases frequencies above half of {@link #hz()}. The
+ * values array is reused, copy what is needed instead of holding on to it.
+ */
+@Retention(RetentionPolicy.CLASS)
+@Target(ElementType.METHOD)
+@ListenerMethod(parameters = { "long", "float[]" })
+public @interface Resample {
+    int value() default -1;
+
+    /**
+     * The ticks per second of the grid.
+     */
+    int hz();
+
+    Interpolation method() default Interpolation.LINEAR;
+
+    /**
+     * The delay the listener is registered with, the period of the grid if negative.
+     */
+    int delay() default -1;
+}
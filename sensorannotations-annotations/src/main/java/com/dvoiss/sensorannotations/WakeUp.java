@@ -0,0 +1,22 @@
+package com.dvoiss.sensorannotations;
+
+/**
+ * Selects sensors by their wake-up behaviour, see {@code Sensor#isWakeUpSensor()}. Devices before
+ * API 21 only report non-wake-up sensors.
+ */
+public enum WakeUp {
+    /**
+     * Any sensor of the type, wake-up or not.
+     */
+    ANY,
+
+    /**
+     * Only wake-up sensors, events wake the application processor up.
+     */
+    WAKE_UP,
+
+    /**
+     * Only non-wake-up sensors.
+     */
+    NON_WAKE_UP
+}
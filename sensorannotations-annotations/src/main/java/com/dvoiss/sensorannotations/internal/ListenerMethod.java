@@ -10,4 +10,16 @@ import static java.lang.annotation.RetentionPolicy.RUNTIME;
 @Target(ANNOTATION_TYPE)
 public @interface ListenerMethod {
     String[] parameters() default {};
+
+    /**
+     * Parameters the method may declare after the {@link #parameters()}, a method declares either
+     * none of them or the first ones in order.
+     */
+    String[] optionalParameters() default {};
+
+    /**
+     * The canonical name of the type the method must return, the return type isn't checked if
+     * empty.
+     */
+    String returnType() default "";
 }
@@ -1,6 +1,8 @@
 package com.dvoiss.sensorannotations;
 
 import java.lang.annotation.Annotation;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
 import javax.lang.model.element.ExecutableElement;
 import org.checkerframework.checker.nullness.qual.NonNull;
 
@@ -12,26 +14,69 @@ import static com.dvoiss.sensorannotations.SensorAnnotationsFileBuilder.TYPE_SIG
  */
 class AnnotatedMethod {
     private static final int INVALID_SENSOR = -1;
+    private static final int MICROS_PER_SECOND = 1000000;
+    private static final int SENSOR_DELAY_NORMAL = 3;
     static final int INVALID_DELAY = -1;
 
     @NonNull private final ExecutableElement mAnnotatedMethodElement;
+    @NonNull private final Class<? extends Annotation> mAnnotationClass;
 
     private final int mSensorType;
     private final int mDelay;
+    private final int mIdleDelay;
+
+    @NonNull private final WakeUp mWakeUp;
+    @NonNull private final String mNameMatches;
+    @NonNull private final String mVendorMatches;
+    private final boolean mAll;
 
     AnnotatedMethod(@NonNull ExecutableElement methodElement,
         @NonNull Class<? extends Annotation> annotationClass) throws IllegalArgumentException {
         Annotation annotation = methodElement.getAnnotation(annotationClass);
         mAnnotatedMethodElement = methodElement;
+        mAnnotationClass = annotationClass;
         mDelay = getDelayFromAnnotation(annotation);
         mSensorType = getSensorTypeFromAnnotation(annotation);
 
+        if (annotation instanceof OnSensorChanged) {
+            OnSensorChanged onSensorChanged = (OnSensorChanged) annotation;
+            mWakeUp = onSensorChanged.wakeUp();
+            mNameMatches = onSensorChanged.nameMatches();
+            mVendorMatches = onSensorChanged.vendorMatches();
+            mAll = onSensorChanged.all();
+            mIdleDelay = onSensorChanged.idleDelay() < 0 ? INVALID_DELAY
+                : onSensorChanged.idleDelay();
+        } else if (annotation instanceof OnAccuracyChanged) {
+            OnAccuracyChanged onAccuracyChanged = (OnAccuracyChanged) annotation;
+            mWakeUp = onAccuracyChanged.wakeUp();
+            mNameMatches = onAccuracyChanged.nameMatches();
+            mVendorMatches = onAccuracyChanged.vendorMatches();
+            mAll = onAccuracyChanged.all();
+            mIdleDelay = INVALID_DELAY;
+        } else if (annotation instanceof OnSensorStats) {
+            OnSensorStats onSensorStats = (OnSensorStats) annotation;
+            mWakeUp = onSensorStats.wakeUp();
+            mNameMatches = onSensorStats.nameMatches();
+            mVendorMatches = onSensorStats.vendorMatches();
+            mAll = false;
+            mIdleDelay = INVALID_DELAY;
+        } else {
+            mWakeUp = WakeUp.ANY;
+            mNameMatches = "";
+            mVendorMatches = "";
+            mAll = false;
+            mIdleDelay = INVALID_DELAY;
+        }
+
         if (mSensorType == INVALID_SENSOR) {
             throw new IllegalArgumentException(String.format(
                 "No sensor type specified in @%s for method %s."
                     + " Set a sensor type such as Sensor.TYPE_ACCELEROMETER.",
                 annotationClass.getSimpleName(), methodElement.getSimpleName().toString()));
         }
+
+        checkPattern(mNameMatches, "nameMatches", annotationClass, methodElement);
+        checkPattern(mVendorMatches, "vendorMatches", annotationClass, methodElement);
     }
 
     int getSensorType() {
@@ -42,10 +87,73 @@ class AnnotatedMethod {
         return mDelay;
     }
 
+    /**
+     * @return The delay used while the sensor is idle or {@link #INVALID_DELAY} if the sampling
+     * isn't adaptive.
+     */
+    int getIdleDelay() {
+        return mIdleDelay;
+    }
+
     @NonNull ExecutableElement getExecutableElement() {
         return mAnnotatedMethodElement;
     }
 
+    @NonNull Class<? extends Annotation> getAnnotationClass() {
+        return mAnnotationClass;
+    }
+
+    @NonNull WakeUp getWakeUp() {
+        return mWakeUp;
+    }
+
+    @NonNull String getNameMatches() {
+        return mNameMatches;
+    }
+
+    @NonNull String getVendorMatches() {
+        return mVendorMatches;
+    }
+
+    boolean isAll() {
+        return mAll;
+    }
+
+    /**
+     * @return True if the annotation selects sensors of its type instead of using the default
+     * sensor.
+     */
+    boolean hasSensorSelection() {
+        return mWakeUp != WakeUp.ANY || !mNameMatches.isEmpty() || !mVendorMatches.isEmpty()
+            || mAll;
+    }
+
+    /**
+     * @param other Another annotated method of the same sensor type.
+     * @return True if both annotations select the same sensors.
+     */
+    boolean hasSameSensorSelection(@NonNull AnnotatedMethod other) {
+        return mWakeUp == other.mWakeUp && mNameMatches.equals(other.mNameMatches)
+            && mVendorMatches.equals(other.mVendorMatches) && mAll == other.mAll;
+    }
+
+    private static void checkPattern(@NonNull String regex, @NonNull String attribute,
+        @NonNull Class<? extends Annotation> annotationClass,
+        @NonNull ExecutableElement methodElement) throws IllegalArgumentException {
+        if (regex.isEmpty()) {
+            return;
+        }
+
+        try {
+            Pattern.compile(regex);
+        } catch (PatternSyntaxException e) {
+            throw new IllegalArgumentException(String.format(
+                "The %s value \"%s\" in @%s for method %s is not a valid regular expression.",
+                attribute, regex, annotationClass.getSimpleName(),
+                methodElement.getSimpleName().toString()));
+        }
+    }
+
     /**
      * Return the sensor type set on the annotation.
      *
@@ -59,6 +167,16 @@ class AnnotatedMethod {
             return ((OnAccuracyChanged) annotation).value();
         } else if (annotation instanceof OnSensorNotAvailable) {
             return ((OnSensorNotAvailable) annotation).value();
+        } else if (annotation instanceof OnSensorStats) {
+            return ((OnSensorStats) annotation).value();
+        } else if (annotation instanceof OnSensorDisconnected) {
+            return ((OnSensorDisconnected) annotation).value();
+        } else if (annotation instanceof Persist) {
+            return ((Persist) annotation).value();
+        } else if (annotation instanceof Resample) {
+            return ((Resample) annotation).value();
+        } else if (annotation instanceof OnSpectrum) {
+            return ((OnSpectrum) annotation).value();
         } else if (annotation instanceof OnTrigger) {
             return TYPE_SIGNIFICANT_MOTION;
         }
@@ -78,6 +196,32 @@ class AnnotatedMethod {
             return ((OnSensorChanged) annotation).delay();
         } else if (annotation instanceof OnAccuracyChanged) {
             return ((OnAccuracyChanged) annotation).delay();
+        } else if (annotation instanceof OnSensorStats) {
+            return ((OnSensorStats) annotation).delay();
+        } else if (annotation instanceof Persist) {
+            return ((Persist) annotation).delay();
+        } else if (annotation instanceof Resample) {
+            Resample resample = (Resample) annotation;
+            return getGridDelay(resample.delay(), resample.hz());
+        } else if (annotation instanceof OnSpectrum) {
+            OnSpectrum spectrum = (OnSpectrum) annotation;
+            return getGridDelay(spectrum.delay(), spectrum.hz());
+        }
+
+        return INVALID_DELAY;
+    }
+
+    /**
+     * Register with the period of the grid of a {@link Resample} or {@link OnSpectrum} method
+     * unless a delay is given.
+     *
+     * @return The delay value or {@link #INVALID_DELAY} if the rate of the grid isn't positive.
+     */
+    private static int getGridDelay(int delay, int hz) {
+        if (delay >= 0) {
+            return delay;
+        } else if (hz > 0) {
+            return Math.max(MICROS_PER_SECOND / hz, SENSOR_DELAY_NORMAL + 1);
         }
 
         return INVALID_DELAY;
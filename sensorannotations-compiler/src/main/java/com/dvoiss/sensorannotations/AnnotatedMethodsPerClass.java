@@ -2,46 +2,64 @@ package com.dvoiss.sensorannotations;
 
 import com.dvoiss.sensorannotations.exception.ProcessingException;
 import java.lang.annotation.Annotation;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import javax.lang.model.element.TypeElement;
 import org.checkerframework.checker.nullness.qual.NonNull;
 
 /**
- * This wrapper class holds all the annotations found in a given class {@link
- * #mEnclosingClassName}.
+ * This wrapper class holds all the annotations found in a given class {@link #mEnclosingClass}.
+ * The enclosing class is also the single originating element of the generated binder, which lets
+ * incremental builds only regenerate the binders of classes that changed.
  *
  * The {@link #mItemsMap} is a map with sensor types as the key and a value of a map between the
- * annotation class to the method annotated.
+ * annotation class to the methods annotated. The methods inherited from annotated superclasses
+ * are merged into the same map, so a sensor type can have one method per annotation for each
+ * class of the hierarchy, ordered from the topmost superclass to {@link #mEnclosingClass}.
  */
 class AnnotatedMethodsPerClass {
-    @NonNull private String mEnclosingClassName;
-    @NonNull private Map<Integer, Map<Class, AnnotatedMethod>> mItemsMap = new LinkedHashMap<>();
+    @NonNull private final TypeElement mEnclosingClass;
+    @NonNull private Map<Integer, Map<Class, List<AnnotatedMethod>>> mItemsMap =
+        new LinkedHashMap<>();
 
-    AnnotatedMethodsPerClass(@NonNull String enclosingClassName) {
-        this.mEnclosingClassName = enclosingClassName;
+    AnnotatedMethodsPerClass(@NonNull TypeElement enclosingClass) {
+        this.mEnclosingClass = enclosingClass;
     }
 
     void add(@NonNull Class<? extends Annotation> annotationClass, @NonNull AnnotatedMethod method)
         throws ProcessingException {
-        Map<Class, AnnotatedMethod> annotationMap = mItemsMap.get(method.getSensorType());
+        Map<Class, List<AnnotatedMethod>> annotationMap = mItemsMap.get(method.getSensorType());
         if (annotationMap == null) {
             annotationMap = new HashMap<>();
         }
 
-        if (annotationMap.get(annotationClass) != null) {
-            String error =
-                String.format("@%s is already annotated on a different method in class %s",
-                    annotationClass.getSimpleName(), method.getExecutableElement().getSimpleName());
-            throw new ProcessingException(method.getExecutableElement(), error);
+        List<AnnotatedMethod> methods = annotationMap.get(annotationClass);
+        if (methods == null) {
+            methods = new ArrayList<>();
         }
 
-        annotationMap.put(annotationClass, method);
+        // Each class of a hierarchy can annotate one method per annotation and sensor type.
+        for (AnnotatedMethod existingMethod : methods) {
+            if (existingMethod.getExecutableElement().getEnclosingElement()
+                .equals(method.getExecutableElement().getEnclosingElement())) {
+                String error =
+                    String.format("@%s is already annotated on a different method in class %s",
+                        annotationClass.getSimpleName(),
+                        method.getExecutableElement().getSimpleName());
+                throw new ProcessingException(method.getExecutableElement(), error);
+            }
+        }
+
+        methods.add(method);
+        annotationMap.put(annotationClass, methods);
         mItemsMap.put(method.getSensorType(), annotationMap);
     }
 
     boolean hasAnnotationsOfType(Class<? extends Annotation> annotationClass) {
-        for (Map<Class, AnnotatedMethod> values : mItemsMap.values()) {
+        for (Map<Class, List<AnnotatedMethod>> values : mItemsMap.values()) {
             if (values.get(annotationClass) != null) {
                 return true;
             }
@@ -50,11 +68,25 @@ class AnnotatedMethodsPerClass {
         return false;
     }
 
-    @NonNull String getEnclosingClassName() {
-        return mEnclosingClassName;
+    /**
+     * @return All of the annotated methods of the class.
+     */
+    @NonNull List<AnnotatedMethod> getAnnotatedMethods() {
+        List<AnnotatedMethod> annotatedMethods = new ArrayList<>();
+        for (Map<Class, List<AnnotatedMethod>> annotationMap : mItemsMap.values()) {
+            for (List<AnnotatedMethod> methods : annotationMap.values()) {
+                annotatedMethods.addAll(methods);
+            }
+        }
+
+        return annotatedMethods;
+    }
+
+    @NonNull TypeElement getEnclosingClass() {
+        return mEnclosingClass;
     }
 
-    @NonNull Map<Integer, Map<Class, AnnotatedMethod>> getItemsMap() {
+    @NonNull Map<Integer, Map<Class, List<AnnotatedMethod>>> getItemsMap() {
         return mItemsMap;
     }
 }
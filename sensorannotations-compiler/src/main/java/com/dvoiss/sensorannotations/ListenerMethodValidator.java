@@ -0,0 +1,159 @@
+package com.dvoiss.sensorannotations;
+
+import com.dvoiss.sensorannotations.exception.ProcessingException;
+import com.dvoiss.sensorannotations.internal.ListenerMethod;
+import com.google.common.base.Joiner;
+import java.lang.annotation.Annotation;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.Elements;
+import javax.lang.model.util.Types;
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/**
+ * Checks annotated methods against the parameters and the return type declared by the {@link
+ * ListenerMethod} of their annotation.
+ *
+ * The expected parameter types of each annotation are resolved to {@link TypeMirror}s once and
+ * shared by every method checked during a processing round, the method parameters are then
+ * compared with {@link Types#isSameType(TypeMirror, TypeMirror)}.
+ */
+class ListenerMethodValidator {
+    @NonNull private final Elements mElementUtils;
+    @NonNull private final Types mTypeUtils;
+
+    @NonNull private final Map<Class<? extends Annotation>, ExpectedParameters> mCache =
+        new HashMap<>();
+
+    ListenerMethodValidator(@NonNull Elements elementUtils, @NonNull Types typeUtils) {
+        mElementUtils = elementUtils;
+        mTypeUtils = typeUtils;
+    }
+
+    /**
+     * Check the annotated method for the correct parameters and return type needed based on the
+     * annotation.
+     *
+     * @param element The annotated element.
+     * @param annotation The annotation class being checked.
+     * @throws ProcessingException
+     */
+    void validate(@NonNull ExecutableElement element,
+        @NonNull Class<? extends Annotation> annotation) throws ProcessingException {
+        ExpectedParameters expected = getExpectedParameters(annotation);
+        List<? extends VariableElement> parameters = element.getParameters();
+        int requiredCount = expected.mNames.length - expected.mOptionalCount;
+        if (parameters.size() < requiredCount || parameters.size() > expected.mNames.length) {
+            String count = expected.mOptionalCount == 0 ? String.valueOf(requiredCount)
+                : requiredCount + " to " + expected.mNames.length;
+            String error = String.format("@%s methods can only have %s parameter(s). (%s.%s)",
+                annotation.getSimpleName(), count,
+                element.getEnclosingElement().getSimpleName(), element.getSimpleName());
+            throw new ProcessingException(element, error);
+        }
+
+        for (int i = 0; i < parameters.size(); i++) {
+            TypeMirror methodParameterType = parameters.get(i).asType();
+            TypeMirror expectedType = expected.mTypes[i];
+            boolean matches = expectedType != null ? mTypeUtils.isSameType(expectedType,
+                methodParameterType) : expected.mNames[i].equals(methodParameterType.toString());
+            if (!matches) {
+                String error = String.format(
+                    "Method parameters are not valid for @%s annotated method. Expected parameters of type(s): %s. (%s.%s)",
+                    annotation.getSimpleName(), Joiner.on(", ").join(
+                        Arrays.asList(expected.mNames).subList(0, parameters.size())),
+                    element.getEnclosingElement().getSimpleName(), element.getSimpleName());
+                throw new ProcessingException(element, error);
+            }
+        }
+
+        if (expected.mReturnTypeName.isEmpty()) {
+            return;
+        }
+
+        TypeMirror returnType = element.getReturnType();
+        boolean matches = expected.mReturnType != null
+            ? mTypeUtils.isSameType(expected.mReturnType, returnType)
+            : expected.mReturnTypeName.equals(returnType.toString());
+        if (!matches) {
+            String error = String.format("@%s methods must return %s. (%s.%s)",
+                annotation.getSimpleName(), expected.mReturnTypeName,
+                element.getEnclosingElement().getSimpleName(), element.getSimpleName());
+            throw new ProcessingException(element, error);
+        }
+    }
+
+    @NonNull
+    private ExpectedParameters getExpectedParameters(
+        @NonNull Class<? extends Annotation> annotation) {
+        ExpectedParameters expected = mCache.get(annotation);
+        if (expected == null) {
+            ListenerMethod listenerMethod = annotation.getAnnotation(ListenerMethod.class);
+            String[] requiredNames = listenerMethod.parameters();
+            String[] optionalNames = listenerMethod.optionalParameters();
+            String[] names = Arrays.copyOf(requiredNames,
+                requiredNames.length + optionalNames.length);
+            System.arraycopy(optionalNames, 0, names, requiredNames.length, optionalNames.length);
+            TypeMirror[] types = new TypeMirror[names.length];
+            for (int i = 0; i < names.length; i++) {
+                types[i] = resolveType(names[i]);
+            }
+
+            String returnTypeName = listenerMethod.returnType();
+            TypeMirror returnType = returnTypeName.isEmpty() ? null : resolveType(returnTypeName);
+            expected = new ExpectedParameters(names, types, optionalNames.length, returnTypeName,
+                returnType);
+            mCache.put(annotation, expected);
+        }
+
+        return expected;
+    }
+
+    /**
+     * Resolve a parameter type name from {@link ListenerMethod#parameters()}.
+     *
+     * @param name A primitive type name or the canonical name of a class.
+     * @return The type or null if the class isn't on the classpath, in which case the names are
+     * compared instead.
+     */
+    @Nullable
+    private TypeMirror resolveType(@NonNull String name) {
+        try {
+            TypeKind kind = TypeKind.valueOf(name.toUpperCase(Locale.US));
+            if (kind.isPrimitive()) {
+                return mTypeUtils.getPrimitiveType(kind);
+            }
+        } catch (IllegalArgumentException e) {
+            // Not a primitive type.
+        }
+
+        TypeElement typeElement = mElementUtils.getTypeElement(name);
+        return typeElement != null ? typeElement.asType() : null;
+    }
+
+    private static final class ExpectedParameters {
+        @NonNull private final String[] mNames;
+        @NonNull private final TypeMirror[] mTypes;
+        private final int mOptionalCount;
+        @NonNull private final String mReturnTypeName;
+        @Nullable private final TypeMirror mReturnType;
+
+        ExpectedParameters(@NonNull String[] names, @NonNull TypeMirror[] types, int optionalCount,
+            @NonNull String returnTypeName, @Nullable TypeMirror returnType) {
+            mNames = names;
+            mTypes = types;
+            mOptionalCount = optionalCount;
+            mReturnTypeName = returnTypeName;
+            mReturnType = returnType;
+        }
+    }
+}
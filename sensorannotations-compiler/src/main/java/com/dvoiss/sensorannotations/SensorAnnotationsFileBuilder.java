@@ -1,8 +1,6 @@
 package com.dvoiss.sensorannotations;
 
 import com.dvoiss.sensorannotations.exception.ProcessingException;
-import com.dvoiss.sensorannotations.internal.ListenerMethod;
-import com.google.common.base.Joiner;
 import com.squareup.javapoet.ClassName;
 import com.squareup.javapoet.CodeBlock;
 import com.squareup.javapoet.FieldSpec;
@@ -14,21 +12,22 @@ import com.squareup.javapoet.ParameterizedTypeName;
 import com.squareup.javapoet.TypeName;
 import com.squareup.javapoet.TypeSpec;
 import java.io.IOException;
-import java.io.Writer;
 import java.lang.annotation.Annotation;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import javax.annotation.processing.Filer;
 import javax.annotation.processing.ProcessingEnvironment;
+import javax.lang.model.element.Element;
 import javax.lang.model.element.ExecutableElement;
 import javax.lang.model.element.Modifier;
 import javax.lang.model.element.PackageElement;
 import javax.lang.model.element.TypeElement;
-import javax.lang.model.element.VariableElement;
-import javax.lang.model.type.TypeMirror;
 import javax.lang.model.util.Elements;
-import javax.tools.JavaFileObject;
 import org.checkerframework.checker.nullness.qual.NonNull;
 import org.checkerframework.checker.nullness.qual.Nullable;
 
@@ -42,20 +41,36 @@ class SensorAnnotationsFileBuilder {
 
     static final int TYPE_SIGNIFICANT_MOTION = 17;
 
+    private static final int SENSOR_DELAY_FASTEST = 0;
+    private static final int SENSOR_DELAY_GAME = 1;
+    private static final int SENSOR_DELAY_UI = 2;
+    private static final int SENSOR_DELAY_NORMAL = 3;
+
     // region Static Types that are used in the methods below to create types and specs.
 
-    private static final ClassName LISTENER_WRAPPER =
-        ClassName.get("com.dvoiss.sensorannotations.internal", "EventListenerWrapper");
     private static final ClassName SENSOR_EVENT_LISTENER_WRAPPER =
         ClassName.get("com.dvoiss.sensorannotations.internal", "SensorEventListenerWrapper");
     private static final ClassName TRIGGER_EVENT_LISTENER_WRAPPER =
         ClassName.get("com.dvoiss.sensorannotations.internal", "TriggerEventListenerWrapper");
-    private static final ClassName SENSOR_BINDER =
-        ClassName.get("com.dvoiss.sensorannotations.internal", "SensorBinder");
+    private static final ClassName ADAPTIVE_SENSOR_EVENT_LISTENER_WRAPPER =
+        ClassName.get("com.dvoiss.sensorannotations.internal",
+            "AdaptiveSensorEventListenerWrapper");
+    private static final ClassName SENSOR_SELECTOR =
+        ClassName.get("com.dvoiss.sensorannotations.internal", "SensorSelector");
+    private static final ClassName ABSTRACT_SENSOR_BINDER =
+        ClassName.get("com.dvoiss.sensorannotations.internal", "AbstractSensorBinder");
+    private static final ClassName SLIDING_WINDOW_STATS =
+        ClassName.get("com.dvoiss.sensorannotations.internal", "SlidingWindowStats");
+    private static final ClassName SENSOR_CLOCK =
+        ClassName.get("com.dvoiss.sensorannotations.internal", "SensorClock");
+    private static final ClassName RESAMPLER =
+        ClassName.get("com.dvoiss.sensorannotations.internal", "Resampler");
+    private static final ClassName SPECTRAL_ANALYZER =
+        ClassName.get("com.dvoiss.sensorannotations.internal", "SpectralAnalyzer");
+    private static final ClassName WRITE_BEHIND_PIPELINE =
+        ClassName.get("com.dvoiss.sensorannotations.recording", "WriteBehindPipeline");
 
     private static final ClassName SENSOR = ClassName.get("android.hardware", "Sensor");
-    private static final ClassName SENSOR_MANAGER =
-        ClassName.get("android.hardware", "SensorManager");
     private static final ClassName SENSOR_EVENT = ClassName.get("android.hardware", "SensorEvent");
     private static final ClassName TRIGGER_EVENT =
         ClassName.get("android.hardware", "TriggerEvent");
@@ -64,52 +79,39 @@ class SensorAnnotationsFileBuilder {
     private static final ClassName TRIGGER_EVENT_LISTENER =
         ClassName.get("android.hardware", "TriggerEventListener");
     private static final ClassName CONTEXT = ClassName.get("android.content", "Context");
-
-    private static final ClassName LIST = ClassName.get("java.util", "List");
-    private static final ClassName ARRAY_LIST = ClassName.get("java.util", "ArrayList");
-
-    private static final FieldSpec LISTENER_WRAPPERS_FIELD =
-        FieldSpec.builder(ParameterizedTypeName.get(LIST, LISTENER_WRAPPER), "listeners")
-            .addModifiers(Modifier.PRIVATE, Modifier.FINAL)
-            .build();
-    private static final FieldSpec SENSOR_MANAGER_FIELD =
-        FieldSpec.builder(SENSOR_MANAGER, "sensorManager")
-            .addModifiers(Modifier.PRIVATE, Modifier.FINAL)
-            .build();
-    private static final MethodSpec UNBIND_METHOD =
-        getBaseMethodBuilder("unbind").beginControlFlow("if (this.$N != null)",
-            SENSOR_MANAGER_FIELD)
-            .beginControlFlow("for ($T wrapper : $N)", LISTENER_WRAPPER, LISTENER_WRAPPERS_FIELD)
-            .addStatement("wrapper.unregisterListener($N)", SENSOR_MANAGER_FIELD)
-            .endControlFlow()
-            .endControlFlow()
-            .build();
+    private static final ClassName SENSOR_BINDER =
+        ClassName.get("com.dvoiss.sensorannotations.internal", "SensorBinder");
+    private static final ClassName SENSOR_BINDER_FACTORY =
+        ClassName.get("com.dvoiss.sensorannotations.internal", "SensorBinderFactory");
+    private static final ClassName SENSOR_BINDER_INDEX =
+        ClassName.get("com.dvoiss.sensorannotations", "SensorBinderIndex");
 
     // endregion
 
     /**
      * Generates the code for our "Sensor Binder" class and writes it to the same package as the
-     * annotated class.
+     * annotated class. The annotated class is the only originating element of the generated file.
      *
      * @param groupedMethodsMap Map of annotated methods per class.
      * @param elementUtils ElementUtils class from {@link ProcessingEnvironment}.
      * @param filer File writer class from {@link ProcessingEnvironment}.
+     * @param dispatchTable True to generate one listener per binder which dispatches on the sensor
+     * type instead of one listener per sensor type.
      * @throws IOException
      * @throws ProcessingException
      */
     static void generateCode(@NonNull Map<String, AnnotatedMethodsPerClass> groupedMethodsMap,
-        @NonNull Elements elementUtils, @NonNull Filer filer)
+        @NonNull Elements elementUtils, @NonNull Filer filer, boolean dispatchTable)
         throws IOException, ProcessingException {
         for (AnnotatedMethodsPerClass groupedMethods : groupedMethodsMap.values()) {
             // If we've annotated methods in an activity called "ExampleActivity" then that will be
             // the enclosing type element.
-            TypeElement enclosingClassTypeElement =
-                elementUtils.getTypeElement(groupedMethods.getEnclosingClassName());
+            TypeElement enclosingClassTypeElement = groupedMethods.getEnclosingClass();
 
-            // Create the parameterized type that our generated class will implement,
-            // (such as "SensorBinder<ExampleActivity>").
-            ParameterizedTypeName parameterizedInterface = ParameterizedTypeName.get(SENSOR_BINDER,
-                TypeName.get(enclosingClassTypeElement.asType()));
+            // Create the parameterized type that our generated class will extend,
+            // (such as "AbstractSensorBinder<ExampleActivity>").
+            ParameterizedTypeName parameterizedSuperclass = ParameterizedTypeName.get(
+                ABSTRACT_SENSOR_BINDER, TypeName.get(enclosingClassTypeElement.asType()));
 
             // Create the target parameter that will be used in the constructor and bind method,
             // (such as "ExampleActivity").
@@ -119,32 +121,138 @@ class SensorAnnotationsFileBuilder {
                     .build();
 
             MethodSpec constructor =
-                createConstructor(targetParameter, groupedMethods.getItemsMap());
-            MethodSpec bindMethod = createBindMethod(targetParameter, groupedMethods);
-
-            TypeSpec sensorBinderClass =
-                TypeSpec.classBuilder(enclosingClassTypeElement.getSimpleName() + SUFFIX)
-                    .addModifiers(Modifier.FINAL)
-                    .addSuperinterface(parameterizedInterface)
-                    .addField(SENSOR_MANAGER_FIELD)
-                    .addField(LISTENER_WRAPPERS_FIELD)
-                    .addMethod(constructor)
-                    .addMethod(bindMethod)
-                    .addMethod(UNBIND_METHOD)
-                    .build();
+                createConstructor(targetParameter, groupedMethods.getItemsMap(), dispatchTable);
 
             // Output our generated file with the same package as the target class.
             PackageElement packageElement = elementUtils.getPackageOf(enclosingClassTypeElement);
-            JavaFileObject jfo =
-                filer.createSourceFile(enclosingClassTypeElement.getQualifiedName() + SUFFIX);
-            Writer writer = jfo.openWriter();
+            String binderClassName = getBinderClassName(enclosingClassTypeElement, elementUtils);
+            TypeSpec.Builder sensorBinderClassBuilder =
+                TypeSpec.classBuilder(binderClassName)
+                    .addModifiers(Modifier.FINAL)
+                    .addOriginatingElement(enclosingClassTypeElement)
+                    .superclass(parameterizedSuperclass)
+                    .addMethod(constructor);
+            if (groupedMethods.hasAnnotationsOfType(OnSensorNotAvailable.class)) {
+                sensorBinderClassBuilder.addMethod(
+                    createOnSensorNotAvailableMethod(groupedMethods.getItemsMap()));
+            }
+            if (groupedMethods.hasAnnotationsOfType(OnSensorDisconnected.class)) {
+                sensorBinderClassBuilder.addMethod(
+                    createOnSensorDisconnectedMethod(groupedMethods.getItemsMap()));
+            }
+            sensorBinderClassBuilder.addType(createFactory(
+                ClassName.get(packageElement.getQualifiedName().toString(), binderClassName),
+                targetParameter.type));
+            TypeSpec sensorBinderClass = sensorBinderClassBuilder.build();
+
             JavaFile.builder(packageElement.toString(), sensorBinderClass)
                 .addFileComment("This class is generated code from Sensor Lib. Do not modify!")
-                .addStaticImport(CONTEXT, "SENSOR_SERVICE")
                 .build()
-                .writeTo(writer);
-            writer.close();
+                .writeTo(filer);
+        }
+    }
+
+    /**
+     * Create the factory nested in the generated class, which the runtime loads once per class to
+     * create binders without reflection.
+     *
+     * @param binderClassName The generated class.
+     * @param targetType The class that has annotated methods.
+     * @return {@link TypeSpec} representing the {@code Factory} of the generated class.
+     */
+    @NonNull
+    private static TypeSpec createFactory(@NonNull ClassName binderClassName,
+        @NonNull TypeName targetType) {
+        return TypeSpec.classBuilder("Factory")
+            .addModifiers(Modifier.PUBLIC, Modifier.STATIC, Modifier.FINAL)
+            .addSuperinterface(ParameterizedTypeName.get(SENSOR_BINDER_FACTORY, targetType))
+            .addMethod(MethodSpec.methodBuilder("create")
+                .addModifiers(Modifier.PUBLIC)
+                .addAnnotation(Override.class)
+                .returns(ParameterizedTypeName.get(SENSOR_BINDER, targetType))
+                .addParameter(CONTEXT, "context")
+                .addParameter(targetType, "target")
+                .addStatement("return new $T(context, target)", binderClassName)
+                .build())
+            .build();
+    }
+
+    /**
+     * Generates the index of every class with a binder, which the runtime uses to load the
+     * binders and look up the sensors ahead of the first bind. Every indexed class is an
+     * originating element of the index.
+     *
+     * @param indexClassName The fully qualified name of the generated index.
+     * @param indexedClasses The classes with a binder, by binary name.
+     * @param sensorTypes The sensor types the binders listen to.
+     * @param filer File writer class from {@link ProcessingEnvironment}.
+     * @throws IOException
+     */
+    static void generateIndex(@NonNull String indexClassName,
+        @NonNull Map<String, TypeElement> indexedClasses, @NonNull Set<Integer> sensorTypes,
+        @NonNull Filer filer) throws IOException {
+        CodeBlock.Builder classNames = CodeBlock.builder();
+        String separator = "";
+        for (String className : indexedClasses.keySet()) {
+            classNames.add("$L$S", separator, className);
+            separator = ", ";
         }
+
+        CodeBlock.Builder types = CodeBlock.builder();
+        separator = "";
+        for (int sensorType : sensorTypes) {
+            types.add("$L$L", separator, sensorType);
+            separator = ", ";
+        }
+
+        int lastDot = indexClassName.lastIndexOf('.');
+        TypeSpec.Builder indexClassBuilder =
+            TypeSpec.classBuilder(indexClassName.substring(lastDot + 1))
+                .addModifiers(Modifier.PUBLIC, Modifier.FINAL)
+                .addSuperinterface(SENSOR_BINDER_INDEX)
+                .addMethod(MethodSpec.methodBuilder("getTargetClassNames")
+                    .addModifiers(Modifier.PUBLIC)
+                    .addAnnotation(Override.class)
+                    .returns(String[].class)
+                    .addStatement("return new String[] {$L}", classNames.build())
+                    .build())
+                .addMethod(MethodSpec.methodBuilder("getSensorTypes")
+                    .addModifiers(Modifier.PUBLIC)
+                    .addAnnotation(Override.class)
+                    .returns(int[].class)
+                    .addStatement("return new int[] {$L}", types.build())
+                    .build());
+        for (TypeElement indexedClass : indexedClasses.values()) {
+            indexClassBuilder.addOriginatingElement(indexedClass);
+        }
+
+        JavaFile.builder(lastDot < 0 ? "" : indexClassName.substring(0, lastDot),
+            indexClassBuilder.build())
+            .addFileComment("This class is generated code from Sensor Lib. Do not modify!")
+            .build()
+            .writeTo(filer);
+    }
+
+    /**
+     * Returns the simple name of the generated class. The runtime looks up binders with {@code
+     * Class#getName()} so nested classes use their binary name, such as {@code
+     * Outer$Inner$$SensorBinder}.
+     *
+     * @param enclosingClassTypeElement The class that has annotated methods.
+     * @param elementUtils ElementUtils class from {@link ProcessingEnvironment}.
+     * @return The name of the generated class without the package.
+     */
+    @NonNull
+    private static String getBinderClassName(@NonNull TypeElement enclosingClassTypeElement,
+        @NonNull Elements elementUtils) {
+        String binaryName = elementUtils.getBinaryName(enclosingClassTypeElement).toString();
+        String packageName =
+            elementUtils.getPackageOf(enclosingClassTypeElement).getQualifiedName().toString();
+        if (!packageName.isEmpty()) {
+            binaryName = binaryName.substring(packageName.length() + 1);
+        }
+
+        return binaryName + SUFFIX;
     }
 
     /**
@@ -152,54 +260,82 @@ class SensorAnnotationsFileBuilder {
      *
      * @param targetParameter The target class that has annotated methods.
      * @param itemsMap A map of sensor types found in the annotations with the annotated methods.
+     * @param dispatchTable True to share one {@code SensorEventListener} between sensor types.
      * @return {@link MethodSpec} representing the constructor of our generated class.
      */
     @NonNull
     private static MethodSpec createConstructor(@NonNull ParameterSpec targetParameter,
-        @NonNull Map<Integer, Map<Class, AnnotatedMethod>> itemsMap) throws ProcessingException {
+        @NonNull Map<Integer, Map<Class, List<AnnotatedMethod>>> itemsMap, boolean dispatchTable)
+        throws ProcessingException {
         ParameterSpec contextParameter = ParameterSpec.builder(CONTEXT, "context").build();
         Builder constructorBuilder = MethodSpec.constructorBuilder()
             .addModifiers(Modifier.PUBLIC)
             .addParameter(contextParameter)
             .addParameter(targetParameter)
-            .addStatement("this.$N = ($T) $N.getSystemService(SENSOR_SERVICE)",
-                SENSOR_MANAGER_FIELD, SENSOR_MANAGER, contextParameter)
-            .addStatement("this.$N = new $T()", LISTENER_WRAPPERS_FIELD, ARRAY_LIST);
+            .addStatement("super($N, $N)", contextParameter, targetParameter);
 
         // Loop through the sensor types that we have annotations for and create the listeners which
         // will call the annotated methods on our target class.
+        List<Integer> dispatchedSensorTypes = new ArrayList<>();
         for (Integer sensorType : itemsMap.keySet()) {
-            Map<Class, AnnotatedMethod> annotationMap = itemsMap.get(sensorType);
-            AnnotatedMethod sensorChangedAnnotatedMethod = annotationMap.get(OnSensorChanged.class);
-            AnnotatedMethod accuracyChangedAnnotatedMethod =
-                annotationMap.get(OnAccuracyChanged.class);
-            AnnotatedMethod triggerAnnotatedMethod = annotationMap.get(OnTrigger.class);
-
-            if (sensorType == TYPE_SIGNIFICANT_MOTION && (accuracyChangedAnnotatedMethod != null
-                || sensorChangedAnnotatedMethod != null)) {
+            Map<Class, List<AnnotatedMethod>> annotationMap = itemsMap.get(sensorType);
+            List<AnnotatedMethod> sensorChangedAnnotatedMethods =
+                getAnnotatedMethods(annotationMap, OnSensorChanged.class);
+            List<AnnotatedMethod> accuracyChangedAnnotatedMethods =
+                getAnnotatedMethods(annotationMap, OnAccuracyChanged.class);
+            List<AnnotatedMethod> triggerAnnotatedMethods =
+                getAnnotatedMethods(annotationMap, OnTrigger.class);
+            List<AnnotatedMethod> statsAnnotatedMethods =
+                getAnnotatedMethods(annotationMap, OnSensorStats.class);
+            List<AnnotatedMethod> persistAnnotatedMethods =
+                getAnnotatedMethods(annotationMap, Persist.class);
+            List<AnnotatedMethod> resampleAnnotatedMethods =
+                getAnnotatedMethods(annotationMap, Resample.class);
+            List<AnnotatedMethod> spectrumAnnotatedMethods =
+                getAnnotatedMethods(annotationMap, OnSpectrum.class);
+            boolean hasSensorEventMethods = !sensorChangedAnnotatedMethods.isEmpty()
+                || !accuracyChangedAnnotatedMethods.isEmpty() || !statsAnnotatedMethods.isEmpty()
+                || !persistAnnotatedMethods.isEmpty() || !resampleAnnotatedMethods.isEmpty()
+                || !spectrumAnnotatedMethods.isEmpty();
+
+            if (sensorType == TYPE_SIGNIFICANT_MOTION && hasSensorEventMethods) {
                 throw new ProcessingException(null, String.format(
-                    "@%s and @%s are not supported for the \"TYPE_SIGNIFICANT_MOTION\" type. Use @%s for this type.",
+                    "@%s, @%s, @%s, @%s, @%s and @%s are not supported for the \"TYPE_SIGNIFICANT_MOTION\" type. Use @%s for this type.",
                     OnSensorChanged.class.getSimpleName(), OnAccuracyChanged.class.getSimpleName(),
+                    OnSensorStats.class.getSimpleName(), Persist.class.getSimpleName(),
+                    Resample.class.getSimpleName(), OnSpectrum.class.getSimpleName(),
                     OnTrigger.class.getSimpleName()));
-            } else if (sensorType != TYPE_SIGNIFICANT_MOTION && triggerAnnotatedMethod != null) {
+            } else if (sensorType != TYPE_SIGNIFICANT_MOTION
+                && !triggerAnnotatedMethods.isEmpty()) {
                 throw new ProcessingException(null, String.format(
                     "The @%s is only supported for the \"TYPE_SIGNIFICANT_MOTION\" type.",
                     OnTrigger.class.getSimpleName()));
             }
 
             CodeBlock listenerWrapperCodeBlock;
-            if (triggerAnnotatedMethod != null) {
-                listenerWrapperCodeBlock = createTriggerListenerWrapper(triggerAnnotatedMethod);
+            if (!triggerAnnotatedMethods.isEmpty()) {
+                listenerWrapperCodeBlock = createTriggerListenerWrapper(triggerAnnotatedMethods);
                 constructorBuilder.addCode(listenerWrapperCodeBlock);
-            } else if (sensorChangedAnnotatedMethod != null
-                || accuracyChangedAnnotatedMethod != null) {
+            } else if (hasSensorEventMethods) {
+                if (dispatchTable) {
+                    dispatchedSensorTypes.add(sensorType);
+                    continue;
+                }
+
                 listenerWrapperCodeBlock =
-                    createSensorListenerWrapper(sensorType, sensorChangedAnnotatedMethod,
-                        accuracyChangedAnnotatedMethod);
+                    createSensorListenerWrapper(sensorType, sensorChangedAnnotatedMethods,
+                        accuracyChangedAnnotatedMethods, statsAnnotatedMethods,
+                        persistAnnotatedMethods, resampleAnnotatedMethods,
+                        spectrumAnnotatedMethods);
                 constructorBuilder.addCode(listenerWrapperCodeBlock);
             }
         }
 
+        if (!dispatchedSensorTypes.isEmpty()) {
+            constructorBuilder.addCode(
+                createDispatchTableListenerWrappers(dispatchedSensorTypes, itemsMap));
+        }
+
         return constructorBuilder.build();
     }
 
@@ -207,26 +343,23 @@ class SensorAnnotationsFileBuilder {
      * Create an {@code EventListenerWrapper} that contains the {@code TriggerEventListener} and
      * calls the annotated methods on our target.
      *
-     * @param triggerAnnotatedMethod Method annotated with {@link OnTrigger}.
+     * @param triggerAnnotatedMethods Methods annotated with {@link OnTrigger}.
      * @return {@link CodeBlock} of the {@code EventListenerWrapper}.
      */
     @NonNull
     private static CodeBlock createTriggerListenerWrapper(
-        @NonNull AnnotatedMethod triggerAnnotatedMethod) throws ProcessingException {
-        checkAnnotatedMethodForErrors(triggerAnnotatedMethod.getExecutableElement(),
-            OnTrigger.class);
-
+        @NonNull List<AnnotatedMethod> triggerAnnotatedMethods) throws ProcessingException {
         CodeBlock listenerBlock = CodeBlock.builder()
             .add("new $T() {\n", TRIGGER_EVENT_LISTENER)
             .indent()
-            .add(createOnTriggerListenerMethod(triggerAnnotatedMethod).toString())
+            .add(createOnTriggerListenerMethod(triggerAnnotatedMethods).toString())
             .unindent()
             .add("}")
             .build();
 
         return CodeBlock.builder()
-            .addStatement("this.$N.add(new $T($L))", LISTENER_WRAPPERS_FIELD,
-                TRIGGER_EVENT_LISTENER_WRAPPER, listenerBlock)
+            .addStatement("addListener(new $T($L))", TRIGGER_EVENT_LISTENER_WRAPPER,
+                listenerBlock)
             .build();
     }
 
@@ -235,45 +368,292 @@ class SensorAnnotationsFileBuilder {
      * SensorEventListener} and calls the annotated methods on our target.
      *
      * @param sensorType The {@code Sensor} type.
-     * @param sensorChangedAnnotatedMethod Method annotated with {@link OnSensorChanged}.
-     * @param accuracyChangedAnnotatedMethod Method annotated with {@link OnAccuracyChanged}.
+     * @param sensorChangedAnnotatedMethods Methods annotated with {@link OnSensorChanged}.
+     * @param accuracyChangedAnnotatedMethods Methods annotated with {@link OnAccuracyChanged}.
+     * @param statsAnnotatedMethods Methods annotated with {@link OnSensorStats}.
+     * @param persistAnnotatedMethods Methods annotated with {@link Persist}.
+     * @param resampleAnnotatedMethods Methods annotated with {@link Resample}.
+     * @param spectrumAnnotatedMethods Methods annotated with {@link OnSpectrum}.
      * @return {@link CodeBlock} of the {@code EventListenerWrapper}.
      */
     @NonNull
     private static CodeBlock createSensorListenerWrapper(int sensorType,
-        @Nullable AnnotatedMethod sensorChangedAnnotatedMethod,
-        @Nullable AnnotatedMethod accuracyChangedAnnotatedMethod) throws ProcessingException {
-        if (sensorChangedAnnotatedMethod != null) {
-            checkAnnotatedMethodForErrors(sensorChangedAnnotatedMethod.getExecutableElement(),
-                OnSensorChanged.class);
-        }
-        if (accuracyChangedAnnotatedMethod != null) {
-            checkAnnotatedMethodForErrors(accuracyChangedAnnotatedMethod.getExecutableElement(),
-                OnAccuracyChanged.class);
-        }
-
-        CodeBlock listenerBlock = CodeBlock.builder()
+        @NonNull List<AnnotatedMethod> sensorChangedAnnotatedMethods,
+        @NonNull List<AnnotatedMethod> accuracyChangedAnnotatedMethods,
+        @NonNull List<AnnotatedMethod> statsAnnotatedMethods,
+        @NonNull List<AnnotatedMethod> persistAnnotatedMethods,
+        @NonNull List<AnnotatedMethod> resampleAnnotatedMethods,
+        @NonNull List<AnnotatedMethod> spectrumAnnotatedMethods) throws ProcessingException {
+        CodeBlock.Builder listenerBlockBuilder = CodeBlock.builder()
             .add("new $T() {\n", SENSOR_EVENT_LISTENER)
-            .indent()
-            .add(createOnSensorChangedListenerMethod(sensorChangedAnnotatedMethod).toString())
-            .add(createOnAccuracyChangedListenerMethod(accuracyChangedAnnotatedMethod).toString())
+            .indent();
+        addStatsFields(listenerBlockBuilder, statsAnnotatedMethods, "stats");
+        addResamplerFields(listenerBlockBuilder, resampleAnnotatedMethods, "resampler");
+        addSpectrumFields(listenerBlockBuilder, spectrumAnnotatedMethods, "spectrum");
+        CodeBlock listenerBlock = listenerBlockBuilder.add(
+            createOnSensorChangedListenerMethod(sensorChangedAnnotatedMethods,
+                statsAnnotatedMethods, persistAnnotatedMethods, resampleAnnotatedMethods,
+                spectrumAnnotatedMethods).toString())
+            .add(createOnAccuracyChangedListenerMethod(accuracyChangedAnnotatedMethods).toString())
             .unindent()
             .add("}")
             .build();
 
-        int delay =
-            getDelayForListener(sensorChangedAnnotatedMethod, accuracyChangedAnnotatedMethod);
+        return createSensorListenerWrapperStatement(sensorType, listenerBlock,
+            sensorChangedAnnotatedMethods, accuracyChangedAnnotatedMethods, statsAnnotatedMethods,
+            persistAnnotatedMethods, resampleAnnotatedMethods, spectrumAnnotatedMethods);
+    }
 
-        if (delay == INVALID_DELAY) {
-            String error =
-                String.format("@%s or @%s needs a delay value specified in the annotation",
-                    OnSensorChanged.class.getSimpleName(), OnAccuracyChanged.class.getSimpleName());
-            throw new ProcessingException(null, error);
+    /**
+     * Create the statement adding the {@code SensorEventListenerWrapper} of a sensor type. The
+     * wrapper only gets a {@code SensorSelector} if one of the annotations selects sensors, the
+     * default sensor of the type is used otherwise. An {@code
+     * AdaptiveSensorEventListenerWrapper} is used if an {@link OnSensorChanged} method sets an
+     * idle delay.
+     *
+     * @param sensorType The {@code Sensor} type.
+     * @param listener The listener expression.
+     * @param sensorChangedAnnotatedMethods Methods annotated with {@link OnSensorChanged}.
+     * @param accuracyChangedAnnotatedMethods Methods annotated with {@link OnAccuracyChanged}.
+     * @param statsAnnotatedMethods Methods annotated with {@link OnSensorStats}.
+     * @param persistAnnotatedMethods Methods annotated with {@link Persist}.
+     * @param resampleAnnotatedMethods Methods annotated with {@link Resample}.
+     * @param spectrumAnnotatedMethods Methods annotated with {@link OnSpectrum}.
+     * @return {@link CodeBlock} of the statement.
+     */
+    @NonNull
+    private static CodeBlock createSensorListenerWrapperStatement(int sensorType,
+        @NonNull Object listener, @NonNull List<AnnotatedMethod> sensorChangedAnnotatedMethods,
+        @NonNull List<AnnotatedMethod> accuracyChangedAnnotatedMethods,
+        @NonNull List<AnnotatedMethod> statsAnnotatedMethods,
+        @NonNull List<AnnotatedMethod> persistAnnotatedMethods,
+        @NonNull List<AnnotatedMethod> resampleAnnotatedMethods,
+        @NonNull List<AnnotatedMethod> spectrumAnnotatedMethods) throws ProcessingException {
+        int delay = getListenerDelay(sensorChangedAnnotatedMethods,
+            accuracyChangedAnnotatedMethods, statsAnnotatedMethods, persistAnnotatedMethods,
+            resampleAnnotatedMethods, spectrumAnnotatedMethods);
+        AnnotatedMethod selection = getSensorSelection(sensorChangedAnnotatedMethods,
+            accuracyChangedAnnotatedMethods, statsAnnotatedMethods, resampleAnnotatedMethods,
+            spectrumAnnotatedMethods);
+
+        int idleDelay = getIdleDelay(sensorChangedAnnotatedMethods, delay);
+
+        CodeBlock.Builder wrapperBuilder = CodeBlock.builder();
+        if (idleDelay == INVALID_DELAY) {
+            wrapperBuilder.add("new $T($L, $L", SENSOR_EVENT_LISTENER_WRAPPER, sensorType, delay);
+        } else {
+            wrapperBuilder.add("new $T($L, $L, $L", ADAPTIVE_SENSOR_EVENT_LISTENER_WRAPPER,
+                sensorType, delay, idleDelay);
+        }
+
+        if (selection != null) {
+            wrapperBuilder.add(", new $T($T.$L, $S, $S, $L)", SENSOR_SELECTOR, WakeUp.class,
+                selection.getWakeUp().name(), selection.getNameMatches(),
+                selection.getVendorMatches(), selection.isAll());
+        }
+        wrapperBuilder.add(", $L)", listener);
+
+        return CodeBlock.builder()
+            .addStatement("addListener($L)", wrapperBuilder.build())
+            .build();
+    }
+
+    /**
+     * Returns the idle delay of a listener with adaptive sampling. If several methods set an idle
+     * delay the fastest one is used, like the delay of the listener.
+     *
+     * @param sensorChangedAnnotatedMethods Methods annotated with {@link OnSensorChanged}.
+     * @param delay The delay of the listener.
+     * @return The idle delay or {@link AnnotatedMethod#INVALID_DELAY} if no method opted in.
+     * @throws ProcessingException If the idle delay isn't slower than the delay of the listener.
+     */
+    private static int getIdleDelay(@NonNull List<AnnotatedMethod> sensorChangedAnnotatedMethods,
+        int delay) throws ProcessingException {
+        AnnotatedMethod idleMethod = null;
+        for (AnnotatedMethod method : sensorChangedAnnotatedMethods) {
+            if (method.getIdleDelay() != INVALID_DELAY && (idleMethod == null
+                || getDelayPeriodUs(method.getIdleDelay())
+                < getDelayPeriodUs(idleMethod.getIdleDelay()))) {
+                idleMethod = method;
+            }
+        }
+
+        if (idleMethod == null) {
+            return INVALID_DELAY;
+        }
+
+        if (getDelayPeriodUs(idleMethod.getIdleDelay()) <= getDelayPeriodUs(delay)) {
+            ExecutableElement element = idleMethod.getExecutableElement();
+            throw new ProcessingException(element, String.format(
+                "The idleDelay of @%s must be slower than the delay of the listener. (%s.%s)",
+                OnSensorChanged.class.getSimpleName(),
+                element.getEnclosingElement().getSimpleName(), element.getSimpleName()));
+        }
+
+        return idleMethod.getIdleDelay();
+    }
+
+    /**
+     * Find the annotation that selects the sensors of a listener. All annotations of the listener
+     * that select sensors must select the same sensors.
+     *
+     * @return The method whose annotation selects the sensors or null if the default sensor of
+     * the type is used.
+     * @throws ProcessingException If the annotations select different sensors or if statistics,
+     * resampled events or spectra are requested for all sensors of the type.
+     */
+    @Nullable
+    private static AnnotatedMethod getSensorSelection(
+        @NonNull List<AnnotatedMethod> sensorChangedAnnotatedMethods,
+        @NonNull List<AnnotatedMethod> accuracyChangedAnnotatedMethods,
+        @NonNull List<AnnotatedMethod> statsAnnotatedMethods,
+        @NonNull List<AnnotatedMethod> resampleAnnotatedMethods,
+        @NonNull List<AnnotatedMethod> spectrumAnnotatedMethods) throws ProcessingException {
+        List<AnnotatedMethod> annotatedMethods = new ArrayList<>(sensorChangedAnnotatedMethods);
+        annotatedMethods.addAll(accuracyChangedAnnotatedMethods);
+        annotatedMethods.addAll(statsAnnotatedMethods);
+
+        AnnotatedMethod selection = null;
+        for (AnnotatedMethod annotatedMethod : annotatedMethods) {
+            if (!annotatedMethod.hasSensorSelection()) {
+                continue;
+            }
+
+            if (selection == null) {
+                selection = annotatedMethod;
+            } else if (!selection.hasSameSensorSelection(annotatedMethod)) {
+                ExecutableElement element = annotatedMethod.getExecutableElement();
+                throw new ProcessingException(element, String.format(
+                    "The annotations of sensor type %d select different sensors. Use the same wakeUp, nameMatches, vendorMatches and all values. (%s.%s)",
+                    annotatedMethod.getSensorType(), element.getEnclosingElement().getSimpleName(),
+                    element.getSimpleName()));
+            }
+        }
+
+        if (selection != null && selection.isAll()) {
+            checkNotForAllSensors(statsAnnotatedMethods, OnSensorStats.class,
+                "the statistics of several sensors can't share a window");
+            checkNotForAllSensors(resampleAnnotatedMethods, Resample.class,
+                "the events of several sensors can't share a resampler");
+            checkNotForAllSensors(spectrumAnnotatedMethods, OnSpectrum.class,
+                "the samples of several sensors can't share a window");
+        }
+
+        return selection;
+    }
+
+    /**
+     * Reject methods whose state is built from the events of a single sensor on a listener
+     * selecting all sensors of the type.
+     *
+     * @param annotatedMethods The methods of the listener with the annotation.
+     * @param annotation The annotation of the methods.
+     * @param reason Why the annotation can't be used with all sensors.
+     * @throws ProcessingException If there is such a method.
+     */
+    private static void checkNotForAllSensors(@NonNull List<AnnotatedMethod> annotatedMethods,
+        @NonNull Class<? extends Annotation> annotation, @NonNull String reason)
+        throws ProcessingException {
+        if (annotatedMethods.isEmpty()) {
+            return;
+        }
+
+        ExecutableElement element = annotatedMethods.get(0).getExecutableElement();
+        throw new ProcessingException(element, String.format(
+            "@%s can't be used with all = true, %s. (%s.%s)", annotation.getSimpleName(), reason,
+            element.getEnclosingElement().getSimpleName(), element.getSimpleName()));
+    }
+
+    /**
+     * Create a single {@code SensorEventListener} for all of the given sensor types which
+     * dispatches events to the annotated methods with a {@code switch} on the sensor type, then
+     * add an {@code EventListenerWrapper} of it for each sensor type.
+     * <p>
+     * Compared to one anonymous listener per sensor type this generates one class per binder and
+     * keeps the {@code onSensorChanged} call sites of the framework monomorphic per binder.
+     *
+     * @param sensorTypes The sensor types that have {@code SensorEventListener} annotations.
+     * @param itemsMap A map of sensor types found in the annotations with the annotated methods.
+     * @return {@link CodeBlock} declaring the listener and adding the wrappers.
+     */
+    @NonNull
+    private static CodeBlock createDispatchTableListenerWrappers(
+        @NonNull List<Integer> sensorTypes,
+        @NonNull Map<Integer, Map<Class, List<AnnotatedMethod>>> itemsMap)
+        throws ProcessingException {
+        ParameterSpec sensorEventParameter = ParameterSpec.builder(SENSOR_EVENT, "event").build();
+        ParameterSpec sensorParameter = ParameterSpec.builder(SENSOR, "sensor").build();
+        ParameterSpec accuracyParameter = ParameterSpec.builder(TypeName.INT, "accuracy").build();
+
+        Builder sensorChangedBuilder = getBaseMethodBuilder("onSensorChanged")
+            .addParameter(sensorEventParameter)
+            .beginControlFlow("switch ($N.sensor.getType())", sensorEventParameter);
+        Builder accuracyChangedBuilder = getBaseMethodBuilder("onAccuracyChanged")
+            .addParameter(sensorParameter)
+            .addParameter(accuracyParameter)
+            .beginControlFlow("switch ($N.getType())", sensorParameter);
+
+        CodeBlock.Builder listenerBlockBuilder = CodeBlock.builder()
+            .add("new $T() {\n", SENSOR_EVENT_LISTENER)
+            .indent();
+        CodeBlock.Builder wrappersBuilder = CodeBlock.builder();
+        for (Integer sensorType : sensorTypes) {
+            Map<Class, List<AnnotatedMethod>> annotationMap = itemsMap.get(sensorType);
+            List<AnnotatedMethod> sensorChangedAnnotatedMethods =
+                getAnnotatedMethods(annotationMap, OnSensorChanged.class);
+            List<AnnotatedMethod> accuracyChangedAnnotatedMethods =
+                getAnnotatedMethods(annotationMap, OnAccuracyChanged.class);
+            List<AnnotatedMethod> statsAnnotatedMethods =
+                getAnnotatedMethods(annotationMap, OnSensorStats.class);
+            List<AnnotatedMethod> persistAnnotatedMethods =
+                getAnnotatedMethods(annotationMap, Persist.class);
+            List<AnnotatedMethod> resampleAnnotatedMethods =
+                getAnnotatedMethods(annotationMap, Resample.class);
+            List<AnnotatedMethod> spectrumAnnotatedMethods =
+                getAnnotatedMethods(annotationMap, OnSpectrum.class);
+
+            String statsFieldName = "stats" + sensorType;
+            addStatsFields(listenerBlockBuilder, statsAnnotatedMethods, statsFieldName);
+            String resamplerFieldName = "resampler" + sensorType;
+            addResamplerFields(listenerBlockBuilder, resampleAnnotatedMethods,
+                resamplerFieldName);
+            String spectrumFieldName = "spectrum" + sensorType;
+            addSpectrumFields(listenerBlockBuilder, spectrumAnnotatedMethods, spectrumFieldName);
+
+            if (!sensorChangedAnnotatedMethods.isEmpty() || !statsAnnotatedMethods.isEmpty()
+                || !persistAnnotatedMethods.isEmpty() || !resampleAnnotatedMethods.isEmpty()
+                || !spectrumAnnotatedMethods.isEmpty()) {
+                sensorChangedBuilder.addCode("case $L:\n$>", sensorType);
+                addSensorChangedStatements(sensorChangedBuilder, sensorEventParameter,
+                    sensorChangedAnnotatedMethods, statsAnnotatedMethods, persistAnnotatedMethods,
+                    resampleAnnotatedMethods, spectrumAnnotatedMethods, statsFieldName,
+                    resamplerFieldName, spectrumFieldName, "pipeline" + sensorType);
+                sensorChangedBuilder.addStatement("break").addCode("$<");
+            }
+
+            if (!accuracyChangedAnnotatedMethods.isEmpty()) {
+                accuracyChangedBuilder.addCode("case $L:\n$>", sensorType);
+                addAccuracyChangedStatements(accuracyChangedBuilder, sensorParameter,
+                    accuracyParameter, accuracyChangedAnnotatedMethods);
+                accuracyChangedBuilder.addStatement("break").addCode("$<");
+            }
+
+            wrappersBuilder.add(createSensorListenerWrapperStatement(sensorType, "dispatcher",
+                sensorChangedAnnotatedMethods, accuracyChangedAnnotatedMethods,
+                statsAnnotatedMethods, persistAnnotatedMethods, resampleAnnotatedMethods,
+                spectrumAnnotatedMethods));
         }
 
+        CodeBlock listenerBlock =
+            listenerBlockBuilder.add(sensorChangedBuilder.endControlFlow().build().toString())
+                .add(accuracyChangedBuilder.endControlFlow().build().toString())
+                .unindent()
+                .add("}")
+                .build();
+
         return CodeBlock.builder()
-            .addStatement("this.$N.add(new $T($L, $L, $L))", LISTENER_WRAPPERS_FIELD,
-                SENSOR_EVENT_LISTENER_WRAPPER, sensorType, delay, listenerBlock)
+            .addStatement("final $T dispatcher = $L", SENSOR_EVENT_LISTENER, listenerBlock)
+            .add(wrappersBuilder.build())
             .build();
     }
 
@@ -281,152 +661,507 @@ class SensorAnnotationsFileBuilder {
      * Creates the implementation of {@code TriggerEventListener#onTrigger(TriggerEvent)} which
      * calls the annotated method on our target class.
      *
-     * @param annotatedMethod Method annotated with {@code OnTrigger}.
+     * @param annotatedMethods Methods annotated with {@code OnTrigger}.
      * @return {@link MethodSpec} of {@code TriggerEventListener#onTrigger(TriggerEvent)}.
      */
     @NonNull
     private static MethodSpec createOnTriggerListenerMethod(
-        @NonNull AnnotatedMethod annotatedMethod) {
+        @NonNull List<AnnotatedMethod> annotatedMethods) {
         ParameterSpec triggerEventParameter = ParameterSpec.builder(TRIGGER_EVENT, "event").build();
-        ExecutableElement triggerExecutableElement = annotatedMethod.getExecutableElement();
-        return getBaseMethodBuilder("onTrigger").addParameter(triggerEventParameter)
-            .addStatement("target.$L($N)", triggerExecutableElement.getSimpleName(),
-                triggerEventParameter)
+        Builder methodBuilder =
+            getBaseMethodBuilder("onTrigger").addParameter(triggerEventParameter);
+        for (AnnotatedMethod annotatedMethod : annotatedMethods) {
+            ExecutableElement triggerExecutableElement = annotatedMethod.getExecutableElement();
+            methodBuilder.addStatement("target.$L($N)", triggerExecutableElement.getSimpleName(),
+                triggerEventParameter);
+        }
+
+        return methodBuilder.build();
+    }
+
+    /**
+     * Adds a stats field to the listener for each method annotated with {@link OnSensorStats}.
+     * The first field is named {@code baseName}, the fields of the methods inherited from other
+     * classes of the hierarchy get an index suffix.
+     *
+     * @param listenerBlockBuilder The builder of the anonymous listener class.
+     * @param statsAnnotatedMethods Methods annotated with {@link OnSensorStats}.
+     * @param baseName The name of the first stats field.
+     */
+    private static void addStatsFields(CodeBlock.Builder listenerBlockBuilder,
+        @NonNull List<AnnotatedMethod> statsAnnotatedMethods, @NonNull String baseName)
+        throws ProcessingException {
+        for (int i = 0; i < statsAnnotatedMethods.size(); i++) {
+            listenerBlockBuilder.add(createStatsField(statsAnnotatedMethods.get(i),
+                getStatsFieldName(baseName, i)).toString());
+        }
+    }
+
+    @NonNull
+    private static String getStatsFieldName(@NonNull String baseName, int index) {
+        return index == 0 ? baseName : baseName + "_" + index;
+    }
+
+    /**
+     * Creates the field holding the {@code SlidingWindowStats} of the listener which keeps the
+     * statistics for a method annotated with {@link OnSensorStats}.
+     *
+     * @param statsAnnotatedMethod Method annotated with {@link OnSensorStats}.
+     * @param fieldName The name of the field.
+     * @return {@link FieldSpec} of the stats field.
+     */
+    @NonNull
+    private static FieldSpec createStatsField(@NonNull AnnotatedMethod statsAnnotatedMethod,
+        @NonNull String fieldName) throws ProcessingException {
+        ExecutableElement element = statsAnnotatedMethod.getExecutableElement();
+        OnSensorStats annotation = element.getAnnotation(OnSensorStats.class);
+        if (annotation.windowMs() <= 0 || annotation.emitEveryMs() <= 0) {
+            throw new ProcessingException(element,
+                String.format("@%s needs a positive windowMs and emitEveryMs. (%s.%s)",
+                    OnSensorStats.class.getSimpleName(),
+                    element.getEnclosingElement().getSimpleName(), element.getSimpleName()));
+        }
+
+        return FieldSpec.builder(SLIDING_WINDOW_STATS, fieldName)
+            .addModifiers(Modifier.PRIVATE, Modifier.FINAL)
+            .initializer("new $T($L, $L)", SLIDING_WINDOW_STATS, annotation.windowMs(),
+                annotation.emitEveryMs())
+            .build();
+    }
+
+    /**
+     * Adds a {@code Resampler} field to the listener for each method annotated with {@link
+     * Resample}, named like the stats fields.
+     *
+     * @param listenerBlockBuilder The builder of the anonymous listener class.
+     * @param resampleAnnotatedMethods Methods annotated with {@link Resample}.
+     * @param baseName The name of the first resampler field.
+     */
+    private static void addResamplerFields(CodeBlock.Builder listenerBlockBuilder,
+        @NonNull List<AnnotatedMethod> resampleAnnotatedMethods, @NonNull String baseName)
+        throws ProcessingException {
+        for (int i = 0; i < resampleAnnotatedMethods.size(); i++) {
+            ExecutableElement element = resampleAnnotatedMethods.get(i).getExecutableElement();
+            Resample annotation = element.getAnnotation(Resample.class);
+            if (annotation.hz() <= 0) {
+                throw new ProcessingException(element,
+                    String.format("@%s needs a positive hz. (%s.%s)",
+                        Resample.class.getSimpleName(),
+                        element.getEnclosingElement().getSimpleName(), element.getSimpleName()));
+            }
+
+            listenerBlockBuilder.add(FieldSpec.builder(RESAMPLER, getStatsFieldName(baseName, i))
+                .addModifiers(Modifier.PRIVATE, Modifier.FINAL)
+                .initializer("new $T($L, $T.$L)", RESAMPLER, annotation.hz(), Interpolation.class,
+                    annotation.method().name())
+                .build()
+                .toString());
+        }
+    }
+
+    /**
+     * Adds a {@code SpectralAnalyzer} field to the listener for each method annotated with {@link
+     * OnSpectrum}, named like the stats fields.
+     *
+     * @param listenerBlockBuilder The builder of the anonymous listener class.
+     * @param spectrumAnnotatedMethods Methods annotated with {@link OnSpectrum}.
+     * @param baseName The name of the first spectrum field.
+     */
+    private static void addSpectrumFields(CodeBlock.Builder listenerBlockBuilder,
+        @NonNull List<AnnotatedMethod> spectrumAnnotatedMethods, @NonNull String baseName)
+        throws ProcessingException {
+        for (int i = 0; i < spectrumAnnotatedMethods.size(); i++) {
+            listenerBlockBuilder.add(createSpectrumField(spectrumAnnotatedMethods.get(i),
+                getStatsFieldName(baseName, i)).toString());
+        }
+    }
+
+    /**
+     * Creates the field holding the {@code SpectralAnalyzer} of the listener which computes the
+     * spectra for a method annotated with {@link OnSpectrum}.
+     *
+     * @param spectrumAnnotatedMethod Method annotated with {@link OnSpectrum}.
+     * @param fieldName The name of the field.
+     * @return {@link FieldSpec} of the spectrum field.
+     */
+    @NonNull
+    private static FieldSpec createSpectrumField(@NonNull AnnotatedMethod spectrumAnnotatedMethod,
+        @NonNull String fieldName) throws ProcessingException {
+        ExecutableElement element = spectrumAnnotatedMethod.getExecutableElement();
+        OnSpectrum annotation = element.getAnnotation(OnSpectrum.class);
+        String error = getSpectrumError(annotation);
+        if (error != null) {
+            throw new ProcessingException(element,
+                String.format("@%s needs %s. (%s.%s)", OnSpectrum.class.getSimpleName(), error,
+                    element.getEnclosingElement().getSimpleName(), element.getSimpleName()));
+        }
+
+        StringBuilder bands = new StringBuilder();
+        for (float edge : annotation.bands()) {
+            bands.append(bands.length() == 0 ? "" : ", ").append(edge).append('f');
+        }
+
+        return FieldSpec.builder(SPECTRAL_ANALYZER, fieldName)
+            .addModifiers(Modifier.PRIVATE, Modifier.FINAL)
+            .initializer("new $T($L, $L, $L, $L, new float[] {$L})", SPECTRAL_ANALYZER,
+                annotation.hz(), annotation.size(), annotation.hop(), annotation.axis(), bands)
             .build();
     }
 
+    /**
+     * @return What is wrong with the attributes of the annotation or null if they are valid.
+     */
+    @Nullable
+    private static String getSpectrumError(@NonNull OnSpectrum annotation) {
+        int size = annotation.size();
+        if (annotation.hz() <= 0) {
+            return "a positive hz";
+        } else if (size < 8 || (size & (size - 1)) != 0) {
+            return "a size that is a power of two of at least 8";
+        } else if (annotation.hop() <= 0 || annotation.hop() > size) {
+            return "a hop between 1 and the size";
+        } else if (annotation.axis() < OnSpectrum.MAGNITUDE) {
+            return "a non-negative axis or MAGNITUDE";
+        }
+
+        float previous = 0;
+        for (float edge : annotation.bands()) {
+            if (!(edge >= previous) || Float.isInfinite(edge)) {
+                return "ascending, non-negative and finite bands";
+            }
+            previous = edge;
+        }
+
+        return null;
+    }
+
     /**
      * Creates the implementation of {@code SensorEventListener#onSensorChanged(SensorEvent)} which
-     * calls the annotated method on our target class.
+     * calls the annotated methods on our target class.
      *
-     * @param annotatedMethod Method annotated with {@code OnSensorChanged}.
+     * @param annotatedMethods Methods annotated with {@code OnSensorChanged}.
+     * @param statsAnnotatedMethods Methods annotated with {@code OnSensorStats}.
+     * @param persistAnnotatedMethods Methods annotated with {@code Persist}.
+     * @param resampleAnnotatedMethods Methods annotated with {@code Resample}.
+     * @param spectrumAnnotatedMethods Methods annotated with {@code OnSpectrum}.
      * @return {@link MethodSpec} of {@code SensorEventListener#onSensorChanged(SensorEvent)}.
      */
     @NonNull
     private static MethodSpec createOnSensorChangedListenerMethod(
-        @Nullable AnnotatedMethod annotatedMethod) {
+        @NonNull List<AnnotatedMethod> annotatedMethods,
+        @NonNull List<AnnotatedMethod> statsAnnotatedMethods,
+        @NonNull List<AnnotatedMethod> persistAnnotatedMethods,
+        @NonNull List<AnnotatedMethod> resampleAnnotatedMethods,
+        @NonNull List<AnnotatedMethod> spectrumAnnotatedMethods) {
         ParameterSpec sensorEventParameter = ParameterSpec.builder(SENSOR_EVENT, "event").build();
         Builder methodBuilder =
             getBaseMethodBuilder("onSensorChanged").addParameter(sensorEventParameter);
 
-        if (annotatedMethod != null) {
+        addSensorChangedStatements(methodBuilder, sensorEventParameter, annotatedMethods,
+            statsAnnotatedMethods, persistAnnotatedMethods, resampleAnnotatedMethods,
+            spectrumAnnotatedMethods, "stats", "resampler", "spectrum", "pipeline");
+
+        return methodBuilder.build();
+    }
+
+    /**
+     * Adds the statements handling a {@code SensorEvent} for a single sensor type.
+     *
+     * @param methodBuilder The builder of the {@code onSensorChanged} method.
+     * @param sensorEventParameter The {@code SensorEvent} parameter of the method.
+     * @param annotatedMethods Methods annotated with {@code OnSensorChanged}.
+     * @param statsAnnotatedMethods Methods annotated with {@code OnSensorStats}.
+     * @param persistAnnotatedMethods Methods annotated with {@code Persist}.
+     * @param resampleAnnotatedMethods Methods annotated with {@code Resample}.
+     * @param spectrumAnnotatedMethods Methods annotated with {@code OnSpectrum}.
+     * @param statsFieldName The name of the first stats field of the listener.
+     * @param resamplerFieldName The name of the first resampler field of the listener.
+     * @param spectrumFieldName The name of the first spectrum field of the listener.
+     * @param pipelineVariableName The name of the first local variable holding a pipeline.
+     */
+    private static void addSensorChangedStatements(@NonNull Builder methodBuilder,
+        @NonNull ParameterSpec sensorEventParameter,
+        @NonNull List<AnnotatedMethod> annotatedMethods,
+        @NonNull List<AnnotatedMethod> statsAnnotatedMethods,
+        @NonNull List<AnnotatedMethod> persistAnnotatedMethods,
+        @NonNull List<AnnotatedMethod> resampleAnnotatedMethods,
+        @NonNull List<AnnotatedMethod> spectrumAnnotatedMethods, @NonNull String statsFieldName,
+        @NonNull String resamplerFieldName, @NonNull String spectrumFieldName,
+        @NonNull String pipelineVariableName) {
+        for (AnnotatedMethod annotatedMethod : annotatedMethods) {
             ExecutableElement sensorChangedExecutableElement =
                 annotatedMethod.getExecutableElement();
-            methodBuilder.addStatement("target.$L($N)",
-                sensorChangedExecutableElement.getSimpleName(), sensorEventParameter);
+            if (sensorChangedExecutableElement.getParameters().size() == 1) {
+                methodBuilder.addStatement("target.$L($N)",
+                    sensorChangedExecutableElement.getSimpleName(), sensorEventParameter);
+            } else {
+                // The optional second parameter is the wall clock time of the event.
+                methodBuilder.addStatement("target.$L($N, $T.toWallClockNanos($N.timestamp))",
+                    sensorChangedExecutableElement.getSimpleName(), sensorEventParameter,
+                    SENSOR_CLOCK, sensorEventParameter);
+            }
         }
 
-        return methodBuilder.build();
+        for (int i = 0; i < statsAnnotatedMethods.size(); i++) {
+            String fieldName = getStatsFieldName(statsFieldName, i);
+            methodBuilder.beginControlFlow("if ($L.add($N.timestamp, $N.values))", fieldName,
+                sensorEventParameter, sensorEventParameter)
+                .addStatement("target.$L($L)",
+                    statsAnnotatedMethods.get(i).getExecutableElement().getSimpleName(), fieldName)
+                .endControlFlow();
+        }
+
+        // The pipeline copies the event, the sink runs on its own thread. A target that hasn't
+        // created its pipeline yet drops the event instead of throwing on the sensor thread.
+        for (int i = 0; i < persistAnnotatedMethods.size(); i++) {
+            String variableName = getStatsFieldName(pipelineVariableName, i);
+            methodBuilder.addStatement("$T $L = target.$L()", WRITE_BEHIND_PIPELINE, variableName,
+                persistAnnotatedMethods.get(i).getExecutableElement().getSimpleName())
+                .beginControlFlow("if ($L != null)", variableName)
+                .addStatement("$L.offer($N)", variableName, sensorEventParameter)
+                .endControlFlow();
+        }
+
+        // An event can complete no tick of the grid or several.
+        for (int i = 0; i < resampleAnnotatedMethods.size(); i++) {
+            String fieldName = getStatsFieldName(resamplerFieldName, i);
+            methodBuilder.addStatement("$L.add($N.timestamp, $N.values)", fieldName,
+                sensorEventParameter, sensorEventParameter)
+                .beginControlFlow("while ($L.next())", fieldName)
+                .addStatement("target.$L($L.getTimestamp(), $L.getValues())",
+                    resampleAnnotatedMethods.get(i).getExecutableElement().getSimpleName(),
+                    fieldName, fieldName)
+                .endControlFlow();
+        }
+
+        for (int i = 0; i < spectrumAnnotatedMethods.size(); i++) {
+            String fieldName = getStatsFieldName(spectrumFieldName, i);
+            methodBuilder.addStatement("$L.add($N.timestamp, $N.values)", fieldName,
+                sensorEventParameter, sensorEventParameter)
+                .beginControlFlow("while ($L.next())", fieldName)
+                .addStatement("target.$L($L)",
+                    spectrumAnnotatedMethods.get(i).getExecutableElement().getSimpleName(),
+                    fieldName)
+                .endControlFlow();
+        }
     }
 
     /**
      * Creates the implementation of {@code SensorEventListener#onAccuracyChanged(Sensor, int)}
      * which calls the annotated method on our target class.
      *
-     * @param annotatedMethod Method annotated with {@link OnAccuracyChanged}.
+     * @param annotatedMethods Methods annotated with {@link OnAccuracyChanged}.
      * @return {@link MethodSpec} of {@code SensorEventListener#onAccuracyChanged(Sensor, int)}.
      */
     @NonNull
     private static MethodSpec createOnAccuracyChangedListenerMethod(
-        @Nullable AnnotatedMethod annotatedMethod) {
+        @NonNull List<AnnotatedMethod> annotatedMethods) {
         ParameterSpec sensorParameter = ParameterSpec.builder(SENSOR, "sensor").build();
         ParameterSpec accuracyParameter = ParameterSpec.builder(TypeName.INT, "accuracy").build();
         Builder methodBuilder =
             getBaseMethodBuilder("onAccuracyChanged").addParameter(sensorParameter)
                 .addParameter(accuracyParameter);
 
-        if (annotatedMethod != null) {
+        addAccuracyChangedStatements(methodBuilder, sensorParameter, accuracyParameter,
+            annotatedMethods);
+
+        return methodBuilder.build();
+    }
+
+    private static void addAccuracyChangedStatements(@NonNull Builder methodBuilder,
+        @NonNull ParameterSpec sensorParameter, @NonNull ParameterSpec accuracyParameter,
+        @NonNull List<AnnotatedMethod> annotatedMethods) {
+        for (AnnotatedMethod annotatedMethod : annotatedMethods) {
             ExecutableElement accuracyChangedExecutableElement =
                 annotatedMethod.getExecutableElement();
             methodBuilder.addStatement("target.$L($N, $N)",
                 accuracyChangedExecutableElement.getSimpleName(), sensorParameter,
                 accuracyParameter);
         }
-
-        return methodBuilder.build();
     }
 
     /**
-     * Returns a delay to be used when registering the listener for the sensor. Both {@link
-     * OnSensorChanged} and {@link OnAccuracyChanged} can have
-     * a delay property set but only one can be used when registering the listener.
-     * <p>
-     * We try {@link OnSensorChanged} first, then {@link OnAccuracyChanged}, otherwise we return a
-     * sentinel value that will be used for errors.
+     * Returns the delay of the listener, the fastest delay of the methods that receive the events
+     * since the listener is shared by all of them. The delay of an {@link OnAccuracyChanged}
+     * method is only used for the classes of the hierarchy without such a method, which would
+     * otherwise not have a delay.
      *
-     * @param sensorChangedAnnotatedMethod The method wrapper for the method with the {@link
-     * OnSensorChanged} annotation.
-     * @param accuracyChangedAnnotatedMethod The method wrapper for the method with the {@link
-     * OnAccuracyChanged} annotation.
      * @return A delay value for the sensor listener.
+     * @throws ProcessingException If none of the methods have a delay value.
      */
-    private static int getDelayForListener(@Nullable AnnotatedMethod sensorChangedAnnotatedMethod,
-        @Nullable AnnotatedMethod accuracyChangedAnnotatedMethod) {
-        if (sensorChangedAnnotatedMethod != null
-            && sensorChangedAnnotatedMethod.getDelay() != INVALID_DELAY) {
-            return sensorChangedAnnotatedMethod.getDelay();
-        } else if (accuracyChangedAnnotatedMethod != null
-            && accuracyChangedAnnotatedMethod.getDelay() != INVALID_DELAY) {
-            return accuracyChangedAnnotatedMethod.getDelay();
+    private static int getListenerDelay(
+        @NonNull List<AnnotatedMethod> sensorChangedAnnotatedMethods,
+        @NonNull List<AnnotatedMethod> accuracyChangedAnnotatedMethods,
+        @NonNull List<AnnotatedMethod> statsAnnotatedMethods,
+        @NonNull List<AnnotatedMethod> persistAnnotatedMethods,
+        @NonNull List<AnnotatedMethod> resampleAnnotatedMethods,
+        @NonNull List<AnnotatedMethod> spectrumAnnotatedMethods) throws ProcessingException {
+        List<AnnotatedMethod> eventAnnotatedMethods = new ArrayList<>();
+        for (List<AnnotatedMethod> methods : Arrays.asList(sensorChangedAnnotatedMethods,
+            statsAnnotatedMethods, persistAnnotatedMethods, resampleAnnotatedMethods,
+            spectrumAnnotatedMethods)) {
+            eventAnnotatedMethods.addAll(methods);
+        }
+
+        Set<Element> eventClasses = new LinkedHashSet<>();
+        for (AnnotatedMethod method : eventAnnotatedMethods) {
+            if (method.getDelay() != INVALID_DELAY) {
+                eventClasses.add(method.getExecutableElement().getEnclosingElement());
+            }
+        }
+
+        List<AnnotatedMethod> delayAnnotatedMethods = new ArrayList<>(eventAnnotatedMethods);
+        for (AnnotatedMethod method : accuracyChangedAnnotatedMethods) {
+            if (!eventClasses.contains(method.getExecutableElement().getEnclosingElement())) {
+                delayAnnotatedMethods.add(method);
+            }
+        }
+
+        int delay = INVALID_DELAY;
+        for (AnnotatedMethod method : delayAnnotatedMethods) {
+            int methodDelay = method.getDelay();
+            if (methodDelay != INVALID_DELAY && (delay == INVALID_DELAY
+                || getDelayPeriodUs(methodDelay) < getDelayPeriodUs(delay))) {
+                delay = methodDelay;
+            }
         }
 
-        return INVALID_DELAY;
+        if (delay == INVALID_DELAY) {
+            String error =
+                String.format("@%s, @%s, @%s, @%s, @%s or @%s needs a delay value specified in the annotation",
+                    OnSensorChanged.class.getSimpleName(), OnAccuracyChanged.class.getSimpleName(),
+                    OnSensorStats.class.getSimpleName(), Persist.class.getSimpleName(),
+                    Resample.class.getSimpleName(), OnSpectrum.class.getSimpleName());
+            throw new ProcessingException(null, error);
+        }
+
+        return delay;
     }
 
     /**
-     * Create the bind method for our generated class.
+     * Returns the sampling period of a delay, which is either one of the {@code
+     * SensorManager.SENSOR_DELAY_*} constants or a period in microseconds. The constants match
+     * the periods used by {@code SensorManager}.
      *
-     * @param targetParameter The target class that has annotated methods.
-     * @param annotatedMethodsPerClass The annotated methods that are in a given class.
-     * @return {@link MethodSpec} of the generated class bind method.
+     * @param delay The delay value of an annotation.
+     * @return The sampling period in microseconds.
+     */
+    private static int getDelayPeriodUs(int delay) {
+        switch (delay) {
+            case SENSOR_DELAY_FASTEST:
+                return 0;
+            case SENSOR_DELAY_GAME:
+                return 20000;
+            case SENSOR_DELAY_UI:
+                return 66667;
+            case SENSOR_DELAY_NORMAL:
+                return 200000;
+            default:
+                return delay;
+        }
+    }
+
+    /**
+     * Create the override of {@code AbstractSensorBinder#onSensorNotAvailable(int)} which calls
+     * the methods annotated with {@link OnSensorNotAvailable} for the sensor type.
+     *
+     * @param itemsMap A map of sensor types found in the annotations with the annotated methods.
+     * @return {@link MethodSpec} of the generated method.
      */
     @NonNull
-    private static MethodSpec createBindMethod(@NonNull ParameterSpec targetParameter,
-        @NonNull AnnotatedMethodsPerClass annotatedMethodsPerClass) throws ProcessingException {
-        Map<Integer, Map<Class, AnnotatedMethod>> itemsMap = annotatedMethodsPerClass.getItemsMap();
-
-        Builder bindMethodBuilder = getBaseMethodBuilder("bind").addParameter(targetParameter)
-            .addStatement("int sensorType")
-            .addStatement("$T sensor", SENSOR)
-            .beginControlFlow("for ($T wrapper : $N)", LISTENER_WRAPPER, LISTENER_WRAPPERS_FIELD)
-            .addStatement("sensorType = wrapper.getSensorType()")
-            .addStatement("sensor = wrapper.getSensor($N)", SENSOR_MANAGER_FIELD);
-
-        if (annotatedMethodsPerClass.hasAnnotationsOfType(OnSensorNotAvailable.class)) {
-            bindMethodBuilder.beginControlFlow("if (sensor == null)");
-
-            // Iterate through our map of sensor types and check whether an OnSensorNotAvailable
-            // annotation exists, if so and the sensor is unavailable call the method.
-            List<Integer> sensorTypes = new ArrayList<>();
-            sensorTypes.addAll(itemsMap.keySet());
-            for (int i = 0; i < sensorTypes.size(); i++) {
-                Integer sensorType = sensorTypes.get(i);
-                Map<Class, AnnotatedMethod> annotationMap = itemsMap.get(sensorType);
-                AnnotatedMethod annotatedMethod = annotationMap.get(OnSensorNotAvailable.class);
-
-                if (annotatedMethod != null) {
-                    checkAnnotatedMethodForErrors(annotatedMethod.getExecutableElement(),
-                        OnSensorNotAvailable.class);
-
-                    if (i == 0) {
-                        bindMethodBuilder.beginControlFlow("if (sensorType == $L)", sensorType);
-                    } else {
-                        bindMethodBuilder.nextControlFlow("else if (sensorType == $L)", sensorType);
-                    }
-
-                    bindMethodBuilder.addStatement("$N.$L()", targetParameter,
+    private static MethodSpec createOnSensorNotAvailableMethod(
+        @NonNull Map<Integer, Map<Class, List<AnnotatedMethod>>> itemsMap) {
+        ParameterSpec sensorTypeParameter =
+            ParameterSpec.builder(TypeName.INT, "sensorType").build();
+        Builder methodBuilder = getProtectedMethodBuilder("onSensorNotAvailable")
+            .addParameter(sensorTypeParameter);
+
+        // Iterate through our map of sensor types and check whether an OnSensorNotAvailable
+        // annotation exists, if so and the sensor is unavailable call the methods.
+        boolean firstSensorType = true;
+        for (Integer sensorType : itemsMap.keySet()) {
+            List<AnnotatedMethod> annotatedMethods =
+                getAnnotatedMethods(itemsMap.get(sensorType), OnSensorNotAvailable.class);
+
+            if (!annotatedMethods.isEmpty()) {
+                if (firstSensorType) {
+                    firstSensorType = false;
+                    methodBuilder.beginControlFlow("if ($N == $L)", sensorTypeParameter,
+                        sensorType);
+                } else {
+                    methodBuilder.nextControlFlow("else if ($N == $L)", sensorTypeParameter,
+                        sensorType);
+                }
+
+                for (AnnotatedMethod annotatedMethod : annotatedMethods) {
+                    methodBuilder.addStatement("getTarget().$L()",
                         annotatedMethod.getExecutableElement().getSimpleName());
                 }
             }
+        }
+
+        return methodBuilder.endControlFlow().build();
+    }
+
+    /**
+     * Create the override of {@code AbstractSensorBinder#onSensorDisconnected(Sensor)} which calls
+     * the methods annotated with {@link OnSensorDisconnected} for the type of the sensor. Other
+     * sensor types fall back to {@code onSensorNotAvailable(int)}.
+     *
+     * @param itemsMap A map of sensor types found in the annotations with the annotated methods.
+     * @return {@link MethodSpec} of the generated method.
+     */
+    @NonNull
+    private static MethodSpec createOnSensorDisconnectedMethod(
+        @NonNull Map<Integer, Map<Class, List<AnnotatedMethod>>> itemsMap) {
+        ParameterSpec sensorParameter = ParameterSpec.builder(SENSOR, "sensor").build();
+        Builder methodBuilder = getProtectedMethodBuilder("onSensorDisconnected")
+            .addParameter(sensorParameter);
+
+        boolean firstSensorType = true;
+        for (Integer sensorType : itemsMap.keySet()) {
+            List<AnnotatedMethod> annotatedMethods =
+                getAnnotatedMethods(itemsMap.get(sensorType), OnSensorDisconnected.class);
+
+            if (!annotatedMethods.isEmpty()) {
+                if (firstSensorType) {
+                    firstSensorType = false;
+                    methodBuilder.beginControlFlow("if ($N.getType() == $L)", sensorParameter,
+                        sensorType);
+                } else {
+                    methodBuilder.nextControlFlow("else if ($N.getType() == $L)", sensorParameter,
+                        sensorType);
+                }
 
-            bindMethodBuilder.endControlFlow().addStatement("continue").endControlFlow();
+                for (AnnotatedMethod annotatedMethod : annotatedMethods) {
+                    methodBuilder.addStatement("getTarget().$L($N)",
+                        annotatedMethod.getExecutableElement().getSimpleName(), sensorParameter);
+                }
+            }
         }
 
-        return bindMethodBuilder.addStatement("wrapper.registerListener($N)", SENSOR_MANAGER_FIELD)
+        return methodBuilder.nextControlFlow("else")
+            .addStatement("super.onSensorDisconnected($N)", sensorParameter)
             .endControlFlow()
             .build();
     }
 
+    /**
+     * Return the methods with the given annotation.
+     *
+     * @param annotationMap The annotated methods of a sensor type.
+     * @param annotationClass The annotation class.
+     * @return The annotated methods, ordered from the topmost superclass, or an empty list.
+     */
+    @NonNull
+    private static List<AnnotatedMethod> getAnnotatedMethods(
+        @NonNull Map<Class, List<AnnotatedMethod>> annotationMap,
+        @NonNull Class<? extends Annotation> annotationClass) {
+        List<AnnotatedMethod> annotatedMethods = annotationMap.get(annotationClass);
+        return annotatedMethods != null ? annotatedMethods
+            : Collections.<AnnotatedMethod>emptyList();
+    }
+
     /**
      * Return a {@link Builder} with the given method name and default properties.
      *
@@ -442,35 +1177,16 @@ class SensorAnnotationsFileBuilder {
     }
 
     /**
-     * Check the annotated method for the correct parameters needed based on the annotation.
+     * Return a {@link Builder} for an override of a protected method of the binder superclass.
      *
-     * @param element The annotated element.
-     * @param annotation The annotation class being checked.
-     * @throws ProcessingException
+     * @param name The name of the method.
+     * @return A base {@link Builder} to use for methods.
      */
-    private static void checkAnnotatedMethodForErrors(@NonNull ExecutableElement element,
-        @NonNull Class<? extends Annotation> annotation) throws ProcessingException {
-        ListenerMethod method = annotation.getAnnotation(ListenerMethod.class);
-        String[] expectedParameters = method.parameters();
-        List<? extends VariableElement> parameters = element.getParameters();
-        if (parameters.size() != expectedParameters.length) {
-            String error = String.format("@%s methods can only have %s parameter(s). (%s.%s)",
-                annotation.getSimpleName(), method.parameters().length,
-                element.getEnclosingElement().getSimpleName(), element.getSimpleName());
-            throw new ProcessingException(element, error);
-        }
-
-        for (int i = 0; i < parameters.size(); i++) {
-            VariableElement parameter = parameters.get(i);
-            TypeMirror methodParameterType = parameter.asType();
-            String expectedType = expectedParameters[i];
-            if (!expectedType.equals(methodParameterType.toString())) {
-                String error = String.format(
-                    "Method parameters are not valid for @%s annotated method. Expected parameters of type(s): %s. (%s.%s)",
-                    annotation.getSimpleName(), Joiner.on(", ").join(expectedParameters),
-                    element.getEnclosingElement().getSimpleName(), element.getSimpleName());
-                throw new ProcessingException(element, error);
-            }
-        }
+    @NonNull
+    private static Builder getProtectedMethodBuilder(@NonNull String name) {
+        return MethodSpec.methodBuilder(name)
+            .addModifiers(Modifier.PROTECTED)
+            .returns(void.class)
+            .addAnnotation(Override.class);
     }
 }
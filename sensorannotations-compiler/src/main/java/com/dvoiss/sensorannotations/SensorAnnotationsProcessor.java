@@ -3,22 +3,34 @@ package com.dvoiss.sensorannotations;
 import com.dvoiss.sensorannotations.exception.ProcessingException;
 import java.io.IOException;
 import java.lang.annotation.Annotation;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
 import javax.annotation.processing.AbstractProcessor;
 import javax.annotation.processing.Filer;
 import javax.annotation.processing.Messager;
 import javax.annotation.processing.ProcessingEnvironment;
 import javax.annotation.processing.RoundEnvironment;
 import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
 import javax.lang.model.element.Element;
 import javax.lang.model.element.ElementKind;
 import javax.lang.model.element.ExecutableElement;
 import javax.lang.model.element.Modifier;
+import javax.lang.model.element.PackageElement;
 import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
 import javax.lang.model.util.Elements;
+import javax.lang.model.util.Types;
 import javax.tools.Diagnostic;
 import org.checkerframework.checker.nullness.qual.NonNull;
 import org.checkerframework.checker.nullness.qual.Nullable;
@@ -26,19 +38,55 @@ import org.checkerframework.checker.nullness.qual.Nullable;
 /**
  * The main annotation processor for the library. See {@link SensorAnnotationsFileBuilder} for more
  * info.
+ *
+ * The processor is registered as a "dynamic" incremental processor for Gradle. It is isolating by
+ * default: every generated binder is derived only from its annotated class (which is passed to the
+ * {@link Filer} as the single originating element) and no state is kept between processing rounds.
+ * When an index is generated the processor is aggregating, the index collects the classes of
+ * every round and is written in the last round.
  */
 public class SensorAnnotationsProcessor extends AbstractProcessor {
     private static final boolean DEBUG_LOGGING = false;
 
+    private static final String ANDROID_PREFIX = "android.";
+    private static final String JAVA_PREFIX = "java.";
+
+    /**
+     * Processor option to generate a single {@code SensorEventListener} per binder that
+     * dispatches on the sensor type ({@code -Asensorannotations.dispatchTable=true}).
+     */
+    static final String OPTION_DISPATCH_TABLE = "sensorannotations.dispatchTable";
+
+    /**
+     * Processor option to generate an index of every class with a binder, the value is the fully
+     * qualified name of the index ({@code -Asensorannotations.index=com.example.SensorIndex}).
+     */
+    static final String OPTION_INDEX = "sensorannotations.index";
+
+    private static final String GRADLE_ISOLATING = "org.gradle.annotation.processing.isolating";
+    private static final String GRADLE_AGGREGATING =
+        "org.gradle.annotation.processing.aggregating";
+
+    /**
+     * The annotations handled by this processor, in the order they are processed for a method.
+     */
+    private static final List<Class<? extends Annotation>> SUPPORTED_ANNOTATIONS =
+        Arrays.asList(OnSensorChanged.class, OnAccuracyChanged.class, OnSensorNotAvailable.class,
+            OnTrigger.class, OnSensorStats.class, OnSensorDisconnected.class, Persist.class,
+            Resample.class, OnSpectrum.class);
+
     @NonNull private Elements mElementUtils;
+    @NonNull private Types mTypeUtils;
     @NonNull private Filer mFiler;
     @NonNull private Messager mMessager;
 
     /**
-     * Mapping between classes and a wrapper object containing all the annotated methods on it.
+     * The classes with a binder by binary name and the sensor types they listen to, collected
+     * over all rounds if an index is generated.
      */
-    @NonNull private final Map<String, AnnotatedMethodsPerClass> mGroupedMethodsMap =
-        new LinkedHashMap<>();
+    @NonNull private final Map<String, TypeElement> mIndexedClasses = new TreeMap<>();
+    @NonNull private final Set<Integer> mIndexedSensorTypes = new TreeSet<>();
+    private boolean mIndexGenerated;
 
     @Override
     public synchronized void init(@NonNull ProcessingEnvironment env) {
@@ -46,29 +94,63 @@ public class SensorAnnotationsProcessor extends AbstractProcessor {
         mMessager = processingEnv.getMessager();
         mFiler = processingEnv.getFiler();
         mElementUtils = processingEnv.getElementUtils();
+        mTypeUtils = processingEnv.getTypeUtils();
     }
 
     @Override
     public boolean process(@NonNull Set<? extends TypeElement> annotations,
         @NonNull RoundEnvironment roundEnv) {
+        // Mapping between classes and a wrapper object containing all the annotated methods on it.
+        // This only lives for the current round so a round never regenerates a binder for a class
+        // that isn't part of it.
+        Map<String, AnnotatedMethodsPerClass> groupedMethodsMap = new LinkedHashMap<>();
+
         try {
-            processAnnotation(OnSensorChanged.class, roundEnv);
-            processAnnotation(OnAccuracyChanged.class, roundEnv);
-            processAnnotation(OnSensorNotAvailable.class, roundEnv);
-            processAnnotation(OnTrigger.class, roundEnv);
+            if (!annotations.isEmpty()) {
+                RoundScanner scanner = new RoundScanner(groupedMethodsMap);
+                for (Element element : roundEnv.getRootElements()) {
+                    scanner.scan(element);
+                }
+                scanner.mergeSuperclassMethods();
+            }
         } catch (ProcessingException e) {
             error(e.getElement(), e.getMessage());
         }
 
         try {
-            warn(null, "Preparing to create %d generated classes.", mGroupedMethodsMap.size());
+            warn(null, "Preparing to create %d generated classes.", groupedMethodsMap.size());
 
             // If we've gotten here we've found all the annotations and grouped them accordingly.
             // Now generate the SensorBinder classes.
-            SensorAnnotationsFileBuilder.generateCode(mGroupedMethodsMap, mElementUtils, mFiler);
+            boolean dispatchTable =
+                Boolean.parseBoolean(processingEnv.getOptions().get(OPTION_DISPATCH_TABLE));
+            SensorAnnotationsFileBuilder.generateCode(groupedMethodsMap, mElementUtils, mFiler,
+                dispatchTable);
+
+            String indexClassName = processingEnv.getOptions().get(OPTION_INDEX);
+            if (indexClassName != null) {
+                for (AnnotatedMethodsPerClass groupedMethods : groupedMethodsMap.values()) {
+                    TypeElement enclosingClass = groupedMethods.getEnclosingClass();
+                    if (mIndexGenerated) {
+                        mMessager.printMessage(Diagnostic.Kind.WARNING, String.format(
+                            "%s was generated before the binder of %s, which isn't preloaded.",
+                            indexClassName, enclosingClass.getQualifiedName()), enclosingClass);
+                    }
+                    mIndexedClasses.put(
+                        mElementUtils.getBinaryName(enclosingClass).toString(), enclosingClass);
+                    mIndexedSensorTypes.addAll(groupedMethods.getItemsMap().keySet());
+                }
 
-            // Clear the map so a future processing round doesn't re-process the same annotations.
-            mGroupedMethodsMap.clear();
+                // The index is generated in the first round without annotated classes, usually
+                // the round of the generated binders. A file generated in the last round isn't
+                // processed, which javac warns about.
+                if (!mIndexGenerated
+                    && (groupedMethodsMap.isEmpty() || roundEnv.processingOver())) {
+                    mIndexGenerated = true;
+                    SensorAnnotationsFileBuilder.generateIndex(indexClassName, mIndexedClasses,
+                        mIndexedSensorTypes, mFiler);
+                }
+            }
         } catch (IOException e) {
             error(null, e.getMessage());
         } catch (ProcessingException e) {
@@ -78,52 +160,241 @@ public class SensorAnnotationsProcessor extends AbstractProcessor {
         return true;
     }
 
-    private void processAnnotation(Class<? extends Annotation> annotationClass,
-        @NonNull RoundEnvironment roundEnv) throws ProcessingException {
-        Set<? extends Element> elements = roundEnv.getElementsAnnotatedWith(annotationClass);
+    /**
+     * Walks the elements of a round once, handling every supported annotation found on the way.
+     * Calling {@link RoundEnvironment#getElementsAnnotatedWith(Class)} per annotation would scan
+     * all elements of the round again for each annotation.
+     */
+    private final class RoundScanner {
+        @NonNull private final Map<String, AnnotatedMethodsPerClass> mGroupedMethodsMap;
+        @NonNull private final ListenerMethodValidator mValidator;
+        @NonNull private final Map<Element, Class<? extends Annotation>> mAnnotationTypes =
+            new HashMap<>();
+
+        RoundScanner(@NonNull Map<String, AnnotatedMethodsPerClass> groupedMethodsMap) {
+            mGroupedMethodsMap = groupedMethodsMap;
+            mValidator = new ListenerMethodValidator(mElementUtils, mTypeUtils);
+            for (Class<? extends Annotation> annotationClass : SUPPORTED_ANNOTATIONS) {
+                TypeElement annotationType =
+                    mElementUtils.getTypeElement(annotationClass.getCanonicalName());
+                if (annotationType != null) {
+                    mAnnotationTypes.put(annotationType, annotationClass);
+                }
+            }
+        }
+
+        void scan(@NonNull Element element) throws ProcessingException {
+            for (AnnotationMirror annotationMirror : element.getAnnotationMirrors()) {
+                Class<? extends Annotation> annotationClass =
+                    mAnnotationTypes.get(annotationMirror.getAnnotationType().asElement());
+                if (annotationClass != null) {
+                    processElement(element, annotationClass);
+                }
+            }
 
-        warn(null, "Processing %d elements annotated with @%s", elements.size(), elements);
+            // Only descend into classes, nested classes are processed like top level classes.
+            if (element instanceof TypeElement) {
+                for (Element enclosedElement : element.getEnclosedElements()) {
+                    scan(enclosedElement);
+                }
+            }
+        }
+
+        /**
+         * Merge the annotated methods of the superclasses into the methods of every class found
+         * in the round, so the binder of a subclass registers a single listener per sensor type
+         * for the whole hierarchy instead of hiding the annotations of its superclasses.
+         */
+        void mergeSuperclassMethods() throws ProcessingException {
+            for (Map.Entry<String, AnnotatedMethodsPerClass> entry : mGroupedMethodsMap
+                .entrySet()) {
+                entry.setValue(mergeSuperclassMethods(entry.getValue()));
+            }
+        }
+
+        @NonNull
+        private AnnotatedMethodsPerClass mergeSuperclassMethods(
+            @NonNull AnnotatedMethodsPerClass groupedMethods) throws ProcessingException {
+            TypeElement enclosingClass = groupedMethods.getEnclosingClass();
+            TypeElement superclass = findSuperclass(enclosingClass);
+            if (superclass == null) {
+                return groupedMethods;
+            }
+
+            // Collect the methods from the subclass up, so a method overridden by an annotated
+            // method of a subclass is only called once.
+            List<List<AnnotatedMethod>> hierarchyMethods = new ArrayList<>();
+            List<AnnotatedMethod> collectedMethods =
+                new ArrayList<>(groupedMethods.getAnnotatedMethods());
+            hierarchyMethods.add(groupedMethods.getAnnotatedMethods());
+            for (; superclass != null; superclass = findSuperclass(superclass)) {
+                List<AnnotatedMethod> superclassMethods =
+                    findSuperclassMethods(enclosingClass, superclass, collectedMethods);
+                collectedMethods.addAll(superclassMethods);
+                hierarchyMethods.add(superclassMethods);
+            }
+
+            // Add the methods of the topmost superclass first so they are called first.
+            AnnotatedMethodsPerClass mergedMethods = new AnnotatedMethodsPerClass(enclosingClass);
+            for (int i = hierarchyMethods.size() - 1; i >= 0; i--) {
+                for (AnnotatedMethod annotatedMethod : hierarchyMethods.get(i)) {
+                    mergedMethods.add(annotatedMethod.getAnnotationClass(), annotatedMethod);
+                }
+            }
+
+            return mergedMethods;
+        }
+
+        @NonNull
+        private List<AnnotatedMethod> findSuperclassMethods(@NonNull TypeElement enclosingClass,
+            @NonNull TypeElement superclass, @NonNull List<AnnotatedMethod> subclassMethods)
+            throws ProcessingException {
+            List<AnnotatedMethod> superclassMethods = new ArrayList<>();
+            for (ExecutableElement method : ElementFilter.methodsIn(
+                superclass.getEnclosedElements())) {
+                for (AnnotationMirror annotationMirror : method.getAnnotationMirrors()) {
+                    Class<? extends Annotation> annotationClass =
+                        mAnnotationTypes.get(annotationMirror.getAnnotationType().asElement());
+                    if (annotationClass == null) {
+                        continue;
+                    }
+
+                    AnnotatedMethod annotatedMethod =
+                        createAnnotatedMethod(method, annotationClass, mValidator);
+                    checkSuperclassMethodAccess(enclosingClass, annotatedMethod);
+                    if (!isOverridden(annotatedMethod, subclassMethods, enclosingClass)) {
+                        superclassMethods.add(annotatedMethod);
+                    }
+                }
+            }
+
+            return superclassMethods;
+        }
+
+        private void processElement(@NonNull Element element,
+            @NonNull Class<? extends Annotation> annotationClass) throws ProcessingException {
+            warn(element, "Processing element annotated with @%s",
+                annotationClass.getSimpleName());
 
-        for (Element element : elements) {
             if (element.getKind() != ElementKind.METHOD) {
                 throw new ProcessingException(element,
                     String.format("Only methods can be annotated with @%s",
                         annotationClass.getSimpleName()));
-            } else {
-                ExecutableElement executableElement = (ExecutableElement) element;
-
-                try {
-                    processMethod(executableElement, annotationClass);
-                } catch (IllegalArgumentException e) {
-                    throw new ProcessingException(executableElement, e.getMessage());
-                }
             }
+
+            processMethod((ExecutableElement) element, annotationClass, mValidator,
+                mGroupedMethodsMap);
         }
     }
 
     private void processMethod(ExecutableElement executableElement,
-        Class<? extends Annotation> annotationClass) throws ProcessingException {
-        AnnotatedMethod annotatedMethod = new AnnotatedMethod(executableElement, annotationClass);
-
-        checkMethodValidity(annotatedMethod);
+        Class<? extends Annotation> annotationClass, @NonNull ListenerMethodValidator validator,
+        @NonNull Map<String, AnnotatedMethodsPerClass> groupedMethodsMap)
+        throws ProcessingException {
+        AnnotatedMethod annotatedMethod =
+            createAnnotatedMethod(executableElement, annotationClass, validator);
 
         TypeElement enclosingClass = findEnclosingClass(annotatedMethod);
         if (enclosingClass == null) {
-            throw new ProcessingException(null,
+            throw new ProcessingException(executableElement,
                 String.format("Can not find enclosing class for method %s",
                     annotatedMethod.getExecutableElement().getSimpleName().toString()));
+        } else if (!isAccessibleFromPackage(enclosingClass)) {
+            throw new ProcessingException(executableElement,
+                String.format("The class %s can not be private.",
+                    enclosingClass.getQualifiedName().toString()));
         } else {
             String enclosingClassName = enclosingClass.getQualifiedName().toString();
-            AnnotatedMethodsPerClass groupedMethods = mGroupedMethodsMap.get(enclosingClassName);
+            AnnotatedMethodsPerClass groupedMethods = groupedMethodsMap.get(enclosingClassName);
             if (groupedMethods == null) {
-                groupedMethods = new AnnotatedMethodsPerClass(enclosingClassName);
-                mGroupedMethodsMap.put(enclosingClassName, groupedMethods);
+                groupedMethods = new AnnotatedMethodsPerClass(enclosingClass);
+                groupedMethodsMap.put(enclosingClassName, groupedMethods);
             }
 
             groupedMethods.add(annotationClass, annotatedMethod);
         }
     }
 
+    @NonNull
+    private AnnotatedMethod createAnnotatedMethod(@NonNull ExecutableElement executableElement,
+        @NonNull Class<? extends Annotation> annotationClass,
+        @NonNull ListenerMethodValidator validator) throws ProcessingException {
+        AnnotatedMethod annotatedMethod;
+        try {
+            annotatedMethod = new AnnotatedMethod(executableElement, annotationClass);
+        } catch (IllegalArgumentException e) {
+            throw new ProcessingException(executableElement, e.getMessage());
+        }
+
+        checkMethodValidity(annotatedMethod);
+        validator.validate(executableElement, annotationClass);
+        return annotatedMethod;
+    }
+
+    /**
+     * Find the superclass of a class that can have annotated methods.
+     *
+     * @param typeElement The class.
+     * @return The superclass or null if there is none or it is a framework class.
+     */
+    @Nullable
+    private TypeElement findSuperclass(@NonNull TypeElement typeElement) {
+        TypeMirror superclassType = typeElement.getSuperclass();
+        if (superclassType.getKind() != TypeKind.DECLARED) {
+            return null;
+        }
+
+        TypeElement superclass = (TypeElement) mTypeUtils.asElement(superclassType);
+        String qualifiedName = superclass.getQualifiedName().toString();
+        if (qualifiedName.startsWith(ANDROID_PREFIX) || qualifiedName.startsWith(JAVA_PREFIX)) {
+            return null;
+        }
+
+        return superclass;
+    }
+
+    /**
+     * The binder of a subclass calls the methods of its superclasses, so a package private method
+     * can only be merged if the superclass is in the same package as the subclass.
+     *
+     * @param enclosingClass The subclass the binder is generated for.
+     * @param annotatedMethod An annotated method of one of its superclasses.
+     * @throws ProcessingException If the method can't be called from the binder.
+     */
+    private void checkSuperclassMethodAccess(@NonNull TypeElement enclosingClass,
+        @NonNull AnnotatedMethod annotatedMethod) throws ProcessingException {
+        ExecutableElement method = annotatedMethod.getExecutableElement();
+        if (method.getModifiers().contains(Modifier.PUBLIC)) {
+            return;
+        }
+
+        PackageElement binderPackage = mElementUtils.getPackageOf(enclosingClass);
+        if (!binderPackage.equals(mElementUtils.getPackageOf(method))) {
+            throw new ProcessingException(enclosingClass, String.format(
+                "The method %s.%s annotated with @%s is not accessible from %s. Annotated methods of a superclass in a different package must be public.",
+                method.getEnclosingElement().getSimpleName(), method.getSimpleName(),
+                annotatedMethod.getAnnotationClass().getSimpleName(),
+                enclosingClass.getQualifiedName()));
+        }
+    }
+
+    /**
+     * @return True if an annotated method of a subclass overrides the annotated method, whatever
+     * its annotation or sensor type. Calling the method through the target invokes the override,
+     * so the annotations of the override replace the annotations of the overridden method.
+     */
+    private boolean isOverridden(@NonNull AnnotatedMethod annotatedMethod,
+        @NonNull List<AnnotatedMethod> subclassMethods, @NonNull TypeElement enclosingClass) {
+        for (AnnotatedMethod subclassMethod : subclassMethods) {
+            if (mElementUtils.overrides(subclassMethod.getExecutableElement(),
+                annotatedMethod.getExecutableElement(), enclosingClass)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
     private void checkMethodValidity(@NonNull AnnotatedMethod item) throws ProcessingException {
         ExecutableElement methodElement = item.getExecutableElement();
         Set<Modifier> modifiers = methodElement.getModifiers();
@@ -145,33 +416,67 @@ public class SensorAnnotationsProcessor extends AbstractProcessor {
         }
     }
 
+    /**
+     * Find the class that declares the annotated method.
+     *
+     * @param annotatedMethod The annotated method.
+     * @return The enclosing class (or enum) or null if the method isn't declared in one.
+     */
     @Nullable
     private TypeElement findEnclosingClass(@NonNull AnnotatedMethod annotatedMethod) {
-        TypeElement enclosingClass;
-
-        ExecutableElement methodElement = annotatedMethod.getExecutableElement();
-        while (true) {
-            Element enclosingElement = methodElement.getEnclosingElement();
-            if (enclosingElement.getKind() == ElementKind.CLASS) {
-                enclosingClass = (TypeElement) enclosingElement;
-                break;
+        Element enclosingElement = annotatedMethod.getExecutableElement().getEnclosingElement();
+        while (enclosingElement != null) {
+            if (enclosingElement.getKind().isClass()) {
+                return (TypeElement) enclosingElement;
+            } else if (enclosingElement.getKind().isInterface()) {
+                return null;
+            }
+            enclosingElement = enclosingElement.getEnclosingElement();
+        }
+
+        return null;
+    }
+
+    /**
+     * The generated binder lives in the package of the class so the class and all of the classes
+     * it is nested in must not be private.
+     *
+     * @param typeElement The class with annotated methods.
+     * @return True if the class can be referenced by the generated binder.
+     */
+    private boolean isAccessibleFromPackage(@NonNull TypeElement typeElement) {
+        Element element = typeElement;
+        while (element instanceof TypeElement) {
+            if (element.getModifiers().contains(Modifier.PRIVATE)) {
+                return false;
             }
+            element = element.getEnclosingElement();
         }
 
-        return enclosingClass;
+        return true;
     }
 
     @NonNull
     @Override
     public Set<String> getSupportedAnnotationTypes() {
         Set<String> types = new HashSet<>();
-        types.add(OnSensorChanged.class.getCanonicalName());
-        types.add(OnAccuracyChanged.class.getCanonicalName());
-        types.add(OnSensorNotAvailable.class.getCanonicalName());
-        types.add(OnTrigger.class.getCanonicalName());
+        for (Class<? extends Annotation> annotationClass : SUPPORTED_ANNOTATIONS) {
+            types.add(annotationClass.getCanonicalName());
+        }
         return types;
     }
 
+    @NonNull
+    @Override
+    public Set<String> getSupportedOptions() {
+        Set<String> options = new HashSet<>();
+        options.add(OPTION_DISPATCH_TABLE);
+        options.add(OPTION_INDEX);
+        options.add(processingEnv != null && processingEnv.getOptions().containsKey(OPTION_INDEX)
+            ? GRADLE_AGGREGATING : GRADLE_ISOLATING);
+        return options;
+    }
+
     @NonNull
     @Override
     public SourceVersion getSupportedSourceVersion() {
@@ -0,0 +1,121 @@
+package com.dvoiss.sensorannotations;
+
+import android.annotation.TargetApi;
+import android.app.Activity;
+import android.app.Application;
+import android.os.Build;
+import android.os.Bundle;
+import android.support.annotation.NonNull;
+import com.dvoiss.sensorannotations.internal.SensorBinder;
+
+/**
+ * Binds and unbinds a {@link SensorBinder} following the lifecycle of an {@link Activity}: the
+ * listeners are registered when the activity resumes and unregistered when it stops. While the
+ * activity is paused but still visible, for example behind a dialog or in multi-window mode, the
+ * listeners are either unregistered or re-registered with a slower delay.
+ *
+ * The lifecycle binder is the bound binder of the target in {@link
+ * SensorAnnotations#BOUND_BINDERS} until the activity is destroyed. Unbinding it, for example with
+ * {@link SensorAnnotations#unbind(Object)}, unbinds the binder of the target and removes the
+ * callbacks right away so the application doesn't keep the activity and the target.
+ */
+@TargetApi(Build.VERSION_CODES.ICE_CREAM_SANDWICH)
+final class ActivityLifecycleBinder
+    implements Application.ActivityLifecycleCallbacks, SensorBinder<Object> {
+    @NonNull private final Activity mActivity;
+    @NonNull private final Object mTarget;
+    @NonNull private final SensorBinder mSensorBinder;
+    private final int mPausedDelay;
+
+    private ActivityLifecycleBinder(@NonNull Activity activity, @NonNull Object target,
+        @NonNull SensorBinder sensorBinder, int pausedDelay) {
+        mActivity = activity;
+        mTarget = target;
+        mSensorBinder = sensorBinder;
+        mPausedDelay = pausedDelay;
+    }
+
+    /**
+     * Start following the lifecycle of the activity, the binder is bound on the next resume.
+     *
+     * @param activity The activity whose lifecycle is followed.
+     * @param target The target object being bound to.
+     * @param sensorBinder The binder of the target.
+     * @param pausedDelay The delay used while the activity is paused or {@link
+     * SensorAnnotations#UNBIND_WHEN_PAUSED}.
+     * @return The lifecycle binder, which stops following the lifecycle when it is unbound.
+     */
+    @NonNull
+    static ActivityLifecycleBinder register(@NonNull Activity activity, @NonNull Object target,
+        @NonNull SensorBinder sensorBinder, int pausedDelay) {
+        ActivityLifecycleBinder lifecycleBinder =
+            new ActivityLifecycleBinder(activity, target, sensorBinder, pausedDelay);
+        activity.getApplication().registerActivityLifecycleCallbacks(lifecycleBinder);
+        return lifecycleBinder;
+    }
+
+    @Override
+    public void bind(Object target) {
+        //noinspection unchecked
+        mSensorBinder.bind(mTarget);
+    }
+
+    @Override
+    public void unbind() {
+        mSensorBinder.unbind();
+        mActivity.getApplication().unregisterActivityLifecycleCallbacks(this);
+    }
+
+    @Override
+    public void setMinimumDelay(int minimumDelay) {
+        mSensorBinder.setMinimumDelay(minimumDelay);
+    }
+
+    @Override
+    public void onActivityResumed(Activity activity) {
+        if (activity == mActivity) {
+            mSensorBinder.setMinimumDelay(SensorBinder.NO_MINIMUM_DELAY);
+            //noinspection unchecked
+            mSensorBinder.bind(mTarget);
+        }
+    }
+
+    @Override
+    public void onActivityPaused(Activity activity) {
+        if (activity != mActivity) {
+            return;
+        }
+
+        if (mPausedDelay == SensorAnnotations.UNBIND_WHEN_PAUSED) {
+            mSensorBinder.unbind();
+        } else {
+            mSensorBinder.setMinimumDelay(mPausedDelay);
+        }
+    }
+
+    @Override
+    public void onActivityStopped(Activity activity) {
+        if (activity == mActivity) {
+            mSensorBinder.unbind();
+        }
+    }
+
+    @Override
+    public void onActivityDestroyed(Activity activity) {
+        if (activity == mActivity) {
+            if (SensorAnnotations.BOUND_BINDERS.get(mTarget) == this) {
+                SensorAnnotations.BOUND_BINDERS.remove(mTarget);
+            }
+            unbind();
+        }
+    }
+
+    @Override
+    public void onActivityCreated(Activity activity, Bundle savedInstanceState) {}
+
+    @Override
+    public void onActivityStarted(Activity activity) {}
+
+    @Override
+    public void onActivitySaveInstanceState(Activity activity, Bundle outState) {}
+}
@@ -0,0 +1,177 @@
+package com.dvoiss.sensorannotations;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.support.annotation.VisibleForTesting;
+import com.dvoiss.sensorannotations.internal.SensorBinderFactory;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The resolved binder factory of each target class, bounded to a number of classes with the
+ * least recently used class evicted first.
+ *
+ * The factories are held strongly, the cache would otherwise lose every entry on the next
+ * garbage collection since nothing else references them, and the capacity bounds the memory they
+ * use. The classes are only weakly referenced. The no-op factory of a class without a binder
+ * doesn't reference the class, so the class and its class loader can still be collected, and its
+ * entry is then dropped on the next access of the cache. A generated factory references the
+ * class loader of its target through the binder class, so the cache keeps that class loader alive
+ * and only drops the entry when the class is evicted as the least recently used one or the cache
+ * is cleared. A class loader that is discarded, e.g. of a dynamically loaded feature, stays in
+ * memory with its cached binders until then.
+ */
+final class BinderCache {
+    @NonNull private final ReferenceQueue<Class<?>> mQueue = new ReferenceQueue<>();
+    @NonNull private final Map<ClassKey, SensorBinderFactory> mEntries =
+        new LinkedHashMap<ClassKey, SensorBinderFactory>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<ClassKey, SensorBinderFactory> eldest) {
+                if (size() > mCapacity) {
+                    mEvictionCount++;
+                    return true;
+                }
+                return false;
+            }
+        };
+
+    private int mCapacity;
+    private long mHitCount;
+    private long mMissCount;
+    private long mEvictionCount;
+
+    /**
+     * @param capacity The maximum number of classes in the cache.
+     */
+    BinderCache(int capacity) {
+        setCapacity(capacity);
+    }
+
+    /**
+     * @param targetClass The class of the target.
+     * @return The cached factory or null if the class isn't cached.
+     */
+    @Nullable
+    synchronized SensorBinderFactory get(@NonNull Class<?> targetClass) {
+        expungeStaleEntries();
+        SensorBinderFactory factory = mEntries.get(new ClassKey(targetClass, null));
+        if (factory != null) {
+            mHitCount++;
+        } else {
+            mMissCount++;
+        }
+        return factory;
+    }
+
+    synchronized void put(@NonNull Class<?> targetClass, @NonNull SensorBinderFactory factory) {
+        expungeStaleEntries();
+        mEntries.put(new ClassKey(targetClass, mQueue), factory);
+    }
+
+    /**
+     * @return True if the class is cached, without counting a hit or miss.
+     */
+    synchronized boolean containsKey(@NonNull Class<?> targetClass) {
+        expungeStaleEntries();
+        return mEntries.containsKey(new ClassKey(targetClass, null));
+    }
+
+    synchronized int size() {
+        expungeStaleEntries();
+        return mEntries.size();
+    }
+
+    synchronized boolean isEmpty() {
+        return size() == 0;
+    }
+
+    /**
+     * Remove every class, the counters are kept.
+     */
+    synchronized void clear() {
+        mEntries.clear();
+        while (mQueue.poll() != null) {
+            // The keys are already removed.
+        }
+    }
+
+    /**
+     * Change the maximum number of classes, evicting the least recently used classes if the
+     * cache is larger.
+     */
+    synchronized void setCapacity(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("The capacity must be positive: " + capacity);
+        }
+
+        mCapacity = capacity;
+        expungeStaleEntries();
+        while (mEntries.size() > mCapacity) {
+            mEntries.remove(mEntries.keySet().iterator().next());
+            mEvictionCount++;
+        }
+    }
+
+    @NonNull
+    synchronized BinderCacheStats getStats() {
+        expungeStaleEntries();
+        return new BinderCacheStats(mEntries.size(), mCapacity, mHitCount, mMissCount,
+            mEvictionCount);
+    }
+
+    /**
+     * Clear the reference to a class as if it was collected, its entry is dropped on the next
+     * access of the cache.
+     */
+    @VisibleForTesting
+    synchronized void clearClassReference(@NonNull Class<?> targetClass) {
+        for (ClassKey key : mEntries.keySet()) {
+            if (key.get() == targetClass) {
+                key.clear();
+                key.enqueue();
+                return;
+            }
+        }
+    }
+
+    private void expungeStaleEntries() {
+        Reference<? extends Class<?>> reference;
+        while ((reference = mQueue.poll()) != null) {
+            if (mEntries.remove(reference) != null) {
+                mEvictionCount++;
+            }
+        }
+    }
+
+    /**
+     * A weak reference to a class that compares the classes by identity while they are alive.
+     */
+    private static final class ClassKey extends WeakReference<Class<?>> {
+        private final int mHashCode;
+
+        ClassKey(@NonNull Class<?> targetClass, @Nullable ReferenceQueue<Class<?>> queue) {
+            super(targetClass, queue);
+            mHashCode = System.identityHashCode(targetClass);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (o == this) {
+                return true;
+            } else if (!(o instanceof ClassKey)) {
+                return false;
+            }
+
+            Class<?> targetClass = get();
+            return targetClass != null && targetClass == ((ClassKey) o).get();
+        }
+
+        @Override
+        public int hashCode() {
+            return mHashCode;
+        }
+    }
+}
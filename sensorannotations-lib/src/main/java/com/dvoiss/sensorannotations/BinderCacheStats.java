@@ -0,0 +1,62 @@
+package com.dvoiss.sensorannotations;
+
+/**
+ * A snapshot of the counters of the cache of binder factories, see {@link
+ * SensorAnnotations#getBinderCacheStats()}. A high miss count with a full cache means the
+ * capacity is smaller than the number of classes that are bound repeatedly.
+ */
+public final class BinderCacheStats {
+    private final int mSize;
+    private final int mCapacity;
+    private final long mHitCount;
+    private final long mMissCount;
+    private final long mEvictionCount;
+
+    BinderCacheStats(int size, int capacity, long hitCount, long missCount, long evictionCount) {
+        mSize = size;
+        mCapacity = capacity;
+        mHitCount = hitCount;
+        mMissCount = missCount;
+        mEvictionCount = evictionCount;
+    }
+
+    /**
+     * @return The number of cached classes, with or without a binder.
+     */
+    public int getSize() {
+        return mSize;
+    }
+
+    public int getCapacity() {
+        return mCapacity;
+    }
+
+    /**
+     * @return The number of lookups of a class that was cached, including the superclasses
+     * visited to find the binder of a class.
+     */
+    public long getHitCount() {
+        return mHitCount;
+    }
+
+    /**
+     * @return The number of lookups of a class that wasn't cached.
+     */
+    public long getMissCount() {
+        return mMissCount;
+    }
+
+    /**
+     * @return The number of classes evicted to stay within the capacity and of classes that were
+     * garbage collected.
+     */
+    public long getEvictionCount() {
+        return mEvictionCount;
+    }
+
+    @Override
+    public String toString() {
+        return "BinderCacheStats{size=" + mSize + ", capacity=" + mCapacity + ", hits="
+            + mHitCount + ", misses=" + mMissCount + ", evictions=" + mEvictionCount + "}";
+    }
+}
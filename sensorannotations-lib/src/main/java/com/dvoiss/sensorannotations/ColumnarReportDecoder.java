@@ -0,0 +1,69 @@
+package com.dvoiss.sensorannotations;
+
+import android.support.annotation.NonNull;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.LongBuffer;
+
+import static com.dvoiss.sensorannotations.SensorDirectReportReader.OFFSET_TIMESTAMP;
+import static com.dvoiss.sensorannotations.SensorDirectReportReader.OFFSET_VALUES;
+import static com.dvoiss.sensorannotations.SensorDirectReportReader.REPORT_SIZE;
+
+/**
+ * Decodes batches of row-wise sensor reports, in the format read by {@link
+ * SensorDirectReportReader}, into columns of primitive arrays for per-axis maths.
+ *
+ * The reports are read through {@link LongBuffer} and {@link FloatBuffer} views of the bytes, so
+ * each field is a single indexed load with a constant stride, and each column is filled by its
+ * own loop without branches or allocations. The caller owns the arrays and can reuse them
+ * between batches.
+ */
+public final class ColumnarReportDecoder {
+    private static final int LONG_STRIDE = REPORT_SIZE / 8;
+    private static final int FLOAT_STRIDE = REPORT_SIZE / 4;
+
+    private ColumnarReportDecoder() {}
+
+    /**
+     * Decode the timestamps and the first three values of consecutive reports.
+     *
+     * @param buffer The reports, read from the start of the buffer in the native byte order.
+     * @param firstReport The index of the first report to decode.
+     * @param count The number of reports to decode.
+     * @param timestamps Receives the timestamps, from index 0.
+     * @param x Receives the first value of each report.
+     * @param y Receives the second value of each report.
+     * @param z Receives the third value of each report.
+     */
+    public static void decode(@NonNull ByteBuffer buffer, int firstReport, int count,
+        @NonNull long[] timestamps, @NonNull float[] x, @NonNull float[] y,
+        @NonNull float[] z) {
+        if (firstReport < 0 || count < 0
+            || ((long) firstReport + count) * REPORT_SIZE > buffer.capacity()) {
+            throw new IndexOutOfBoundsException(String.format(
+                "Reports %d to %d are outside of the buffer.", firstReport,
+                (long) firstReport + count));
+        } else if (timestamps.length < count || x.length < count || y.length < count
+            || z.length < count) {
+            throw new IllegalArgumentException("The arrays are smaller than the batch.");
+        }
+
+        ByteBuffer bytes = buffer.duplicate().order(ByteOrder.nativeOrder());
+        bytes.clear();
+
+        LongBuffer longs = bytes.asLongBuffer();
+        int longIndex = firstReport * LONG_STRIDE + OFFSET_TIMESTAMP / 8;
+        for (int i = 0; i < count; i++, longIndex += LONG_STRIDE) {
+            timestamps[i] = longs.get(longIndex);
+        }
+
+        FloatBuffer floats = bytes.asFloatBuffer();
+        int floatIndex = firstReport * FLOAT_STRIDE + OFFSET_VALUES / 4;
+        for (int i = 0; i < count; i++, floatIndex += FLOAT_STRIDE) {
+            x[i] = floats.get(floatIndex);
+            y[i] = floats.get(floatIndex + 1);
+            z[i] = floats.get(floatIndex + 2);
+        }
+    }
+}
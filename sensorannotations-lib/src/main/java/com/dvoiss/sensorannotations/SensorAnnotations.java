@@ -1,12 +1,22 @@
 package com.dvoiss.sensorannotations;
 
+import android.app.Activity;
 import android.content.Context;
+import android.os.Build;
 import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
 import android.util.Log;
 import com.dvoiss.sensorannotations.internal.SensorBinder;
+import com.dvoiss.sensorannotations.internal.SensorBinderFactory;
+import com.dvoiss.sensorannotations.internal.SensorCatalog;
+import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
-import java.util.LinkedHashMap;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -17,7 +27,8 @@ import java.util.Map;
  *
  * Per the best practices guidelines for sensors (<a href="https://developer.android.com/guide/topics/sensors/sensors_overview.html#sensors-practices">Sensors
  * Best Practices</a>), SensorAnnotations needs to be able to unregister listeners. This is best
- * done in an onPause method of the activity lifecycle.
+ * done in an onPause method of the activity lifecycle, or left to {@linkplain
+ * #bindToLifecycle(Object, Activity, int)} which follows the lifecycle of an activity.
  *
  * A good portion of this class is based on ButterKnife's binding code
  * (<a href="https://github.com/JakeWharton/butterknife">https://github.com/JakeWharton/butterknife</a>).
@@ -34,15 +45,59 @@ public class SensorAnnotations {
      */
     private static final String SUFFIX = "$$SensorBinder";
 
+    /**
+     * The suffix of the factory nested in the generated class.
+     */
+    private static final String FACTORY_SUFFIX = "$Factory";
+
+    /**
+     * Value for the paused delay of {@link #bindToLifecycle(Object, Activity, int)} to unregister
+     * the listeners while the activity is paused.
+     */
+    public static final int UNBIND_WHEN_PAUSED = -1;
+
     static final SensorBinder NO_OP_VIEW_BINDER = new SensorBinder<Object>() {
         @Override
         public void bind(Object target) {}
 
         @Override
         public void unbind() {}
+
+        @Override
+        public void setMinimumDelay(int minimumDelay) {}
+    };
+
+    /**
+     * The binder of each bound target. Every target has its own binder, the listeners of targets
+     * that listen to the same sensor share a single registration of the {@code SensorManager}.
+     */
+    static final Map<Object, SensorBinder> BOUND_BINDERS = new IdentityHashMap<>();
+
+    /**
+     * Resolves every class of a hierarchy without a binder to {@link #NO_OP_VIEW_BINDER}.
+     */
+    static final SensorBinderFactory NO_OP_FACTORY = new SensorBinderFactory<Object>() {
+        @NonNull
+        @Override
+        public SensorBinder<Object> create(@NonNull Context context, @NonNull Object target) {
+            //noinspection unchecked
+            return NO_OP_VIEW_BINDER;
+        }
     };
 
-    static final Map<Class<?>, SensorBinder> BINDER_CACHE = new LinkedHashMap<>();
+    /**
+     * The number of classes the binder cache holds until {@link #setBinderCacheCapacity(int)} is
+     * called.
+     */
+    public static final int DEFAULT_BINDER_CACHE_CAPACITY = 256;
+
+    /**
+     * The binder factories by target class, resolved by the first bind of a class or ahead of it
+     * by {@link #preload(Context, Class[])} on a background thread. A class without a binder of
+     * its own maps to the factory of its closest superclass with a binder, or to {@link
+     * #NO_OP_FACTORY} so the lookup isn't repeated for each target of the class.
+     */
+    static final BinderCache BINDER_CACHE = new BinderCache(DEFAULT_BINDER_CACHE_CAPACITY);
 
     /**
      * Binding needs a context object to find the {@code SensorManager}. Binding will call the bind
@@ -72,10 +127,184 @@ public class SensorAnnotations {
                 Log.d(TAG, "Looking up sensor binder for " + targetClass.getName());
             }
 
-            SensorBinder sensorBinder = findSensorBinderToBind(target, context);
-            if (sensorBinder != null) {
-                //noinspection unchecked
-                sensorBinder.bind(target);
+            SensorBinder sensorBinder = BOUND_BINDERS.get(target);
+            if (sensorBinder == null) {
+                sensorBinder = findSensorBinderToBind(target, context);
+                if (sensorBinder == null || sensorBinder == NO_OP_VIEW_BINDER) {
+                    return;
+                }
+                BOUND_BINDERS.put(target, sensorBinder);
+            }
+
+            //noinspection unchecked
+            sensorBinder.bind(target);
+        } catch (Exception e) {
+            throw new RuntimeException("Unable to bind sensors for " + targetClass.getName(), e);
+        }
+    }
+
+    /**
+     * Bind several targets, for example the components of a screen. Targets that listen to the
+     * same sensor with the same delay share one registration of the {@code SensorManager}, so
+     * the cost of binding a target doesn't grow with the number of bound targets. The targets are
+     * bound one after another, the {@code SensorManager} is only called for the first target of
+     * each sensor and delay.
+     *
+     * @param targets The target objects being bound to.
+     * @param context {@link Context} Context object needed for finding the {@code SensorManager}.
+     */
+    public static void bindAll(@Nullable Collection<?> targets, @Nullable Context context) {
+        if (targets == null || context == null) {
+            throw new RuntimeException("Bind method only accepts non-null parameters.");
+        }
+
+        for (Object target : targets) {
+            bind(target, context);
+        }
+    }
+
+    /**
+     * Load the binders of classes and look up the {@code SensorManager} on a background thread,
+     * so the first bind of the classes only hits the caches. Call it during the startup of the
+     * application.
+     *
+     * @param context {@link Context} Context object needed for finding the {@code SensorManager}.
+     * @param targetClasses The classes that will be bound.
+     */
+    public static void preload(@Nullable Context context, @NonNull Class<?>... targetClasses) {
+        preloadInBackground(context, null, Arrays.asList(targetClasses));
+    }
+
+    /**
+     * Load the binders of every class of a generated index and look up the {@code SensorManager}
+     * and the sensors they listen to on a background thread, see {@link #preload(Context,
+     * Class[])}.
+     *
+     * @param context {@link Context} Context object needed for finding the {@code SensorManager}.
+     * @param index The index generated with the {@code sensorannotations.index} option.
+     */
+    public static void preload(@Nullable Context context, @NonNull SensorBinderIndex index) {
+        preloadInBackground(context, index, Collections.<Class<?>>emptyList());
+    }
+
+    private static void preloadInBackground(@Nullable final Context context,
+        @Nullable final SensorBinderIndex index, @NonNull final List<Class<?>> targetClasses) {
+        if (context == null) {
+            throw new RuntimeException("Preload method only accepts a non-null context.");
+        }
+
+        Thread thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                if (index != null) {
+                    preload(context, index.getTargetClassNames(), index.getSensorTypes());
+                } else {
+                    preload(context, targetClasses, new int[0]);
+                }
+            }
+        }, "SensorAnnotations-preload");
+        thread.setPriority(Thread.MIN_PRIORITY);
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Preload the classes of an index on the calling thread, classes that can't be loaded are
+     * skipped.
+     */
+    static void preload(@NonNull Context context, @NonNull String[] targetClassNames,
+        @NonNull int[] sensorTypes) {
+        List<Class<?>> targetClasses = new ArrayList<>(targetClassNames.length);
+        for (String targetClassName : targetClassNames) {
+            try {
+                targetClasses.add(Class.forName(targetClassName));
+            } catch (ClassNotFoundException e) {
+                if (DEBUG_LOGGING) {
+                    Log.d(TAG, "Could not load indexed class " + targetClassName);
+                }
+            }
+        }
+
+        preload(context, targetClasses, sensorTypes);
+    }
+
+    /**
+     * Preload on the calling thread: resolve the factories of the binders, create the {@link
+     * SensorCatalog} and look up the sensors of the types.
+     */
+    static void preload(@NonNull Context context, @NonNull List<Class<?>> targetClasses,
+        @NonNull int[] sensorTypes) {
+        SensorCatalog sensorCatalog = SensorCatalog.getInstance(context);
+        for (Class<?> targetClass : targetClasses) {
+            if (findBinderFactory(targetClass) == NO_OP_FACTORY && DEBUG_LOGGING) {
+                Log.d(TAG, "No sensor binder to preload for " + targetClass.getName());
+            }
+        }
+
+        for (int sensorType : sensorTypes) {
+            sensorCatalog.getDefaultSensor(sensorType);
+            sensorCatalog.getSensorList(sensorType);
+        }
+    }
+
+    /**
+     * Bind the activity while it is resumed, see {@link #bindToLifecycle(Object, Activity, int)}.
+     *
+     * @param activity The activity being bound to.
+     */
+    public static void bindToLifecycle(@Nullable Activity activity) {
+        bindToLifecycle(activity, activity, UNBIND_WHEN_PAUSED);
+    }
+
+    /**
+     * Bind the target while the activity is resumed, see {@link #bindToLifecycle(Object,
+     * Activity, int)}.
+     *
+     * @param target The target object being bound to.
+     * @param activity The activity whose lifecycle is followed.
+     */
+    public static void bindToLifecycle(@Nullable Object target, @Nullable Activity activity) {
+        bindToLifecycle(target, activity, UNBIND_WHEN_PAUSED);
+    }
+
+    /**
+     * Bind the target following the lifecycle of an activity instead of calling {@link
+     * #bind(Object, Context)} and {@link #unbind(Object)} manually. The listeners are registered
+     * each time the activity resumes and unregistered when it stops, the binder is only created
+     * once. While the activity is paused but still partially visible the listeners are either
+     * unregistered or registered with a slower delay. A fragment can be bound to the lifecycle of
+     * its activity.
+     *
+     * This should be called before the activity resumes, usually in {@code onCreate}. Requires
+     * API 14. A target can only be bound once, {@link #unbind(Object)} unbinds it and stops
+     * following the lifecycle.
+     *
+     * @param target The target object being bound to.
+     * @param activity The activity whose lifecycle is followed.
+     * @param pausedDelay The delay used while the activity is paused, a {@code
+     * SensorManager.SENSOR_DELAY_*} constant or a period in microseconds, or {@link
+     * #UNBIND_WHEN_PAUSED}. Listeners with a slower delay keep their delay.
+     */
+    public static void bindToLifecycle(@Nullable Object target, @Nullable Activity activity,
+        int pausedDelay) {
+        if (target == null || activity == null) {
+            throw new RuntimeException("Bind method only accepts non-null parameters.");
+        }
+
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.ICE_CREAM_SANDWICH) {
+            throw new RuntimeException("Binding to the activity lifecycle requires API 14.");
+        }
+
+        Class<?> targetClass = target.getClass();
+        if (BOUND_BINDERS.containsKey(target)) {
+            throw new RuntimeException(targetClass.getName() + " is already bound.");
+        }
+
+        try {
+            SensorBinder sensorBinder = findSensorBinderToBind(target, activity);
+            if (sensorBinder != null && sensorBinder != NO_OP_VIEW_BINDER) {
+                BOUND_BINDERS.put(target, ActivityLifecycleBinder.register(activity, target,
+                    sensorBinder, pausedDelay));
             }
         } catch (Exception e) {
             throw new RuntimeException("Unable to bind sensors for " + targetClass.getName(), e);
@@ -84,7 +313,7 @@ public class SensorAnnotations {
 
     /**
      * Unbinding is important to do in {@code onPause} methods so we can un-register the {@code
-     * SensorEventListener} Check the cache for the sensor binder and unbind.
+     * SensorEventListener} Look up the binder of the target and unbind.
      *
      * @param target The target object being bound to.
      */
@@ -100,7 +329,7 @@ public class SensorAnnotations {
                 Log.d(TAG, "Looking up sensor binder for " + targetClass.getName());
             }
 
-            SensorBinder sensorBinder = checkCacheForSensorBinderClass(target);
+            SensorBinder sensorBinder = BOUND_BINDERS.remove(target);
             if (sensorBinder != null) {
                 sensorBinder.unbind();
             }
@@ -109,17 +338,51 @@ public class SensorAnnotations {
         }
     }
 
+    /**
+     * Unbind several targets, the {@code SensorManager} is only called for the sensors no other
+     * bound target listens to.
+     *
+     * @param targets The target objects being bound to.
+     */
+    public static void unbindAll(@Nullable Collection<?> targets) {
+        if (targets == null) {
+            throw new RuntimeException(
+                "Null value for targets parameter passed into unbindAll method.");
+        }
+
+        for (Object target : targets) {
+            unbind(target);
+        }
+    }
+
+    /**
+     * Change the number of classes whose binder is cached, the least recently bound classes are
+     * evicted first. Every class of a hierarchy visited while looking for a binder takes an
+     * entry.
+     *
+     * @param capacity The maximum number of cached classes.
+     */
+    public static void setBinderCacheCapacity(int capacity) {
+        BINDER_CACHE.setCapacity(capacity);
+    }
+
+    /**
+     * @return The size and the hit, miss and eviction counters of the binder cache.
+     */
+    @NonNull
+    public static BinderCacheStats getBinderCacheStats() {
+        return BINDER_CACHE.getStats();
+    }
+
     /**
      * Find the class generated by the annotation processor that we need to bind.
      *
      * @param target The target object being bound to.
      * @param context {@link Context} Context object needed for finding the {@code SensorManager}.
-     * @return The {@link SensorBinder} for the target or {@link #NO_OP_VIEW_BINDER}.
-     * @throws IllegalAccessException
-     * @throws InstantiationException
+     * @return A new {@link SensorBinder} for the target or {@link #NO_OP_VIEW_BINDER}.
      */
     private static SensorBinder findSensorBinderToBind(@Nullable Object target,
-        @Nullable Context context) throws IllegalAccessException, InstantiationException {
+        @Nullable Context context) {
         if (target == null || context == null) {
             if (DEBUG_LOGGING) {
                 Log.d(TAG, "Null parameters are not valid.");
@@ -127,71 +390,104 @@ public class SensorAnnotations {
             return NO_OP_VIEW_BINDER;
         }
 
-        SensorBinder sensorBinder = checkCacheForSensorBinderClass(target);
-        if (sensorBinder != null) {
-            if (DEBUG_LOGGING) {
-                Log.d(TAG, "Loaded cached sensor binder.");
+        //noinspection unchecked
+        return findBinderFactory(target.getClass()).create(context, target);
+    }
+
+    /**
+     * Returns the factory of the binder of a class, which is its own binder or the binder of its
+     * closest superclass with one. The result is cached for every class visited on the way up,
+     * whether a binder was found or not, so a missing binder is only looked up once per class.
+     * Framework classes end the search and aren't cached.
+     *
+     * @param targetClass The class of the target.
+     * @return The factory of the binder or {@link #NO_OP_FACTORY} if no class of the hierarchy
+     * has a binder.
+     */
+    @NonNull
+    private static SensorBinderFactory findBinderFactory(@NonNull Class<?> targetClass) {
+        SensorBinderFactory factory = BINDER_CACHE.get(targetClass);
+        if (factory != null) {
+            if (DEBUG_LOGGING && factory == NO_OP_FACTORY) {
+                Log.d(TAG, "Class has no sensor binder.");
             }
-            return sensorBinder;
+            return factory;
         }
 
-        Class<?> targetClass = target.getClass();
         String className = targetClass.getName();
         if (className.startsWith(ANDROID_PREFIX) || className.startsWith(JAVA_PREFIX)) {
             if (DEBUG_LOGGING) {
                 Log.d(TAG, "Reached framework class. Abandoning search.");
             }
-            return NO_OP_VIEW_BINDER;
+            return NO_OP_FACTORY;
         }
 
         try {
-            Class<?> viewBindingClass = Class.forName(className + SUFFIX);
-
-            sensorBinder =
-                (SensorBinder) viewBindingClass.getConstructor(Context.class, targetClass)
-                    .newInstance(context, target);
-
-            if (sensorBinder == null) {
-                if (DEBUG_LOGGING) {
-                    Log.d(TAG, "Could not instantiate constructor for class.");
-                }
-                return NO_OP_VIEW_BINDER;
-            }
-
+            factory = loadBinderFactory(targetClass);
             if (DEBUG_LOGGING) {
                 Log.d(TAG, "Loaded sensor binder class.");
             }
         } catch (ClassNotFoundException e) {
-            if (DEBUG_LOGGING) {
-                Log.d(TAG, "Not found. Trying superclass " + targetClass.getSuperclass().getName());
-            }
-            sensorBinder = findSensorBinderToBind(targetClass.getSuperclass(), context);
-        } catch (NoSuchMethodException e) {
-            if (DEBUG_LOGGING) {
-                Log.d(TAG, "Could not find constructor for class. Abandoning search.");
+            Class<?> superclass = targetClass.getSuperclass();
+            if (DEBUG_LOGGING && superclass != null) {
+                Log.d(TAG, "Not found. Trying superclass " + superclass.getName());
             }
-            sensorBinder = NO_OP_VIEW_BINDER;
-        } catch (InvocationTargetException e) {
+            factory = superclass != null ? findBinderFactory(superclass) : NO_OP_FACTORY;
+        } catch (NoSuchMethodException | InstantiationException | IllegalAccessException
+            | InvocationTargetException e) {
             if (DEBUG_LOGGING) {
-                Log.d(TAG, "Could not instantiate constructor for class.");
+                Log.d(TAG, "Could not instantiate the sensor binder of the class.");
             }
-            sensorBinder = NO_OP_VIEW_BINDER;
+            factory = NO_OP_FACTORY;
         }
 
-        BINDER_CACHE.put(targetClass, sensorBinder);
-
-        return sensorBinder;
+        BINDER_CACHE.put(targetClass, factory);
+        return factory;
     }
 
     /**
-     * Check the cache for a {@link SensorBinder} that matches the target parameter.
+     * Load the factory of the binder generated for a class. Binders generated without a nested
+     * {@code Factory} are created with their constructor by reflection.
      *
-     * @param target The target object being bound to.
-     * @return The cached {@link SensorBinder} for the target or null.
+     * @param targetClass The class the binder was generated for.
+     * @return The factory of the binder.
+     * @throws ClassNotFoundException If the class has no binder.
+     * @throws NoSuchMethodException If the binder has no matching constructor.
      */
-    private static SensorBinder checkCacheForSensorBinderClass(@NonNull Object target) {
-        Class<?> targetClass = target.getClass();
-        SensorBinder sensorBinder = BINDER_CACHE.get(targetClass);
-        return sensorBinder != null ? sensorBinder : null;
+    @NonNull
+    private static SensorBinderFactory loadBinderFactory(@NonNull Class<?> targetClass)
+        throws ClassNotFoundException, NoSuchMethodException, InstantiationException,
+        IllegalAccessException, InvocationTargetException {
+        Class<?> viewBindingClass = Class.forName(targetClass.getName() + SUFFIX);
+        try {
+            return (SensorBinderFactory) Class.forName(
+                viewBindingClass.getName() + FACTORY_SUFFIX).getConstructor().newInstance();
+        } catch (ClassNotFoundException e) {
+            return new ReflectiveSensorBinderFactory(
+                viewBindingClass.getConstructor(Context.class, targetClass));
+        }
+    }
+
+    /**
+     * Creates binders with their constructor, for binders generated without a factory.
+     */
+    private static final class ReflectiveSensorBinderFactory implements SensorBinderFactory {
+        @NonNull private final Constructor<?> mConstructor;
+
+        ReflectiveSensorBinderFactory(@NonNull Constructor<?> constructor) {
+            mConstructor = constructor;
+        }
+
+        @NonNull
+        @Override
+        public SensorBinder create(@NonNull Context context, @NonNull Object target) {
+            try {
+                return (SensorBinder) mConstructor.newInstance(context, target);
+            } catch (InstantiationException | IllegalAccessException
+                | InvocationTargetException e) {
+                throw new RuntimeException(
+                    "Unable to create " + mConstructor.getDeclaringClass().getName(), e);
+            }
+        }
     }
 }
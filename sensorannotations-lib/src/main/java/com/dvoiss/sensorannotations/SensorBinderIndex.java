@@ -0,0 +1,23 @@
+package com.dvoiss.sensorannotations;
+
+import android.support.annotation.NonNull;
+
+/**
+ * An index of the classes with a binder, generated by the annotation processor when the {@code
+ * sensorannotations.index} option names the index class. Pass it to {@link
+ * SensorAnnotations#preload(android.content.Context, SensorBinderIndex)} during the startup of the
+ * application.
+ */
+public interface SensorBinderIndex {
+    /**
+     * @return The binary names of the classes with a binder.
+     */
+    @NonNull
+    String[] getTargetClassNames();
+
+    /**
+     * @return The sensor types the binders listen to.
+     */
+    @NonNull
+    int[] getSensorTypes();
+}
@@ -0,0 +1,156 @@
+package com.dvoiss.sensorannotations;
+
+import android.support.annotation.NonNull;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Reads the sensor reports written by a sensor direct channel into shared memory. The memory is a
+ * ring of fixed size reports of {@link #REPORT_SIZE} bytes:
+ *
+ * <pre>
+ * offset  type        field
+ * 0       int32       report size, always 104
+ * 4       int32       sensor report token
+ * 8       int32       sensor type
+ * 12      uint32      atomic counter, incremented for every report
+ * 16      int64       timestamp in nanoseconds
+ * 24      float[16]   values
+ * 88      int32[4]    reserved
+ * </pre>
+ *
+ * The reader doesn't copy the reports: {@link #next()} moves to the next report and the getters
+ * read its fields directly from the buffer, so reading allocates nothing. The counter tells new
+ * reports apart from old ones, and reports overwritten before they were read are counted by
+ * {@link #getDroppedCount()}.
+ *
+ * A reader isn't thread safe and must only be used by a single consumer.
+ */
+public final class SensorDirectReportReader {
+    public static final int REPORT_SIZE = 104;
+    public static final int MAX_VALUE_COUNT = 16;
+
+    static final int OFFSET_SIZE = 0;
+    static final int OFFSET_TOKEN = 4;
+    static final int OFFSET_TYPE = 8;
+    static final int OFFSET_COUNTER = 12;
+    static final int OFFSET_TIMESTAMP = 16;
+    static final int OFFSET_VALUES = 24;
+
+    private static final long COUNTER_MASK = 0xffffffffL;
+
+    @NonNull private final ByteBuffer mBuffer;
+    private final int mReportCount;
+
+    private int mNextSlot;
+    private int mOffset = -1;
+    private long mLastCounter;
+    private long mDroppedCount;
+
+    /**
+     * @param buffer The shared memory of the channel, reports are read from its start in the
+     * native byte order. The buffer itself is shared, not copied.
+     */
+    public SensorDirectReportReader(@NonNull ByteBuffer buffer) {
+        mBuffer = buffer.duplicate().order(ByteOrder.nativeOrder());
+        mBuffer.clear();
+        mReportCount = mBuffer.capacity() / REPORT_SIZE;
+        if (mReportCount == 0) {
+            throw new IllegalArgumentException(
+                "The buffer must hold at least one report of " + REPORT_SIZE + " bytes.");
+        }
+    }
+
+    /**
+     * Move to the next report if one was written since the last call.
+     *
+     * @return True if the getters now return a new report, false if there is no new report.
+     */
+    public boolean next() {
+        int offset = mNextSlot * REPORT_SIZE;
+        if (mBuffer.getInt(offset + OFFSET_SIZE) != REPORT_SIZE) {
+            return false;
+        }
+
+        long counter = mBuffer.getInt(offset + OFFSET_COUNTER) & COUNTER_MASK;
+        long newReports = (counter - mLastCounter) & COUNTER_MASK;
+        if (newReports == 0 || newReports > COUNTER_MASK / 2) {
+            return false;
+        }
+
+        mDroppedCount += newReports - 1;
+        mLastCounter = counter;
+        mOffset = offset;
+        mNextSlot = (mNextSlot + 1) % mReportCount;
+        return true;
+    }
+
+    /**
+     * @return The number of reports the ring holds.
+     */
+    public int getReportCount() {
+        return mReportCount;
+    }
+
+    /**
+     * @return The number of reports that were overwritten before they could be read.
+     */
+    public long getDroppedCount() {
+        return mDroppedCount;
+    }
+
+    /**
+     * @return The token the sensor was configured with on the channel.
+     */
+    public int getToken() {
+        return mBuffer.getInt(checkOffset() + OFFSET_TOKEN);
+    }
+
+    public int getSensorType() {
+        return mBuffer.getInt(checkOffset() + OFFSET_TYPE);
+    }
+
+    /**
+     * @return The atomic counter of the report as an unsigned value.
+     */
+    public long getCounter() {
+        return mBuffer.getInt(checkOffset() + OFFSET_COUNTER) & COUNTER_MASK;
+    }
+
+    public long getTimestamp() {
+        return mBuffer.getLong(checkOffset() + OFFSET_TIMESTAMP);
+    }
+
+    /**
+     * @param index The index of the value, the same as in {@code SensorEvent#values}.
+     * @return The value of the report.
+     */
+    public float getValue(int index) {
+        if (index < 0 || index >= MAX_VALUE_COUNT) {
+            throw new IndexOutOfBoundsException("Invalid value index " + index);
+        }
+
+        return mBuffer.getFloat(checkOffset() + OFFSET_VALUES + index * 4);
+    }
+
+    /**
+     * Copy the first values of the report.
+     *
+     * @param values The array to copy to, up to {@link #MAX_VALUE_COUNT} values are copied.
+     */
+    public void getValues(@NonNull float[] values) {
+        int offset = checkOffset() + OFFSET_VALUES;
+        int count = Math.min(values.length, MAX_VALUE_COUNT);
+        for (int i = 0; i < count; i++) {
+            values[i] = mBuffer.getFloat(offset + i * 4);
+        }
+    }
+
+    private int checkOffset() {
+        if (mOffset < 0) {
+            throw new IllegalStateException("next() didn't return a report yet.");
+        }
+
+        return mOffset;
+    }
+}
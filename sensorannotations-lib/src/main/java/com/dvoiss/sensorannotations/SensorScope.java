@@ -0,0 +1,97 @@
+package com.dvoiss.sensorannotations;
+
+import android.content.Context;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * A group of bound targets that is unbound at once, for example the components of a screen:
+ *
+ * <pre>{@code
+ * mSensorScope = new SensorScope(context);
+ * mSensorScope.bind(this);
+ * mSensorScope.bind(mAccelerometerManager);
+ * ...
+ * mSensorScope.close();
+ * }</pre>
+ *
+ * Closing the scope unbinds every target in a single pass. The targets that listen to the same
+ * sensor with the same delay share one registration of the {@code SensorManager}, which is
+ * unregistered once when the last of them is unbound, so closing a scope makes one call per
+ * sensor instead of one per target. A closed scope can't bind targets anymore, create a new scope
+ * instead.
+ */
+public final class SensorScope implements Closeable {
+    @NonNull private final Context mContext;
+    @NonNull private final Set<Object> mTargets =
+        Collections.newSetFromMap(new IdentityHashMap<Object, Boolean>());
+    private boolean mClosed;
+
+    /**
+     * @param context {@link Context} Context object needed for finding the {@code SensorManager}.
+     */
+    public SensorScope(@Nullable Context context) {
+        if (context == null) {
+            throw new RuntimeException("SensorScope only accepts a non-null context.");
+        }
+
+        mContext = context;
+    }
+
+    /**
+     * Bind a target in this scope, binding a target that is already bound has no effect.
+     *
+     * @param target The target object being bound to.
+     */
+    public void bind(@Nullable Object target) {
+        if (mClosed) {
+            throw new IllegalStateException("The scope is closed.");
+        }
+
+        SensorAnnotations.bind(target, mContext);
+        mTargets.add(target);
+    }
+
+    /**
+     * Unbind a single target before the scope is closed.
+     *
+     * @param target The target object being bound to.
+     */
+    public void unbind(@Nullable Object target) {
+        if (mTargets.remove(target)) {
+            SensorAnnotations.unbind(target);
+        }
+    }
+
+    /**
+     * @return The number of targets bound in this scope.
+     */
+    public int getTargetCount() {
+        return mTargets.size();
+    }
+
+    public boolean isClosed() {
+        return mClosed;
+    }
+
+    /**
+     * Unbind every target of the scope, closing a closed scope has no effect.
+     */
+    @Override
+    public void close() {
+        if (mClosed) {
+            return;
+        }
+
+        mClosed = true;
+        List<Object> targets = new ArrayList<>(mTargets);
+        mTargets.clear();
+        SensorAnnotations.unbindAll(targets);
+    }
+}
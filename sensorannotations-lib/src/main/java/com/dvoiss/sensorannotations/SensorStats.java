@@ -0,0 +1,59 @@
+package com.dvoiss.sensorannotations;
+
+/**
+ * Summary statistics of the sensor events currently inside the sliding window of a method
+ * annotated with {@link OnSensorStats}. Each axis corresponds to an index of {@code
+ * SensorEvent#values}.
+ *
+ * The instance passed to the annotated method is reused and updated as new events arrive, the
+ * values are only valid for the duration of the call. Copy what is needed instead of holding on
+ * to the object.
+ */
+public abstract class SensorStats {
+    /**
+     * @return The number of events inside the window.
+     */
+    public abstract int getCount();
+
+    /**
+     * @return The number of values per event.
+     */
+    public abstract int getAxisCount();
+
+    /**
+     * @return The timestamp of the oldest event inside the window.
+     */
+    public abstract long getStartTimestamp();
+
+    /**
+     * @return The timestamp of the newest event inside the window.
+     */
+    public abstract long getEndTimestamp();
+
+    public abstract double getMean(int axis);
+
+    /**
+     * @return The population variance of the values of the given axis.
+     */
+    public abstract double getVariance(int axis);
+
+    public double getStandardDeviation(int axis) {
+        return Math.sqrt(getVariance(axis));
+    }
+
+    /**
+     * @return The root mean square of the values of the given axis.
+     */
+    public abstract double getRms(int axis);
+
+    public abstract float getMin(int axis);
+
+    public abstract float getMax(int axis);
+
+    /**
+     * @return The largest absolute value of the given axis.
+     */
+    public float getPeak(int axis) {
+        return Math.max(Math.abs(getMin(axis)), Math.abs(getMax(axis)));
+    }
+}
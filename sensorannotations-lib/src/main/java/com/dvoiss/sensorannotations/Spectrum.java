@@ -0,0 +1,86 @@
+package com.dvoiss.sensorannotations;
+
+/**
+ * The power spectrum of a window of samples of a method annotated with {@link OnSpectrum}. Bin
+ * {@code k} is the frequency {@code k * sampleRate / size}, from 0 up to half of the sample rate.
+ *
+ * The power of a bin is the mean square the bin contributes to the window, so a sine of
+ * amplitude {@code A} has a band energy of about {@code A * A / 2} and the energy of all bins is
+ * about the variance of the window. The Hann window spreads a sine over about three bins, sum
+ * the bins of a band instead of reading a single bin.
+ *
+ * The instance passed to the annotated method is reused for every window, the values are only
+ * valid for the duration of the call. Copy what is needed instead of holding on to the object.
+ */
+public abstract class Spectrum {
+    /**
+     * @return The timestamp of the newest sample of the window in nanoseconds.
+     */
+    public abstract long getTimestamp();
+
+    /**
+     * @return The number of samples of the window.
+     */
+    public abstract int getSize();
+
+    /**
+     * @return The samples per second.
+     */
+    public abstract int getSampleRate();
+
+    /**
+     * @return The number of frequency bins, half of the size plus one.
+     */
+    public int getBinCount() {
+        return getSize() / 2 + 1;
+    }
+
+    /**
+     * @return The frequency of the given bin in Hz.
+     */
+    public float getFrequency(int bin) {
+        return (float) bin * getSampleRate() / getSize();
+    }
+
+    /**
+     * @return The power of the given bin.
+     */
+    public abstract float getPower(int bin);
+
+    /**
+     * @return The frequency of the bin with the most power in Hz, interpolated between its
+     * neighbours. The bin of the mean isn't considered.
+     */
+    public abstract float getPeakFrequency();
+
+    /**
+     * @return The power of the bin with the most power.
+     */
+    public abstract float getPeakPower();
+
+    /**
+     * @return The number of bands of the annotation.
+     */
+    public abstract int getBandCount();
+
+    /**
+     * @return The energy of the bins of the given band of the annotation.
+     */
+    public abstract float getBandEnergy(int band);
+
+    /**
+     * @return The energy of the bins from {@code lowHz} up to but excluding {@code highHz}.
+     */
+    public float getBandEnergy(float lowHz, float highHz) {
+        int size = getSize();
+        int sampleRate = getSampleRate();
+        int last = getBinCount() - 1;
+        float energy = 0;
+        for (int bin = Math.max((int) Math.ceil(lowHz * size / sampleRate), 0); bin <= last
+            && getFrequency(bin) < highHz; bin++) {
+            energy += getPower(bin);
+        }
+
+        return energy;
+    }
+}
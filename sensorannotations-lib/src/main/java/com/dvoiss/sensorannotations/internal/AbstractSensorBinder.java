@@ -0,0 +1,121 @@
+package com.dvoiss.sensorannotations.internal;
+
+import android.content.Context;
+import android.hardware.Sensor;
+import android.support.annotation.NonNull;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The base class of the generated binders. The generated subclass adds a listener wrapper for
+ * each sensor type in its constructor and dispatches the availability callbacks to the target.
+ *
+ * While bound the binder is a {@link SensorCatalog.Callback}: listeners whose sensor wasn't
+ * available, or that listen to all sensors of a type, are registered as soon as a matching
+ * dynamic sensor connects, and listeners are unregistered from a sensor that disconnects.
+ */
+public abstract class AbstractSensorBinder<T> implements SensorBinder<T>, SensorCatalog.Callback {
+    @NonNull private final SensorCatalog mSensorCatalog;
+    @NonNull private final T mTarget;
+    @NonNull private final List<EventListenerWrapper> mListeners = new ArrayList<>();
+    private boolean mBound;
+
+    protected AbstractSensorBinder(@NonNull Context context, @NonNull T target) {
+        mSensorCatalog = SensorCatalog.getInstance(context);
+        mTarget = target;
+    }
+
+    protected final void addListener(@NonNull EventListenerWrapper wrapper) {
+        mListeners.add(wrapper);
+    }
+
+    @NonNull
+    protected final T getTarget() {
+        return mTarget;
+    }
+
+    @Override
+    public void bind(T target) {
+        if (mBound) {
+            return;
+        }
+
+        mBound = true;
+        mSensorCatalog.addCallback(this);
+        for (EventListenerWrapper wrapper : mListeners) {
+            if (wrapper.getSensors(mSensorCatalog).isEmpty()) {
+                onSensorNotAvailable(wrapper.getSensorType());
+                continue;
+            }
+
+            wrapper.registerListener(mSensorCatalog);
+        }
+    }
+
+    @Override
+    public void unbind() {
+        mBound = false;
+        mSensorCatalog.removeCallback(this);
+        for (EventListenerWrapper wrapper : mListeners) {
+            wrapper.unregisterListener(mSensorCatalog);
+        }
+    }
+
+    @Override
+    public void setMinimumDelay(int minimumDelay) {
+        for (EventListenerWrapper wrapper : mListeners) {
+            if (wrapper.setMinimumDelay(minimumDelay)) {
+                wrapper.reregisterListener(mSensorCatalog);
+            }
+        }
+    }
+
+    @Override
+    public void onDynamicSensorConnected(@NonNull Sensor sensor) {
+        if (!mBound) {
+            return;
+        }
+
+        for (EventListenerWrapper wrapper : mListeners) {
+            if (wrapper.getSensorType() == sensor.getType()) {
+                wrapper.registerListener(mSensorCatalog);
+            }
+        }
+    }
+
+    @Override
+    public void onDynamicSensorDisconnected(@NonNull Sensor sensor) {
+        if (!mBound) {
+            return;
+        }
+
+        boolean disconnected = false;
+        for (EventListenerWrapper wrapper : mListeners) {
+            if (wrapper.isRegisteredTo(sensor)) {
+                wrapper.unregisterListener(mSensorCatalog, sensor);
+                disconnected = true;
+            }
+        }
+
+        if (disconnected) {
+            onSensorDisconnected(sensor);
+        }
+    }
+
+    /**
+     * Called when binding a sensor type that isn't available on the device.
+     *
+     * @param sensorType The {@code Sensor} type.
+     */
+    protected void onSensorNotAvailable(int sensorType) {}
+
+    /**
+     * Called when the dynamic sensor a listener was registered to disconnects. By default this is
+     * handled like a sensor that isn't available.
+     *
+     * @param sensor The disconnected sensor.
+     */
+    protected void onSensorDisconnected(@NonNull Sensor sensor) {
+        onSensorNotAvailable(sensor.getType());
+    }
+}
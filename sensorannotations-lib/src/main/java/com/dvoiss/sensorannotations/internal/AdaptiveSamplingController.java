@@ -0,0 +1,148 @@
+package com.dvoiss.sensorannotations.internal;
+
+import android.support.annotation.NonNull;
+
+/**
+ * Decides whether a sensor is idle from the variance of the magnitude of its events, used by
+ * {@link AdaptiveSensorEventListenerWrapper} to sample at a slower rate while the device doesn't
+ * move.
+ *
+ * The mean and variance are exponentially weighted with a time constant in sensor time, so the
+ * estimate doesn't depend on the sampling rate. The thresholds have hysteresis: the sensor only
+ * becomes idle after its variance stayed below the idle threshold for a while, and becomes active
+ * again as soon as the variance exceeds the higher active threshold or significant motion is
+ * detected. The class has no Android dependencies and can be driven with recorded events.
+ */
+public final class AdaptiveSamplingController {
+    private static final long NANOS_PER_MILLI = 1000000L;
+
+    public static final float DEFAULT_IDLE_VARIANCE = 0.05f;
+    public static final float DEFAULT_ACTIVE_VARIANCE = 0.5f;
+    public static final int DEFAULT_IDLE_AFTER_MS = 5000;
+    public static final int DEFAULT_TIME_CONSTANT_MS = 1000;
+
+    private final float mIdleVariance;
+    private final float mActiveVariance;
+    private final long mIdleAfterNanos;
+    private final double mTimeConstantNanos;
+
+    private boolean mStarted;
+    private boolean mIdle;
+    private long mLastTimestamp;
+    private long mQuietSince = -1;
+    private double mMean;
+    private double mVariance;
+
+    public AdaptiveSamplingController() {
+        this(DEFAULT_IDLE_VARIANCE, DEFAULT_ACTIVE_VARIANCE, DEFAULT_IDLE_AFTER_MS,
+            DEFAULT_TIME_CONSTANT_MS);
+    }
+
+    /**
+     * @param idleVariance The variance below which the sensor is considered quiet.
+     * @param activeVariance The variance above which an idle sensor becomes active again, it must
+     * be higher than the idle variance.
+     * @param idleAfterMs How long the sensor must be quiet before it becomes idle.
+     * @param timeConstantMs The time constant of the moving mean and variance.
+     */
+    public AdaptiveSamplingController(float idleVariance, float activeVariance, int idleAfterMs,
+        int timeConstantMs) {
+        if (idleVariance < 0 || activeVariance <= idleVariance) {
+            throw new IllegalArgumentException(
+                "The active variance must be higher than the idle variance.");
+        } else if (idleAfterMs < 0 || timeConstantMs <= 0) {
+            throw new IllegalArgumentException("Durations must be positive.");
+        }
+
+        mIdleVariance = idleVariance;
+        mActiveVariance = activeVariance;
+        mIdleAfterNanos = idleAfterMs * NANOS_PER_MILLI;
+        mTimeConstantNanos = timeConstantMs * NANOS_PER_MILLI;
+    }
+
+    /**
+     * Add an event to the estimate.
+     *
+     * @param timestamp The timestamp of the event in nanoseconds.
+     * @param values The values of the event.
+     * @return True if the sensor became idle or active with this event.
+     */
+    public boolean onSensorChanged(long timestamp, @NonNull float[] values) {
+        double sumSquares = 0;
+        for (float value : values) {
+            sumSquares += value * value;
+        }
+        double magnitude = Math.sqrt(sumSquares);
+
+        if (!mStarted) {
+            mStarted = true;
+            mLastTimestamp = timestamp;
+            mMean = magnitude;
+            mVariance = 0;
+            return false;
+        }
+
+        long elapsed = Math.max(0, timestamp - mLastTimestamp);
+        mLastTimestamp = timestamp;
+        double alpha = 1 - Math.exp(-elapsed / mTimeConstantNanos);
+        double delta = magnitude - mMean;
+        mMean += alpha * delta;
+        mVariance = (1 - alpha) * (mVariance + alpha * delta * delta);
+
+        if (mIdle) {
+            if (mVariance > mActiveVariance) {
+                setIdle(false);
+                return true;
+            }
+        } else if (mVariance < mIdleVariance) {
+            if (mQuietSince < 0) {
+                mQuietSince = timestamp;
+            } else if (timestamp - mQuietSince >= mIdleAfterNanos) {
+                setIdle(true);
+                return true;
+            }
+        } else {
+            mQuietSince = -1;
+        }
+
+        return false;
+    }
+
+    /**
+     * Significant motion was detected, an idle sensor becomes active.
+     *
+     * @return True if the sensor was idle.
+     */
+    public boolean onSignificantMotion() {
+        if (!mIdle) {
+            return false;
+        }
+
+        setIdle(false);
+        return true;
+    }
+
+    public boolean isIdle() {
+        return mIdle;
+    }
+
+    /**
+     * @return The current variance estimate.
+     */
+    public double getVariance() {
+        return mVariance;
+    }
+
+    /**
+     * Forget the estimate, the sensor is active until it is quiet again.
+     */
+    public void reset() {
+        mStarted = false;
+        setIdle(false);
+    }
+
+    private void setIdle(boolean idle) {
+        mIdle = idle;
+        mQuietSince = -1;
+    }
+}
@@ -0,0 +1,154 @@
+package com.dvoiss.sensorannotations.internal;
+
+import android.annotation.TargetApi;
+import android.hardware.Sensor;
+import android.hardware.SensorEvent;
+import android.hardware.SensorEventListener;
+import android.hardware.TriggerEvent;
+import android.hardware.TriggerEventListener;
+import android.os.Build;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+/**
+ * A {@link SensorEventListenerWrapper} that registers its listener with a slower delay while the
+ * sensor is idle, as decided by an {@link AdaptiveSamplingController}. The events are passed to
+ * the controller after the listener and the listener is registered again when the sensor becomes
+ * idle or active.
+ *
+ * On API 18+ the significant motion sensor is requested while idle, so the full rate is restored
+ * as soon as the device moves even if the slower events don't show it yet.
+ */
+@SuppressWarnings({ "UnusedDeclaration" })
+public class AdaptiveSensorEventListenerWrapper extends SensorEventListenerWrapper {
+    private final int mIdleDelay;
+    @NonNull private final AdaptiveSamplingController mController;
+    @NonNull private final SensorEventListener mAdaptiveListener;
+    @Nullable private SensorCatalog mSensorCatalog;
+    @Nullable private Object mMotionTrigger;
+
+    public AdaptiveSensorEventListenerWrapper(int sensorType, int delay, int idleDelay,
+        @NonNull SensorEventListener sensorEventListener) {
+        this(sensorType, delay, idleDelay, null, sensorEventListener);
+    }
+
+    public AdaptiveSensorEventListenerWrapper(int sensorType, int delay, int idleDelay,
+        @Nullable SensorSelector sensorSelector,
+        @NonNull SensorEventListener sensorEventListener) {
+        super(sensorType, delay, sensorSelector, sensorEventListener);
+        mIdleDelay = idleDelay;
+        mController = new AdaptiveSamplingController();
+        mAdaptiveListener = new SensorEventListener() {
+            @Override
+            public void onSensorChanged(SensorEvent event) {
+                getEventListener().onSensorChanged(event);
+                if (mController.onSensorChanged(event.timestamp, event.values)) {
+                    onIdleChanged();
+                }
+            }
+
+            @Override
+            public void onAccuracyChanged(Sensor sensor, int accuracy) {
+                getEventListener().onAccuracyChanged(sensor, accuracy);
+            }
+        };
+    }
+
+    /**
+     * @return The delay of the listener, or the idle delay while the sensor is idle if it is
+     * slower.
+     */
+    @Override
+    public int getDelay() {
+        int delay = super.getDelay();
+        if (mController.isIdle() && getDelayPeriodUs(mIdleDelay) > getDelayPeriodUs(delay)) {
+            return mIdleDelay;
+        }
+
+        return delay;
+    }
+
+    @Override
+    public void registerListener(@NonNull SensorCatalog sensorCatalog) {
+        if (!isRegistered()) {
+            mController.reset();
+        }
+        mSensorCatalog = sensorCatalog;
+        super.registerListener(sensorCatalog);
+    }
+
+    @Override
+    public void unregisterListener(@NonNull SensorCatalog sensorCatalog) {
+        cancelMotionTrigger(sensorCatalog);
+        super.unregisterListener(sensorCatalog);
+    }
+
+    @Override
+    protected boolean registerListener(@NonNull SensorDriver sensorDriver,
+        @NonNull Sensor sensor) {
+        return sensorDriver.registerListener(mAdaptiveListener, sensor, getDelay());
+    }
+
+    @Override
+    protected void unregisterListener(@NonNull SensorDriver sensorDriver,
+        @NonNull Sensor sensor) {
+        sensorDriver.unregisterListener(mAdaptiveListener, sensor);
+    }
+
+    private void onIdleChanged() {
+        SensorCatalog sensorCatalog = mSensorCatalog;
+        if (sensorCatalog == null || !isRegistered()) {
+            return;
+        }
+
+        reregisterListener(sensorCatalog);
+        if (mController.isIdle()) {
+            requestMotionTrigger(sensorCatalog);
+        } else {
+            cancelMotionTrigger(sensorCatalog);
+        }
+    }
+
+    private void requestMotionTrigger(@NonNull SensorCatalog sensorCatalog) {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN_MR2) {
+            SensorDriver sensorDriver = sensorCatalog.getSensorDriver();
+            Sensor sensor = sensorCatalog.getDefaultSensor(Sensor.TYPE_SIGNIFICANT_MOTION);
+            if (sensorDriver != null && sensor != null) {
+                MotionTrigger motionTrigger = new MotionTrigger();
+                if (sensorDriver.requestTriggerSensor(motionTrigger, sensor)) {
+                    mMotionTrigger = motionTrigger;
+                }
+            }
+        }
+    }
+
+    private void cancelMotionTrigger(@NonNull SensorCatalog sensorCatalog) {
+        Object motionTrigger = mMotionTrigger;
+        mMotionTrigger = null;
+        if (motionTrigger != null && Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN_MR2) {
+            ((MotionTrigger) motionTrigger).cancel(sensorCatalog);
+        }
+    }
+
+    @TargetApi(Build.VERSION_CODES.JELLY_BEAN_MR2)
+    private final class MotionTrigger extends TriggerEventListener {
+        @Override
+        public void onTrigger(TriggerEvent event) {
+            // The trigger is cancelled by the system once it fired.
+            if (mMotionTrigger == this) {
+                mMotionTrigger = null;
+                if (mController.onSignificantMotion()) {
+                    onIdleChanged();
+                }
+            }
+        }
+
+        void cancel(@NonNull SensorCatalog sensorCatalog) {
+            SensorDriver sensorDriver = sensorCatalog.getSensorDriver();
+            Sensor sensor = sensorCatalog.getDefaultSensor(Sensor.TYPE_SIGNIFICANT_MOTION);
+            if (sensorDriver != null && sensor != null) {
+                sensorDriver.cancelTriggerSensor(this, sensor);
+            }
+        }
+    }
+}
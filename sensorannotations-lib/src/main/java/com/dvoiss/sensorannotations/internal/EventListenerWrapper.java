@@ -1,19 +1,35 @@
 package com.dvoiss.sensorannotations.internal;
 
 import android.hardware.Sensor;
-import android.hardware.SensorManager;
 import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 
 /**
- * This is a helper class used for re-registering the event listener with the correct values.
+ * This is a helper class used for re-registering the event listener with the correct values. It
+ * keeps the sensors the listener is registered to, so a listener that is waiting for its sensor
+ * can be told apart from one whose sensor disconnected.
+ *
+ * Without a {@link SensorSelector} the listener is registered to the default sensor of its type.
+ * With a selector the same listener may be registered to several sensors of the type.
  */
 @SuppressWarnings({ "UnusedDeclaration" })
 abstract public class EventListenerWrapper<T> {
     private final int mSensorType;
     @NonNull private final T mEventListener;
+    @Nullable private final SensorSelector mSensorSelector;
+    @NonNull private final List<Sensor> mRegisteredSensors = new ArrayList<>(1);
 
     public EventListenerWrapper(int sensorType, @NonNull T eventListener) {
+        this(sensorType, null, eventListener);
+    }
+
+    public EventListenerWrapper(int sensorType, @Nullable SensorSelector sensorSelector,
+        @NonNull T eventListener) {
         this.mSensorType = sensorType;
+        this.mSensorSelector = sensorSelector;
         this.mEventListener = eventListener;
     }
 
@@ -26,12 +42,113 @@ abstract public class EventListenerWrapper<T> {
         return mEventListener;
     }
 
+    /**
+     * @param sensorCatalog The catalog of sensors.
+     * @return The sensors the listener should be registered to, empty if none is available.
+     */
     @NonNull
-    public Sensor getSensor(@NonNull SensorManager sensorManager) {
-        return sensorManager.getDefaultSensor(mSensorType);
+    public List<Sensor> getSensors(@NonNull SensorCatalog sensorCatalog) {
+        if (mSensorSelector != null) {
+            return mSensorSelector.select(sensorCatalog, mSensorType);
+        }
+
+        Sensor sensor = sensorCatalog.getDefaultSensor(mSensorType);
+        return sensor != null ? Collections.singletonList(sensor)
+            : Collections.<Sensor>emptyList();
+    }
+
+    public boolean isRegistered() {
+        return !mRegisteredSensors.isEmpty();
+    }
+
+    /**
+     * @param sensor A sensor.
+     * @return True if the listener is registered to the sensor.
+     */
+    public boolean isRegisteredTo(@NonNull Sensor sensor) {
+        return mRegisteredSensors.contains(sensor);
+    }
+
+    /**
+     * Register the listener to the sensors of its type it isn't registered to yet, nothing happens
+     * if no sensor is available. A listener that doesn't select all sensors is only registered to
+     * one sensor.
+     *
+     * @param sensorCatalog The catalog of sensors.
+     */
+    public void registerListener(@NonNull SensorCatalog sensorCatalog) {
+        SensorDriver sensorDriver = sensorCatalog.getSensorDriver();
+        boolean all = mSensorSelector != null && mSensorSelector.isAll();
+        if (sensorDriver == null || (!all && isRegistered())) {
+            return;
+        }
+
+        for (Sensor sensor : getSensors(sensorCatalog)) {
+            if (!mRegisteredSensors.contains(sensor) && registerListener(sensorDriver, sensor)) {
+                mRegisteredSensors.add(sensor);
+            }
+        }
+    }
+
+    public void unregisterListener(@NonNull SensorCatalog sensorCatalog) {
+        SensorDriver sensorDriver = sensorCatalog.getSensorDriver();
+        if (sensorDriver != null) {
+            for (Sensor sensor : mRegisteredSensors) {
+                unregisterListener(sensorDriver, sensor);
+            }
+        }
+        mRegisteredSensors.clear();
+    }
+
+    /**
+     * Register the listener again to the sensors it is registered to, for example to apply a new
+     * delay.
+     *
+     * @param sensorCatalog The catalog of sensors.
+     */
+    public void reregisterListener(@NonNull SensorCatalog sensorCatalog) {
+        SensorDriver sensorDriver = sensorCatalog.getSensorDriver();
+        if (sensorDriver == null) {
+            return;
+        }
+
+        for (int i = mRegisteredSensors.size() - 1; i >= 0; i--) {
+            Sensor sensor = mRegisteredSensors.get(i);
+            unregisterListener(sensorDriver, sensor);
+            if (!registerListener(sensorDriver, sensor)) {
+                mRegisteredSensors.remove(i);
+            }
+        }
+    }
+
+    /**
+     * Unregister the listener from one of its sensors, the other sensors keep delivering events.
+     *
+     * @param sensorCatalog The catalog of sensors.
+     * @param sensor The sensor to unregister from.
+     */
+    public void unregisterListener(@NonNull SensorCatalog sensorCatalog, @NonNull Sensor sensor) {
+        SensorDriver sensorDriver = sensorCatalog.getSensorDriver();
+        if (mRegisteredSensors.remove(sensor) && sensorDriver != null) {
+            unregisterListener(sensorDriver, sensor);
+        }
+    }
+
+    /**
+     * Set the slowest delay the listener may be registered with, listeners without a delay
+     * ignore it.
+     *
+     * @param minimumDelay A {@code SensorManager.SENSOR_DELAY_*} constant, a period in
+     * microseconds or {@link SensorBinder#NO_MINIMUM_DELAY}.
+     * @return True if the listener must be registered again for the delay to apply.
+     */
+    public boolean setMinimumDelay(int minimumDelay) {
+        return false;
     }
 
-    abstract public void registerListener(@NonNull SensorManager sensorManager);
+    abstract protected boolean registerListener(@NonNull SensorDriver sensorDriver,
+        @NonNull Sensor sensor);
 
-    abstract public void unregisterListener(@NonNull SensorManager sensorManager);
+    abstract protected void unregisterListener(@NonNull SensorDriver sensorDriver,
+        @NonNull Sensor sensor);
 }
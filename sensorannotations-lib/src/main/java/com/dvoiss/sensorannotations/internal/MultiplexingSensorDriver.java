@@ -0,0 +1,264 @@
+package com.dvoiss.sensorannotations.internal;
+
+import android.hardware.Sensor;
+import android.hardware.SensorEvent;
+import android.hardware.SensorEventListener;
+import android.hardware.TriggerEvent;
+import android.hardware.TriggerEventListener;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A {@link SensorDriver} sharing the registrations of another driver between listeners. The
+ * listeners of a sensor that use the same delay are registered once with a single listener that
+ * forwards the events to each of them, and each sensor has at most one trigger request. With
+ * thousands of bound targets listening to the same sensor, binding or unbinding a target only
+ * adds or removes an entry, the underlying driver is called when the first listener of a sensor
+ * and delay registers and when the last one unregisters.
+ *
+ * Registrations are indexed by listener and sensor, so both registering and unregistering take
+ * constant time. The listeners of a group are copied into an array the first time an event is
+ * dispatched after they changed, the other events read the array without taking a lock. Copying
+ * on the next event instead of on every change keeps binding thousands of targets linear. Events
+ * are dispatched without holding the lock of the driver, which is held while calling the
+ * underlying driver, so a listener can unregister itself and a driver may dispatch while holding
+ * its own lock.
+ */
+final class MultiplexingSensorDriver implements SensorDriver {
+    @NonNull private final SensorDriver mSensorDriver;
+
+    // Guarded by mLock.
+    @NonNull private final Object mLock = new Object();
+    @NonNull private final Map<GroupKey, ListenerGroup> mGroups = new HashMap<>();
+    @NonNull private final Map<ListenerKey, ListenerGroup> mListeners = new HashMap<>();
+    @NonNull private final Map<Sensor, TriggerGroup> mTriggerGroups = new HashMap<>();
+
+    MultiplexingSensorDriver(@NonNull SensorDriver sensorDriver) {
+        mSensorDriver = sensorDriver;
+    }
+
+    @Nullable
+    @Override
+    public Sensor getDefaultSensor(int sensorType) {
+        return mSensorDriver.getDefaultSensor(sensorType);
+    }
+
+    @NonNull
+    @Override
+    public List<Sensor> getSensorList(int sensorType) {
+        return mSensorDriver.getSensorList(sensorType);
+    }
+
+    /**
+     * Like the {@code SensorManager} a listener can only be registered once to a sensor, to change
+     * its delay it must be unregistered first.
+     */
+    @Override
+    public boolean registerListener(@NonNull SensorEventListener listener, @NonNull Sensor sensor,
+        int delay) {
+        synchronized (mLock) {
+            ListenerKey listenerKey = new ListenerKey(listener, sensor);
+            if (mListeners.containsKey(listenerKey)) {
+                return false;
+            }
+
+            GroupKey groupKey = new GroupKey(sensor, delay);
+            ListenerGroup group = mGroups.get(groupKey);
+            if (group == null) {
+                group = new ListenerGroup(groupKey);
+                if (!mSensorDriver.registerListener(group, sensor, delay)) {
+                    return false;
+                }
+                mGroups.put(groupKey, group);
+            }
+
+            group.add(listener);
+            mListeners.put(listenerKey, group);
+            return true;
+        }
+    }
+
+    @Override
+    public void unregisterListener(@NonNull SensorEventListener listener, @NonNull Sensor sensor) {
+        synchronized (mLock) {
+            ListenerGroup group = mListeners.remove(new ListenerKey(listener, sensor));
+            if (group != null && group.remove(listener)) {
+                mGroups.remove(group.mKey);
+                mSensorDriver.unregisterListener(group, sensor);
+            }
+        }
+    }
+
+    @Override
+    public boolean requestTriggerSensor(@NonNull TriggerEventListener listener,
+        @NonNull Sensor sensor) {
+        synchronized (mLock) {
+            TriggerGroup group = mTriggerGroups.get(sensor);
+            if (group == null) {
+                group = new TriggerGroup(sensor);
+                if (!mSensorDriver.requestTriggerSensor(group, sensor)) {
+                    return false;
+                }
+                mTriggerGroups.put(sensor, group);
+            }
+
+            group.mListeners.add(listener);
+            return true;
+        }
+    }
+
+    @Override
+    public void cancelTriggerSensor(@NonNull TriggerEventListener listener,
+        @NonNull Sensor sensor) {
+        synchronized (mLock) {
+            TriggerGroup group = mTriggerGroups.get(sensor);
+            if (group != null && group.mListeners.remove(listener)
+                && group.mListeners.isEmpty()) {
+                mTriggerGroups.remove(sensor);
+                mSensorDriver.cancelTriggerSensor(group, sensor);
+            }
+        }
+    }
+
+    /**
+     * The listeners of a sensor registered with the same delay.
+     */
+    private static final class ListenerGroup implements SensorEventListener {
+        @NonNull private final GroupKey mKey;
+        @NonNull private final Set<SensorEventListener> mGroupListeners = new LinkedHashSet<>();
+        // Null after the listeners changed until the next event copies them.
+        @Nullable private volatile SensorEventListener[] mSnapshot;
+
+        ListenerGroup(@NonNull GroupKey key) {
+            mKey = key;
+        }
+
+        synchronized void add(@NonNull SensorEventListener listener) {
+            mGroupListeners.add(listener);
+            mSnapshot = null;
+        }
+
+        /**
+         * @return True if the group is empty afterwards.
+         */
+        synchronized boolean remove(@NonNull SensorEventListener listener) {
+            mGroupListeners.remove(listener);
+            mSnapshot = null;
+            return mGroupListeners.isEmpty();
+        }
+
+        @NonNull
+        private SensorEventListener[] getSnapshot() {
+            SensorEventListener[] snapshot = mSnapshot;
+            if (snapshot != null) {
+                return snapshot;
+            }
+
+            synchronized (this) {
+                snapshot = mSnapshot;
+                if (snapshot == null) {
+                    snapshot =
+                        mGroupListeners.toArray(new SensorEventListener[mGroupListeners.size()]);
+                    mSnapshot = snapshot;
+                }
+                return snapshot;
+            }
+        }
+
+        @Override
+        public void onSensorChanged(SensorEvent event) {
+            for (SensorEventListener listener : getSnapshot()) {
+                listener.onSensorChanged(event);
+            }
+        }
+
+        @Override
+        public void onAccuracyChanged(Sensor sensor, int accuracy) {
+            for (SensorEventListener listener : getSnapshot()) {
+                listener.onAccuracyChanged(sensor, accuracy);
+            }
+        }
+    }
+
+    /**
+     * The trigger requests of a sensor. Trigger sensors are one-shot, the requests are cancelled
+     * once the trigger fired.
+     */
+    private final class TriggerGroup extends TriggerEventListener {
+        @NonNull private final Sensor mSensor;
+        @NonNull private final Set<TriggerEventListener> mListeners = new LinkedHashSet<>();
+
+        TriggerGroup(@NonNull Sensor sensor) {
+            mSensor = sensor;
+        }
+
+        @Override
+        public void onTrigger(TriggerEvent event) {
+            TriggerEventListener[] listeners;
+            synchronized (mLock) {
+                listeners = mListeners.toArray(new TriggerEventListener[mListeners.size()]);
+                mListeners.clear();
+                mTriggerGroups.remove(mSensor);
+            }
+
+            for (TriggerEventListener listener : listeners) {
+                listener.onTrigger(event);
+            }
+        }
+    }
+
+    private static final class GroupKey {
+        @NonNull private final Sensor mSensor;
+        private final int mDelay;
+
+        GroupKey(@NonNull Sensor sensor, int delay) {
+            mSensor = sensor;
+            mDelay = delay;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof GroupKey)) {
+                return false;
+            }
+
+            GroupKey other = (GroupKey) o;
+            return mSensor == other.mSensor && mDelay == other.mDelay;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * System.identityHashCode(mSensor) + mDelay;
+        }
+    }
+
+    private static final class ListenerKey {
+        @NonNull private final SensorEventListener mListener;
+        @NonNull private final Sensor mSensor;
+
+        ListenerKey(@NonNull SensorEventListener listener, @NonNull Sensor sensor) {
+            mListener = listener;
+            mSensor = sensor;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof ListenerKey)) {
+                return false;
+            }
+
+            ListenerKey other = (ListenerKey) o;
+            return mListener == other.mListener && mSensor == other.mSensor;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * System.identityHashCode(mSensor) + System.identityHashCode(mListener);
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package com.dvoiss.sensorannotations.internal;
+
+import android.support.annotation.NonNull;
+import com.dvoiss.sensorannotations.Interpolation;
+
+/**
+ * Interpolates sensor events onto a uniform grid, used by the generated listeners of {@code
+ * Resample} methods.
+ *
+ * Only the two most recent events are kept, in primitive arrays allocated with the first event.
+ * After adding an event the grid ticks up to its timestamp are drained with {@link #next()}:
+ *
+ * <pre>{@code
+ * resampler.add(event.timestamp, event.values);
+ * while (resampler.next()) {
+ *     target.method(resampler.getTimestamp(), resampler.getValues());
+ * }
+ * }</pre>
+ *
+ * The tick times are computed from the index of the tick so the grid doesn't drift for rates
+ * whose period isn't a whole number of nanoseconds.
+ */
+@SuppressWarnings({ "UnusedDeclaration" })
+public class Resampler {
+    private static final long NANOS_PER_SECOND = 1000000000L;
+
+    private final int mHz;
+    private final boolean mLinear;
+    private final long mMaxGapNanos;
+
+    private float[] mPreviousValues;
+    private float[] mCurrentValues;
+    private float[] mOutput;
+    private long mPreviousTimestamp;
+    private long mCurrentTimestamp;
+    private boolean mHasPrevious;
+
+    private boolean mStarted;
+    private long mFirstTick;
+    private long mTickIndex;
+    private long mTimestamp;
+
+    public Resampler(int hz, @NonNull Interpolation interpolation) {
+        if (hz <= 0) {
+            throw new IllegalArgumentException("The rate of the grid must be positive.");
+        }
+
+        mHz = hz;
+        mLinear = interpolation == Interpolation.LINEAR;
+        mMaxGapNanos = Math.max(NANOS_PER_SECOND, 2 * NANOS_PER_SECOND / hz);
+    }
+
+    /**
+     * Add an event, events that aren't newer than the last event are ignored.
+     *
+     * @param timestamp The event timestamp in nanoseconds.
+     * @param values The event values.
+     */
+    public void add(long timestamp, @NonNull float[] values) {
+        if (mStarted && timestamp <= mCurrentTimestamp) {
+            return;
+        }
+
+        if (mCurrentValues == null || mCurrentValues.length != values.length) {
+            mPreviousValues = new float[values.length];
+            mCurrentValues = new float[values.length];
+            mOutput = new float[values.length];
+            mStarted = false;
+        }
+
+        if (!mStarted || timestamp - mCurrentTimestamp > mMaxGapNanos) {
+            // Start the grid at this event.
+            mStarted = true;
+            mHasPrevious = false;
+            mFirstTick = timestamp;
+            mTickIndex = 0;
+        } else {
+            float[] previousValues = mPreviousValues;
+            mPreviousValues = mCurrentValues;
+            mCurrentValues = previousValues;
+            mPreviousTimestamp = mCurrentTimestamp;
+            mHasPrevious = true;
+        }
+
+        System.arraycopy(values, 0, mCurrentValues, 0, values.length);
+        mCurrentTimestamp = timestamp;
+    }
+
+    /**
+     * Compute the next tick of the grid that isn't after the last event.
+     *
+     * @return True if there is a tick, its timestamp and values are then available until the
+     * next call.
+     */
+    public boolean next() {
+        if (!mStarted) {
+            return false;
+        }
+
+        long tick = mFirstTick + mTickIndex * NANOS_PER_SECOND / mHz;
+        if (tick > mCurrentTimestamp) {
+            return false;
+        }
+
+        if (!mHasPrevious || tick >= mCurrentTimestamp) {
+            System.arraycopy(mCurrentValues, 0, mOutput, 0, mOutput.length);
+        } else if (tick <= mPreviousTimestamp) {
+            System.arraycopy(mPreviousValues, 0, mOutput, 0, mOutput.length);
+        } else {
+            interpolate((float) ((double) (tick - mPreviousTimestamp)
+                / (mCurrentTimestamp - mPreviousTimestamp)));
+        }
+
+        mTimestamp = tick;
+        mTickIndex++;
+        return true;
+    }
+
+    private void interpolate(float fraction) {
+        if (!mLinear) {
+            float[] nearest = fraction < 0.5f ? mPreviousValues : mCurrentValues;
+            System.arraycopy(nearest, 0, mOutput, 0, mOutput.length);
+            return;
+        }
+
+        for (int i = 0; i < mOutput.length; i++) {
+            mOutput[i] = mPreviousValues[i] + (mCurrentValues[i] - mPreviousValues[i]) * fraction;
+        }
+    }
+
+    /**
+     * @return The timestamp of the current tick in nanoseconds.
+     */
+    public long getTimestamp() {
+        return mTimestamp;
+    }
+
+    /**
+     * @return The values at the current tick, the array is reused for every tick.
+     */
+    @NonNull
+    public float[] getValues() {
+        return mOutput;
+    }
+}
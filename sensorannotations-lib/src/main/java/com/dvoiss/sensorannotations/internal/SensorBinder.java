@@ -1,7 +1,21 @@
 package com.dvoiss.sensorannotations.internal;
 
 public interface SensorBinder<T> {
+    /**
+     * Value for {@link #setMinimumDelay(int)} to register the listeners with their own delays.
+     */
+    int NO_MINIMUM_DELAY = -1;
+
     void bind(T target);
 
     void unbind();
+
+    /**
+     * Register the listeners with at least this delay, listeners with a faster delay are
+     * re-registered if they are bound. The binder isn't rebuilt.
+     *
+     * @param minimumDelay A {@code SensorManager.SENSOR_DELAY_*} constant, a period in
+     * microseconds or {@link #NO_MINIMUM_DELAY}.
+     */
+    void setMinimumDelay(int minimumDelay);
 }
@@ -0,0 +1,14 @@
+package com.dvoiss.sensorannotations.internal;
+
+import android.content.Context;
+import android.support.annotation.NonNull;
+
+/**
+ * Creates the binders of a class. Each generated binder has a nested {@code Factory} which calls
+ * its constructor directly, the runtime loads it once per class so only the first bind of a class
+ * uses reflection.
+ */
+public interface SensorBinderFactory<T> {
+    @NonNull
+    SensorBinder<T> create(@NonNull Context context, @NonNull T target);
+}
@@ -0,0 +1,233 @@
+package com.dvoiss.sensorannotations.internal;
+
+import android.annotation.TargetApi;
+import android.content.Context;
+import android.hardware.Sensor;
+import android.hardware.SensorManager;
+import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.support.annotation.VisibleForTesting;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A process wide cache of the {@link SensorManager} and of the default {@link Sensor} and the
+ * list of sensors of each sensor type. Binders bind and unbind on every resume and pause, looking
+ * up the system service and the sensors every time would be a Binder call each time.
+ *
+ * Sensor types are resolved lazily the first time they are requested, a missing sensor is cached
+ * as well. The cache is only invalidated when a dynamic sensor is connected or disconnected, the
+ * registered {@link Callback}s are then notified on the main thread.
+ *
+ * The sensors are looked up and the listeners registered through a {@link SensorDriver}. Tests
+ * can install a catalog of another driver with {@link #setInstance(SensorCatalog)} before the
+ * binders are created. The listeners of all binders that use the same sensor and delay share a
+ * single registration of the driver, see {@link MultiplexingSensorDriver}.
+ */
+public final class SensorCatalog {
+    /**
+     * Notified when a dynamic sensor connects or disconnects, after the cache was invalidated.
+     */
+    public interface Callback {
+        void onDynamicSensorConnected(@NonNull Sensor sensor);
+
+        void onDynamicSensorDisconnected(@NonNull Sensor sensor);
+    }
+
+    private static volatile SensorCatalog sInstance;
+
+    @Nullable private final MultiplexingSensorDriver mSensorDriver;
+
+    /**
+     * The bound binders, a set so adding and removing a binder doesn't depend on their number.
+     */
+    @NonNull private final Set<Callback> mCallbacks = new LinkedHashSet<>();
+
+    /**
+     * Cached sensors by type, a type that was resolved but isn't available maps to null.
+     */
+    @NonNull private final Map<Integer, Sensor> mSensors = new HashMap<>();
+
+    /**
+     * Cached sensor lists by type, guarded by {@link #mSensors}.
+     */
+    @NonNull private final Map<Integer, List<Sensor>> mSensorLists = new HashMap<>();
+
+    /**
+     * Returns the catalog of the process, creating it with the application context if needed.
+     *
+     * @param context Any context, only the application context is kept.
+     * @return The {@link SensorCatalog}.
+     */
+    @NonNull
+    public static SensorCatalog getInstance(@NonNull Context context) {
+        SensorCatalog instance = sInstance;
+        if (instance == null) {
+            synchronized (SensorCatalog.class) {
+                instance = sInstance;
+                if (instance == null) {
+                    Context applicationContext = context.getApplicationContext();
+                    instance = new SensorCatalog((SensorManager) (applicationContext != null
+                        ? applicationContext : context).getSystemService(Context.SENSOR_SERVICE));
+                    sInstance = instance;
+                }
+            }
+        }
+
+        return instance;
+    }
+
+    /**
+     * Replace the catalog of the process, binders created afterwards use it.
+     *
+     * @param instance The catalog or null to create the system catalog again when needed.
+     */
+    @VisibleForTesting
+    public static void setInstance(@Nullable SensorCatalog instance) {
+        synchronized (SensorCatalog.class) {
+            sInstance = instance;
+        }
+    }
+
+    SensorCatalog(@Nullable SensorManager sensorManager) {
+        mSensorDriver = sensorManager != null
+            ? new MultiplexingSensorDriver(new SystemSensorDriver(sensorManager)) : null;
+        if (sensorManager != null && Build.VERSION.SDK_INT >= Build.VERSION_CODES.N) {
+            registerDynamicSensorCallback(sensorManager);
+        }
+    }
+
+    /**
+     * Create a catalog of another driver, for example a simulator. The driver doesn't report
+     * dynamic sensors.
+     *
+     * @param sensorDriver The driver.
+     */
+    public SensorCatalog(@NonNull SensorDriver sensorDriver) {
+        mSensorDriver = new MultiplexingSensorDriver(sensorDriver);
+    }
+
+    @TargetApi(Build.VERSION_CODES.N)
+    private void registerDynamicSensorCallback(@NonNull SensorManager sensorManager) {
+        sensorManager.registerDynamicSensorCallback(new SensorManager.DynamicSensorCallback() {
+            @Override
+            public void onDynamicSensorConnected(Sensor sensor) {
+                invalidate();
+                for (Callback callback : getCallbacks()) {
+                    callback.onDynamicSensorConnected(sensor);
+                }
+            }
+
+            @Override
+            public void onDynamicSensorDisconnected(Sensor sensor) {
+                invalidate();
+                for (Callback callback : getCallbacks()) {
+                    callback.onDynamicSensorDisconnected(sensor);
+                }
+            }
+        }, new Handler(Looper.getMainLooper()));
+    }
+
+    public void addCallback(@NonNull Callback callback) {
+        synchronized (mCallbacks) {
+            mCallbacks.add(callback);
+        }
+    }
+
+    public void removeCallback(@NonNull Callback callback) {
+        synchronized (mCallbacks) {
+            mCallbacks.remove(callback);
+        }
+    }
+
+    @NonNull
+    private Callback[] getCallbacks() {
+        synchronized (mCallbacks) {
+            return mCallbacks.toArray(new Callback[mCallbacks.size()]);
+        }
+    }
+
+    /**
+     * @return The sensor driver or null if the device has no sensor service.
+     */
+    @Nullable
+    public SensorDriver getSensorDriver() {
+        return mSensorDriver;
+    }
+
+    /**
+     * Returns the default sensor of a type, only the first call for each type queries the {@link
+     * SensorDriver}. If the device has no default sensor of the type the first connected dynamic
+     * sensor of the type is used.
+     *
+     * @param sensorType The {@code Sensor} type.
+     * @return The sensor or null if the sensor isn't available.
+     */
+    @Nullable
+    public Sensor getDefaultSensor(int sensorType) {
+        if (mSensorDriver == null) {
+            return null;
+        }
+
+        synchronized (mSensors) {
+            if (mSensors.containsKey(sensorType)) {
+                return mSensors.get(sensorType);
+            }
+
+            Sensor sensor = mSensorDriver.getDefaultSensor(sensorType);
+            mSensors.put(sensorType, sensor);
+            return sensor;
+        }
+    }
+
+    /**
+     * Returns every sensor of a type including the connected dynamic sensors, only the first call
+     * for each type queries the {@link SensorDriver}.
+     *
+     * @param sensorType The {@code Sensor} type.
+     * @return The sensors of the type, empty if none is available.
+     */
+    @NonNull
+    public List<Sensor> getSensorList(int sensorType) {
+        if (mSensorDriver == null) {
+            return Collections.emptyList();
+        }
+
+        synchronized (mSensors) {
+            List<Sensor> sensors = mSensorLists.get(sensorType);
+            if (sensors == null) {
+                sensors = Collections.unmodifiableList(
+                    new ArrayList<>(mSensorDriver.getSensorList(sensorType)));
+                mSensorLists.put(sensorType, sensors);
+            }
+
+            return sensors;
+        }
+    }
+
+    /**
+     * @param sensorType The {@code Sensor} type.
+     * @return True if the device has a sensor of the type.
+     */
+    public boolean isAvailable(int sensorType) {
+        return getDefaultSensor(sensorType) != null;
+    }
+
+    /**
+     * Clear the cached sensors, they will be resolved again the next time they are requested.
+     */
+    public void invalidate() {
+        synchronized (mSensors) {
+            mSensors.clear();
+            mSensorLists.clear();
+        }
+    }
+}
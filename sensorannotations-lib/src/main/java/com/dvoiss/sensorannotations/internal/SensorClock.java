@@ -0,0 +1,111 @@
+package com.dvoiss.sensorannotations.internal;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.VisibleForTesting;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Converts the timestamps of sensor events to wall clock time. A {@code SensorEvent#timestamp} is
+ * in the nanosecond time base of the sensor, which on most devices is {@code
+ * SystemClock#elapsedRealtimeNanos()}, while a backend usually needs the time since the epoch.
+ *
+ * The offset between both clocks is estimated from the events themselves. Once per {@link
+ * #CALIBRATION_PERIOD_NANOS} of sensor time the wall clock is read when an event arrives, the
+ * difference overestimates the offset by the delivery latency of the event, so the smallest
+ * difference of a window of {@link #WINDOW_SIZE} calibrations is used. A smaller difference is
+ * used right away, a larger one such as after the wall clock was set forward at the end of the
+ * first window entirely after the change. Converting a timestamp is otherwise a comparison and
+ * an addition, without reading a clock.
+ *
+ * Every sensor of the process shares one clock so the converted timestamps of different sensors
+ * can be compared with each other. The wall clock is read with {@code
+ * System.currentTimeMillis()}, the offset is only accurate to the millisecond while the spacing
+ * of the converted timestamps stays as precise as the timestamps of the sensor.
+ */
+public final class SensorClock {
+    /**
+     * Reads the wall clock, replaceable in tests.
+     */
+    public interface WallClock {
+        long currentTimeNanos();
+    }
+
+    static final long CALIBRATION_PERIOD_NANOS = TimeUnit.SECONDS.toNanos(1);
+    static final int WINDOW_SIZE = 8;
+
+    private static final SensorClock INSTANCE = new SensorClock(new WallClock() {
+        @Override
+        public long currentTimeNanos() {
+            return TimeUnit.MILLISECONDS.toNanos(System.currentTimeMillis());
+        }
+    });
+
+    @NonNull private final WallClock mWallClock;
+
+    // Written while holding the lock of the clock, read without it for every event.
+    private volatile long mOffsetNanos;
+    private volatile long mNextCalibrationNanos = Long.MIN_VALUE;
+
+    // Guarded by this.
+    private boolean mCalibrated;
+    private long mWindowMinimumNanos = Long.MAX_VALUE;
+    private int mWindowCount;
+
+    @VisibleForTesting
+    public SensorClock(@NonNull WallClock wallClock) {
+        mWallClock = wallClock;
+    }
+
+    /**
+     * Convert the timestamp of an event with the clock shared by every sensor.
+     *
+     * @param sensorTimestampNanos The {@code SensorEvent#timestamp} of an event that was just
+     * delivered.
+     * @return The wall clock time of the event in nanoseconds since the epoch.
+     */
+    public static long toWallClockNanos(long sensorTimestampNanos) {
+        return INSTANCE.getWallClockNanos(sensorTimestampNanos);
+    }
+
+    /**
+     * @param sensorTimestampNanos The {@code SensorEvent#timestamp} of an event that was just
+     * delivered.
+     * @return The wall clock time of the event in nanoseconds since the epoch.
+     */
+    public long getWallClockNanos(long sensorTimestampNanos) {
+        if (sensorTimestampNanos >= mNextCalibrationNanos) {
+            calibrate(sensorTimestampNanos);
+        }
+
+        return sensorTimestampNanos + mOffsetNanos;
+    }
+
+    /**
+     * @return The estimated difference between the wall clock and the time base of the sensors.
+     */
+    public long getOffsetNanos() {
+        return mOffsetNanos;
+    }
+
+    private synchronized void calibrate(long sensorTimestampNanos) {
+        if (sensorTimestampNanos < mNextCalibrationNanos) {
+            // Another sensor thread calibrated in the meantime.
+            return;
+        }
+
+        long offsetNanos = mWallClock.currentTimeNanos() - sensorTimestampNanos;
+        mWindowMinimumNanos = Math.min(mWindowMinimumNanos, offsetNanos);
+        if (!mCalibrated || offsetNanos < mOffsetNanos) {
+            mCalibrated = true;
+            mOffsetNanos = offsetNanos;
+        }
+
+        if (++mWindowCount == WINDOW_SIZE) {
+            mOffsetNanos = mWindowMinimumNanos;
+            mWindowMinimumNanos = Long.MAX_VALUE;
+            mWindowCount = 0;
+        }
+
+        mNextCalibrationNanos = sensorTimestampNanos + CALIBRATION_PERIOD_NANOS;
+    }
+}
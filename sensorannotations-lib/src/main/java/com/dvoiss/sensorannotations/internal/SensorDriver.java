@@ -0,0 +1,45 @@
+package com.dvoiss.sensorannotations.internal;
+
+import android.hardware.Sensor;
+import android.hardware.SensorEventListener;
+import android.hardware.TriggerEventListener;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import java.util.List;
+
+/**
+ * The part of the {@code SensorManager} used by the listener wrappers. The {@link SensorCatalog}
+ * of the process drives the system sensors, another driver such as a simulator can be installed
+ * with {@link SensorCatalog#setInstance(SensorCatalog)}.
+ */
+public interface SensorDriver {
+    /**
+     * @param sensorType The {@code Sensor} type.
+     * @return The default sensor of the type or null if it isn't available.
+     */
+    @Nullable
+    Sensor getDefaultSensor(int sensorType);
+
+    /**
+     * @param sensorType The {@code Sensor} type.
+     * @return Every sensor of the type, empty if none is available.
+     */
+    @NonNull
+    List<Sensor> getSensorList(int sensorType);
+
+    /**
+     * @param delay A {@code SensorManager.SENSOR_DELAY_*} constant or a period in microseconds.
+     * @return True if the listener was registered.
+     */
+    boolean registerListener(@NonNull SensorEventListener listener, @NonNull Sensor sensor,
+        int delay);
+
+    void unregisterListener(@NonNull SensorEventListener listener, @NonNull Sensor sensor);
+
+    /**
+     * @return True if the trigger was requested, always false before API 18.
+     */
+    boolean requestTriggerSensor(@NonNull TriggerEventListener listener, @NonNull Sensor sensor);
+
+    void cancelTriggerSensor(@NonNull TriggerEventListener listener, @NonNull Sensor sensor);
+}
@@ -1,8 +1,10 @@
 package com.dvoiss.sensorannotations.internal;
 
+import android.hardware.Sensor;
 import android.hardware.SensorEventListener;
 import android.hardware.SensorManager;
 import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
 
 /**
  * This is a helper class used for re-registering the event listener with the correct values.
@@ -10,18 +12,68 @@ import android.support.annotation.NonNull;
 @SuppressWarnings({ "UnusedDeclaration" })
 public class SensorEventListenerWrapper extends EventListenerWrapper<SensorEventListener> {
     private final int mDelay;
+    private int mMinimumDelay = SensorBinder.NO_MINIMUM_DELAY;
 
     public SensorEventListenerWrapper(int sensorType, int delay,
         @NonNull SensorEventListener sensorEventListener) {
-        super(sensorType, sensorEventListener);
+        this(sensorType, delay, null, sensorEventListener);
+    }
+
+    public SensorEventListenerWrapper(int sensorType, int delay,
+        @Nullable SensorSelector sensorSelector,
+        @NonNull SensorEventListener sensorEventListener) {
+        super(sensorType, sensorSelector, sensorEventListener);
         this.mDelay = delay;
     }
 
-    public void registerListener(@NonNull SensorManager sensorManager) {
-        sensorManager.registerListener(getEventListener(), getSensor(sensorManager), mDelay);
+    /**
+     * @return The delay the listener is registered with, the slower of its own delay and the
+     * minimum delay.
+     */
+    public int getDelay() {
+        if (mMinimumDelay == SensorBinder.NO_MINIMUM_DELAY
+            || getDelayPeriodUs(mMinimumDelay) <= getDelayPeriodUs(mDelay)) {
+            return mDelay;
+        }
+
+        return mMinimumDelay;
+    }
+
+    @Override
+    public boolean setMinimumDelay(int minimumDelay) {
+        int previousDelay = getDelay();
+        mMinimumDelay = minimumDelay;
+        return getDelay() != previousDelay;
+    }
+
+    @Override
+    protected boolean registerListener(@NonNull SensorDriver sensorDriver,
+        @NonNull Sensor sensor) {
+        return sensorDriver.registerListener(getEventListener(), sensor, getDelay());
+    }
+
+    @Override
+    protected void unregisterListener(@NonNull SensorDriver sensorDriver,
+        @NonNull Sensor sensor) {
+        sensorDriver.unregisterListener(getEventListener(), sensor);
     }
 
-    public void unregisterListener(@NonNull SensorManager sensorManager) {
-        sensorManager.unregisterListener(getEventListener());
+    /**
+     * Returns the sampling period of a delay, which is either one of the {@code
+     * SensorManager.SENSOR_DELAY_*} constants or a period in microseconds.
+     */
+    public static int getDelayPeriodUs(int delay) {
+        switch (delay) {
+            case SensorManager.SENSOR_DELAY_FASTEST:
+                return 0;
+            case SensorManager.SENSOR_DELAY_GAME:
+                return 20000;
+            case SensorManager.SENSOR_DELAY_UI:
+                return 66667;
+            case SensorManager.SENSOR_DELAY_NORMAL:
+                return 200000;
+            default:
+                return delay;
+        }
     }
 }
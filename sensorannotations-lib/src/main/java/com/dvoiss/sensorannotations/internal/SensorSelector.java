@@ -0,0 +1,101 @@
+package com.dvoiss.sensorannotations.internal;
+
+import android.annotation.TargetApi;
+import android.hardware.Sensor;
+import android.os.Build;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import com.dvoiss.sensorannotations.WakeUp;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Selects the sensors of a type a listener is registered to, from the attributes of the sensor
+ * annotations. The patterns are compiled once when the binder is created and the sensors are
+ * resolved from the {@link SensorCatalog} when the binder is bound.
+ */
+public final class SensorSelector {
+    @NonNull private final WakeUp mWakeUp;
+    @Nullable private final Pattern mNamePattern;
+    @Nullable private final Pattern mVendorPattern;
+    private final boolean mAll;
+
+    /**
+     * @param wakeUp The wake-up behaviour of the sensors.
+     * @param nameMatches A regular expression the sensor name must match or an empty string.
+     * @param vendorMatches A regular expression the sensor vendor must match or an empty string.
+     * @param all True to select every matching sensor instead of only one.
+     */
+    public SensorSelector(@NonNull WakeUp wakeUp, @NonNull String nameMatches,
+        @NonNull String vendorMatches, boolean all) {
+        mWakeUp = wakeUp;
+        mNamePattern = nameMatches.isEmpty() ? null : Pattern.compile(nameMatches);
+        mVendorPattern = vendorMatches.isEmpty() ? null : Pattern.compile(vendorMatches);
+        mAll = all;
+    }
+
+    /**
+     * @return True if every matching sensor is selected instead of only one.
+     */
+    public boolean isAll() {
+        return mAll;
+    }
+
+    /**
+     * Returns the matching sensors of a type. Unless all sensors are selected this is the default
+     * sensor of the type if it matches, or else the first matching sensor.
+     *
+     * @param sensorCatalog The catalog of sensors.
+     * @param sensorType The {@code Sensor} type.
+     * @return The selected sensors, empty if none matches.
+     */
+    @NonNull
+    public List<Sensor> select(@NonNull SensorCatalog sensorCatalog, int sensorType) {
+        if (!mAll) {
+            Sensor defaultSensor = sensorCatalog.getDefaultSensor(sensorType);
+            if (defaultSensor != null && matches(defaultSensor)) {
+                return Collections.singletonList(defaultSensor);
+            }
+        }
+
+        List<Sensor> selected = new ArrayList<>();
+        for (Sensor sensor : sensorCatalog.getSensorList(sensorType)) {
+            if (matches(sensor)) {
+                selected.add(sensor);
+                if (!mAll) {
+                    break;
+                }
+            }
+        }
+
+        return selected;
+    }
+
+    /**
+     * @param sensor A sensor of the selected type.
+     * @return True if the sensor matches the wake-up behaviour, name and vendor.
+     */
+    public boolean matches(@NonNull Sensor sensor) {
+        if (mWakeUp != WakeUp.ANY && (mWakeUp == WakeUp.WAKE_UP) != isWakeUpSensor(sensor)) {
+            return false;
+        }
+
+        return matches(mNamePattern, sensor.getName()) && matches(mVendorPattern,
+            sensor.getVendor());
+    }
+
+    private static boolean matches(@Nullable Pattern pattern, @Nullable String value) {
+        return pattern == null || pattern.matcher(value != null ? value : "").matches();
+    }
+
+    private static boolean isWakeUpSensor(@NonNull Sensor sensor) {
+        return Build.VERSION.SDK_INT >= Build.VERSION_CODES.LOLLIPOP && isWakeUpSensorApi21(sensor);
+    }
+
+    @TargetApi(Build.VERSION_CODES.LOLLIPOP)
+    private static boolean isWakeUpSensorApi21(@NonNull Sensor sensor) {
+        return sensor.isWakeUpSensor();
+    }
+}
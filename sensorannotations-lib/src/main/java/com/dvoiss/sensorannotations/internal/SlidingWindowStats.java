@@ -0,0 +1,308 @@
+package com.dvoiss.sensorannotations.internal;
+
+import android.support.annotation.NonNull;
+import com.dvoiss.sensorannotations.SensorStats;
+
+/**
+ * Incremental sliding window statistics used by the generated listeners of {@code OnSensorStats}
+ * methods.
+ *
+ * Every event is added in amortized constant time: the window is a ring of primitive arrays, the
+ * mean and variance are updated with Welford's algorithm (in both directions as events enter and
+ * leave the window) and the min / max values are kept in monotonic deques. The ring only grows
+ * when the window holds more events than fit, so a steady sensor rate allocates nothing.
+ */
+@SuppressWarnings({ "UnusedDeclaration" })
+public class SlidingWindowStats extends SensorStats {
+    private static final long NANOS_PER_MILLI = 1000000L;
+    private static final int INITIAL_CAPACITY = 64;
+
+    private final long mWindowNanos;
+    private final long mEmitEveryNanos;
+
+    private int mAxisCount;
+    private int mCapacity;
+    private int mMask;
+
+    // The window, indexed by sequence number & mMask. Values are stored slot-major.
+    private long[] mTimestamps;
+    private float[] mValues;
+    private long mHead;
+    private long mTail;
+
+    private double[] mMean;
+    private double[] mM2;
+    private double[] mSumSquares;
+
+    // Monotonic deques of sequence numbers, one region of mCapacity entries per axis.
+    private long[] mMinDeque;
+    private long[] mMaxDeque;
+    private long[] mMinHead;
+    private long[] mMinTail;
+    private long[] mMaxHead;
+    private long[] mMaxTail;
+
+    private boolean mStarted;
+    private long mNextEmitTimestamp;
+    private int mEvictionsSinceResync;
+
+    public SlidingWindowStats(int windowMs, int emitEveryMs) {
+        if (windowMs <= 0 || emitEveryMs <= 0) {
+            throw new IllegalArgumentException("Window and emit intervals must be positive.");
+        }
+
+        mWindowNanos = windowMs * NANOS_PER_MILLI;
+        mEmitEveryNanos = emitEveryMs * NANOS_PER_MILLI;
+    }
+
+    /**
+     * Add an event to the window, evicting events that have fallen out of it.
+     *
+     * @param timestamp The event timestamp in nanoseconds.
+     * @param values The event values.
+     * @return True if the emit interval has elapsed and the statistics should be delivered.
+     */
+    public boolean add(long timestamp, @NonNull float[] values) {
+        if (mAxisCount == 0) {
+            allocate(values.length, INITIAL_CAPACITY);
+        }
+
+        long cutoff = timestamp - mWindowNanos;
+        while (mHead < mTail && mTimestamps[(int) (mHead & mMask)] <= cutoff) {
+            evictOldest();
+        }
+
+        if (mTail - mHead == mCapacity) {
+            grow();
+        }
+
+        int slot = (int) (mTail & mMask);
+        int offset = slot * mAxisCount;
+        long count = mTail - mHead + 1;
+        mTimestamps[slot] = timestamp;
+        for (int axis = 0; axis < mAxisCount; axis++) {
+            float value = axis < values.length ? values[axis] : 0f;
+            mValues[offset + axis] = value;
+
+            double delta = value - mMean[axis];
+            mMean[axis] += delta / count;
+            mM2[axis] += delta * (value - mMean[axis]);
+            mSumSquares[axis] += (double) value * value;
+
+            pushMin(axis, mTail, value);
+            pushMax(axis, mTail, value);
+        }
+        mTail++;
+
+        if (mEvictionsSinceResync >= mCapacity) {
+            resync();
+        }
+
+        if (!mStarted) {
+            mStarted = true;
+            mNextEmitTimestamp = timestamp + mEmitEveryNanos;
+            return false;
+        }
+
+        if (timestamp < mNextEmitTimestamp) {
+            return false;
+        }
+
+        mNextEmitTimestamp += mEmitEveryNanos;
+        if (mNextEmitTimestamp <= timestamp) {
+            mNextEmitTimestamp = timestamp + mEmitEveryNanos;
+        }
+        return true;
+    }
+
+    @Override
+    public int getCount() {
+        return (int) (mTail - mHead);
+    }
+
+    @Override
+    public int getAxisCount() {
+        return mAxisCount;
+    }
+
+    @Override
+    public long getStartTimestamp() {
+        return getCount() == 0 ? 0 : mTimestamps[(int) (mHead & mMask)];
+    }
+
+    @Override
+    public long getEndTimestamp() {
+        return getCount() == 0 ? 0 : mTimestamps[(int) ((mTail - 1) & mMask)];
+    }
+
+    @Override
+    public double getMean(int axis) {
+        return getCount() == 0 ? Double.NaN : mMean[axis];
+    }
+
+    @Override
+    public double getVariance(int axis) {
+        int count = getCount();
+        return count == 0 ? Double.NaN : mM2[axis] / count;
+    }
+
+    @Override
+    public double getRms(int axis) {
+        int count = getCount();
+        return count == 0 ? Double.NaN : Math.sqrt(mSumSquares[axis] / count);
+    }
+
+    @Override
+    public float getMin(int axis) {
+        if (getCount() == 0) {
+            return Float.NaN;
+        }
+        return valueAt(mMinDeque[dequeIndex(axis, mMinHead[axis])], axis);
+    }
+
+    @Override
+    public float getMax(int axis) {
+        if (getCount() == 0) {
+            return Float.NaN;
+        }
+        return valueAt(mMaxDeque[dequeIndex(axis, mMaxHead[axis])], axis);
+    }
+
+    private void evictOldest() {
+        long sequence = mHead;
+        long count = mTail - mHead;
+        int offset = (int) (sequence & mMask) * mAxisCount;
+        for (int axis = 0; axis < mAxisCount; axis++) {
+            float value = mValues[offset + axis];
+            if (count == 1) {
+                mMean[axis] = 0;
+                mM2[axis] = 0;
+                mSumSquares[axis] = 0;
+            } else {
+                double oldMean = mMean[axis];
+                mMean[axis] = (count * oldMean - value) / (count - 1);
+                mM2[axis] = Math.max(0, mM2[axis] - (value - oldMean) * (value - mMean[axis]));
+                mSumSquares[axis] = Math.max(0, mSumSquares[axis] - (double) value * value);
+            }
+
+            if (mMinHead[axis] < mMinTail[axis]
+                && mMinDeque[dequeIndex(axis, mMinHead[axis])] == sequence) {
+                mMinHead[axis]++;
+            }
+            if (mMaxHead[axis] < mMaxTail[axis]
+                && mMaxDeque[dequeIndex(axis, mMaxHead[axis])] == sequence) {
+                mMaxHead[axis]++;
+            }
+        }
+        mHead++;
+        mEvictionsSinceResync++;
+    }
+
+    private void pushMin(int axis, long sequence, float value) {
+        while (mMinHead[axis] < mMinTail[axis]
+            && valueAt(mMinDeque[dequeIndex(axis, mMinTail[axis] - 1)], axis) >= value) {
+            mMinTail[axis]--;
+        }
+        mMinDeque[dequeIndex(axis, mMinTail[axis]++)] = sequence;
+    }
+
+    private void pushMax(int axis, long sequence, float value) {
+        while (mMaxHead[axis] < mMaxTail[axis]
+            && valueAt(mMaxDeque[dequeIndex(axis, mMaxTail[axis] - 1)], axis) <= value) {
+            mMaxTail[axis]--;
+        }
+        mMaxDeque[dequeIndex(axis, mMaxTail[axis]++)] = sequence;
+    }
+
+    private float valueAt(long sequence, int axis) {
+        return mValues[(int) (sequence & mMask) * mAxisCount + axis];
+    }
+
+    private int dequeIndex(int axis, long position) {
+        return axis * mCapacity + (int) (position & mMask);
+    }
+
+    /**
+     * Recompute the running sums from the window to discard the floating point error that
+     * accumulates from removing values. This runs once every {@link #mCapacity} evictions so the
+     * cost stays amortized constant per event.
+     */
+    private void resync() {
+        long count = mTail - mHead;
+        for (int axis = 0; axis < mAxisCount; axis++) {
+            double mean = 0;
+            double m2 = 0;
+            double sumSquares = 0;
+            long n = 0;
+            for (long sequence = mHead; sequence < mTail; sequence++) {
+                float value = valueAt(sequence, axis);
+                n++;
+                double delta = value - mean;
+                mean += delta / n;
+                m2 += delta * (value - mean);
+                sumSquares += (double) value * value;
+            }
+            mMean[axis] = count == 0 ? 0 : mean;
+            mM2[axis] = m2;
+            mSumSquares[axis] = sumSquares;
+        }
+        mEvictionsSinceResync = 0;
+    }
+
+    private void allocate(int axisCount, int capacity) {
+        mAxisCount = axisCount;
+        mCapacity = capacity;
+        mMask = capacity - 1;
+        mTimestamps = new long[capacity];
+        mValues = new float[capacity * axisCount];
+        mMean = new double[axisCount];
+        mM2 = new double[axisCount];
+        mSumSquares = new double[axisCount];
+        mMinDeque = new long[capacity * axisCount];
+        mMaxDeque = new long[capacity * axisCount];
+        mMinHead = new long[axisCount];
+        mMinTail = new long[axisCount];
+        mMaxHead = new long[axisCount];
+        mMaxTail = new long[axisCount];
+    }
+
+    /**
+     * Double the capacity of the window, moving every element to the slot it maps to with the new
+     * mask. Sequence numbers are unchanged so the deques stay valid.
+     */
+    private void grow() {
+        int oldCapacity = mCapacity;
+        int oldMask = mMask;
+        int newCapacity = oldCapacity * 2;
+        int newMask = newCapacity - 1;
+
+        long[] timestamps = new long[newCapacity];
+        float[] values = new float[newCapacity * mAxisCount];
+        for (long sequence = mHead; sequence < mTail; sequence++) {
+            int from = (int) (sequence & oldMask);
+            int to = (int) (sequence & newMask);
+            timestamps[to] = mTimestamps[from];
+            System.arraycopy(mValues, from * mAxisCount, values, to * mAxisCount, mAxisCount);
+        }
+
+        long[] minDeque = new long[newCapacity * mAxisCount];
+        long[] maxDeque = new long[newCapacity * mAxisCount];
+        for (int axis = 0; axis < mAxisCount; axis++) {
+            for (long position = mMinHead[axis]; position < mMinTail[axis]; position++) {
+                minDeque[axis * newCapacity + (int) (position & newMask)] =
+                    mMinDeque[axis * oldCapacity + (int) (position & oldMask)];
+            }
+            for (long position = mMaxHead[axis]; position < mMaxTail[axis]; position++) {
+                maxDeque[axis * newCapacity + (int) (position & newMask)] =
+                    mMaxDeque[axis * oldCapacity + (int) (position & oldMask)];
+            }
+        }
+
+        mCapacity = newCapacity;
+        mMask = newMask;
+        mTimestamps = timestamps;
+        mValues = values;
+        mMinDeque = minDeque;
+        mMaxDeque = maxDeque;
+    }
+}
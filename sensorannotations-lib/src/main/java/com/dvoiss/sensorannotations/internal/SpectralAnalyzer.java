@@ -0,0 +1,334 @@
+package com.dvoiss.sensorannotations.internal;
+
+import android.support.annotation.NonNull;
+import com.dvoiss.sensorannotations.Interpolation;
+import com.dvoiss.sensorannotations.Spectrum;
+
+/**
+ * Streaming power spectrum used by the generated listeners of {@code OnSpectrum} methods.
+ *
+ * The events are interpolated onto a uniform grid by a {@link Resampler} and the samples of the
+ * grid are written to a ring of the size of the window. Every {@code hop} samples the window is
+ * transformed, which is drained with {@link #next()} like the ticks of a resampler:
+ *
+ * <pre>{@code
+ * spectrum.add(event.timestamp, event.values);
+ * while (spectrum.next()) {
+ *     target.method(spectrum);
+ * }
+ * }</pre>
+ *
+ * The transform is a radix-2 FFT of {@code size / 2} complex points, run in place on the real
+ * samples packed as pairs, followed by the split step that recovers the spectrum of the real
+ * samples. The twiddle factors, the bit reversal permutation and the Hann window are computed in
+ * the constructor together with every array of the analyzer, so adding events allocates
+ * nothing.
+ */
+@SuppressWarnings({ "UnusedDeclaration" })
+public class SpectralAnalyzer extends Spectrum {
+    private static final long NANOS_PER_SECOND = 1000000000L;
+    private static final int MIN_SIZE = 8;
+    private static final int MAGNITUDE = -1;
+
+    @NonNull private final Resampler mResampler;
+    private final int mHz;
+    private final int mSize;
+    private final int mHop;
+    private final int mAxis;
+    private final long mMaxTickGapNanos;
+
+    // The samples of the grid, indexed by sequence number & (mSize - 1).
+    private final float[] mRing;
+    private int mRingIndex;
+    private int mRingCount;
+    private int mSamplesSinceSpectrum;
+    private long mLastTick;
+
+    // The window being transformed, packed as mSize / 2 complex numbers.
+    private final float[] mBuffer;
+    private final float[] mWindow;
+    private final float mPowerScale;
+    // cos and sin of 2 * pi * k / mSize for k from 0 to mSize / 2.
+    private final float[] mCos;
+    private final float[] mSin;
+    private final int[] mBitReverse;
+
+    private final float[] mPower;
+    // The first bin of each band, followed by the bin after the last band.
+    private final int[] mBandBins;
+    private final float[] mBandEnergy;
+    private long mTimestamp;
+    private float mPeakFrequency;
+    private float mPeakPower;
+
+    /**
+     * @param hz The samples per second of the grid.
+     * @param size The samples of a window, a power of two of at least 8.
+     * @param hop The samples between two spectra.
+     * @param axis The index of the transformed value of an event, or -1 for the length of the
+     * vector of all values.
+     * @param bandEdges The ascending edges of the bands in Hz.
+     */
+    public SpectralAnalyzer(int hz, int size, int hop, int axis, @NonNull float[] bandEdges) {
+        if (hz <= 0) {
+            throw new IllegalArgumentException("The rate of the grid must be positive.");
+        } else if (size < MIN_SIZE || (size & (size - 1)) != 0) {
+            throw new IllegalArgumentException("The size must be a power of two of at least 8.");
+        } else if (hop <= 0 || hop > size) {
+            throw new IllegalArgumentException("The hop must be between 1 and the size.");
+        } else if (axis < MAGNITUDE) {
+            throw new IllegalArgumentException("The axis must not be negative.");
+        }
+
+        mResampler = new Resampler(hz, Interpolation.LINEAR);
+        mHz = hz;
+        mSize = size;
+        mHop = hop;
+        mAxis = axis;
+        mMaxTickGapNanos = 3 * NANOS_PER_SECOND / (2 * hz);
+        mRing = new float[size];
+        mBuffer = new float[size];
+
+        // A periodic Hann window, the power is scaled by the sum of its squares.
+        mWindow = new float[size];
+        double sumSquares = 0;
+        for (int i = 0; i < size; i++) {
+            double weight = 0.5 - 0.5 * Math.cos(2 * Math.PI * i / size);
+            mWindow[i] = (float) weight;
+            sumSquares += weight * weight;
+        }
+        mPowerScale = (float) (1 / (size * sumSquares));
+
+        int half = size / 2;
+        mCos = new float[half + 1];
+        mSin = new float[half + 1];
+        for (int k = 0; k <= half; k++) {
+            mCos[k] = (float) Math.cos(2 * Math.PI * k / size);
+            mSin[k] = (float) Math.sin(2 * Math.PI * k / size);
+        }
+
+        int bits = Integer.numberOfTrailingZeros(half);
+        mBitReverse = new int[half];
+        for (int i = 0; i < half; i++) {
+            mBitReverse[i] = Integer.reverse(i) >>> (Integer.SIZE - bits);
+        }
+
+        mPower = new float[half + 1];
+        int bandCount = Math.max(bandEdges.length - 1, 0);
+        mBandBins = new int[bandCount + 1];
+        for (int i = 0; i < mBandBins.length && i < bandEdges.length; i++) {
+            if (i > 0 && bandEdges[i] < bandEdges[i - 1]) {
+                throw new IllegalArgumentException("The band edges must be ascending.");
+            }
+
+            int bin = (int) Math.ceil((double) bandEdges[i] * size / hz);
+            mBandBins[i] = Math.min(Math.max(bin, 0), half + 1);
+        }
+        mBandEnergy = new float[bandCount];
+    }
+
+    /**
+     * Add an event, events that aren't newer than the last event are ignored.
+     *
+     * @param timestamp The event timestamp in nanoseconds.
+     * @param values The event values.
+     */
+    public void add(long timestamp, @NonNull float[] values) {
+        mResampler.add(timestamp, values);
+    }
+
+    /**
+     * Write the samples of the grid up to the last event to the ring until a window is due.
+     *
+     * @return True if the spectrum of a new window was computed, it is then available until the
+     * next call.
+     */
+    public boolean next() {
+        while (mResampler.next()) {
+            long tick = mResampler.getTimestamp();
+            if (mRingCount > 0 && tick - mLastTick > mMaxTickGapNanos) {
+                // The grid restarted after a gap, don't transform across it.
+                mRingCount = 0;
+                mSamplesSinceSpectrum = 0;
+            }
+
+            mLastTick = tick;
+            mRing[mRingIndex] = getSample(mResampler.getValues());
+            mRingIndex = (mRingIndex + 1) & (mSize - 1);
+            if (mRingCount < mSize) {
+                mRingCount++;
+            }
+
+            if (++mSamplesSinceSpectrum >= mHop && mRingCount == mSize) {
+                mSamplesSinceSpectrum = 0;
+                mTimestamp = tick;
+                transform();
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    private float getSample(@NonNull float[] values) {
+        if (mAxis != MAGNITUDE) {
+            return mAxis < values.length ? values[mAxis] : 0;
+        }
+
+        float sumSquares = 0;
+        for (float value : values) {
+            sumSquares += value * value;
+        }
+        return (float) Math.sqrt(sumSquares);
+    }
+
+    private void transform() {
+        // The ring is full, its oldest sample is the one that is overwritten next.
+        int mask = mSize - 1;
+        float sum = 0;
+        for (float sample : mRing) {
+            sum += sample;
+        }
+        float mean = sum / mSize;
+        for (int i = 0; i < mSize; i++) {
+            mBuffer[i] = (mRing[(mRingIndex + i) & mask] - mean) * mWindow[i];
+        }
+
+        fft(mBuffer);
+        split(mBuffer);
+        findPeak();
+
+        for (int band = 0; band < mBandEnergy.length; band++) {
+            float energy = 0;
+            for (int bin = mBandBins[band]; bin < mBandBins[band + 1]; bin++) {
+                energy += mPower[bin];
+            }
+            mBandEnergy[band] = energy;
+        }
+    }
+
+    /**
+     * In place radix-2 FFT of {@code mSize / 2} complex numbers stored as (real, imaginary) pairs.
+     */
+    private void fft(@NonNull float[] data) {
+        int count = mSize / 2;
+        for (int i = 0; i < count; i++) {
+            int j = mBitReverse[i];
+            if (i < j) {
+                float real = data[2 * i];
+                float imaginary = data[2 * i + 1];
+                data[2 * i] = data[2 * j];
+                data[2 * i + 1] = data[2 * j + 1];
+                data[2 * j] = real;
+                data[2 * j + 1] = imaginary;
+            }
+        }
+
+        for (int length = 2; length <= count; length <<= 1) {
+            int half = length / 2;
+            // The twiddle e^(-2 pi i j / length) is entry j * mSize / length of the tables.
+            int twiddleStep = mSize / length;
+            for (int start = 0; start < count; start += length) {
+                for (int j = 0; j < half; j++) {
+                    float cos = mCos[j * twiddleStep];
+                    float sin = mSin[j * twiddleStep];
+                    int a = 2 * (start + j);
+                    int b = a + 2 * half;
+                    float real = data[b] * cos + data[b + 1] * sin;
+                    float imaginary = data[b + 1] * cos - data[b] * sin;
+                    data[b] = data[a] - real;
+                    data[b + 1] = data[a + 1] - imaginary;
+                    data[a] += real;
+                    data[a + 1] += imaginary;
+                }
+            }
+        }
+    }
+
+    /**
+     * Compute the power of each bin from the transform {@code Z} of the packed samples:
+     * {@code X[k] = (Z[k] + conj(Z[n - k])) / 2 - i e^(-2 pi i k / size) (Z[k] - conj(Z[n - k]))
+     * / 2} with {@code n = size / 2} and {@code Z[n] = Z[0]}.
+     */
+    private void split(@NonNull float[] data) {
+        int count = mSize / 2;
+        for (int k = 0; k <= count; k++) {
+            int a = 2 * (k == count ? 0 : k);
+            int b = 2 * (k == 0 ? 0 : count - k);
+            float evenReal = (data[a] + data[b]) / 2;
+            float evenImaginary = (data[a + 1] - data[b + 1]) / 2;
+            float oddReal = (data[a + 1] + data[b + 1]) / 2;
+            float oddImaginary = (data[b] - data[a]) / 2;
+            float real = evenReal + mCos[k] * oddReal + mSin[k] * oddImaginary;
+            float imaginary = evenImaginary + mCos[k] * oddImaginary - mSin[k] * oddReal;
+
+            // Both halves of the two sided spectrum except for the mean and the Nyquist bin.
+            float power = (real * real + imaginary * imaginary) * mPowerScale;
+            mPower[k] = k == 0 || k == count ? power : 2 * power;
+        }
+    }
+
+    private void findPeak() {
+        int last = mSize / 2;
+        int peak = 1;
+        for (int bin = 2; bin <= last; bin++) {
+            if (mPower[bin] > mPower[peak]) {
+                peak = bin;
+            }
+        }
+
+        // The vertex of the parabola through the peak and its neighbours.
+        float offset = 0;
+        if (peak < last) {
+            float previous = mPower[peak - 1];
+            float next = mPower[peak + 1];
+            float curvature = previous - 2 * mPower[peak] + next;
+            if (curvature < 0) {
+                offset = 0.5f * (previous - next) / curvature;
+            }
+        }
+
+        mPeakPower = mPower[peak];
+        mPeakFrequency = getFrequency(peak) + offset * mHz / mSize;
+    }
+
+    @Override
+    public long getTimestamp() {
+        return mTimestamp;
+    }
+
+    @Override
+    public int getSize() {
+        return mSize;
+    }
+
+    @Override
+    public int getSampleRate() {
+        return mHz;
+    }
+
+    @Override
+    public float getPower(int bin) {
+        return mPower[bin];
+    }
+
+    @Override
+    public float getPeakFrequency() {
+        return mPeakFrequency;
+    }
+
+    @Override
+    public float getPeakPower() {
+        return mPeakPower;
+    }
+
+    @Override
+    public int getBandCount() {
+        return mBandEnergy.length;
+    }
+
+    @Override
+    public float getBandEnergy(int band) {
+        return mBandEnergy[band];
+    }
+}
@@ -0,0 +1,89 @@
+package com.dvoiss.sensorannotations.internal;
+
+import android.annotation.TargetApi;
+import android.hardware.Sensor;
+import android.hardware.SensorEventListener;
+import android.hardware.SensorManager;
+import android.hardware.TriggerEventListener;
+import android.os.Build;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A {@link SensorDriver} forwarding to the {@link SensorManager}, including the dynamic sensors on
+ * API 24+.
+ */
+final class SystemSensorDriver implements SensorDriver {
+    @NonNull private final SensorManager mSensorManager;
+
+    SystemSensorDriver(@NonNull SensorManager sensorManager) {
+        mSensorManager = sensorManager;
+    }
+
+    /**
+     * If the device has no default sensor of the type the first connected dynamic sensor of the
+     * type is used.
+     */
+    @Nullable
+    @Override
+    public Sensor getDefaultSensor(int sensorType) {
+        Sensor sensor = mSensorManager.getDefaultSensor(sensorType);
+        if (sensor == null && Build.VERSION.SDK_INT >= Build.VERSION_CODES.N) {
+            List<Sensor> dynamicSensors = getDynamicSensorList(sensorType);
+            sensor = dynamicSensors.isEmpty() ? null : dynamicSensors.get(0);
+        }
+
+        return sensor;
+    }
+
+    @NonNull
+    @Override
+    public List<Sensor> getSensorList(int sensorType) {
+        List<Sensor> sensors = new ArrayList<>(mSensorManager.getSensorList(sensorType));
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.N) {
+            for (Sensor sensor : getDynamicSensorList(sensorType)) {
+                if (!sensors.contains(sensor)) {
+                    sensors.add(sensor);
+                }
+            }
+        }
+
+        return sensors;
+    }
+
+    @NonNull
+    @TargetApi(Build.VERSION_CODES.N)
+    private List<Sensor> getDynamicSensorList(int sensorType) {
+        return mSensorManager.getDynamicSensorList(sensorType);
+    }
+
+    @Override
+    public boolean registerListener(@NonNull SensorEventListener listener, @NonNull Sensor sensor,
+        int delay) {
+        return mSensorManager.registerListener(listener, sensor, delay);
+    }
+
+    @Override
+    public void unregisterListener(@NonNull SensorEventListener listener, @NonNull Sensor sensor) {
+        mSensorManager.unregisterListener(listener, sensor);
+    }
+
+    @Override
+    @TargetApi(Build.VERSION_CODES.JELLY_BEAN_MR2)
+    public boolean requestTriggerSensor(@NonNull TriggerEventListener listener,
+        @NonNull Sensor sensor) {
+        return Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN_MR2
+            && mSensorManager.requestTriggerSensor(listener, sensor);
+    }
+
+    @Override
+    @TargetApi(Build.VERSION_CODES.JELLY_BEAN_MR2)
+    public void cancelTriggerSensor(@NonNull TriggerEventListener listener,
+        @NonNull Sensor sensor) {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN_MR2) {
+            mSensorManager.cancelTriggerSensor(listener, sensor);
+        }
+    }
+}
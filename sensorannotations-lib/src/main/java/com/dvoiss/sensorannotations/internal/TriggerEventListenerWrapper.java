@@ -2,7 +2,6 @@ package com.dvoiss.sensorannotations.internal;
 
 import android.annotation.TargetApi;
 import android.hardware.Sensor;
-import android.hardware.SensorManager;
 import android.hardware.TriggerEventListener;
 import android.os.Build;
 import android.support.annotation.NonNull;
@@ -17,15 +16,15 @@ public class TriggerEventListenerWrapper extends EventListenerWrapper<TriggerEve
         super(Sensor.TYPE_SIGNIFICANT_MOTION, sensorEventListener);
     }
 
-    public void registerListener(@NonNull SensorManager sensorManager) {
-        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN_MR2) {
-            sensorManager.requestTriggerSensor(getEventListener(), getSensor(sensorManager));
-        }
+    @Override
+    protected boolean registerListener(@NonNull SensorDriver sensorDriver,
+        @NonNull Sensor sensor) {
+        return sensorDriver.requestTriggerSensor(getEventListener(), sensor);
     }
 
-    public void unregisterListener(@NonNull SensorManager sensorManager) {
-        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN_MR2) {
-            sensorManager.cancelTriggerSensor(getEventListener(), getSensor(sensorManager));
-        }
+    @Override
+    protected void unregisterListener(@NonNull SensorDriver sensorDriver,
+        @NonNull Sensor sensor) {
+        sensorDriver.cancelTriggerSensor(getEventListener(), sensor);
     }
 }
@@ -0,0 +1,61 @@
+package com.dvoiss.sensorannotations.recording;
+
+import android.support.annotation.NonNull;
+import java.io.EOFException;
+
+/**
+ * Reads the bits written by {@link BitOutput} from the payload of a block.
+ */
+final class BitInput {
+    @NonNull private byte[] mBytes = new byte[0];
+    private int mBitLength;
+    private int mBitPosition;
+
+    /**
+     * Read from the start of the given bytes, the array is used as is.
+     */
+    void reset(@NonNull byte[] bytes, int length) {
+        mBytes = bytes;
+        mBitLength = length * 8;
+        mBitPosition = 0;
+    }
+
+    boolean readBit() throws EOFException {
+        return readBits(1) != 0;
+    }
+
+    /**
+     * @param count The number of bits to read, up to 64.
+     * @return The bits in the low bits of the value.
+     */
+    long readBits(int count) throws EOFException {
+        if (mBitPosition + count > mBitLength) {
+            throw new EOFException("Read past the end of the block.");
+        }
+
+        long value = 0;
+        while (count > 0) {
+            int available = 8 - (mBitPosition & 7);
+            int n = Math.min(available, count);
+            int bits = (mBytes[mBitPosition >>> 3] >>> (available - n)) & ((1 << n) - 1);
+            value = (value << n) | bits;
+            mBitPosition += n;
+            count -= n;
+        }
+
+        return value;
+    }
+
+    long readVarint() throws EOFException {
+        long value = 0;
+        int shift = 0;
+        boolean more;
+        do {
+            more = readBit();
+            value |= readBits(7) << shift;
+            shift += 7;
+        } while (more);
+
+        return value;
+    }
+}
@@ -0,0 +1,67 @@
+package com.dvoiss.sensorannotations.recording;
+
+import android.support.annotation.NonNull;
+import java.util.Arrays;
+
+/**
+ * A growable buffer of bits, written most significant bit first. Used to build the payload of
+ * one block at a time.
+ */
+final class BitOutput {
+    @NonNull private byte[] mBytes = new byte[256];
+    private int mBitCount;
+
+    void writeBit(boolean bit) {
+        writeBits(bit ? 1 : 0, 1);
+    }
+
+    /**
+     * @param value The bits to write, in the low bits of the value.
+     * @param count The number of bits to write, up to 64.
+     */
+    void writeBits(long value, int count) {
+        ensureCapacity(mBitCount + count);
+        while (count > 0) {
+            int free = 8 - (mBitCount & 7);
+            int n = Math.min(free, count);
+            int bits = (int) (value >>> (count - n)) & ((1 << n) - 1);
+            mBytes[mBitCount >>> 3] |= bits << (free - n);
+            mBitCount += n;
+            count -= n;
+        }
+    }
+
+    /**
+     * Write an unsigned value in groups of 7 bits, each preceded by a bit telling whether another
+     * group follows.
+     */
+    void writeVarint(long value) {
+        do {
+            long group = value & 0x7f;
+            value >>>= 7;
+            writeBit(value != 0);
+            writeBits(group, 7);
+        } while (value != 0);
+    }
+
+    int getByteCount() {
+        return (mBitCount + 7) >>> 3;
+    }
+
+    @NonNull
+    byte[] getBytes() {
+        return mBytes;
+    }
+
+    void reset() {
+        Arrays.fill(mBytes, 0, getByteCount(), (byte) 0);
+        mBitCount = 0;
+    }
+
+    private void ensureCapacity(int bitCount) {
+        int byteCount = (bitCount + 7) >>> 3;
+        if (byteCount > mBytes.length) {
+            mBytes = Arrays.copyOf(mBytes, Math.max(byteCount, mBytes.length * 2));
+        }
+    }
+}
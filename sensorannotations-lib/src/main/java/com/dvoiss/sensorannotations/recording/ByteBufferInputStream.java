@@ -0,0 +1,47 @@
+package com.dvoiss.sensorannotations.recording;
+
+import android.support.annotation.NonNull;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * An {@link InputStream} reading the remaining bytes of a {@link ByteBuffer}, used to decode
+ * memory-mapped segments without copying them.
+ */
+final class ByteBufferInputStream extends InputStream {
+    @NonNull private final ByteBuffer mBuffer;
+
+    ByteBufferInputStream(@NonNull ByteBuffer buffer) {
+        mBuffer = buffer;
+    }
+
+    @Override
+    public int read() {
+        return mBuffer.hasRemaining() ? mBuffer.get() & 0xff : -1;
+    }
+
+    @Override
+    public int read(@NonNull byte[] bytes, int offset, int length) {
+        if (length == 0) {
+            return 0;
+        } else if (!mBuffer.hasRemaining()) {
+            return -1;
+        }
+
+        int count = Math.min(length, mBuffer.remaining());
+        mBuffer.get(bytes, offset, count);
+        return count;
+    }
+
+    @Override
+    public long skip(long count) {
+        int skipped = (int) Math.max(0, Math.min(count, mBuffer.remaining()));
+        mBuffer.position(mBuffer.position() + skipped);
+        return skipped;
+    }
+
+    @Override
+    public int available() {
+        return mBuffer.remaining();
+    }
+}
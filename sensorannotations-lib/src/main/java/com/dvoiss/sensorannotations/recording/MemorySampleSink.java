@@ -0,0 +1,77 @@
+package com.dvoiss.sensorannotations.recording;
+
+import android.support.annotation.NonNull;
+import java.util.Arrays;
+
+/**
+ * A {@link SampleSink} keeping the committed samples in memory, for tests.
+ */
+public final class MemorySampleSink implements SampleSink {
+    private int mAxisCount;
+    private int mCount;
+    private int mCommittedCount;
+    @NonNull private long[] mTimestamps = new long[64];
+    @NonNull private float[] mValues = new float[0];
+    private int mCommitCount;
+    private boolean mClosed;
+
+    @Override
+    public synchronized void write(@NonNull long[] timestamps, @NonNull float[] values,
+        int axisCount, int offset, int count) {
+        if (mCount + count > mTimestamps.length) {
+            mTimestamps = Arrays.copyOf(mTimestamps, Math.max(mTimestamps.length * 2,
+                mCount + count));
+        }
+        if ((mCount + count) * axisCount > mValues.length) {
+            mValues = Arrays.copyOf(mValues, mTimestamps.length * axisCount);
+        }
+
+        mAxisCount = axisCount;
+        System.arraycopy(timestamps, offset, mTimestamps, mCount, count);
+        System.arraycopy(values, offset * axisCount, mValues, mCount * axisCount,
+            count * axisCount);
+        mCount += count;
+    }
+
+    @Override
+    public synchronized void commit() {
+        mCommittedCount = mCount;
+        mCommitCount++;
+    }
+
+    @Override
+    public synchronized void close() {
+        mClosed = true;
+    }
+
+    /**
+     * @return The number of committed samples.
+     */
+    public synchronized int getCount() {
+        return mCommittedCount;
+    }
+
+    public synchronized long getTimestamp(int index) {
+        checkIndex(index);
+        return mTimestamps[index];
+    }
+
+    public synchronized float getValue(int index, int axis) {
+        checkIndex(index);
+        return mValues[index * mAxisCount + axis];
+    }
+
+    public synchronized int getCommitCount() {
+        return mCommitCount;
+    }
+
+    public synchronized boolean isClosed() {
+        return mClosed;
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= mCommittedCount) {
+            throw new IndexOutOfBoundsException("No committed sample at " + index);
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package com.dvoiss.sensorannotations.recording;
+
+import android.support.annotation.NonNull;
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * The destination of the samples of a {@link WriteBehindPipeline}, called on its writer thread.
+ */
+public interface SampleSink extends Closeable {
+    /**
+     * Write consecutive samples of a batch. The arrays belong to the pipeline and are only valid
+     * during the call.
+     *
+     * @param timestamps The timestamps of the samples.
+     * @param values The values of the samples, {@code axisCount} values per sample so the values
+     * of the sample at {@code index} start at {@code index * axisCount}.
+     * @param axisCount The number of values of each sample.
+     * @param offset The index of the first sample.
+     * @param count The number of samples.
+     * @throws IOException If the samples can't be written.
+     */
+    void write(@NonNull long[] timestamps, @NonNull float[] values, int axisCount, int offset,
+        int count) throws IOException;
+
+    /**
+     * Make the samples written so far durable, called once per batch.
+     *
+     * @throws IOException If the samples can't be committed.
+     */
+    void commit() throws IOException;
+}
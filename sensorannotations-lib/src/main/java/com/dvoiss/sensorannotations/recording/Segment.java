@@ -0,0 +1,167 @@
+package com.dvoiss.sensorannotations.recording;
+
+import android.support.annotation.NonNull;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+
+import static com.dvoiss.sensorannotations.recording.SensorStreamWriter.BLOCK_HEADER_SIZE;
+import static com.dvoiss.sensorannotations.recording.SensorStreamWriter.HEADER_SIZE;
+import static com.dvoiss.sensorannotations.recording.SensorStreamWriter.MAGIC;
+import static com.dvoiss.sensorannotations.recording.SensorStreamWriter.VERSION;
+
+/**
+ * One file of a {@link SensorTimeSeriesStore}: a sensor stream and the sparse index of its blocks,
+ * the first timestamp and the offset of each block, kept in memory.
+ */
+final class Segment {
+    @NonNull private final File mFile;
+    private final long mSequence;
+
+    private int mBlockCount;
+    @NonNull private long[] mBlockTimestamps = new long[16];
+    @NonNull private long[] mBlockOffsets = new long[16];
+    private long mFirstTimestamp;
+    private long mLastTimestamp;
+    private long mSize = HEADER_SIZE;
+
+    private MappedByteBuffer mMapped;
+
+    Segment(@NonNull File file, long sequence) {
+        mFile = file;
+        mSequence = sequence;
+    }
+
+    /**
+     * Load the index of an existing segment by reading its block headers. A block that was only
+     * partially written, for example when the process died, is truncated.
+     */
+    @NonNull
+    static Segment load(@NonNull File file, long sequence, int sensorType, int axisCount)
+        throws IOException {
+        Segment segment = new Segment(file, sequence);
+        RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw");
+        try {
+            long length = randomAccessFile.length();
+            if (length < HEADER_SIZE || randomAccessFile.readInt() != MAGIC
+                || randomAccessFile.readInt() != VERSION || randomAccessFile.readInt() != sensorType
+                || randomAccessFile.readInt() != axisCount) {
+                throw new IOException("Invalid segment " + file);
+            }
+
+            long offset = HEADER_SIZE;
+            while (offset + BLOCK_HEADER_SIZE <= length) {
+                randomAccessFile.seek(offset);
+                randomAccessFile.readInt();
+                long firstTimestamp = randomAccessFile.readLong();
+                long lastTimestamp = randomAccessFile.readLong();
+                long endOffset = offset + BLOCK_HEADER_SIZE + randomAccessFile.readInt();
+                if (endOffset > length || endOffset < offset + BLOCK_HEADER_SIZE) {
+                    break;
+                }
+
+                segment.addBlock(offset, endOffset, firstTimestamp, lastTimestamp);
+                offset = endOffset;
+            }
+
+            if (offset < length) {
+                randomAccessFile.setLength(offset);
+            }
+        } finally {
+            randomAccessFile.close();
+        }
+
+        return segment;
+    }
+
+    void addBlock(long offset, long endOffset, long firstTimestamp, long lastTimestamp) {
+        if (mBlockCount == mBlockOffsets.length) {
+            mBlockOffsets = Arrays.copyOf(mBlockOffsets, mBlockCount * 2);
+            mBlockTimestamps = Arrays.copyOf(mBlockTimestamps, mBlockCount * 2);
+        }
+
+        if (mBlockCount == 0) {
+            mFirstTimestamp = firstTimestamp;
+        }
+        mBlockOffsets[mBlockCount] = offset;
+        mBlockTimestamps[mBlockCount] = firstTimestamp;
+        mBlockCount++;
+        mLastTimestamp = lastTimestamp;
+        mSize = endOffset;
+    }
+
+    @NonNull
+    File getFile() {
+        return mFile;
+    }
+
+    long getSequence() {
+        return mSequence;
+    }
+
+    boolean isEmpty() {
+        return mBlockCount == 0;
+    }
+
+    int getBlockCount() {
+        return mBlockCount;
+    }
+
+    long getFirstTimestamp() {
+        return mFirstTimestamp;
+    }
+
+    long getLastTimestamp() {
+        return mLastTimestamp;
+    }
+
+    /**
+     * @return The size of the complete blocks and the header in bytes.
+     */
+    long getSize() {
+        return mSize;
+    }
+
+    /**
+     * @return The offset of the last block starting at or before the timestamp, or of the first
+     * block if all blocks start after it.
+     */
+    long findBlockOffset(long timestamp) {
+        int index = Arrays.binarySearch(mBlockTimestamps, 0, mBlockCount, timestamp);
+        if (index < 0) {
+            index = Math.max(0, -index - 2);
+        } else {
+            // Several blocks can start with the same timestamp, use the first of them.
+            while (index > 0 && mBlockTimestamps[index - 1] == timestamp) {
+                index--;
+            }
+        }
+
+        return mBlockOffsets[index];
+    }
+
+    /**
+     * Map the complete blocks of the segment, the mapping is reused until the segment grows.
+     *
+     * @return A new buffer of the mapping, positioned at the start of the file.
+     */
+    @NonNull
+    ByteBuffer map() throws IOException {
+        if (mMapped == null || mMapped.capacity() < mSize) {
+            RandomAccessFile randomAccessFile = new RandomAccessFile(mFile, "r");
+            try {
+                mMapped = randomAccessFile.getChannel()
+                    .map(FileChannel.MapMode.READ_ONLY, 0, mSize);
+            } finally {
+                // The mapping stays valid after the file is closed or even deleted.
+                randomAccessFile.close();
+            }
+        }
+
+        return mMapped.duplicate();
+    }
+}
@@ -0,0 +1,277 @@
+package com.dvoiss.sensorannotations.recording;
+
+import android.support.annotation.NonNull;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+
+import static com.dvoiss.sensorannotations.recording.SensorStreamWriter.MAGIC;
+import static com.dvoiss.sensorannotations.recording.SensorStreamWriter.MAX_AXIS_COUNT;
+import static com.dvoiss.sensorannotations.recording.SensorStreamWriter.VERSION;
+import static com.dvoiss.sensorannotations.recording.SensorStreamWriter.unzigzag;
+
+/**
+ * Reads a stream written by {@link SensorStreamWriter} one sample at a time. Only the block being
+ * decoded is kept in memory, and {@link #skipTo(long)} skips whole blocks using their headers
+ * without decoding them.
+ */
+public final class SensorStreamReader implements Closeable {
+    @NonNull private final DataInputStream mInput;
+    private final int mSensorType;
+    private final int mAxisCount;
+    @NonNull private final BitInput mBits = new BitInput();
+    @NonNull private byte[] mPayload = new byte[256];
+
+    private int mBlockSampleCount;
+    private int mBlockIndex;
+    private long mBlockFirstTimestamp;
+    private long mBlockLastTimestamp;
+
+    private long mTimestamp;
+    private long mLastDelta;
+    @NonNull private final int[] mValues;
+    @NonNull private final int[] mLastLeadingZeros;
+    @NonNull private final int[] mLastTrailingZeros;
+
+    /**
+     * @param input The stream to read from, it is closed with the reader.
+     * @throws IOException If the header can't be read or isn't valid.
+     */
+    public SensorStreamReader(@NonNull InputStream input) throws IOException {
+        this(new DataInputStream(input));
+    }
+
+    private SensorStreamReader(@NonNull DataInputStream input) throws IOException {
+        this(input, readHeader(input), input.readInt());
+    }
+
+    /**
+     * Read blocks without a stream header, for example from the middle of a stream.
+     *
+     * @param input The stream positioned at the start of a block.
+     * @param sensorType The {@code Sensor} type of the stream.
+     * @param axisCount The number of values of each sample.
+     */
+    SensorStreamReader(@NonNull InputStream input, int sensorType, int axisCount)
+        throws IOException {
+        this(new DataInputStream(input), sensorType, axisCount);
+    }
+
+    private SensorStreamReader(@NonNull DataInputStream input, int sensorType, int axisCount)
+        throws IOException {
+        if (axisCount <= 0 || axisCount > MAX_AXIS_COUNT) {
+            throw new IOException("Invalid axis count " + axisCount);
+        }
+
+        mInput = input;
+        mSensorType = sensorType;
+        mAxisCount = axisCount;
+        mValues = new int[axisCount];
+        mLastLeadingZeros = new int[axisCount];
+        mLastTrailingZeros = new int[axisCount];
+    }
+
+    /**
+     * Read the stream header up to the axis count.
+     *
+     * @return The sensor type.
+     */
+    private static int readHeader(@NonNull DataInputStream input) throws IOException {
+        if (input.readInt() != MAGIC) {
+            throw new IOException("Not a sensor stream.");
+        }
+
+        int version = input.readInt();
+        if (version != VERSION) {
+            throw new IOException("Unsupported sensor stream version " + version);
+        }
+
+        return input.readInt();
+    }
+
+    public int getSensorType() {
+        return mSensorType;
+    }
+
+    public int getAxisCount() {
+        return mAxisCount;
+    }
+
+    /**
+     * Move to the next sample.
+     *
+     * @return False at the end of the stream.
+     * @throws IOException If the stream is truncated inside a block or corrupt.
+     */
+    public boolean next() throws IOException {
+        if (mBlockIndex == mBlockSampleCount && !readBlockHeader()) {
+            return false;
+        }
+
+        if (mBlockIndex == 0) {
+            readPayload();
+        }
+
+        decodeSample();
+        mBlockIndex++;
+        return true;
+    }
+
+    /**
+     * Move forward to the first sample with a timestamp at or after the given one. Blocks that
+     * end before the timestamp are skipped without being decoded.
+     *
+     * @param timestamp The timestamp in nanoseconds.
+     * @return False if the stream ended first.
+     * @throws IOException If the stream is truncated inside a block or corrupt.
+     */
+    public boolean skipTo(long timestamp) throws IOException {
+        while (true) {
+            if (mBlockIndex == mBlockSampleCount) {
+                if (!readBlockHeader()) {
+                    return false;
+                }
+
+                if (mBlockLastTimestamp < timestamp) {
+                    skipPayload();
+                    mBlockIndex = mBlockSampleCount;
+                    continue;
+                }
+            }
+
+            if (!next()) {
+                return false;
+            }
+
+            if (mTimestamp >= timestamp) {
+                return true;
+            }
+        }
+    }
+
+    public long getTimestamp() {
+        return mTimestamp;
+    }
+
+    public float getValue(int axis) {
+        return Float.intBitsToFloat(mValues[axis]);
+    }
+
+    /**
+     * @param values Receives the values of the current sample, it must hold {@link
+     * #getAxisCount()} values.
+     */
+    public void getValues(@NonNull float[] values) {
+        for (int axis = 0; axis < mAxisCount; axis++) {
+            values[axis] = Float.intBitsToFloat(mValues[axis]);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        mInput.close();
+    }
+
+    private boolean readBlockHeader() throws IOException {
+        int firstByte = mInput.read();
+        if (firstByte < 0) {
+            return false;
+        }
+
+        mBlockSampleCount = (firstByte << 24) | (mInput.readUnsignedByte() << 16)
+            | (mInput.readUnsignedByte() << 8) | mInput.readUnsignedByte();
+        if (mBlockSampleCount <= 0) {
+            throw new IOException("Invalid block sample count " + mBlockSampleCount);
+        }
+
+        mBlockFirstTimestamp = mInput.readLong();
+        mBlockLastTimestamp = mInput.readLong();
+        mBlockIndex = 0;
+        return true;
+    }
+
+    private void readPayload() throws IOException {
+        int payloadLength = readPayloadLength();
+        if (payloadLength > mPayload.length) {
+            mPayload = new byte[Math.max(payloadLength, mPayload.length * 2)];
+        }
+
+        mInput.readFully(mPayload, 0, payloadLength);
+        mBits.reset(mPayload, payloadLength);
+    }
+
+    private void skipPayload() throws IOException {
+        int remaining = readPayloadLength();
+        while (remaining > 0) {
+            int skipped = mInput.skipBytes(remaining);
+            if (skipped <= 0) {
+                throw new EOFException("The stream ended inside a block.");
+            }
+            remaining -= skipped;
+        }
+    }
+
+    private int readPayloadLength() throws IOException {
+        int payloadLength = mInput.readInt();
+        if (payloadLength < 0) {
+            throw new IOException("Invalid block length " + payloadLength);
+        }
+
+        return payloadLength;
+    }
+
+    private void decodeSample() throws IOException {
+        if (mBlockIndex == 0) {
+            mTimestamp = mBlockFirstTimestamp;
+        } else if (mBlockIndex == 1) {
+            mLastDelta = unzigzag(mBits.readVarint());
+            mTimestamp += mLastDelta;
+        } else {
+            if (mBits.readBit()) {
+                mLastDelta += unzigzag(mBits.readVarint());
+            }
+            mTimestamp += mLastDelta;
+        }
+
+        for (int axis = 0; axis < mAxisCount; axis++) {
+            decodeValue(axis);
+        }
+    }
+
+    private void decodeValue(int axis) throws IOException {
+        if (mBlockIndex == 0) {
+            mValues[axis] = (int) mBits.readBits(32);
+            mLastLeadingZeros[axis] = -1;
+            return;
+        }
+
+        if (!mBits.readBit()) {
+            return;
+        }
+
+        int leadingZeros;
+        int trailingZeros;
+        if (!mBits.readBit()) {
+            leadingZeros = mLastLeadingZeros[axis];
+            trailingZeros = mLastTrailingZeros[axis];
+            if (leadingZeros < 0) {
+                throw new IOException("Corrupt block, no previous value window.");
+            }
+        } else {
+            leadingZeros = (int) mBits.readBits(5);
+            int meaningfulBits = (int) mBits.readBits(5) + 1;
+            trailingZeros = 32 - leadingZeros - meaningfulBits;
+            if (trailingZeros < 0) {
+                throw new IOException("Corrupt block, invalid value window.");
+            }
+            mLastLeadingZeros[axis] = leadingZeros;
+            mLastTrailingZeros[axis] = trailingZeros;
+        }
+
+        int meaningfulBits = 32 - leadingZeros - trailingZeros;
+        int xor = (int) mBits.readBits(meaningfulBits) << trailingZeros;
+        mValues[axis] ^= xor;
+    }
+}
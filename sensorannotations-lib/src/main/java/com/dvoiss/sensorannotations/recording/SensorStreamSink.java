@@ -0,0 +1,54 @@
+package com.dvoiss.sensorannotations.recording;
+
+import android.support.annotation.NonNull;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * A {@link SampleSink} writing a {@link SensorStreamWriter} stream to a file. Each commit ends
+ * the current block of the stream, so the batches of the pipeline should not be too small.
+ */
+public final class SensorStreamSink implements SampleSink {
+    @NonNull private final SensorStreamWriter mWriter;
+    @NonNull private final float[] mSample;
+
+    public SensorStreamSink(@NonNull File file, int sensorType, int axisCount)
+        throws IOException {
+        this(new BufferedOutputStream(new FileOutputStream(file)), sensorType, axisCount);
+    }
+
+    /**
+     * @param output The stream to write to, it is closed with the sink.
+     * @param sensorType The {@code Sensor} type of the samples.
+     * @param axisCount The number of values of each sample.
+     * @throws IOException If the header of the stream can't be written.
+     */
+    public SensorStreamSink(@NonNull OutputStream output, int sensorType, int axisCount)
+        throws IOException {
+        mWriter = new SensorStreamWriter(output, sensorType, axisCount);
+        mSample = new float[axisCount];
+    }
+
+    @Override
+    public void write(@NonNull long[] timestamps, @NonNull float[] values, int axisCount,
+        int offset, int count) throws IOException {
+        int sampleAxisCount = Math.min(axisCount, mSample.length);
+        for (int i = offset; i < offset + count; i++) {
+            System.arraycopy(values, i * axisCount, mSample, 0, sampleAxisCount);
+            mWriter.append(timestamps[i], mSample);
+        }
+    }
+
+    @Override
+    public void commit() throws IOException {
+        mWriter.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        mWriter.close();
+    }
+}
@@ -0,0 +1,232 @@
+package com.dvoiss.sensorannotations.recording;
+
+import android.hardware.SensorEvent;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Appends a compressed stream of sensor samples to an {@link OutputStream}, to be read back with
+ * {@link SensorStreamReader}.
+ *
+ * The stream starts with a header holding the sensor type and the number of axes, followed by
+ * blocks of up to {@link #DEFAULT_BLOCK_SIZE} samples. Each block header holds the sample count,
+ * the first and last timestamps and the payload length, so a reader can skip whole blocks without
+ * decoding them. Inside a block:
+ * <ul>
+ * <li>Timestamps are stored as delta-of-deltas: a single 0 bit if the interval didn't change,
+ * otherwise a 1 bit and the zigzag encoded difference as a varint.</li>
+ * <li>The values of each axis are XORed with the previous value of the axis, Gorilla style: a 0
+ * bit for an unchanged value, otherwise only the meaningful bits of the XOR, reusing the leading
+ * and trailing zero counts of the previous value when they fit.</li>
+ * </ul>
+ * Only the block being built is kept in memory, each block is independently decodable.
+ */
+public final class SensorStreamWriter implements Closeable {
+    static final int MAGIC = 0x53415231;
+    static final int VERSION = 1;
+    static final int MAX_AXIS_COUNT = 16;
+    static final int HEADER_SIZE = 16;
+    static final int BLOCK_HEADER_SIZE = 24;
+
+    /**
+     * Notified after each block is written, with the offsets of the block in the stream.
+     */
+    interface BlockListener {
+        void onBlockWritten(long offset, long endOffset, long firstTimestamp, long lastTimestamp);
+    }
+
+    public static final int DEFAULT_BLOCK_SIZE = 1024;
+
+    @NonNull private final DataOutputStream mOutput;
+    private final int mAxisCount;
+    private final int mBlockSize;
+    @NonNull private final BitOutput mBits = new BitOutput();
+
+    @Nullable private BlockListener mBlockListener;
+
+    private int mSampleCount;
+    private long mFirstTimestamp;
+    private long mLastTimestamp;
+    private long mLastDelta;
+    @NonNull private final int[] mLastValues;
+    @NonNull private final int[] mLastLeadingZeros;
+    @NonNull private final int[] mLastTrailingZeros;
+
+    public SensorStreamWriter(@NonNull OutputStream output, int sensorType, int axisCount)
+        throws IOException {
+        this(output, sensorType, axisCount, DEFAULT_BLOCK_SIZE);
+    }
+
+    /**
+     * @param output The stream to write to, it is closed with the writer.
+     * @param sensorType The {@code Sensor} type of the samples.
+     * @param axisCount The number of values of each sample.
+     * @param blockSize The maximum number of samples of a block.
+     * @throws IOException If the header can't be written.
+     */
+    public SensorStreamWriter(@NonNull OutputStream output, int sensorType, int axisCount,
+        int blockSize) throws IOException {
+        if (axisCount <= 0 || axisCount > MAX_AXIS_COUNT) {
+            throw new IllegalArgumentException("Invalid axis count " + axisCount);
+        } else if (blockSize <= 0) {
+            throw new IllegalArgumentException("The block size must be positive.");
+        }
+
+        mOutput = new DataOutputStream(output);
+        mAxisCount = axisCount;
+        mBlockSize = blockSize;
+        mLastValues = new int[axisCount];
+        mLastLeadingZeros = new int[axisCount];
+        mLastTrailingZeros = new int[axisCount];
+
+        mOutput.writeInt(MAGIC);
+        mOutput.writeInt(VERSION);
+        mOutput.writeInt(sensorType);
+        mOutput.writeInt(axisCount);
+    }
+
+    public int getAxisCount() {
+        return mAxisCount;
+    }
+
+    void setBlockListener(@Nullable BlockListener blockListener) {
+        mBlockListener = blockListener;
+    }
+
+    /**
+     * Append the timestamp and the first values of an event.
+     *
+     * @param event The event, it must have at least {@link #getAxisCount()} values.
+     * @throws IOException If a completed block can't be written.
+     */
+    public void append(@NonNull SensorEvent event) throws IOException {
+        append(event.timestamp, event.values);
+    }
+
+    /**
+     * Append a sample, the block is written once it is full.
+     *
+     * @param timestamp The timestamp of the sample in nanoseconds.
+     * @param values The values, only the first {@link #getAxisCount()} values are written.
+     * @throws IOException If a completed block can't be written.
+     */
+    public void append(long timestamp, @NonNull float[] values) throws IOException {
+        if (values.length < mAxisCount) {
+            throw new IllegalArgumentException(
+                "Expected " + mAxisCount + " values but got " + values.length);
+        }
+
+        if (mSampleCount == 0) {
+            mFirstTimestamp = timestamp;
+        } else if (mSampleCount == 1) {
+            mLastDelta = timestamp - mLastTimestamp;
+            mBits.writeVarint(zigzag(mLastDelta));
+        } else {
+            long delta = timestamp - mLastTimestamp;
+            long deltaOfDelta = delta - mLastDelta;
+            if (deltaOfDelta == 0) {
+                mBits.writeBit(false);
+            } else {
+                mBits.writeBit(true);
+                mBits.writeVarint(zigzag(deltaOfDelta));
+            }
+            mLastDelta = delta;
+        }
+        mLastTimestamp = timestamp;
+
+        for (int axis = 0; axis < mAxisCount; axis++) {
+            appendValue(axis, Float.floatToRawIntBits(values[axis]));
+        }
+
+        if (++mSampleCount == mBlockSize) {
+            writeBlock();
+        }
+    }
+
+    private void appendValue(int axis, int value) {
+        if (mSampleCount == 0) {
+            mBits.writeBits(value, 32);
+            mLastValues[axis] = value;
+            mLastLeadingZeros[axis] = -1;
+            return;
+        }
+
+        int xor = value ^ mLastValues[axis];
+        mLastValues[axis] = value;
+        if (xor == 0) {
+            mBits.writeBit(false);
+            return;
+        }
+
+        mBits.writeBit(true);
+        int leadingZeros = Math.min(Integer.numberOfLeadingZeros(xor), 31);
+        int trailingZeros = Integer.numberOfTrailingZeros(xor);
+        int lastLeadingZeros = mLastLeadingZeros[axis];
+        int lastTrailingZeros = mLastTrailingZeros[axis];
+        if (lastLeadingZeros >= 0 && leadingZeros >= lastLeadingZeros
+            && trailingZeros >= lastTrailingZeros) {
+            // The meaningful bits fit in the window of the previous value.
+            mBits.writeBit(false);
+            mBits.writeBits((xor >>> lastTrailingZeros) & 0xffffffffL,
+                32 - lastLeadingZeros - lastTrailingZeros);
+        } else {
+            int meaningfulBits = 32 - leadingZeros - trailingZeros;
+            mBits.writeBit(true);
+            mBits.writeBits(leadingZeros, 5);
+            mBits.writeBits(meaningfulBits - 1, 5);
+            mBits.writeBits((xor >>> trailingZeros) & 0xffffffffL, meaningfulBits);
+            mLastLeadingZeros[axis] = leadingZeros;
+            mLastTrailingZeros[axis] = trailingZeros;
+        }
+    }
+
+    /**
+     * Write the samples of the current block, even if it isn't full, and flush the stream.
+     *
+     * @throws IOException If the block can't be written.
+     */
+    public void flush() throws IOException {
+        if (mSampleCount > 0) {
+            writeBlock();
+        }
+        mOutput.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            flush();
+        } finally {
+            mOutput.close();
+        }
+    }
+
+    private void writeBlock() throws IOException {
+        int payloadLength = mBits.getByteCount();
+        long offset = mOutput.size();
+        mOutput.writeInt(mSampleCount);
+        mOutput.writeLong(mFirstTimestamp);
+        mOutput.writeLong(mLastTimestamp);
+        mOutput.writeInt(payloadLength);
+        mOutput.write(mBits.getBytes(), 0, payloadLength);
+
+        mBits.reset();
+        mSampleCount = 0;
+
+        if (mBlockListener != null) {
+            mBlockListener.onBlockWritten(offset, mOutput.size(), mFirstTimestamp, mLastTimestamp);
+        }
+    }
+
+    static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+}
@@ -0,0 +1,442 @@
+package com.dvoiss.sensorannotations.recording;
+
+import android.hardware.SensorEvent;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import static com.dvoiss.sensorannotations.recording.SensorStreamWriter.HEADER_SIZE;
+
+/**
+ * An append-only store of the samples of one sensor, in a directory of segment files written
+ * with {@link SensorStreamWriter}. Samples are appended to the active segment, which is sealed
+ * once it reaches the maximum segment size.
+ *
+ * The first timestamp and offset of every block of every segment are kept in memory, so a range
+ * query finds its first segment with a binary search over the segments and its first block with a
+ * binary search over the blocks, then only decodes the samples of the range from the
+ * memory-mapped segments.
+ *
+ * After a segment is sealed a background thread deletes the segments that fall out of the
+ * retention period or the maximum total size, and merges adjacent small segments, for example
+ * those left by closing and reopening the store. Timestamps must not decrease.
+ */
+public final class SensorTimeSeriesStore implements Closeable {
+    public static final long DEFAULT_MAX_SEGMENT_BYTES = 4 * 1024 * 1024;
+    public static final long UNLIMITED = Long.MAX_VALUE;
+
+    private static final String SEGMENT_SUFFIX = ".seg";
+    private static final String TEMPORARY_SUFFIX = ".tmp";
+
+    @NonNull private final File mDirectory;
+    private final int mSensorType;
+    private final int mAxisCount;
+    private final long mMaxSegmentBytes;
+    private final long mRetentionNanos;
+    private final long mMaxTotalBytes;
+
+    @NonNull private final ExecutorService mMaintenanceExecutor;
+    @NonNull private final Object mMaintenanceLock = new Object();
+
+    // Guarded by this. The segments are ordered by time, the active segment is the last one.
+    @NonNull private final List<Segment> mSegments = new ArrayList<>();
+    @Nullable private Segment mActiveSegment;
+    @Nullable private SensorStreamWriter mWriter;
+    private long mNextSequence;
+    private long mLastTimestamp = Long.MIN_VALUE;
+    @Nullable private IOException mMaintenanceError;
+    private boolean mClosed;
+
+    public SensorTimeSeriesStore(@NonNull File directory, int sensorType, int axisCount)
+        throws IOException {
+        this(directory, sensorType, axisCount, DEFAULT_MAX_SEGMENT_BYTES, UNLIMITED, UNLIMITED);
+    }
+
+    /**
+     * Open the store, loading the index of the existing segments.
+     *
+     * @param directory The directory of the segments, created if needed.
+     * @param sensorType The {@code Sensor} type of the samples.
+     * @param axisCount The number of values of each sample.
+     * @param maxSegmentBytes The size at which the active segment is sealed.
+     * @param retentionNanos How long samples are kept, relative to the newest sample, or {@link
+     * #UNLIMITED}.
+     * @param maxTotalBytes The size of all segments above which the oldest segments are deleted,
+     * or {@link #UNLIMITED}.
+     * @throws IOException If the directory or a segment can't be read.
+     */
+    public SensorTimeSeriesStore(@NonNull File directory, int sensorType, int axisCount,
+        long maxSegmentBytes, long retentionNanos, long maxTotalBytes) throws IOException {
+        if (maxSegmentBytes <= HEADER_SIZE || retentionNanos <= 0 || maxTotalBytes <= 0) {
+            throw new IllegalArgumentException("Sizes and durations must be positive.");
+        }
+
+        mDirectory = directory;
+        mSensorType = sensorType;
+        mAxisCount = axisCount;
+        mMaxSegmentBytes = maxSegmentBytes;
+        mRetentionNanos = retentionNanos;
+        mMaxTotalBytes = maxTotalBytes;
+        mMaintenanceExecutor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(@NonNull Runnable runnable) {
+                Thread thread = new Thread(runnable, "SensorTimeSeriesStore");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Can't create " + directory);
+        }
+
+        loadSegments();
+    }
+
+    private void loadSegments() throws IOException {
+        File[] files = mDirectory.listFiles();
+        if (files == null) {
+            throw new IOException("Can't list " + mDirectory);
+        }
+
+        List<Segment> segments = new ArrayList<>();
+        for (File file : files) {
+            String name = file.getName();
+            if (name.endsWith(TEMPORARY_SUFFIX)) {
+                // A compaction was interrupted before the merged segment replaced the originals.
+                deleteFile(file);
+            } else if (name.endsWith(SEGMENT_SUFFIX)) {
+                long sequence;
+                try {
+                    sequence = Long.parseLong(
+                        name.substring(0, name.length() - SEGMENT_SUFFIX.length()));
+                } catch (NumberFormatException e) {
+                    continue;
+                }
+
+                mNextSequence = Math.max(mNextSequence, sequence + 1);
+                Segment segment = Segment.load(file, sequence, mSensorType, mAxisCount);
+                if (segment.isEmpty()) {
+                    deleteFile(file);
+                } else {
+                    segments.add(segment);
+                }
+            }
+        }
+
+        Collections.sort(segments, new Comparator<Segment>() {
+            @Override
+            public int compare(Segment first, Segment second) {
+                int result = compareLongs(first.getFirstTimestamp(), second.getFirstTimestamp());
+                return result != 0 ? result
+                    : compareLongs(first.getSequence(), second.getSequence());
+            }
+        });
+
+        for (Segment segment : segments) {
+            // A segment inside the range of the previous one was already merged into it by a
+            // compaction that didn't get to delete it.
+            if (!mSegments.isEmpty()
+                && segment.getLastTimestamp() <= mSegments.get(mSegments.size() - 1)
+                .getLastTimestamp()) {
+                deleteFile(segment.getFile());
+                continue;
+            }
+
+            mSegments.add(segment);
+            mLastTimestamp = segment.getLastTimestamp();
+        }
+    }
+
+    /**
+     * Append the timestamp and the first values of an event.
+     */
+    public void append(@NonNull SensorEvent event) throws IOException {
+        append(event.timestamp, event.values);
+    }
+
+    /**
+     * Append a sample to the active segment.
+     *
+     * @param timestamp The timestamp in nanoseconds, not before the last appended sample.
+     * @param values The values, only the first values of the axis count are stored.
+     * @throws IOException If the sample can't be written.
+     */
+    public synchronized void append(long timestamp, @NonNull float[] values) throws IOException {
+        checkOpen();
+        if (timestamp < mLastTimestamp) {
+            throw new IllegalArgumentException("Timestamps must not decrease.");
+        }
+
+        SensorStreamWriter writer = mWriter;
+        Segment segment = mActiveSegment;
+        if (writer == null || segment == null) {
+            segment = new Segment(getSegmentFile(mNextSequence, SEGMENT_SUFFIX), mNextSequence);
+            writer = openWriter(segment, segment.getFile());
+            mNextSequence++;
+            mSegments.add(segment);
+            mActiveSegment = segment;
+            mWriter = writer;
+        }
+
+        writer.append(timestamp, values);
+        mLastTimestamp = timestamp;
+
+        if (segment.getSize() >= mMaxSegmentBytes) {
+            closeActiveSegment();
+            mMaintenanceExecutor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        runMaintenance();
+                    } catch (IOException e) {
+                        synchronized (SensorTimeSeriesStore.this) {
+                            mMaintenanceError = e;
+                        }
+                    }
+                }
+            });
+        }
+    }
+
+    /**
+     * Write the buffered samples of the active segment to its file.
+     */
+    public synchronized void flush() throws IOException {
+        if (mWriter != null) {
+            mWriter.flush();
+        }
+    }
+
+    /**
+     * Query the samples between two timestamps, the samples appended so far are flushed first.
+     *
+     * @param from The first timestamp of the range, inclusive.
+     * @param to The last timestamp of the range, inclusive.
+     * @return A cursor over the samples of the range.
+     * @throws IOException If the segments can't be mapped.
+     */
+    @NonNull
+    public synchronized TimeRangeCursor query(long from, long to) throws IOException {
+        checkOpen();
+        flush();
+
+        // The segments are ordered by time and don't overlap, find the first one ending at or
+        // after the start of the range.
+        int low = 0;
+        int high = mSegments.size();
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (mSegments.get(middle).getLastTimestamp() < from) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+
+        List<Segment> segments = new ArrayList<>();
+        for (int i = low; i < mSegments.size(); i++) {
+            Segment segment = mSegments.get(i);
+            if (segment.getFirstTimestamp() > to) {
+                break;
+            } else if (!segment.isEmpty()) {
+                segments.add(segment);
+            }
+        }
+
+        return new TimeRangeCursor(segments, mSensorType, mAxisCount, from, to);
+    }
+
+    public synchronized int getSegmentCount() {
+        return mSegments.size();
+    }
+
+    /**
+     * @return The size of the segments in bytes, without the samples that weren't flushed.
+     */
+    public synchronized long getSize() {
+        long size = 0;
+        for (Segment segment : mSegments) {
+            size += segment.getSize();
+        }
+
+        return size;
+    }
+
+    /**
+     * Apply the retention and merge small adjacent segments. This runs in the background each
+     * time a segment is sealed and can also be called directly.
+     *
+     * @throws IOException If a segment can't be compacted.
+     */
+    public void runMaintenance() throws IOException {
+        synchronized (mMaintenanceLock) {
+            applyRetention();
+            compact();
+        }
+    }
+
+    private synchronized void applyRetention() throws IOException {
+        long cutoff = mRetentionNanos == UNLIMITED || mLastTimestamp == Long.MIN_VALUE
+            ? Long.MIN_VALUE : mLastTimestamp - mRetentionNanos;
+        long totalSize = getSize();
+        while (!mSegments.isEmpty() && mSegments.get(0) != mActiveSegment) {
+            Segment oldest = mSegments.get(0);
+            if (oldest.getLastTimestamp() >= cutoff && totalSize <= mMaxTotalBytes) {
+                break;
+            }
+
+            mSegments.remove(0);
+            totalSize -= oldest.getSize();
+            deleteFile(oldest.getFile());
+        }
+    }
+
+    private void compact() throws IOException {
+        while (true) {
+            Segment first = null;
+            Segment second = null;
+            synchronized (this) {
+                for (int i = 0; i + 1 < mSegments.size(); i++) {
+                    Segment candidate = mSegments.get(i);
+                    Segment next = mSegments.get(i + 1);
+                    if (next != mActiveSegment
+                        && candidate.getSize() + next.getSize() - HEADER_SIZE <= mMaxSegmentBytes) {
+                        first = candidate;
+                        second = next;
+                        break;
+                    }
+                }
+            }
+
+            if (first == null) {
+                return;
+            }
+
+            // Sealed segments don't change, they are merged without holding the lock.
+            File temporaryFile = getSegmentFile(first.getSequence(), TEMPORARY_SUFFIX);
+            Segment merged = new Segment(first.getFile(), first.getSequence());
+            SensorStreamWriter writer = openWriter(merged, temporaryFile);
+            try {
+                copySamples(first, writer);
+                copySamples(second, writer);
+            } finally {
+                writer.close();
+            }
+
+            synchronized (this) {
+                int index = mSegments.indexOf(first);
+                if (index < 0 || index + 1 >= mSegments.size()
+                    || mSegments.get(index + 1) != second) {
+                    deleteFile(temporaryFile);
+                    return;
+                }
+
+                if (!temporaryFile.renameTo(first.getFile())) {
+                    deleteFile(temporaryFile);
+                    throw new IOException("Can't replace " + first.getFile());
+                }
+                mSegments.set(index, merged);
+                mSegments.remove(index + 1);
+                deleteFile(second.getFile());
+            }
+        }
+    }
+
+    private void copySamples(@NonNull Segment segment, @NonNull SensorStreamWriter writer)
+        throws IOException {
+        ByteBuffer buffer = segment.map();
+        buffer.position(HEADER_SIZE);
+        SensorStreamReader reader =
+            new SensorStreamReader(new ByteBufferInputStream(buffer), mSensorType, mAxisCount);
+        float[] values = new float[mAxisCount];
+        while (reader.next()) {
+            reader.getValues(values);
+            writer.append(reader.getTimestamp(), values);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        synchronized (this) {
+            if (mClosed) {
+                return;
+            }
+
+            mClosed = true;
+            closeActiveSegment();
+        }
+
+        mMaintenanceExecutor.shutdown();
+        try {
+            mMaintenanceExecutor.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        synchronized (this) {
+            if (mMaintenanceError != null) {
+                throw mMaintenanceError;
+            }
+        }
+    }
+
+    private void closeActiveSegment() throws IOException {
+        SensorStreamWriter writer = mWriter;
+        mWriter = null;
+        mActiveSegment = null;
+        if (writer != null) {
+            writer.close();
+        }
+    }
+
+    @NonNull
+    private SensorStreamWriter openWriter(@NonNull final Segment segment, @NonNull File file)
+        throws IOException {
+        SensorStreamWriter writer = new SensorStreamWriter(
+            new BufferedOutputStream(new FileOutputStream(file)), mSensorType, mAxisCount);
+        writer.setBlockListener(new SensorStreamWriter.BlockListener() {
+            @Override
+            public void onBlockWritten(long offset, long endOffset, long firstTimestamp,
+                long lastTimestamp) {
+                segment.addBlock(offset, endOffset, firstTimestamp, lastTimestamp);
+            }
+        });
+        return writer;
+    }
+
+    @NonNull
+    private File getSegmentFile(long sequence, @NonNull String suffix) {
+        return new File(mDirectory, String.format(Locale.US, "%019d%s", sequence, suffix));
+    }
+
+    private void checkOpen() {
+        if (mClosed) {
+            throw new IllegalStateException("The store is closed.");
+        }
+    }
+
+    private static void deleteFile(@NonNull File file) throws IOException {
+        if (!file.delete() && file.exists()) {
+            throw new IOException("Can't delete " + file);
+        }
+    }
+
+    private static int compareLongs(long first, long second) {
+        return first < second ? -1 : (first == second ? 0 : 1);
+    }
+}
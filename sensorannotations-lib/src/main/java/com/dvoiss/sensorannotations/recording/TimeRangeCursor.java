@@ -0,0 +1,92 @@
+package com.dvoiss.sensorannotations.recording;
+
+import android.support.annotation.NonNull;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.List;
+
+/**
+ * Iterates over the samples of a {@link SensorTimeSeriesStore} between two timestamps. The
+ * segments are memory-mapped when the query is made, so the cursor keeps working if a segment is
+ * deleted or compacted while it is read.
+ */
+public final class TimeRangeCursor {
+    @NonNull private final List<Segment> mSegments;
+    @NonNull private final ByteBuffer[] mBuffers;
+    private final int mSensorType;
+    private final int mAxisCount;
+    private final long mFrom;
+    private final long mTo;
+
+    private int mSegmentIndex;
+    private SensorStreamReader mReader;
+    private boolean mDone;
+
+    TimeRangeCursor(@NonNull List<Segment> segments, int sensorType, int axisCount, long from,
+        long to) throws IOException {
+        mSegments = segments;
+        mSensorType = sensorType;
+        mAxisCount = axisCount;
+        mFrom = from;
+        mTo = to;
+
+        mBuffers = new ByteBuffer[segments.size()];
+        for (int i = 0; i < mBuffers.length; i++) {
+            mBuffers[i] = segments.get(i).map();
+        }
+    }
+
+    /**
+     * Move to the next sample of the range.
+     *
+     * @return False once all samples of the range were read.
+     */
+    public boolean next() throws IOException {
+        while (!mDone) {
+            boolean hasSample;
+            if (mReader == null) {
+                if (mSegmentIndex == mSegments.size()) {
+                    mDone = true;
+                    break;
+                }
+
+                // Start at the block that may hold the first timestamp of the range.
+                ByteBuffer buffer = mBuffers[mSegmentIndex];
+                buffer.position((int) mSegments.get(mSegmentIndex).findBlockOffset(mFrom));
+                mReader = new SensorStreamReader(new ByteBufferInputStream(buffer), mSensorType,
+                    mAxisCount);
+                hasSample = mReader.skipTo(mFrom);
+            } else {
+                hasSample = mReader.next();
+            }
+
+            if (!hasSample) {
+                mReader = null;
+                mBuffers[mSegmentIndex] = null;
+                mSegmentIndex++;
+            } else if (mReader.getTimestamp() > mTo) {
+                mDone = true;
+            } else {
+                return true;
+            }
+        }
+
+        mReader = null;
+        return false;
+    }
+
+    public long getTimestamp() {
+        return mReader.getTimestamp();
+    }
+
+    public float getValue(int axis) {
+        return mReader.getValue(axis);
+    }
+
+    /**
+     * @param values Receives the values of the current sample.
+     */
+    public void getValues(@NonNull float[] values) {
+        mReader.getValues(values);
+    }
+}
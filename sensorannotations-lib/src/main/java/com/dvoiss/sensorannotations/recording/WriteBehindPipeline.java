@@ -0,0 +1,374 @@
+package com.dvoiss.sensorannotations.recording;
+
+import android.hardware.SensorEvent;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Hands sensor samples from the thread delivering the events to a {@link SampleSink} running on
+ * a writer thread, so persisting them never delays the delivery of the next event.
+ *
+ * The samples are copied into a ring preallocated for {@code capacity} samples, {@link
+ * #offer(long, float[])} doesn't allocate and never blocks: when the ring is full the sample is
+ * dropped and counted. The writer thread commits the pending samples as one batch once {@code
+ * batchSize} samples are pending or the oldest pending sample waited {@code batchIntervalMs}.
+ *
+ * The counters, the commit lag and the throughput are exposed to size the ring and the batches,
+ * a growing {@link #getDroppedCount()} or a {@link #getMaxPendingCount()} close to the capacity
+ * means the sink can't keep up.
+ */
+public final class WriteBehindPipeline implements Closeable {
+    public static final int DEFAULT_CAPACITY = 4096;
+    public static final int DEFAULT_BATCH_SIZE = 256;
+    public static final long DEFAULT_BATCH_INTERVAL_MS = 1000;
+
+    @NonNull private final SampleSink mSink;
+    private final int mAxisCount;
+    private final int mCapacity;
+    private final int mBatchSize;
+    private final long mBatchIntervalNanos;
+    @NonNull private final Thread mWriterThread;
+
+    // The ring, a slot is only written by producers while it is free and only read by the writer
+    // thread while it is pending.
+    @NonNull private final long[] mTimestamps;
+    @NonNull private final float[] mValues;
+    @NonNull private final long[] mOfferNanos;
+
+    // Guarded by mLock.
+    @NonNull private final Object mLock = new Object();
+    private int mHead;
+    private int mPendingCount;
+    private boolean mFlushRequested;
+    private boolean mClosed;
+    private boolean mWriterStopped;
+    @Nullable private IOException mError;
+
+    private final long mStartNanos;
+    private long mOfferedCount;
+    private long mDroppedCount;
+    private long mWrittenCount;
+    private long mProcessedCount;
+    private long mCommitCount;
+    private int mMaxPendingCount;
+    private long mLastLagNanos;
+    private long mMaxLagNanos;
+
+    public WriteBehindPipeline(@NonNull SampleSink sink, int axisCount) {
+        this(sink, axisCount, DEFAULT_CAPACITY, DEFAULT_BATCH_SIZE, DEFAULT_BATCH_INTERVAL_MS);
+    }
+
+    /**
+     * Create the pipeline and start its writer thread.
+     *
+     * @param sink The sink the batches are written to, it is closed with the pipeline.
+     * @param axisCount The number of values kept of each sample.
+     * @param capacity The number of samples of the ring.
+     * @param batchSize The number of pending samples committed as soon as they are available.
+     * @param batchIntervalMs The longest time a sample waits for a commit, in milliseconds.
+     */
+    public WriteBehindPipeline(@NonNull SampleSink sink, int axisCount, int capacity,
+        int batchSize, long batchIntervalMs) {
+        if (axisCount <= 0 || capacity <= 0 || batchSize <= 0 || batchIntervalMs <= 0) {
+            throw new IllegalArgumentException("Sizes and intervals must be positive.");
+        } else if (batchSize > capacity) {
+            throw new IllegalArgumentException("The batch size can't exceed the capacity.");
+        }
+
+        mSink = sink;
+        mAxisCount = axisCount;
+        mCapacity = capacity;
+        mBatchSize = batchSize;
+        mBatchIntervalNanos = TimeUnit.MILLISECONDS.toNanos(batchIntervalMs);
+        mTimestamps = new long[capacity];
+        mValues = new float[capacity * axisCount];
+        mOfferNanos = new long[capacity];
+        mStartNanos = System.nanoTime();
+
+        mWriterThread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                runWriter();
+            }
+        }, "WriteBehindPipeline");
+        mWriterThread.setDaemon(true);
+        mWriterThread.start();
+    }
+
+    /**
+     * Queue the timestamp and the values of an event.
+     *
+     * @return False if the sample was dropped because the ring is full or the pipeline is closed.
+     */
+    public boolean offer(@NonNull SensorEvent event) {
+        return offer(event.timestamp, event.values);
+    }
+
+    /**
+     * Queue a sample, the values are copied so the array can be reused.
+     *
+     * @param timestamp The timestamp of the sample in nanoseconds.
+     * @param values The values, missing axes are stored as 0.
+     * @return False if the sample was dropped because the ring is full or the pipeline is closed.
+     */
+    public boolean offer(long timestamp, @NonNull float[] values) {
+        synchronized (mLock) {
+            mOfferedCount++;
+            if (mClosed || mPendingCount == mCapacity) {
+                mDroppedCount++;
+                return false;
+            }
+
+            int index = mHead + mPendingCount;
+            if (index >= mCapacity) {
+                index -= mCapacity;
+            }
+
+            mTimestamps[index] = timestamp;
+            mOfferNanos[index] = System.nanoTime();
+            int valueCount = Math.min(values.length, mAxisCount);
+            int valueOffset = index * mAxisCount;
+            System.arraycopy(values, 0, mValues, valueOffset, valueCount);
+            for (int axis = valueCount; axis < mAxisCount; axis++) {
+                mValues[valueOffset + axis] = 0;
+            }
+
+            mPendingCount++;
+            mMaxPendingCount = Math.max(mMaxPendingCount, mPendingCount);
+
+            // Only wake the writer up to start the batch interval and when a batch is complete.
+            if (mPendingCount == 1 || mPendingCount == mBatchSize) {
+                mLock.notifyAll();
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Commit the samples pending now without waiting for the batch, and wait until they are
+     * committed.
+     *
+     * @throws IOException If the sink failed.
+     */
+    public void flush() throws IOException {
+        synchronized (mLock) {
+            long target = mProcessedCount + mPendingCount;
+            mFlushRequested = true;
+            mLock.notifyAll();
+            try {
+                while (mProcessedCount < target && !mWriterStopped) {
+                    mLock.wait();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+
+            if (mError != null) {
+                throw mError;
+            }
+        }
+    }
+
+    /**
+     * Stop accepting samples, commit the pending samples and close the sink.
+     *
+     * @throws IOException If the sink failed.
+     */
+    @Override
+    public void close() throws IOException {
+        synchronized (mLock) {
+            mClosed = true;
+            mLock.notifyAll();
+        }
+
+        try {
+            mWriterThread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        synchronized (mLock) {
+            if (mError != null) {
+                throw mError;
+            }
+        }
+    }
+
+    private void runWriter() {
+        try {
+            while (true) {
+                int start;
+                int count;
+                synchronized (mLock) {
+                    if (!waitForBatch()) {
+                        break;
+                    }
+
+                    start = mHead;
+                    count = mPendingCount;
+                    mFlushRequested = false;
+                }
+
+                // The pending slots aren't written by producers, write them without the lock.
+                IOException error = null;
+                try {
+                    int firstCount = Math.min(count, mCapacity - start);
+                    mSink.write(mTimestamps, mValues, mAxisCount, start, firstCount);
+                    if (firstCount < count) {
+                        mSink.write(mTimestamps, mValues, mAxisCount, 0, count - firstCount);
+                    }
+                    mSink.commit();
+                } catch (IOException e) {
+                    error = e;
+                }
+                long lagNanos = System.nanoTime() - mOfferNanos[start];
+
+                synchronized (mLock) {
+                    mHead = (start + count) % mCapacity;
+                    mPendingCount -= count;
+                    mProcessedCount += count;
+                    if (error == null) {
+                        mWrittenCount += count;
+                        mCommitCount++;
+                        mLastLagNanos = lagNanos;
+                        mMaxLagNanos = Math.max(mMaxLagNanos, lagNanos);
+                    } else {
+                        // The batch is lost, keep the first error for close.
+                        mDroppedCount += count;
+                        if (mError == null) {
+                            mError = error;
+                        }
+                    }
+                    mLock.notifyAll();
+                }
+            }
+        } finally {
+            try {
+                mSink.close();
+            } catch (IOException e) {
+                synchronized (mLock) {
+                    if (mError == null) {
+                        mError = e;
+                    }
+                }
+            }
+
+            synchronized (mLock) {
+                mWriterStopped = true;
+                mLock.notifyAll();
+            }
+        }
+    }
+
+    /**
+     * Wait until a batch is complete, its interval elapsed, a flush is requested or the pipeline
+     * is closed. Called with the lock held.
+     *
+     * @return False if the pipeline is closed and no sample is pending.
+     */
+    private boolean waitForBatch() {
+        try {
+            while (mPendingCount == 0) {
+                if (mClosed) {
+                    return false;
+                }
+                mFlushRequested = false;
+                mLock.wait();
+            }
+
+            while (mPendingCount < mBatchSize && !mClosed && !mFlushRequested) {
+                long remainingNanos = mOfferNanos[mHead] + mBatchIntervalNanos - System.nanoTime();
+                if (remainingNanos <= 0) {
+                    break;
+                }
+                TimeUnit.NANOSECONDS.timedWait(mLock, remainingNanos);
+            }
+        } catch (InterruptedException e) {
+            // Write what is pending, the pipeline is stopped by closing it.
+        }
+
+        return true;
+    }
+
+    public int getCapacity() {
+        return mCapacity;
+    }
+
+    /**
+     * @return The number of samples waiting for a commit.
+     */
+    public int getPendingCount() {
+        synchronized (mLock) {
+            return mPendingCount;
+        }
+    }
+
+    /**
+     * @return The highest number of samples that were pending at once.
+     */
+    public int getMaxPendingCount() {
+        synchronized (mLock) {
+            return mMaxPendingCount;
+        }
+    }
+
+    public long getOfferedCount() {
+        synchronized (mLock) {
+            return mOfferedCount;
+        }
+    }
+
+    /**
+     * @return The number of samples lost because the ring was full, the pipeline was closed or
+     * the sink failed.
+     */
+    public long getDroppedCount() {
+        synchronized (mLock) {
+            return mDroppedCount;
+        }
+    }
+
+    public long getWrittenCount() {
+        synchronized (mLock) {
+            return mWrittenCount;
+        }
+    }
+
+    public long getCommitCount() {
+        synchronized (mLock) {
+            return mCommitCount;
+        }
+    }
+
+    /**
+     * @return The time between offering the oldest sample of the last batch and its commit, in
+     * nanoseconds.
+     */
+    public long getLastLagNanos() {
+        synchronized (mLock) {
+            return mLastLagNanos;
+        }
+    }
+
+    /**
+     * @return The longest time between offering a sample and its commit, in nanoseconds.
+     */
+    public long getMaxLagNanos() {
+        synchronized (mLock) {
+            return mMaxLagNanos;
+        }
+    }
+
+    /**
+     * @return The number of committed samples per second since the pipeline was created.
+     */
+    public double getThroughput() {
+        long elapsedNanos = System.nanoTime() - mStartNanos;
+        synchronized (mLock) {
+            return elapsedNanos > 0 ? mWrittenCount * 1e9 / elapsedNanos : 0;
+        }
+    }
+}
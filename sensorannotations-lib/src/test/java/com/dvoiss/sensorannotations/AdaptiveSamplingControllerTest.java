@@ -0,0 +1,96 @@
+package com.dvoiss.sensorannotations;
+
+import com.dvoiss.sensorannotations.internal.AdaptiveSamplingController;
+import java.util.Random;
+import org.junit.Test;
+
+import static com.google.common.truth.Truth.assertThat;
+
+public class AdaptiveSamplingControllerTest {
+    private static final long MILLIS = 1000000L;
+    private static final float GRAVITY = 9.81f;
+
+    @Test
+    public void becomesIdleAfterTheQuietPeriod() {
+        AdaptiveSamplingController controller = new AdaptiveSamplingController();
+        Random random = new Random(0);
+
+        // A stationary device sampled at 50 Hz, only sensor noise on top of gravity.
+        long idleAt = -1;
+        for (int i = 0; i < 500; i++) {
+            long timestamp = i * 20 * MILLIS;
+            if (controller.onSensorChanged(timestamp, stationary(random))) {
+                idleAt = timestamp;
+            }
+        }
+
+        assertThat(controller.isIdle()).isTrue();
+        assertThat(idleAt).isAtLeast(AdaptiveSamplingController.DEFAULT_IDLE_AFTER_MS * MILLIS);
+        assertThat(idleAt).isLessThan(7000 * MILLIS);
+    }
+
+    @Test
+    public void becomesActiveOnMotionAtTheIdleRate() {
+        AdaptiveSamplingController controller = new AdaptiveSamplingController();
+        Random random = new Random(1);
+        long timestamp = 0;
+        for (; timestamp < 10000 * MILLIS; timestamp += 20 * MILLIS) {
+            controller.onSensorChanged(timestamp, stationary(random));
+        }
+        assertThat(controller.isIdle()).isTrue();
+
+        // Walking, sampled at the slower idle rate of 5 Hz.
+        int events = 0;
+        while (controller.isIdle() && events < 50) {
+            timestamp += 200 * MILLIS;
+            float step = (float) (3 * Math.sin(timestamp / (double) (250 * MILLIS)));
+            controller.onSensorChanged(timestamp, new float[] { 0, step, GRAVITY + step });
+            events++;
+        }
+
+        assertThat(controller.isIdle()).isFalse();
+        assertThat(events).isAtMost(5);
+    }
+
+    @Test
+    public void hysteresisKeepsTheStateBetweenThresholds() {
+        AdaptiveSamplingController controller = new AdaptiveSamplingController(0.05f, 0.5f, 1000,
+            1000);
+        Random random = new Random(2);
+        long timestamp = 0;
+        for (; timestamp < 5000 * MILLIS; timestamp += 20 * MILLIS) {
+            controller.onSensorChanged(timestamp, stationary(random));
+        }
+        assertThat(controller.isIdle()).isTrue();
+
+        // Light movement between the thresholds doesn't wake the sensor up.
+        for (int i = 0; i < 500; i++) {
+            timestamp += 20 * MILLIS;
+            float noise = (float) random.nextGaussian() * 0.4f;
+            controller.onSensorChanged(timestamp, new float[] { 0, 0, GRAVITY + noise });
+            assertThat(controller.getVariance()).isLessThan(0.5);
+            assertThat(controller.isIdle()).isTrue();
+        }
+    }
+
+    @Test
+    public void significantMotionWakesAnIdleSensor() {
+        AdaptiveSamplingController controller = new AdaptiveSamplingController();
+        assertThat(controller.onSignificantMotion()).isFalse();
+
+        Random random = new Random(3);
+        for (long timestamp = 0; timestamp < 10000 * MILLIS; timestamp += 20 * MILLIS) {
+            controller.onSensorChanged(timestamp, stationary(random));
+        }
+
+        assertThat(controller.onSignificantMotion()).isTrue();
+        assertThat(controller.isIdle()).isFalse();
+    }
+
+    private static float[] stationary(Random random) {
+        return new float[] {
+            (float) random.nextGaussian() * 0.02f, (float) random.nextGaussian() * 0.02f,
+            GRAVITY + (float) random.nextGaussian() * 0.02f
+        };
+    }
+}
@@ -0,0 +1,293 @@
+package com.dvoiss.sensorannotations;
+
+import java.util.Arrays;
+import javax.tools.JavaFileObject;
+import org.junit.Test;
+
+import static com.google.common.truth.Truth.assertAbout;
+import static com.google.testing.compile.JavaFileObjects.forSourceString;
+import static com.google.testing.compile.JavaSourcesSubjectFactory.javaSources;
+
+public class BindHierarchyTest {
+    private static final JavaFileObject BASE_SOURCE = forSourceString("test.Base", "package test;\n"
+        + "\n"
+        + "import android.app.Activity;\n"
+        + "import android.hardware.Sensor;\n"
+        + "import android.hardware.SensorEvent;\n"
+        + "import android.hardware.SensorManager;\n"
+        + "import com.dvoiss.sensorannotations.OnSensorChanged;\n"
+        + "import com.dvoiss.sensorannotations.OnSensorNotAvailable;\n"
+        + "\n"
+        + "public class Base extends Activity {\n"
+        + "    @OnSensorChanged(value = Sensor.TYPE_ACCELEROMETER, delay = SensorManager.SENSOR_DELAY_GAME)\n"
+        + "    void baseAccelerometerSensorChanged(SensorEvent event) {}\n"
+        + "\n"
+        + "    @OnSensorChanged(Sensor.TYPE_GYROSCOPE)\n"
+        + "    void gyroscopeSensorChanged(SensorEvent event) {}\n"
+        + "\n"
+        + "    @OnSensorNotAvailable(Sensor.TYPE_ACCELEROMETER)\n"
+        + "    void baseAccelerometerNotAvailable() {}\n"
+        + "}\n");
+
+    @Test
+    public void subclassBinderMergesSuperclassMethods() {
+        JavaFileObject source = forSourceString("test.Test", "package test;\n"
+            + "\n"
+            + "import android.hardware.Sensor;\n"
+            + "import android.hardware.SensorEvent;\n"
+            + "import com.dvoiss.sensorannotations.OnAccuracyChanged;\n"
+            + "import com.dvoiss.sensorannotations.OnSensorChanged;\n"
+            + "import com.dvoiss.sensorannotations.OnSensorNotAvailable;\n"
+            + "\n"
+            + "public class Test extends Base {\n"
+            + "    @OnSensorChanged(Sensor.TYPE_ACCELEROMETER)\n"
+            + "    void testAccelerometerSensorChanged(SensorEvent event) {}\n"
+            + "\n"
+            + "    @OnAccuracyChanged(Sensor.TYPE_ACCELEROMETER)\n"
+            + "    void testAccelerometerAccuracyChanged(Sensor sensor, int accuracy) {}\n"
+            + "\n"
+            + "    @OnSensorNotAvailable(Sensor.TYPE_ACCELEROMETER)\n"
+            + "    void testAccelerometerNotAvailable() {}\n"
+            + "\n"
+            + "    @Override\n"
+            + "    void gyroscopeSensorChanged(SensorEvent event) {}\n"
+            + "}\n");
+
+        String bindingSource = "// This class is generated code from Sensor Lib. Do not modify!\n"
+            + "package test;\n"
+            + "\n"
+            + "import android.content.Context;\n"
+            + "import android.hardware.SensorEventListener;\n"
+            + "import com.dvoiss.sensorannotations.internal.AbstractSensorBinder;\n"
+            + "import com.dvoiss.sensorannotations.internal.SensorBinder;\n"
+            + "import com.dvoiss.sensorannotations.internal.SensorBinderFactory;\n"
+            + "import com.dvoiss.sensorannotations.internal.SensorEventListenerWrapper;\n"
+            + "import java.lang.Override;\n"
+            + "\n"
+            + "final class Test$$SensorBinder extends AbstractSensorBinder<Test> {\n"
+            + "  public Test$$SensorBinder(Context context, final Test target) {\n"
+            + "    super(context, target);\n"
+            + "    addListener(new SensorEventListenerWrapper(1, 1, new SensorEventListener() {\n"
+            + "          @java.lang.Override\n"
+            + "          public void onSensorChanged(android.hardware.SensorEvent event) {\n"
+            + "            target.baseAccelerometerSensorChanged(event);\n"
+            + "            target.testAccelerometerSensorChanged(event);\n"
+            + "          }\n"
+            + "          @java.lang.Override\n"
+            + "          public void onAccuracyChanged(android.hardware.Sensor sensor, int accuracy) {\n"
+            + "            target.testAccelerometerAccuracyChanged(sensor, accuracy);\n"
+            + "          }\n"
+            + "        }));\n"
+            + "    addListener(new SensorEventListenerWrapper(4, 3, new SensorEventListener() {\n"
+            + "          @java.lang.Override\n"
+            + "          public void onSensorChanged(android.hardware.SensorEvent event) {\n"
+            + "            target.gyroscopeSensorChanged(event);\n"
+            + "          }\n"
+            + "          @java.lang.Override\n"
+            + "          public void onAccuracyChanged(android.hardware.Sensor sensor, int accuracy) {\n"
+            + "          }\n"
+            + "        }));\n"
+            + "  }\n"
+            + "\n"
+            + "  @Override\n"
+            + "  protected void onSensorNotAvailable(int sensorType) {\n"
+            + "    if (sensorType == 1) {\n"
+            + "      getTarget().baseAccelerometerNotAvailable();\n"
+            + "      getTarget().testAccelerometerNotAvailable();\n"
+            + "    }\n"
+            + "  }\n"
+            + "\n"
+            + "  public static final class Factory implements SensorBinderFactory<Test> {\n"
+            + "    @Override\n"
+            + "    public SensorBinder<Test> create(Context context, Test target) {\n"
+            + "      return new Test$$SensorBinder(context, target);\n"
+            + "    }\n"
+            + "  }\n"
+            + "}\n";
+
+        assertAbout(javaSources()).that(Arrays.asList(BASE_SOURCE, source))
+            .withCompilerOptions("-Xlint:-processing")
+            .processedWith(new SensorAnnotationsProcessor())
+            .compilesWithoutError()
+            .and()
+            .generatesSources(forSourceString("test/Test$$SensorBinder", bindingSource));
+    }
+
+    @Test
+    public void overriddenAnnotatedMethodIsOnlyCalledOnce() {
+        JavaFileObject source = forSourceString("test.Test", "package test;\n"
+            + "\n"
+            + "import android.hardware.Sensor;\n"
+            + "import android.hardware.SensorEvent;\n"
+            + "import com.dvoiss.sensorannotations.OnSensorChanged;\n"
+            + "\n"
+            + "public class Test extends Base {\n"
+            + "    @Override\n"
+            + "    @OnSensorChanged(Sensor.TYPE_ACCELEROMETER)\n"
+            + "    void baseAccelerometerSensorChanged(SensorEvent event) {}\n"
+            + "}\n");
+
+        String bindingSource = "// This class is generated code from Sensor Lib. Do not modify!\n"
+            + "package test;\n"
+            + "\n"
+            + "import android.content.Context;\n"
+            + "import android.hardware.SensorEventListener;\n"
+            + "import com.dvoiss.sensorannotations.internal.AbstractSensorBinder;\n"
+            + "import com.dvoiss.sensorannotations.internal.SensorBinder;\n"
+            + "import com.dvoiss.sensorannotations.internal.SensorBinderFactory;\n"
+            + "import com.dvoiss.sensorannotations.internal.SensorEventListenerWrapper;\n"
+            + "import java.lang.Override;\n"
+            + "\n"
+            + "final class Test$$SensorBinder extends AbstractSensorBinder<Test> {\n"
+            + "  public Test$$SensorBinder(Context context, final Test target) {\n"
+            + "    super(context, target);\n"
+            + "    addListener(new SensorEventListenerWrapper(4, 3, new SensorEventListener() {\n"
+            + "          @java.lang.Override\n"
+            + "          public void onSensorChanged(android.hardware.SensorEvent event) {\n"
+            + "            target.gyroscopeSensorChanged(event);\n"
+            + "          }\n"
+            + "          @java.lang.Override\n"
+            + "          public void onAccuracyChanged(android.hardware.Sensor sensor, int accuracy) {\n"
+            + "          }\n"
+            + "        }));\n"
+            + "    addListener(new SensorEventListenerWrapper(1, 3, new SensorEventListener() {\n"
+            + "          @java.lang.Override\n"
+            + "          public void onSensorChanged(android.hardware.SensorEvent event) {\n"
+            + "            target.baseAccelerometerSensorChanged(event);\n"
+            + "          }\n"
+            + "          @java.lang.Override\n"
+            + "          public void onAccuracyChanged(android.hardware.Sensor sensor, int accuracy) {\n"
+            + "          }\n"
+            + "        }));\n"
+            + "  }\n"
+            + "\n"
+            + "  @Override\n"
+            + "  protected void onSensorNotAvailable(int sensorType) {\n"
+            + "    if (sensorType == 1) {\n"
+            + "      getTarget().baseAccelerometerNotAvailable();\n"
+            + "    }\n"
+            + "  }\n"
+            + "\n"
+            + "  public static final class Factory implements SensorBinderFactory<Test> {\n"
+            + "    @Override\n"
+            + "    public SensorBinder<Test> create(Context context, Test target) {\n"
+            + "      return new Test$$SensorBinder(context, target);\n"
+            + "    }\n"
+            + "  }\n"
+            + "}\n";
+
+        assertAbout(javaSources()).that(Arrays.asList(BASE_SOURCE, source))
+            .withCompilerOptions("-Xlint:-processing")
+            .processedWith(new SensorAnnotationsProcessor())
+            .compilesWithoutError()
+            .and()
+            .generatesSources(forSourceString("test/Test$$SensorBinder", bindingSource));
+    }
+
+    @Test
+    public void overrideForAnotherSensorTypeReplacesTheSuperclassAnnotation() {
+        JavaFileObject source = forSourceString("test.Test", "package test;\n"
+            + "\n"
+            + "import android.hardware.Sensor;\n"
+            + "import android.hardware.SensorEvent;\n"
+            + "import com.dvoiss.sensorannotations.OnSensorChanged;\n"
+            + "\n"
+            + "public class Test extends Base {\n"
+            + "    @Override\n"
+            + "    @OnSensorChanged(Sensor.TYPE_MAGNETIC_FIELD)\n"
+            + "    void baseAccelerometerSensorChanged(SensorEvent event) {}\n"
+            + "}\n");
+
+        // The binder only registers the override, for the magnetic field.
+        String bindingSource = "// This class is generated code from Sensor Lib. Do not modify!\n"
+            + "package test;\n"
+            + "\n"
+            + "import android.content.Context;\n"
+            + "import android.hardware.SensorEventListener;\n"
+            + "import com.dvoiss.sensorannotations.internal.AbstractSensorBinder;\n"
+            + "import com.dvoiss.sensorannotations.internal.SensorBinder;\n"
+            + "import com.dvoiss.sensorannotations.internal.SensorBinderFactory;\n"
+            + "import com.dvoiss.sensorannotations.internal.SensorEventListenerWrapper;\n"
+            + "import java.lang.Override;\n"
+            + "\n"
+            + "final class Test$$SensorBinder extends AbstractSensorBinder<Test> {\n"
+            + "  public Test$$SensorBinder(Context context, final Test target) {\n"
+            + "    super(context, target);\n"
+            + "    addListener(new SensorEventListenerWrapper(4, 3, new SensorEventListener() {\n"
+            + "          @java.lang.Override\n"
+            + "          public void onSensorChanged(android.hardware.SensorEvent event) {\n"
+            + "            target.gyroscopeSensorChanged(event);\n"
+            + "          }\n"
+            + "          @java.lang.Override\n"
+            + "          public void onAccuracyChanged(android.hardware.Sensor sensor, int accuracy) {\n"
+            + "          }\n"
+            + "        }));\n"
+            + "    addListener(new SensorEventListenerWrapper(2, 3, new SensorEventListener() {\n"
+            + "          @java.lang.Override\n"
+            + "          public void onSensorChanged(android.hardware.SensorEvent event) {\n"
+            + "            target.baseAccelerometerSensorChanged(event);\n"
+            + "          }\n"
+            + "          @java.lang.Override\n"
+            + "          public void onAccuracyChanged(android.hardware.Sensor sensor, int accuracy) {\n"
+            + "          }\n"
+            + "        }));\n"
+            + "  }\n"
+            + "\n"
+            + "  @Override\n"
+            + "  protected void onSensorNotAvailable(int sensorType) {\n"
+            + "    if (sensorType == 1) {\n"
+            + "      getTarget().baseAccelerometerNotAvailable();\n"
+            + "    }\n"
+            + "  }\n"
+            + "\n"
+            + "  public static final class Factory implements SensorBinderFactory<Test> {\n"
+            + "    @Override\n"
+            + "    public SensorBinder<Test> create(Context context, Test target) {\n"
+            + "      return new Test$$SensorBinder(context, target);\n"
+            + "    }\n"
+            + "  }\n"
+            + "}\n";
+
+        assertAbout(javaSources()).that(Arrays.asList(BASE_SOURCE, source))
+            .withCompilerOptions("-Xlint:-processing")
+            .processedWith(new SensorAnnotationsProcessor())
+            .compilesWithoutError()
+            .and()
+            .generatesSources(forSourceString("test/Test$$SensorBinder", bindingSource));
+    }
+
+    @Test
+    public void packagePrivateSuperclassMethodInOtherPackageFails() {
+        JavaFileObject baseSource = forSourceString("other.OtherBase", "package other;\n"
+            + "\n"
+            + "import android.app.Activity;\n"
+            + "import android.hardware.Sensor;\n"
+            + "import android.hardware.SensorEvent;\n"
+            + "import com.dvoiss.sensorannotations.OnSensorChanged;\n"
+            + "\n"
+            + "public class OtherBase extends Activity {\n"
+            + "    @OnSensorChanged(Sensor.TYPE_ACCELEROMETER)\n"
+            + "    void baseAccelerometerSensorChanged(SensorEvent event) {}\n"
+            + "}\n");
+        JavaFileObject source = forSourceString("test.Test", "package test;\n"
+            + "\n"
+            + "import android.hardware.Sensor;\n"
+            + "import android.hardware.SensorEvent;\n"
+            + "import com.dvoiss.sensorannotations.OnSensorChanged;\n"
+            + "import other.OtherBase;\n"
+            + "\n"
+            + "public class Test extends OtherBase {\n"
+            + "    @OnSensorChanged(Sensor.TYPE_LIGHT)\n"
+            + "    void testLightSensorChanged(SensorEvent event) {}\n"
+            + "}\n");
+
+        String error =
+            "The method OtherBase.baseAccelerometerSensorChanged annotated with @OnSensorChanged is not accessible from test.Test. Annotated methods of a superclass in a different package must be public.";
+
+        assertAbout(javaSources()).that(Arrays.asList(baseSource, source))
+            .withCompilerOptions("-Xlint:-processing")
+            .processedWith(new SensorAnnotationsProcessor())
+            .failsToCompile()
+            .withErrorContaining(error);
+    }
+}
@@ -55,11 +55,31 @@ public class BindOnSensorChangedTest {
             + "\n"
             + "public class Test extends Activity {\n"
             + "    @OnSensorChanged(Sensor.TYPE_MAGNETIC_FIELD)\n"
+            + "    void testMagneticFieldSensorChanged(SensorEvent event, long time, int extra) {}\n"
+            + "}\n";
+
+        String error =
+            "@OnSensorChanged methods can only have 1 to 2 parameter(s). (Test.testMagneticFieldSensorChanged)";
+
+        shouldFailWithError(source, error);
+    }
+
+    @Test
+    public void bindOnSensorChangedFailsWithInvalidWallClockParameter() {
+        String source = "package test;\n"
+            + "\n"
+            + "import android.app.Activity;\n"
+            + "import android.hardware.Sensor;\n"
+            + "import android.hardware.SensorEvent;\n"
+            + "import com.dvoiss.sensorannotations.OnSensorChanged;\n"
+            + "\n"
+            + "public class Test extends Activity {\n"
+            + "    @OnSensorChanged(Sensor.TYPE_MAGNETIC_FIELD)\n"
             + "    void testMagneticFieldSensorChanged(SensorEvent event, int extra) {}\n"
             + "}\n";
 
         String error =
-            "@OnSensorChanged methods can only have 1 parameter(s). (Test.testMagneticFieldSensorChanged)";
+            "Method parameters are not valid for @OnSensorChanged annotated method. Expected parameters of type(s): android.hardware.SensorEvent, long. (Test.testMagneticFieldSensorChanged)";
 
         shouldFailWithError(source, error);
     }
@@ -81,28 +101,139 @@ public class BindOnSensorChangedTest {
         String bindingSource = "// This class is generated code from Sensor Lib. Do not modify!\n"
             + "package test;\n"
             + "\n"
-            + "import static android.content.Context.SENSOR_SERVICE;\n"
-            + "\n"
             + "import android.content.Context;\n"
-            + "import android.hardware.Sensor;\n"
             + "import android.hardware.SensorEventListener;\n"
-            + "import android.hardware.SensorManager;\n"
-            + "import com.dvoiss.sensorannotations.internal.EventListenerWrapper;\n"
+            + "import com.dvoiss.sensorannotations.internal.AbstractSensorBinder;\n"
             + "import com.dvoiss.sensorannotations.internal.SensorBinder;\n"
+            + "import com.dvoiss.sensorannotations.internal.SensorBinderFactory;\n"
             + "import com.dvoiss.sensorannotations.internal.SensorEventListenerWrapper;\n"
             + "import java.lang.Override;\n"
-            + "import java.util.ArrayList;\n"
-            + "import java.util.List;\n"
             + "\n"
-            + "final class Test$$SensorBinder implements SensorBinder<Test> {\n"
-            + "  private final SensorManager sensorManager;\n"
+            + "final class Test$$SensorBinder extends AbstractSensorBinder<Test> {\n"
+            + "  public Test$$SensorBinder(Context context, final Test target) {\n"
+            + "    super(context, target);\n"
+            + "    addListener(new SensorEventListenerWrapper(2, 3, new SensorEventListener() {\n"
+            + "          @java.lang.Override\n"
+            + "          public void onSensorChanged(android.hardware.SensorEvent event) {\n"
+            + "            target.testMagneticFieldSensorChanged(event);\n"
+            + "          }\n"
+            + "          @java.lang.Override\n"
+            + "          public void onAccuracyChanged(android.hardware.Sensor sensor, int accuracy) {\n"
+            + "          }\n"
+            + "        }));\n"
+            + "  }\n"
+            + "\n"
+            + "  public static final class Factory implements SensorBinderFactory<Test> {\n"
+            + "    @Override\n"
+            + "    public SensorBinder<Test> create(Context context, Test target) {\n"
+            + "      return new Test$$SensorBinder(context, target);\n"
+            + "    }\n"
+            + "  }\n"
+            + "}\n";
+
+        shouldGenerateBindingSource(source, bindingSource);
+    }
+
+    @Test
+    public void bindOnSensorChangedWithWallClockTimeSucceeds() {
+        String source = "package test;\n"
+            + "\n"
+            + "import android.app.Activity;\n"
+            + "import android.hardware.Sensor;\n"
+            + "import android.hardware.SensorEvent;\n"
+            + "import com.dvoiss.sensorannotations.OnSensorChanged;\n"
+            + "\n"
+            + "public class Test extends Activity {\n"
+            + "    @OnSensorChanged(Sensor.TYPE_MAGNETIC_FIELD)\n"
+            + "    void testMagneticFieldSensorChanged(SensorEvent event, long wallClockNanos) {}\n"
+            + "}\n";
+
+        String bindingSource = "// This class is generated code from Sensor Lib. Do not modify!\n"
+            + "package test;\n"
             + "\n"
-            + "  private final List<EventListenerWrapper> listeners;\n"
+            + "import android.content.Context;\n"
+            + "import android.hardware.SensorEventListener;\n"
+            + "import com.dvoiss.sensorannotations.internal.AbstractSensorBinder;\n"
+            + "import com.dvoiss.sensorannotations.internal.SensorBinder;\n"
+            + "import com.dvoiss.sensorannotations.internal.SensorBinderFactory;\n"
+            + "import com.dvoiss.sensorannotations.internal.SensorEventListenerWrapper;\n"
+            + "import java.lang.Override;\n"
             + "\n"
+            + "final class Test$$SensorBinder extends AbstractSensorBinder<Test> {\n"
             + "  public Test$$SensorBinder(Context context, final Test target) {\n"
-            + "    this.sensorManager = (SensorManager) context.getSystemService(SENSOR_SERVICE);\n"
-            + "    this.listeners = new ArrayList();\n"
-            + "    this.listeners.add(new SensorEventListenerWrapper(2, 3, new SensorEventListener() {\n"
+            + "    super(context, target);\n"
+            + "    addListener(new SensorEventListenerWrapper(2, 3, new SensorEventListener() {\n"
+            + "          @java.lang.Override\n"
+            + "          public void onSensorChanged(android.hardware.SensorEvent event) {\n"
+            + "            target.testMagneticFieldSensorChanged(event, com.dvoiss.sensorannotations.internal.SensorClock.toWallClockNanos(event.timestamp));\n"
+            + "          }\n"
+            + "          @java.lang.Override\n"
+            + "          public void onAccuracyChanged(android.hardware.Sensor sensor, int accuracy) {\n"
+            + "          }\n"
+            + "        }));\n"
+            + "  }\n"
+            + "\n"
+            + "  public static final class Factory implements SensorBinderFactory<Test> {\n"
+            + "    @Override\n"
+            + "    public SensorBinder<Test> create(Context context, Test target) {\n"
+            + "      return new Test$$SensorBinder(context, target);\n"
+            + "    }\n"
+            + "  }\n"
+            + "}\n";
+
+        shouldGenerateBindingSource(source, bindingSource);
+    }
+
+    @Test
+    public void bindOnSensorChangedFailsInPrivateNestedClass() {
+        String source = "package test;\n"
+            + "\n"
+            + "import android.hardware.Sensor;\n"
+            + "import android.hardware.SensorEvent;\n"
+            + "import com.dvoiss.sensorannotations.OnSensorChanged;\n"
+            + "\n"
+            + "public class Test {\n"
+            + "    private static class Inner {\n"
+            + "        @OnSensorChanged(Sensor.TYPE_MAGNETIC_FIELD)\n"
+            + "        void testMagneticFieldSensorChanged(SensorEvent event) {}\n"
+            + "    }\n"
+            + "}\n";
+
+        String error = "The class test.Test.Inner can not be private.";
+
+        shouldFailWithError(source, error);
+    }
+
+    @Test
+    public void bindOnSensorChangedInNestedClassSucceeds() {
+        String source = "package test;\n"
+            + "\n"
+            + "import android.hardware.Sensor;\n"
+            + "import android.hardware.SensorEvent;\n"
+            + "import com.dvoiss.sensorannotations.OnSensorChanged;\n"
+            + "\n"
+            + "public class Test {\n"
+            + "    static class Inner {\n"
+            + "        @OnSensorChanged(Sensor.TYPE_MAGNETIC_FIELD)\n"
+            + "        void testMagneticFieldSensorChanged(SensorEvent event) {}\n"
+            + "    }\n"
+            + "}\n";
+
+        String bindingSource = "// This class is generated code from Sensor Lib. Do not modify!\n"
+            + "package test;\n"
+            + "\n"
+            + "import android.content.Context;\n"
+            + "import android.hardware.SensorEventListener;\n"
+            + "import com.dvoiss.sensorannotations.internal.AbstractSensorBinder;\n"
+            + "import com.dvoiss.sensorannotations.internal.SensorBinder;\n"
+            + "import com.dvoiss.sensorannotations.internal.SensorBinderFactory;\n"
+            + "import com.dvoiss.sensorannotations.internal.SensorEventListenerWrapper;\n"
+            + "import java.lang.Override;\n"
+            + "\n"
+            + "final class Test$Inner$$SensorBinder extends AbstractSensorBinder<Test.Inner> {\n"
+            + "  public Test$Inner$$SensorBinder(Context context, final Test.Inner target) {\n"
+            + "    super(context, target);\n"
+            + "    addListener(new SensorEventListenerWrapper(2, 3, new SensorEventListener() {\n"
             + "          @java.lang.Override\n"
             + "          public void onSensorChanged(android.hardware.SensorEvent event) {\n"
             + "            target.testMagneticFieldSensorChanged(event);\n"
@@ -113,23 +244,86 @@ public class BindOnSensorChangedTest {
             + "        }));\n"
             + "  }\n"
             + "\n"
-            + "  @Override\n"
-            + "  public void bind(final Test target) {\n"
-            + "    int sensorType;\n"
-            + "    Sensor sensor;\n"
-            + "    for (EventListenerWrapper wrapper : listeners) {\n"
-            + "      sensorType = wrapper.getSensorType();\n"
-            + "      sensor = wrapper.getSensor(sensorManager);\n"
-            + "      wrapper.registerListener(sensorManager);\n"
+            + "  public static final class Factory implements SensorBinderFactory<Test.Inner> {\n"
+            + "    @Override\n"
+            + "    public SensorBinder<Test.Inner> create(Context context, Test.Inner target) {\n"
+            + "      return new Test$Inner$$SensorBinder(context, target);\n"
             + "    }\n"
             + "  }\n"
+            + "}\n";
+
+        shouldGenerateBindingSource(source, "test/Test$Inner$$SensorBinder", bindingSource);
+    }
+
+    @Test
+    public void bindOnSensorChangedFailsWithIdleDelayNotSlowerThanDelay() {
+        String source = "package test;\n"
+            + "\n"
+            + "import android.app.Activity;\n"
+            + "import android.hardware.Sensor;\n"
+            + "import android.hardware.SensorEvent;\n"
+            + "import android.hardware.SensorManager;\n"
+            + "import com.dvoiss.sensorannotations.OnSensorChanged;\n"
+            + "\n"
+            + "public class Test extends Activity {\n"
+            + "    @OnSensorChanged(value = Sensor.TYPE_ACCELEROMETER,\n"
+            + "        delay = SensorManager.SENSOR_DELAY_UI,\n"
+            + "        idleDelay = SensorManager.SENSOR_DELAY_GAME)\n"
+            + "    void testAccelerometerSensorChanged(SensorEvent event) {}\n"
+            + "}\n";
+
+        String error =
+            "The idleDelay of @OnSensorChanged must be slower than the delay of the listener. (Test.testAccelerometerSensorChanged)";
+
+        shouldFailWithError(source, error);
+    }
+
+    @Test
+    public void bindOnSensorChangedWithIdleDelaySucceeds() {
+        String source = "package test;\n"
+            + "\n"
+            + "import android.app.Activity;\n"
+            + "import android.hardware.Sensor;\n"
+            + "import android.hardware.SensorEvent;\n"
+            + "import android.hardware.SensorManager;\n"
+            + "import com.dvoiss.sensorannotations.OnSensorChanged;\n"
+            + "\n"
+            + "public class Test extends Activity {\n"
+            + "    @OnSensorChanged(value = Sensor.TYPE_ACCELEROMETER,\n"
+            + "        delay = SensorManager.SENSOR_DELAY_GAME,\n"
+            + "        idleDelay = SensorManager.SENSOR_DELAY_NORMAL)\n"
+            + "    void testAccelerometerSensorChanged(SensorEvent event) {}\n"
+            + "}\n";
+
+        String bindingSource = "// This class is generated code from Sensor Lib. Do not modify!\n"
+            + "package test;\n"
+            + "\n"
+            + "import android.content.Context;\n"
+            + "import android.hardware.SensorEventListener;\n"
+            + "import com.dvoiss.sensorannotations.internal.AbstractSensorBinder;\n"
+            + "import com.dvoiss.sensorannotations.internal.AdaptiveSensorEventListenerWrapper;\n"
+            + "import com.dvoiss.sensorannotations.internal.SensorBinder;\n"
+            + "import com.dvoiss.sensorannotations.internal.SensorBinderFactory;\n"
+            + "import java.lang.Override;\n"
+            + "\n"
+            + "final class Test$$SensorBinder extends AbstractSensorBinder<Test> {\n"
+            + "  public Test$$SensorBinder(Context context, final Test target) {\n"
+            + "    super(context, target);\n"
+            + "    addListener(new AdaptiveSensorEventListenerWrapper(1, 1, 3, new SensorEventListener() {\n"
+            + "          @java.lang.Override\n"
+            + "          public void onSensorChanged(android.hardware.SensorEvent event) {\n"
+            + "            target.testAccelerometerSensorChanged(event);\n"
+            + "          }\n"
+            + "          @java.lang.Override\n"
+            + "          public void onAccuracyChanged(android.hardware.Sensor sensor, int accuracy) {\n"
+            + "          }\n"
+            + "        }));\n"
+            + "  }\n"
             + "\n"
-            + "  @Override\n"
-            + "  public void unbind() {\n"
-            + "    if (this.sensorManager != null) {\n"
-            + "      for (EventListenerWrapper wrapper : listeners) {\n"
-            + "        wrapper.unregisterListener(sensorManager);\n"
-            + "      }\n"
+            + "  public static final class Factory implements SensorBinderFactory<Test> {\n"
+            + "    @Override\n"
+            + "    public SensorBinder<Test> create(Context context, Test target) {\n"
+            + "      return new Test$$SensorBinder(context, target);\n"
             + "    }\n"
             + "  }\n"
             + "}\n";
@@ -0,0 +1,103 @@
+package com.dvoiss.sensorannotations;
+
+import org.junit.Test;
+
+import static com.dvoiss.sensorannotations.TestUtils.shouldFailWithError;
+import static com.dvoiss.sensorannotations.TestUtils.shouldGenerateBindingSource;
+
+public class BindOnSensorDisconnectedTest {
+
+    @Test
+    public void bindOnSensorDisconnectedFailsWithInvalidMethodParameter() {
+        String source = "package test;\n"
+            + "\n"
+            + "import android.app.Activity;\n"
+            + "import android.hardware.Sensor;\n"
+            + "import com.dvoiss.sensorannotations.OnSensorDisconnected;\n"
+            + "\n"
+            + "public class Test extends Activity {\n"
+            + "    @OnSensorDisconnected(Sensor.TYPE_HEART_RATE)\n"
+            + "    void testHeartRateDisconnected() {}\n"
+            + "}\n";
+
+        String error =
+            "@OnSensorDisconnected methods can only have 1 parameter(s). (Test.testHeartRateDisconnected)";
+
+        shouldFailWithError(source, error);
+    }
+
+    @Test
+    public void bindOnSensorDisconnectedSucceeds() {
+        String source = "package test;\n"
+            + "\n"
+            + "import android.app.Activity;\n"
+            + "import android.hardware.Sensor;\n"
+            + "import android.hardware.SensorEvent;\n"
+            + "import com.dvoiss.sensorannotations.OnSensorChanged;\n"
+            + "import com.dvoiss.sensorannotations.OnSensorDisconnected;\n"
+            + "import com.dvoiss.sensorannotations.OnSensorNotAvailable;\n"
+            + "\n"
+            + "public class Test extends Activity {\n"
+            + "    @OnSensorChanged(Sensor.TYPE_HEART_RATE)\n"
+            + "    void testHeartRateSensorChanged(SensorEvent event) {}\n"
+            + "\n"
+            + "    @OnSensorNotAvailable(Sensor.TYPE_HEART_RATE)\n"
+            + "    void testHeartRateNotAvailable() {}\n"
+            + "\n"
+            + "    @OnSensorDisconnected(Sensor.TYPE_HEART_RATE)\n"
+            + "    void testHeartRateDisconnected(Sensor sensor) {}\n"
+            + "}\n";
+
+        String bindingSource = "// This class is generated code from Sensor Lib. Do not modify!\n"
+            + "package test;\n"
+            + "\n"
+            + "import android.content.Context;\n"
+            + "import android.hardware.Sensor;\n"
+            + "import android.hardware.SensorEventListener;\n"
+            + "import com.dvoiss.sensorannotations.internal.AbstractSensorBinder;\n"
+            + "import com.dvoiss.sensorannotations.internal.SensorBinder;\n"
+            + "import com.dvoiss.sensorannotations.internal.SensorBinderFactory;\n"
+            + "import com.dvoiss.sensorannotations.internal.SensorEventListenerWrapper;\n"
+            + "import java.lang.Override;\n"
+            + "\n"
+            + "final class Test$$SensorBinder extends AbstractSensorBinder<Test> {\n"
+            + "  public Test$$SensorBinder(Context context, final Test target) {\n"
+            + "    super(context, target);\n"
+            + "    addListener(new SensorEventListenerWrapper(21, 3, new SensorEventListener() {\n"
+            + "          @java.lang.Override\n"
+            + "          public void onSensorChanged(android.hardware.SensorEvent event) {\n"
+            + "            target.testHeartRateSensorChanged(event);\n"
+            + "          }\n"
+            + "          @java.lang.Override\n"
+            + "          public void onAccuracyChanged(android.hardware.Sensor sensor, int accuracy) {\n"
+            + "          }\n"
+            + "        }));\n"
+            + "  }\n"
+            + "\n"
+            + "  @Override\n"
+            + "  protected void onSensorNotAvailable(int sensorType) {\n"
+            + "    if (sensorType == 21) {\n"
+            + "      getTarget().testHeartRateNotAvailable();\n"
+            + "    }\n"
+            + "  }\n"
+            + "\n"
+            + "  @Override\n"
+            + "  protected void onSensorDisconnected(Sensor sensor) {\n"
+            + "    if (sensor.getType() == 21) {\n"
+            + "      getTarget().testHeartRateDisconnected(sensor);\n"
+            + "    } else {\n"
+            + "      super.onSensorDisconnected(sensor);\n"
+            + "    }\n"
+            + "  }\n"
+            + "\n"
+            + "  public static final class Factory implements SensorBinderFactory<Test> {\n"
+            + "    @Override\n"
+            + "    public SensorBinder<Test> create(Context context, Test target) {\n"
+            + "      return new Test$$SensorBinder(context, target);\n"
+            + "    }\n"
+            + "  }\n"
+            + "}\n";
+
+        shouldGenerateBindingSource(source, bindingSource);
+    }
+}
@@ -61,50 +61,28 @@ public class BindOnSensorNotAvailableTest {
         String bindingSource = "// This class is generated code from Sensor Lib. Do not modify!\n"
             + "package test;\n"
             + "\n"
-            + "import static android.content.Context.SENSOR_SERVICE;\n"
-            + "\n"
             + "import android.content.Context;\n"
-            + "import android.hardware.Sensor;\n"
-            + "import android.hardware.SensorManager;\n"
-            + "import com.dvoiss.sensorannotations.internal.EventListenerWrapper;\n"
+            + "import com.dvoiss.sensorannotations.internal.AbstractSensorBinder;\n"
             + "import com.dvoiss.sensorannotations.internal.SensorBinder;\n"
+            + "import com.dvoiss.sensorannotations.internal.SensorBinderFactory;\n"
             + "import java.lang.Override;\n"
-            + "import java.util.ArrayList;\n"
-            + "import java.util.List;\n"
-            + "\n"
-            + "final class Test$$SensorBinder implements SensorBinder<Test> {\n"
-            + "  private final SensorManager sensorManager;\n"
-            + "\n"
-            + "  private final List<EventListenerWrapper> listeners;\n"
             + "\n"
+            + "final class Test$$SensorBinder extends AbstractSensorBinder<Test> {\n"
             + "  public Test$$SensorBinder(Context context, final Test target) {\n"
-            + "    this.sensorManager = (SensorManager) context.getSystemService(SENSOR_SERVICE);\n"
-            + "    this.listeners = new ArrayList();\n"
+            + "    super(context, target);\n"
             + "  }\n"
             + "\n"
             + "  @Override\n"
-            + "  public void bind(final Test target) {\n"
-            + "    int sensorType;\n"
-            + "    Sensor sensor;\n"
-            + "    for (EventListenerWrapper wrapper : listeners) {\n"
-            + "      sensorType = wrapper.getSensorType();\n"
-            + "      sensor = wrapper.getSensor(sensorManager);\n"
-            + "      if (sensor == null) {\n"
-            + "        if (sensorType == 2) {\n"
-            + "          target.testMagneticFieldSensorNotAvailable();\n"
-            + "        }\n"
-            + "        continue;\n"
-            + "      }\n"
-            + "      wrapper.registerListener(sensorManager);\n"
+            + "  protected void onSensorNotAvailable(int sensorType) {\n"
+            + "    if (sensorType == 2) {\n"
+            + "      getTarget().testMagneticFieldSensorNotAvailable();\n"
             + "    }\n"
             + "  }\n"
             + "\n"
-            + "  @Override\n"
-            + "  public void unbind() {\n"
-            + "    if (this.sensorManager != null) {\n"
-            + "      for (EventListenerWrapper wrapper : listeners) {\n"
-            + "        wrapper.unregisterListener(sensorManager);\n"
-            + "      }\n"
+            + "  public static final class Factory implements SensorBinderFactory<Test> {\n"
+            + "    @Override\n"
+            + "    public SensorBinder<Test> create(Context context, Test target) {\n"
+            + "      return new Test$$SensorBinder(context, target);\n"
             + "    }\n"
             + "  }\n"
             + "}\n";
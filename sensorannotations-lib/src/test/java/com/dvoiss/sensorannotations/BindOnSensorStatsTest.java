@@ -0,0 +1,107 @@
+package com.dvoiss.sensorannotations;
+
+import org.junit.Test;
+
+import static com.dvoiss.sensorannotations.TestUtils.shouldFailWithError;
+import static com.dvoiss.sensorannotations.TestUtils.shouldGenerateBindingSource;
+
+public class BindOnSensorStatsTest {
+
+    @Test
+    public void bindOnSensorStatsFailsWithInvalidMethodParameter() {
+        String source = "package test;\n"
+            + "\n"
+            + "import android.app.Activity;\n"
+            + "import android.hardware.Sensor;\n"
+            + "import com.dvoiss.sensorannotations.OnSensorStats;\n"
+            + "\n"
+            + "public class Test extends Activity {\n"
+            + "    @OnSensorStats(Sensor.TYPE_ACCELEROMETER)\n"
+            + "    void testAccelerometerStats(Object wrongType) {}\n"
+            + "}\n";
+
+        String error =
+            "Method parameters are not valid for @OnSensorStats annotated method. Expected parameters of type(s): com.dvoiss.sensorannotations.SensorStats. (Test.testAccelerometerStats)";
+
+        shouldFailWithError(source, error);
+    }
+
+    @Test
+    public void bindOnSensorStatsFailsWithInvalidWindow() {
+        String source = "package test;\n"
+            + "\n"
+            + "import android.app.Activity;\n"
+            + "import android.hardware.Sensor;\n"
+            + "import com.dvoiss.sensorannotations.OnSensorStats;\n"
+            + "import com.dvoiss.sensorannotations.SensorStats;\n"
+            + "\n"
+            + "public class Test extends Activity {\n"
+            + "    @OnSensorStats(value = Sensor.TYPE_ACCELEROMETER, windowMs = 0)\n"
+            + "    void testAccelerometerStats(SensorStats stats) {}\n"
+            + "}\n";
+
+        String error =
+            "@OnSensorStats needs a positive windowMs and emitEveryMs. (Test.testAccelerometerStats)";
+
+        shouldFailWithError(source, error);
+    }
+
+    @Test
+    public void bindOnSensorStatsSucceeds() {
+        String source = "package test;\n"
+            + "\n"
+            + "import android.app.Activity;\n"
+            + "import android.hardware.Sensor;\n"
+            + "import android.hardware.SensorEvent;\n"
+            + "import com.dvoiss.sensorannotations.OnSensorChanged;\n"
+            + "import com.dvoiss.sensorannotations.OnSensorStats;\n"
+            + "import com.dvoiss.sensorannotations.SensorStats;\n"
+            + "\n"
+            + "public class Test extends Activity {\n"
+            + "    @OnSensorChanged(Sensor.TYPE_ACCELEROMETER)\n"
+            + "    void testAccelerometerSensorChanged(SensorEvent event) {}\n"
+            + "\n"
+            + "    @OnSensorStats(value = Sensor.TYPE_ACCELEROMETER, windowMs = 1000, emitEveryMs = 250)\n"
+            + "    void testAccelerometerStats(SensorStats stats) {}\n"
+            + "}\n";
+
+        String bindingSource = "// This class is generated code from Sensor Lib. Do not modify!\n"
+            + "package test;\n"
+            + "\n"
+            + "import android.content.Context;\n"
+            + "import android.hardware.SensorEventListener;\n"
+            + "import com.dvoiss.sensorannotations.internal.AbstractSensorBinder;\n"
+            + "import com.dvoiss.sensorannotations.internal.SensorBinder;\n"
+            + "import com.dvoiss.sensorannotations.internal.SensorBinderFactory;\n"
+            + "import com.dvoiss.sensorannotations.internal.SensorEventListenerWrapper;\n"
+            + "import java.lang.Override;\n"
+            + "\n"
+            + "final class Test$$SensorBinder extends AbstractSensorBinder<Test> {\n"
+            + "  public Test$$SensorBinder(Context context, final Test target) {\n"
+            + "    super(context, target);\n"
+            + "    addListener(new SensorEventListenerWrapper(1, 3, new SensorEventListener() {\n"
+            + "          private final com.dvoiss.sensorannotations.internal.SlidingWindowStats stats = new com.dvoiss.sensorannotations.internal.SlidingWindowStats(1000, 250);\n"
+            + "          @java.lang.Override\n"
+            + "          public void onSensorChanged(android.hardware.SensorEvent event) {\n"
+            + "            target.testAccelerometerSensorChanged(event);\n"
+            + "            if (stats.add(event.timestamp, event.values)) {\n"
+            + "              target.testAccelerometerStats(stats);\n"
+            + "            }\n"
+            + "          }\n"
+            + "          @java.lang.Override\n"
+            + "          public void onAccuracyChanged(android.hardware.Sensor sensor, int accuracy) {\n"
+            + "          }\n"
+            + "        }));\n"
+            + "  }\n"
+            + "\n"
+            + "  public static final class Factory implements SensorBinderFactory<Test> {\n"
+            + "    @Override\n"
+            + "    public SensorBinder<Test> create(Context context, Test target) {\n"
+            + "      return new Test$$SensorBinder(context, target);\n"
+            + "    }\n"
+            + "  }\n"
+            + "}\n";
+
+        shouldGenerateBindingSource(source, bindingSource);
+    }
+}
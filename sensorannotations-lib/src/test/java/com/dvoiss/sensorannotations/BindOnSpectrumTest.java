@@ -0,0 +1,148 @@
+package com.dvoiss.sensorannotations;
+
+import org.junit.Test;
+
+import static com.dvoiss.sensorannotations.TestUtils.shouldFailWithError;
+import static com.dvoiss.sensorannotations.TestUtils.shouldGenerateBindingSource;
+
+public class BindOnSpectrumTest {
+
+    @Test
+    public void bindOnSpectrumFailsWithInvalidMethodParameter() {
+        String source = "package test;\n"
+            + "\n"
+            + "import android.app.Activity;\n"
+            + "import android.hardware.Sensor;\n"
+            + "import com.dvoiss.sensorannotations.OnSpectrum;\n"
+            + "\n"
+            + "public class Test extends Activity {\n"
+            + "    @OnSpectrum(value = Sensor.TYPE_ACCELEROMETER, hz = 100)\n"
+            + "    void testAccelerometerSpectrum(float[] values) {}\n"
+            + "}\n";
+
+        String error =
+            "Method parameters are not valid for @OnSpectrum annotated method. Expected parameters of type(s): com.dvoiss.sensorannotations.Spectrum. (Test.testAccelerometerSpectrum)";
+
+        shouldFailWithError(source, error);
+    }
+
+    @Test
+    public void bindOnSpectrumFailsWithInvalidSize() {
+        String source = "package test;\n"
+            + "\n"
+            + "import android.app.Activity;\n"
+            + "import android.hardware.Sensor;\n"
+            + "import com.dvoiss.sensorannotations.OnSpectrum;\n"
+            + "import com.dvoiss.sensorannotations.Spectrum;\n"
+            + "\n"
+            + "public class Test extends Activity {\n"
+            + "    @OnSpectrum(value = Sensor.TYPE_ACCELEROMETER, hz = 100, size = 1000)\n"
+            + "    void testAccelerometerSpectrum(Spectrum spectrum) {}\n"
+            + "}\n";
+
+        String error =
+            "@OnSpectrum needs a size that is a power of two of at least 8. (Test.testAccelerometerSpectrum)";
+
+        shouldFailWithError(source, error);
+    }
+
+    @Test
+    public void bindOnSpectrumFailsWithDescendingBands() {
+        String source = "package test;\n"
+            + "\n"
+            + "import android.app.Activity;\n"
+            + "import android.hardware.Sensor;\n"
+            + "import com.dvoiss.sensorannotations.OnSpectrum;\n"
+            + "import com.dvoiss.sensorannotations.Spectrum;\n"
+            + "\n"
+            + "public class Test extends Activity {\n"
+            + "    @OnSpectrum(value = Sensor.TYPE_ACCELEROMETER, hz = 100, bands = { 20, 10 })\n"
+            + "    void testAccelerometerSpectrum(Spectrum spectrum) {}\n"
+            + "}\n";
+
+        String error =
+            "@OnSpectrum needs ascending, non-negative and finite bands. (Test.testAccelerometerSpectrum)";
+
+        shouldFailWithError(source, error);
+    }
+
+    @Test
+    public void bindOnSpectrumFailsWithAllSensors() {
+        String source = "package test;\n"
+            + "\n"
+            + "import android.app.Activity;\n"
+            + "import android.hardware.Sensor;\n"
+            + "import android.hardware.SensorEvent;\n"
+            + "import com.dvoiss.sensorannotations.OnSensorChanged;\n"
+            + "import com.dvoiss.sensorannotations.OnSpectrum;\n"
+            + "import com.dvoiss.sensorannotations.Spectrum;\n"
+            + "\n"
+            + "public class Test extends Activity {\n"
+            + "    @OnSensorChanged(value = Sensor.TYPE_ACCELEROMETER, all = true)\n"
+            + "    void testAccelerometerSensorChanged(SensorEvent event) {}\n"
+            + "\n"
+            + "    @OnSpectrum(value = Sensor.TYPE_ACCELEROMETER, hz = 100)\n"
+            + "    void testAccelerometerSpectrum(Spectrum spectrum) {}\n"
+            + "}\n";
+
+        String error =
+            "@OnSpectrum can't be used with all = true, the samples of several sensors can't share a window. (Test.testAccelerometerSpectrum)";
+
+        shouldFailWithError(source, error);
+    }
+
+    @Test
+    public void bindOnSpectrumSucceeds() {
+        String source = "package test;\n"
+            + "\n"
+            + "import android.app.Activity;\n"
+            + "import android.hardware.Sensor;\n"
+            + "import com.dvoiss.sensorannotations.OnSpectrum;\n"
+            + "import com.dvoiss.sensorannotations.Spectrum;\n"
+            + "\n"
+            + "public class Test extends Activity {\n"
+            + "    @OnSpectrum(value = Sensor.TYPE_ACCELEROMETER, hz = 200, size = 1024, hop = 256,\n"
+            + "        bands = { 10, 50, 100 })\n"
+            + "    void testAccelerometerSpectrum(Spectrum spectrum) {}\n"
+            + "}\n";
+
+        String bindingSource = "// This class is generated code from Sensor Lib. Do not modify!\n"
+            + "package test;\n"
+            + "\n"
+            + "import android.content.Context;\n"
+            + "import android.hardware.SensorEventListener;\n"
+            + "import com.dvoiss.sensorannotations.internal.AbstractSensorBinder;\n"
+            + "import com.dvoiss.sensorannotations.internal.SensorBinder;\n"
+            + "import com.dvoiss.sensorannotations.internal.SensorBinderFactory;\n"
+            + "import com.dvoiss.sensorannotations.internal.SensorEventListenerWrapper;\n"
+            + "import java.lang.Override;\n"
+            + "\n"
+            + "final class Test$$SensorBinder extends AbstractSensorBinder<Test> {\n"
+            + "  public Test$$SensorBinder(Context context, final Test target) {\n"
+            + "    super(context, target);\n"
+            + "    addListener(new SensorEventListenerWrapper(1, 5000, new SensorEventListener() {\n"
+            + "          private final com.dvoiss.sensorannotations.internal.SpectralAnalyzer spectrum = new com.dvoiss.sensorannotations.internal.SpectralAnalyzer(200, 1024, 256, -1, new float[] {10.0f, 50.0f, 100.0f});\n"
+            + "          @java.lang.Override\n"
+            + "          public void onSensorChanged(android.hardware.SensorEvent event) {\n"
+            + "            spectrum.add(event.timestamp, event.values);\n"
+            + "            while (spectrum.next()) {\n"
+            + "              target.testAccelerometerSpectrum(spectrum);\n"
+            + "            }\n"
+            + "          }\n"
+            + "          @java.lang.Override\n"
+            + "          public void onAccuracyChanged(android.hardware.Sensor sensor, int accuracy) {\n"
+            + "          }\n"
+            + "        }));\n"
+            + "  }\n"
+            + "\n"
+            + "  public static final class Factory implements SensorBinderFactory<Test> {\n"
+            + "    @Override\n"
+            + "    public SensorBinder<Test> create(Context context, Test target) {\n"
+            + "      return new Test$$SensorBinder(context, target);\n"
+            + "    }\n"
+            + "  }\n"
+            + "}\n";
+
+        shouldGenerateBindingSource(source, bindingSource);
+    }
+}
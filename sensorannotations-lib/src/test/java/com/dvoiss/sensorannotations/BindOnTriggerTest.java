@@ -59,28 +59,18 @@ public class BindOnTriggerTest {
         String bindingSource = "// This class is generated code from Sensor Lib. Do not modify!\n"
             + "package test;\n"
             + "\n"
-            + "import static android.content.Context.SENSOR_SERVICE;\n"
-            + "\n"
             + "import android.content.Context;\n"
-            + "import android.hardware.Sensor;\n"
-            + "import android.hardware.SensorManager;\n"
             + "import android.hardware.TriggerEventListener;\n"
-            + "import com.dvoiss.sensorannotations.internal.EventListenerWrapper;\n"
+            + "import com.dvoiss.sensorannotations.internal.AbstractSensorBinder;\n"
             + "import com.dvoiss.sensorannotations.internal.SensorBinder;\n"
+            + "import com.dvoiss.sensorannotations.internal.SensorBinderFactory;\n"
             + "import com.dvoiss.sensorannotations.internal.TriggerEventListenerWrapper;\n"
             + "import java.lang.Override;\n"
-            + "import java.util.ArrayList;\n"
-            + "import java.util.List;\n"
-            + "\n"
-            + "final class Test$$SensorBinder implements SensorBinder<Test> {\n"
-            + "  private final SensorManager sensorManager;\n"
-            + "\n"
-            + "  private final List<EventListenerWrapper> listeners;\n"
             + "\n"
+            + "final class Test$$SensorBinder extends AbstractSensorBinder<Test> {\n"
             + "  public Test$$SensorBinder(Context context, final Test target) {\n"
-            + "    this.sensorManager = (SensorManager) context.getSystemService(SENSOR_SERVICE);\n"
-            + "    this.listeners = new ArrayList();\n"
-            + "    this.listeners.add(new TriggerEventListenerWrapper(new TriggerEventListener() {\n"
+            + "    super(context, target);\n"
+            + "    addListener(new TriggerEventListenerWrapper(new TriggerEventListener() {\n"
             + "          @java.lang.Override\n"
             + "          public void onTrigger(android.hardware.TriggerEvent event) {\n"
             + "            target.testSignificantMotionTrigger(event);\n"
@@ -88,23 +78,10 @@ public class BindOnTriggerTest {
             + "        }));\n"
             + "  }\n"
             + "\n"
-            + "  @Override\n"
-            + "  public void bind(final Test target) {\n"
-            + "    int sensorType;\n"
-            + "    Sensor sensor;\n"
-            + "    for (EventListenerWrapper wrapper : listeners) {\n"
-            + "      sensorType = wrapper.getSensorType();\n"
-            + "      sensor = wrapper.getSensor(sensorManager);\n"
-            + "      wrapper.registerListener(sensorManager);\n"
-            + "    }\n"
-            + "  }\n"
-            + "\n"
-            + "  @Override\n"
-            + "  public void unbind() {\n"
-            + "    if (this.sensorManager != null) {\n"
-            + "      for (EventListenerWrapper wrapper : listeners) {\n"
-            + "        wrapper.unregisterListener(sensorManager);\n"
-            + "      }\n"
+            + "  public static final class Factory implements SensorBinderFactory<Test> {\n"
+            + "    @Override\n"
+            + "    public SensorBinder<Test> create(Context context, Test target) {\n"
+            + "      return new Test$$SensorBinder(context, target);\n"
             + "    }\n"
             + "  }\n"
             + "}\n";
@@ -0,0 +1,83 @@
+package com.dvoiss.sensorannotations;
+
+import org.junit.Test;
+
+import static com.dvoiss.sensorannotations.TestUtils.shouldFailWithError;
+import static com.dvoiss.sensorannotations.TestUtils.shouldGenerateBindingSource;
+
+public class BindPersistTest {
+
+    @Test
+    public void bindPersistFailsWithInvalidReturnType() {
+        String source = "package test;\n"
+            + "\n"
+            + "import android.app.Activity;\n"
+            + "import android.hardware.Sensor;\n"
+            + "import com.dvoiss.sensorannotations.Persist;\n"
+            + "\n"
+            + "public class Test extends Activity {\n"
+            + "    @Persist(Sensor.TYPE_ACCELEROMETER)\n"
+            + "    Object testAccelerometerPipeline() { return null; }\n"
+            + "}\n";
+
+        String error =
+            "@Persist methods must return com.dvoiss.sensorannotations.recording.WriteBehindPipeline. (Test.testAccelerometerPipeline)";
+
+        shouldFailWithError(source, error);
+    }
+
+    @Test
+    public void bindPersistSucceeds() {
+        String source = "package test;\n"
+            + "\n"
+            + "import android.app.Activity;\n"
+            + "import android.hardware.Sensor;\n"
+            + "import com.dvoiss.sensorannotations.Persist;\n"
+            + "import com.dvoiss.sensorannotations.recording.WriteBehindPipeline;\n"
+            + "\n"
+            + "public class Test extends Activity {\n"
+            + "    WriteBehindPipeline pipeline;\n"
+            + "\n"
+            + "    @Persist(value = Sensor.TYPE_ACCELEROMETER, delay = 1)\n"
+            + "    WriteBehindPipeline testAccelerometerPipeline() { return pipeline; }\n"
+            + "}\n";
+
+        String bindingSource = "// This class is generated code from Sensor Lib. Do not modify!\n"
+            + "package test;\n"
+            + "\n"
+            + "import android.content.Context;\n"
+            + "import android.hardware.SensorEventListener;\n"
+            + "import com.dvoiss.sensorannotations.internal.AbstractSensorBinder;\n"
+            + "import com.dvoiss.sensorannotations.internal.SensorBinder;\n"
+            + "import com.dvoiss.sensorannotations.internal.SensorBinderFactory;\n"
+            + "import com.dvoiss.sensorannotations.internal.SensorEventListenerWrapper;\n"
+            + "import java.lang.Override;\n"
+            + "\n"
+            + "final class Test$$SensorBinder extends AbstractSensorBinder<Test> {\n"
+            + "  public Test$$SensorBinder(Context context, final Test target) {\n"
+            + "    super(context, target);\n"
+            + "    addListener(new SensorEventListenerWrapper(1, 1, new SensorEventListener() {\n"
+            + "          @java.lang.Override\n"
+            + "          public void onSensorChanged(android.hardware.SensorEvent event) {\n"
+            + "            com.dvoiss.sensorannotations.recording.WriteBehindPipeline pipeline = target.testAccelerometerPipeline();\n"
+            + "            if (pipeline != null) {\n"
+            + "              pipeline.offer(event);\n"
+            + "            }\n"
+            + "          }\n"
+            + "          @java.lang.Override\n"
+            + "          public void onAccuracyChanged(android.hardware.Sensor sensor, int accuracy) {\n"
+            + "          }\n"
+            + "        }));\n"
+            + "  }\n"
+            + "\n"
+            + "  public static final class Factory implements SensorBinderFactory<Test> {\n"
+            + "    @Override\n"
+            + "    public SensorBinder<Test> create(Context context, Test target) {\n"
+            + "      return new Test$$SensorBinder(context, target);\n"
+            + "    }\n"
+            + "  }\n"
+            + "}\n";
+
+        shouldGenerateBindingSource(source, bindingSource);
+    }
+}
@@ -0,0 +1,186 @@
+package com.dvoiss.sensorannotations;
+
+import org.junit.Test;
+
+import static com.dvoiss.sensorannotations.TestUtils.shouldFailWithError;
+import static com.dvoiss.sensorannotations.TestUtils.shouldGenerateBindingSource;
+
+public class BindResampleTest {
+
+    @Test
+    public void bindResampleFailsWithInvalidMethodParameter() {
+        String source = "package test;\n"
+            + "\n"
+            + "import android.app.Activity;\n"
+            + "import android.hardware.Sensor;\n"
+            + "import com.dvoiss.sensorannotations.Resample;\n"
+            + "\n"
+            + "public class Test extends Activity {\n"
+            + "    @Resample(value = Sensor.TYPE_ACCELEROMETER, hz = 100)\n"
+            + "    void testAccelerometerResampled(long timestamp, double[] values) {}\n"
+            + "}\n";
+
+        String error =
+            "Method parameters are not valid for @Resample annotated method. Expected parameters of type(s): long, float[]. (Test.testAccelerometerResampled)";
+
+        shouldFailWithError(source, error);
+    }
+
+    @Test
+    public void bindResampleFailsWithInvalidRate() {
+        String source = "package test;\n"
+            + "\n"
+            + "import android.app.Activity;\n"
+            + "import android.hardware.Sensor;\n"
+            + "import com.dvoiss.sensorannotations.Resample;\n"
+            + "\n"
+            + "public class Test extends Activity {\n"
+            + "    @Resample(value = Sensor.TYPE_ACCELEROMETER, hz = 0)\n"
+            + "    void testAccelerometerResampled(long timestamp, float[] values) {}\n"
+            + "}\n";
+
+        String error = "@Resample needs a positive hz. (Test.testAccelerometerResampled)";
+
+        shouldFailWithError(source, error);
+    }
+
+    @Test
+    public void bindResampleFailsWithAllSensors() {
+        String source = "package test;\n"
+            + "\n"
+            + "import android.app.Activity;\n"
+            + "import android.hardware.Sensor;\n"
+            + "import android.hardware.SensorEvent;\n"
+            + "import com.dvoiss.sensorannotations.OnSensorChanged;\n"
+            + "import com.dvoiss.sensorannotations.Resample;\n"
+            + "\n"
+            + "public class Test extends Activity {\n"
+            + "    @OnSensorChanged(value = Sensor.TYPE_ACCELEROMETER, all = true)\n"
+            + "    void testAccelerometerSensorChanged(SensorEvent event) {}\n"
+            + "\n"
+            + "    @Resample(value = Sensor.TYPE_ACCELEROMETER, hz = 100)\n"
+            + "    void testAccelerometerResampled(long timestamp, float[] values) {}\n"
+            + "}\n";
+
+        String error =
+            "@Resample can't be used with all = true, the events of several sensors can't share a resampler. (Test.testAccelerometerResampled)";
+
+        shouldFailWithError(source, error);
+    }
+
+    @Test
+    public void bindResampleSucceeds() {
+        String source = "package test;\n"
+            + "\n"
+            + "import android.app.Activity;\n"
+            + "import android.hardware.Sensor;\n"
+            + "import com.dvoiss.sensorannotations.Interpolation;\n"
+            + "import com.dvoiss.sensorannotations.Resample;\n"
+            + "\n"
+            + "public class Test extends Activity {\n"
+            + "    @Resample(value = Sensor.TYPE_ACCELEROMETER, hz = 100,\n"
+            + "        method = Interpolation.NEAREST)\n"
+            + "    void testAccelerometerResampled(long timestamp, float[] values) {}\n"
+            + "}\n";
+
+        String bindingSource = "// This class is generated code from Sensor Lib. Do not modify!\n"
+            + "package test;\n"
+            + "\n"
+            + "import android.content.Context;\n"
+            + "import android.hardware.SensorEventListener;\n"
+            + "import com.dvoiss.sensorannotations.internal.AbstractSensorBinder;\n"
+            + "import com.dvoiss.sensorannotations.internal.SensorBinder;\n"
+            + "import com.dvoiss.sensorannotations.internal.SensorBinderFactory;\n"
+            + "import com.dvoiss.sensorannotations.internal.SensorEventListenerWrapper;\n"
+            + "import java.lang.Override;\n"
+            + "\n"
+            + "final class Test$$SensorBinder extends AbstractSensorBinder<Test> {\n"
+            + "  public Test$$SensorBinder(Context context, final Test target) {\n"
+            + "    super(context, target);\n"
+            + "    addListener(new SensorEventListenerWrapper(1, 10000, new SensorEventListener() {\n"
+            + "          private final com.dvoiss.sensorannotations.internal.Resampler resampler = new com.dvoiss.sensorannotations.internal.Resampler(100, com.dvoiss.sensorannotations.Interpolation.NEAREST);\n"
+            + "          @java.lang.Override\n"
+            + "          public void onSensorChanged(android.hardware.SensorEvent event) {\n"
+            + "            resampler.add(event.timestamp, event.values);\n"
+            + "            while (resampler.next()) {\n"
+            + "              target.testAccelerometerResampled(resampler.getTimestamp(), resampler.getValues());\n"
+            + "            }\n"
+            + "          }\n"
+            + "          @java.lang.Override\n"
+            + "          public void onAccuracyChanged(android.hardware.Sensor sensor, int accuracy) {\n"
+            + "          }\n"
+            + "        }));\n"
+            + "  }\n"
+            + "\n"
+            + "  public static final class Factory implements SensorBinderFactory<Test> {\n"
+            + "    @Override\n"
+            + "    public SensorBinder<Test> create(Context context, Test target) {\n"
+            + "      return new Test$$SensorBinder(context, target);\n"
+            + "    }\n"
+            + "  }\n"
+            + "}\n";
+
+        shouldGenerateBindingSource(source, bindingSource);
+    }
+
+    @Test
+    public void bindResampleRegistersWithTheFastestDelayOfTheClass() {
+        String source = "package test;\n"
+            + "\n"
+            + "import android.app.Activity;\n"
+            + "import android.hardware.Sensor;\n"
+            + "import android.hardware.SensorEvent;\n"
+            + "import android.hardware.SensorManager;\n"
+            + "import com.dvoiss.sensorannotations.OnSensorChanged;\n"
+            + "import com.dvoiss.sensorannotations.Resample;\n"
+            + "\n"
+            + "public class Test extends Activity {\n"
+            + "    @OnSensorChanged(value = Sensor.TYPE_ACCELEROMETER,\n"
+            + "        delay = SensorManager.SENSOR_DELAY_NORMAL)\n"
+            + "    void testAccelerometerChanged(SensorEvent event) {}\n"
+            + "\n"
+            + "    @Resample(value = Sensor.TYPE_ACCELEROMETER, hz = 100)\n"
+            + "    void testAccelerometerResampled(long timestamp, float[] values) {}\n"
+            + "}\n";
+
+        String bindingSource = "// This class is generated code from Sensor Lib. Do not modify!\n"
+            + "package test;\n"
+            + "\n"
+            + "import android.content.Context;\n"
+            + "import android.hardware.SensorEventListener;\n"
+            + "import com.dvoiss.sensorannotations.internal.AbstractSensorBinder;\n"
+            + "import com.dvoiss.sensorannotations.internal.SensorBinder;\n"
+            + "import com.dvoiss.sensorannotations.internal.SensorBinderFactory;\n"
+            + "import com.dvoiss.sensorannotations.internal.SensorEventListenerWrapper;\n"
+            + "import java.lang.Override;\n"
+            + "\n"
+            + "final class Test$$SensorBinder extends AbstractSensorBinder<Test> {\n"
+            + "  public Test$$SensorBinder(Context context, final Test target) {\n"
+            + "    super(context, target);\n"
+            + "    addListener(new SensorEventListenerWrapper(1, 10000, new SensorEventListener() {\n"
+            + "          private final com.dvoiss.sensorannotations.internal.Resampler resampler = new com.dvoiss.sensorannotations.internal.Resampler(100, com.dvoiss.sensorannotations.Interpolation.LINEAR);\n"
+            + "          @java.lang.Override\n"
+            + "          public void onSensorChanged(android.hardware.SensorEvent event) {\n"
+            + "            target.testAccelerometerChanged(event);\n"
+            + "            resampler.add(event.timestamp, event.values);\n"
+            + "            while (resampler.next()) {\n"
+            + "              target.testAccelerometerResampled(resampler.getTimestamp(), resampler.getValues());\n"
+            + "            }\n"
+            + "          }\n"
+            + "          @java.lang.Override\n"
+            + "          public void onAccuracyChanged(android.hardware.Sensor sensor, int accuracy) {\n"
+            + "          }\n"
+            + "        }));\n"
+            + "  }\n"
+            + "\n"
+            + "  public static final class Factory implements SensorBinderFactory<Test> {\n"
+            + "    @Override\n"
+            + "    public SensorBinder<Test> create(Context context, Test target) {\n"
+            + "      return new Test$$SensorBinder(context, target);\n"
+            + "    }\n"
+            + "  }\n"
+            + "}\n";
+
+        shouldGenerateBindingSource(source, bindingSource);
+    }
+}
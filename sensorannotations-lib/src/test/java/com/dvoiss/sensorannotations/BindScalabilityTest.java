@@ -0,0 +1,175 @@
+package com.dvoiss.sensorannotations;
+
+import android.content.Context;
+import android.content.ContextWrapper;
+import android.hardware.Sensor;
+import android.hardware.SensorEvent;
+import android.hardware.SensorEventListener;
+import android.hardware.TriggerEventListener;
+import com.dvoiss.sensorannotations.internal.AbstractSensorBinder;
+import com.dvoiss.sensorannotations.internal.SensorCatalog;
+import com.dvoiss.sensorannotations.internal.SensorDriver;
+import com.dvoiss.sensorannotations.internal.SensorEventListenerWrapper;
+import com.dvoiss.sensorannotations.simulation.SensorSimulator;
+import com.dvoiss.sensorannotations.simulation.Waveforms;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static com.google.common.truth.Truth.assertThat;
+
+/**
+ * Binds and unbinds 10 and 10,000 targets with {@link SensorAnnotations#bindAll}. The calls to
+ * the underlying driver don't grow with the number of targets, only the first bind registers
+ * with it and the last unbind unregisters.
+ */
+public class BindScalabilityTest {
+    private static final int FEW_TARGETS = 10;
+    private static final int MANY_TARGETS = 10000;
+
+    private final Context mContext = new ContextWrapper(null);
+    private SensorSimulator mSimulator;
+    private CountingSensorDriver mSensorDriver;
+
+    @Before
+    public void setUp() {
+        SensorAnnotations.BINDER_CACHE.clear();
+        SensorAnnotations.BOUND_BINDERS.clear();
+        mSimulator = new SensorSimulator();
+        mSimulator.addSensor(Sensor.TYPE_ACCELEROMETER, "Accelerometer", 3,
+            Waveforms.constant(0, 0, 9.81f));
+        mSensorDriver = new CountingSensorDriver(mSimulator);
+        SensorCatalog.setInstance(new SensorCatalog(mSensorDriver));
+    }
+
+    @After
+    public void tearDown() {
+        mSimulator.close();
+        SensorCatalog.setInstance(null);
+    }
+
+    @Test
+    public void targetsOfAClassHaveTheirOwnBinder() throws InterruptedException {
+        List<Target> targets = createTargets(10);
+        SensorAnnotations.bindAll(targets, mContext);
+        assertThat(mSimulator.getListenerCount()).isEqualTo(1);
+        for (Target target : targets) {
+            assertThat(target.mFirstEvent.await(5, TimeUnit.SECONDS)).isTrue();
+        }
+
+        SensorAnnotations.unbind(targets.get(0));
+        assertThat(mSimulator.getListenerCount()).isEqualTo(1);
+        SensorAnnotations.unbindAll(targets);
+        assertThat(mSimulator.getListenerCount()).isEqualTo(0);
+        assertThat(SensorAnnotations.BOUND_BINDERS).isEmpty();
+    }
+
+    @Test
+    public void driverCallsDontGrowWithTheTargets() {
+        for (int targetCount : new int[] { FEW_TARGETS, MANY_TARGETS }) {
+            List<Target> targets = createTargets(targetCount);
+            mSensorDriver.mRegisterCount = 0;
+            mSensorDriver.mUnregisterCount = 0;
+
+            SensorAnnotations.bindAll(targets, mContext);
+            assertThat(SensorAnnotations.BOUND_BINDERS).hasSize(targetCount);
+            assertThat(mSensorDriver.mRegisterCount).isEqualTo(1);
+            assertThat(mSensorDriver.mUnregisterCount).isEqualTo(0);
+
+            SensorAnnotations.unbindAll(targets);
+            assertThat(SensorAnnotations.BOUND_BINDERS).isEmpty();
+            assertThat(mSensorDriver.mRegisterCount).isEqualTo(1);
+            assertThat(mSensorDriver.mUnregisterCount).isEqualTo(1);
+        }
+
+        // The sensor is looked up once for all targets of both sizes.
+        assertThat(mSensorDriver.mLookupCount).isEqualTo(1);
+    }
+
+    private static List<Target> createTargets(int count) {
+        List<Target> targets = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            targets.add(new Target());
+        }
+        return targets;
+    }
+
+    public static final class Target {
+        final CountDownLatch mFirstEvent = new CountDownLatch(1);
+
+        void onAccelerometerChanged(SensorEvent event) {
+            mFirstEvent.countDown();
+        }
+    }
+
+    /**
+     * Counts the calls of the shared registrations to the simulator.
+     */
+    private static final class CountingSensorDriver implements SensorDriver {
+        private final SensorDriver mSensorDriver;
+        int mLookupCount;
+        int mRegisterCount;
+        int mUnregisterCount;
+
+        CountingSensorDriver(SensorDriver sensorDriver) {
+            mSensorDriver = sensorDriver;
+        }
+
+        @Override
+        public Sensor getDefaultSensor(int sensorType) {
+            mLookupCount++;
+            return mSensorDriver.getDefaultSensor(sensorType);
+        }
+
+        @Override
+        public List<Sensor> getSensorList(int sensorType) {
+            mLookupCount++;
+            return mSensorDriver.getSensorList(sensorType);
+        }
+
+        @Override
+        public boolean registerListener(SensorEventListener listener, Sensor sensor, int delay) {
+            mRegisterCount++;
+            return mSensorDriver.registerListener(listener, sensor, delay);
+        }
+
+        @Override
+        public void unregisterListener(SensorEventListener listener, Sensor sensor) {
+            mUnregisterCount++;
+            mSensorDriver.unregisterListener(listener, sensor);
+        }
+
+        @Override
+        public boolean requestTriggerSensor(TriggerEventListener listener, Sensor sensor) {
+            return mSensorDriver.requestTriggerSensor(listener, sensor);
+        }
+
+        @Override
+        public void cancelTriggerSensor(TriggerEventListener listener, Sensor sensor) {
+            mSensorDriver.cancelTriggerSensor(listener, sensor);
+        }
+    }
+
+    /**
+     * The binder the processor generates for {@link Target}, found by its name.
+     */
+    public static final class Target$$SensorBinder extends AbstractSensorBinder<Target> {
+        public Target$$SensorBinder(Context context, final Target target) {
+            super(context, target);
+            addListener(new SensorEventListenerWrapper(Sensor.TYPE_ACCELEROMETER, 10000,
+                new SensorEventListener() {
+                    @Override
+                    public void onSensorChanged(SensorEvent event) {
+                        target.onAccelerometerChanged(event);
+                    }
+
+                    @Override
+                    public void onAccuracyChanged(Sensor sensor, int accuracy) {}
+                }));
+        }
+    }
+}
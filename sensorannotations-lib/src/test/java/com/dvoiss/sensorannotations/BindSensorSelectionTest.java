@@ -0,0 +1,138 @@
+package com.dvoiss.sensorannotations;
+
+import org.junit.Test;
+
+import static com.dvoiss.sensorannotations.TestUtils.shouldFailWithError;
+import static com.dvoiss.sensorannotations.TestUtils.shouldGenerateBindingSource;
+
+public class BindSensorSelectionTest {
+
+    @Test
+    public void bindSensorSelectionFailsWithDifferentSelections() {
+        String source = "package test;\n"
+            + "\n"
+            + "import android.app.Activity;\n"
+            + "import android.hardware.Sensor;\n"
+            + "import android.hardware.SensorEvent;\n"
+            + "import com.dvoiss.sensorannotations.OnAccuracyChanged;\n"
+            + "import com.dvoiss.sensorannotations.OnSensorChanged;\n"
+            + "import com.dvoiss.sensorannotations.WakeUp;\n"
+            + "\n"
+            + "public class Test extends Activity {\n"
+            + "    @OnSensorChanged(value = Sensor.TYPE_PROXIMITY, wakeUp = WakeUp.WAKE_UP)\n"
+            + "    void testProximitySensorChanged(SensorEvent event) {}\n"
+            + "\n"
+            + "    @OnAccuracyChanged(value = Sensor.TYPE_PROXIMITY, wakeUp = WakeUp.NON_WAKE_UP)\n"
+            + "    void testProximityAccuracyChanged(Sensor sensor, int accuracy) {}\n"
+            + "}\n";
+
+        String error =
+            "The annotations of sensor type 8 select different sensors. Use the same wakeUp, nameMatches, vendorMatches and all values. (Test.testProximityAccuracyChanged)";
+
+        shouldFailWithError(source, error);
+    }
+
+    @Test
+    public void bindSensorSelectionFailsWithStatsOfAllSensors() {
+        String source = "package test;\n"
+            + "\n"
+            + "import android.app.Activity;\n"
+            + "import android.hardware.Sensor;\n"
+            + "import android.hardware.SensorEvent;\n"
+            + "import com.dvoiss.sensorannotations.OnSensorChanged;\n"
+            + "import com.dvoiss.sensorannotations.OnSensorStats;\n"
+            + "import com.dvoiss.sensorannotations.SensorStats;\n"
+            + "\n"
+            + "public class Test extends Activity {\n"
+            + "    @OnSensorChanged(value = Sensor.TYPE_ACCELEROMETER, all = true)\n"
+            + "    void testAccelerometerSensorChanged(SensorEvent event) {}\n"
+            + "\n"
+            + "    @OnSensorStats(Sensor.TYPE_ACCELEROMETER)\n"
+            + "    void testAccelerometerStats(SensorStats stats) {}\n"
+            + "}\n";
+
+        String error =
+            "@OnSensorStats can't be used with all = true, the statistics of several sensors can't share a window. (Test.testAccelerometerStats)";
+
+        shouldFailWithError(source, error);
+    }
+
+    @Test
+    public void bindSensorSelectionFailsWithInvalidPattern() {
+        String source = "package test;\n"
+            + "\n"
+            + "import android.app.Activity;\n"
+            + "import android.hardware.Sensor;\n"
+            + "import android.hardware.SensorEvent;\n"
+            + "import com.dvoiss.sensorannotations.OnSensorChanged;\n"
+            + "\n"
+            + "public class Test extends Activity {\n"
+            + "    @OnSensorChanged(value = Sensor.TYPE_ACCELEROMETER, nameMatches = \"BMI(\")\n"
+            + "    void testAccelerometerSensorChanged(SensorEvent event) {}\n"
+            + "}\n";
+
+        String error =
+            "The nameMatches value \"BMI(\" in @OnSensorChanged for method testAccelerometerSensorChanged is not a valid regular expression.";
+
+        shouldFailWithError(source, error);
+    }
+
+    @Test
+    public void bindSensorSelectionSucceeds() {
+        String source = "package test;\n"
+            + "\n"
+            + "import android.app.Activity;\n"
+            + "import android.hardware.Sensor;\n"
+            + "import android.hardware.SensorEvent;\n"
+            + "import com.dvoiss.sensorannotations.OnAccuracyChanged;\n"
+            + "import com.dvoiss.sensorannotations.OnSensorChanged;\n"
+            + "import com.dvoiss.sensorannotations.WakeUp;\n"
+            + "\n"
+            + "public class Test extends Activity {\n"
+            + "    @OnSensorChanged(value = Sensor.TYPE_ACCELEROMETER, wakeUp = WakeUp.NON_WAKE_UP,\n"
+            + "        vendorMatches = \"Bosch.*\", all = true)\n"
+            + "    void testAccelerometerSensorChanged(SensorEvent event) {}\n"
+            + "\n"
+            + "    @OnAccuracyChanged(Sensor.TYPE_ACCELEROMETER)\n"
+            + "    void testAccelerometerAccuracyChanged(Sensor sensor, int accuracy) {}\n"
+            + "}\n";
+
+        String bindingSource = "// This class is generated code from Sensor Lib. Do not modify!\n"
+            + "package test;\n"
+            + "\n"
+            + "import android.content.Context;\n"
+            + "import android.hardware.SensorEventListener;\n"
+            + "import com.dvoiss.sensorannotations.WakeUp;\n"
+            + "import com.dvoiss.sensorannotations.internal.AbstractSensorBinder;\n"
+            + "import com.dvoiss.sensorannotations.internal.SensorBinder;\n"
+            + "import com.dvoiss.sensorannotations.internal.SensorBinderFactory;\n"
+            + "import com.dvoiss.sensorannotations.internal.SensorEventListenerWrapper;\n"
+            + "import com.dvoiss.sensorannotations.internal.SensorSelector;\n"
+            + "import java.lang.Override;\n"
+            + "\n"
+            + "final class Test$$SensorBinder extends AbstractSensorBinder<Test> {\n"
+            + "  public Test$$SensorBinder(Context context, final Test target) {\n"
+            + "    super(context, target);\n"
+            + "    addListener(new SensorEventListenerWrapper(1, 3, new SensorSelector(WakeUp.NON_WAKE_UP, \"\", \"Bosch.*\", true), new SensorEventListener() {\n"
+            + "          @java.lang.Override\n"
+            + "          public void onSensorChanged(android.hardware.SensorEvent event) {\n"
+            + "            target.testAccelerometerSensorChanged(event);\n"
+            + "          }\n"
+            + "          @java.lang.Override\n"
+            + "          public void onAccuracyChanged(android.hardware.Sensor sensor, int accuracy) {\n"
+            + "            target.testAccelerometerAccuracyChanged(sensor, accuracy);\n"
+            + "          }\n"
+            + "        }));\n"
+            + "  }\n"
+            + "\n"
+            + "  public static final class Factory implements SensorBinderFactory<Test> {\n"
+            + "    @Override\n"
+            + "    public SensorBinder<Test> create(Context context, Test target) {\n"
+            + "      return new Test$$SensorBinder(context, target);\n"
+            + "    }\n"
+            + "  }\n"
+            + "}\n";
+
+        shouldGenerateBindingSource(source, bindingSource);
+    }
+}
@@ -0,0 +1,83 @@
+package com.dvoiss.sensorannotations;
+
+import android.content.Context;
+import com.dvoiss.sensorannotations.internal.SensorBinder;
+import com.dvoiss.sensorannotations.internal.SensorBinderFactory;
+import org.junit.Test;
+
+import static com.google.common.truth.Truth.assertThat;
+
+public class BinderCacheTest {
+    private final SensorBinderFactory mFactory = new SensorBinderFactory<Object>() {
+        @Override
+        public SensorBinder<Object> create(Context context, Object target) {
+            throw new UnsupportedOperationException();
+        }
+    };
+
+    @Test
+    public void countsHitsAndMisses() {
+        BinderCache cache = new BinderCache(4);
+        assertThat(cache.get(String.class)).isNull();
+        cache.put(String.class, mFactory);
+        assertThat(cache.get(String.class)).isSameAs(mFactory);
+        assertThat(cache.get(String.class)).isSameAs(mFactory);
+
+        BinderCacheStats stats = cache.getStats();
+        assertThat(stats.getSize()).isEqualTo(1);
+        assertThat(stats.getCapacity()).isEqualTo(4);
+        assertThat(stats.getHitCount()).isEqualTo(2);
+        assertThat(stats.getMissCount()).isEqualTo(1);
+        assertThat(stats.getEvictionCount()).isEqualTo(0);
+    }
+
+    @Test
+    public void evictsTheLeastRecentlyUsedClass() {
+        BinderCache cache = new BinderCache(2);
+        cache.put(String.class, mFactory);
+        cache.put(Integer.class, mFactory);
+        cache.get(String.class);
+        cache.put(Long.class, mFactory);
+
+        assertThat(cache.containsKey(String.class)).isTrue();
+        assertThat(cache.containsKey(Integer.class)).isFalse();
+        assertThat(cache.containsKey(Long.class)).isTrue();
+        assertThat(cache.getStats().getEvictionCount()).isEqualTo(1);
+
+        cache.setCapacity(1);
+        assertThat(cache.size()).isEqualTo(1);
+        assertThat(cache.containsKey(Long.class)).isTrue();
+        assertThat(cache.getStats().getEvictionCount()).isEqualTo(2);
+    }
+
+    @Test
+    public void keepsTheFactoriesAcrossGarbageCollections() {
+        BinderCache cache = new BinderCache(4);
+        cache.put(String.class, new SensorBinderFactory<Object>() {
+            @Override
+            public SensorBinder<Object> create(Context context, Object target) {
+                throw new UnsupportedOperationException();
+            }
+        });
+        System.gc();
+
+        assertThat(cache.get(String.class)).isNotNull();
+        BinderCacheStats stats = cache.getStats();
+        assertThat(stats.getHitCount()).isEqualTo(1);
+        assertThat(stats.getMissCount()).isEqualTo(0);
+        assertThat(stats.getEvictionCount()).isEqualTo(0);
+    }
+
+    @Test
+    public void dropsTheClassesOfCollectedClassLoaders() {
+        BinderCache cache = new BinderCache(4);
+        cache.put(String.class, mFactory);
+        cache.put(Integer.class, mFactory);
+        cache.clearClassReference(String.class);
+
+        assertThat(cache.size()).isEqualTo(1);
+        assertThat(cache.containsKey(String.class)).isFalse();
+        assertThat(cache.containsKey(Integer.class)).isTrue();
+        assertThat(cache.getStats().getEvictionCount()).isEqualTo(1);
+    }
+}
@@ -0,0 +1,104 @@
+package com.dvoiss.sensorannotations;
+
+import android.content.Context;
+import android.content.ContextWrapper;
+import com.dvoiss.sensorannotations.internal.AbstractSensorBinder;
+import com.dvoiss.sensorannotations.internal.SensorBinder;
+import com.dvoiss.sensorannotations.internal.SensorBinderFactory;
+import com.dvoiss.sensorannotations.internal.SensorCatalog;
+import com.dvoiss.sensorannotations.simulation.SensorSimulator;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static com.google.common.truth.Truth.assertThat;
+
+/**
+ * Binds targets whose binder has a generated {@code Factory} and targets whose binder is created
+ * with its constructor by reflection.
+ */
+public class BinderFactoryTest {
+    private static final int TARGET_COUNT = 1000;
+
+    private final Context mContext = new ContextWrapper(null);
+    private SensorSimulator mSimulator;
+
+    @Before
+    public void setUp() {
+        SensorAnnotations.BINDER_CACHE.clear();
+        SensorAnnotations.BOUND_BINDERS.clear();
+        mSimulator = new SensorSimulator();
+        SensorCatalog.setInstance(new SensorCatalog(mSimulator));
+    }
+
+    @After
+    public void tearDown() {
+        mSimulator.close();
+        SensorCatalog.setInstance(null);
+    }
+
+    @Test
+    public void usesTheGeneratedFactory() {
+        SensorAnnotations.bind(new FactoryTarget(), mContext);
+        SensorAnnotations.bind(new ReflectiveTarget(), mContext);
+
+        assertThat(SensorAnnotations.BINDER_CACHE.get(FactoryTarget.class))
+            .isInstanceOf(FactoryTarget$$SensorBinder.Factory.class);
+        assertThat(SensorAnnotations.BINDER_CACHE.get(ReflectiveTarget.class))
+            .isNotInstanceOf(FactoryTarget$$SensorBinder.Factory.class);
+        assertThat(SensorAnnotations.BOUND_BINDERS).hasSize(2);
+    }
+
+    @Test
+    public void everyTargetHasItsOwnBinder() {
+        List<Object> targets = new ArrayList<>();
+        for (int i = 0; i < TARGET_COUNT; i++) {
+            targets.add(i % 2 == 0 ? new FactoryTarget() : new ReflectiveTarget());
+        }
+
+        SensorAnnotations.bindAll(targets, mContext);
+        assertThat(SensorAnnotations.BOUND_BINDERS).hasSize(TARGET_COUNT);
+        assertThat(SensorAnnotations.BOUND_BINDERS.get(targets.get(0)))
+            .isInstanceOf(FactoryTarget$$SensorBinder.class);
+        assertThat(SensorAnnotations.BOUND_BINDERS.get(targets.get(1)))
+            .isInstanceOf(ReflectiveTarget$$SensorBinder.class);
+        assertThat(SensorAnnotations.BOUND_BINDERS.get(targets.get(0)))
+            .isNotSameAs(SensorAnnotations.BOUND_BINDERS.get(targets.get(2)));
+
+        SensorAnnotations.unbindAll(targets);
+        assertThat(SensorAnnotations.BOUND_BINDERS).isEmpty();
+    }
+
+    public static final class FactoryTarget {}
+
+    public static final class ReflectiveTarget {}
+
+    /**
+     * The binder the processor generates for {@link FactoryTarget}.
+     */
+    public static final class FactoryTarget$$SensorBinder
+        extends AbstractSensorBinder<FactoryTarget> {
+        public FactoryTarget$$SensorBinder(Context context, final FactoryTarget target) {
+            super(context, target);
+        }
+
+        public static final class Factory implements SensorBinderFactory<FactoryTarget> {
+            @Override
+            public SensorBinder<FactoryTarget> create(Context context, FactoryTarget target) {
+                return new FactoryTarget$$SensorBinder(context, target);
+            }
+        }
+    }
+
+    /**
+     * A binder generated before binders had a factory.
+     */
+    public static final class ReflectiveTarget$$SensorBinder
+        extends AbstractSensorBinder<ReflectiveTarget> {
+        public ReflectiveTarget$$SensorBinder(Context context, final ReflectiveTarget target) {
+            super(context, target);
+        }
+    }
+}
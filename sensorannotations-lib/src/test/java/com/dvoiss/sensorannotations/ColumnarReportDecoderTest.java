@@ -0,0 +1,118 @@
+package com.dvoiss.sensorannotations;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Test;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.Assert.fail;
+
+public class ColumnarReportDecoderTest {
+    private static final int REPORT_SIZE = SensorDirectReportReader.REPORT_SIZE;
+
+    @Test
+    public void decodesReportsIntoColumns() {
+        ByteBuffer buffer = createReports(10);
+        long[] timestamps = new long[4];
+        float[] x = new float[4];
+        float[] y = new float[4];
+        float[] z = new float[4];
+
+        ColumnarReportDecoder.decode(buffer, 3, 4, timestamps, x, y, z);
+
+        assertThat(timestamps).isEqualTo(new long[] { 3000, 4000, 5000, 6000 });
+        assertThat(x).isEqualTo(new float[] { 3f, 4f, 5f, 6f }, 0f);
+        assertThat(y).isEqualTo(new float[] { -3f, -4f, -5f, -6f }, 0f);
+        assertThat(z).isEqualTo(new float[] { 1.5f, 2f, 2.5f, 3f }, 0f);
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void decodingPastTheBufferThrowsException() {
+        float[] values = new float[4];
+        ColumnarReportDecoder.decode(createReports(4), 1, 4, new long[4], values, values, values);
+    }
+
+    @Test
+    public void decodingPastTheLastIndexThrowsException() {
+        float[] values = new float[4];
+        try {
+            ColumnarReportDecoder.decode(createReports(4), Integer.MAX_VALUE, 1, new long[4],
+                values, values, values);
+            fail();
+        } catch (IndexOutOfBoundsException e) {
+            // The bounds check fails, not a getter of the buffer.
+            assertThat(e.getMessage()).isEqualTo(
+                "Reports 2147483647 to 2147483648 are outside of the buffer.");
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void decodingIntoSmallArraysThrowsException() {
+        float[] values = new float[2];
+        ColumnarReportDecoder.decode(createReports(4), 0, 4, new long[4], values, values, values);
+    }
+
+    @Test
+    public void decodesLikePerRecordDecoding() {
+        int count = 10000;
+        ByteBuffer buffer = createReports(count);
+        long[] timestamps = new long[count];
+        float[] x = new float[count];
+        float[] y = new float[count];
+        float[] z = new float[count];
+
+        ColumnarReportDecoder.decode(buffer, 0, count, timestamps, x, y, z);
+
+        List<Record> records = decodePerRecord(buffer, count);
+        for (int i = 0; i < count; i++) {
+            assertThat(timestamps[i]).isEqualTo(records.get(i).mTimestamp);
+            assertThat(x[i]).isEqualTo(records.get(i).mValues[0]);
+            assertThat(y[i]).isEqualTo(records.get(i).mValues[1]);
+            assertThat(z[i]).isEqualTo(records.get(i).mValues[2]);
+        }
+    }
+
+    private static List<Record> decodePerRecord(ByteBuffer buffer, int count) {
+        ByteBuffer bytes = buffer.duplicate().order(ByteOrder.nativeOrder());
+        List<Record> records = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            int offset = i * REPORT_SIZE;
+            float[] values = new float[3];
+            for (int axis = 0; axis < 3; axis++) {
+                values[axis] = bytes.getFloat(offset + 24 + axis * 4);
+            }
+            records.add(new Record(bytes.getLong(offset + 16), values));
+        }
+
+        return records;
+    }
+
+    private static ByteBuffer createReports(int count) {
+        ByteBuffer buffer =
+            ByteBuffer.allocateDirect(count * REPORT_SIZE).order(ByteOrder.nativeOrder());
+        for (int i = 0; i < count; i++) {
+            int offset = i * REPORT_SIZE;
+            buffer.putInt(offset, REPORT_SIZE);
+            buffer.putInt(offset + 8, 1);
+            buffer.putInt(offset + 12, i + 1);
+            buffer.putLong(offset + 16, i * 1000L);
+            buffer.putFloat(offset + 24, i);
+            buffer.putFloat(offset + 28, -i);
+            buffer.putFloat(offset + 32, i / 2f);
+        }
+
+        return buffer;
+    }
+
+    private static final class Record {
+        private final long mTimestamp;
+        private final float[] mValues;
+
+        Record(long timestamp, float[] values) {
+            mTimestamp = timestamp;
+            mValues = values;
+        }
+    }
+}
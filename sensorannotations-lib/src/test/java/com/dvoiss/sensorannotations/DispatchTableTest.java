@@ -0,0 +1,158 @@
+package com.dvoiss.sensorannotations;
+
+import org.junit.Test;
+
+import static com.dvoiss.sensorannotations.TestUtils.shouldGenerateBindingSource;
+import static com.dvoiss.sensorannotations.TestUtils.shouldGenerateBindingSourceWithOptions;
+
+public class DispatchTableTest {
+    private static final String DISPATCH_TABLE_OPTION = "-Asensorannotations.dispatchTable=true";
+
+    private static final String SOURCE = "package test;\n"
+        + "\n"
+        + "import android.app.Activity;\n"
+        + "import android.hardware.Sensor;\n"
+        + "import android.hardware.SensorEvent;\n"
+        + "import com.dvoiss.sensorannotations.OnAccuracyChanged;\n"
+        + "import com.dvoiss.sensorannotations.OnSensorChanged;\n"
+        + "import com.dvoiss.sensorannotations.OnSensorStats;\n"
+        + "import com.dvoiss.sensorannotations.OnTrigger;\n"
+        + "import com.dvoiss.sensorannotations.SensorStats;\n"
+        + "import android.hardware.TriggerEvent;\n"
+        + "\n"
+        + "public class Test extends Activity {\n"
+        + "    @OnSensorChanged(Sensor.TYPE_ACCELEROMETER)\n"
+        + "    void testAccelerometerSensorChanged(SensorEvent event) {}\n"
+        + "\n"
+        + "    @OnAccuracyChanged(Sensor.TYPE_ACCELEROMETER)\n"
+        + "    void testAccelerometerAccuracyChanged(Sensor sensor, int accuracy) {}\n"
+        + "\n"
+        + "    @OnSensorStats(value = Sensor.TYPE_LIGHT, windowMs = 1000, emitEveryMs = 250)\n"
+        + "    void testLightStats(SensorStats stats) {}\n"
+        + "\n"
+        + "    @OnTrigger\n"
+        + "    void testTrigger(TriggerEvent event) {}\n"
+        + "}\n";
+
+    @Test
+    public void dispatchTableSharesOneListenerBetweenSensorTypes() {
+        String bindingSource = "// This class is generated code from Sensor Lib. Do not modify!\n"
+            + "package test;\n"
+            + "\n"
+            + "import android.content.Context;\n"
+            + "import android.hardware.SensorEventListener;\n"
+            + "import android.hardware.TriggerEventListener;\n"
+            + "import com.dvoiss.sensorannotations.internal.AbstractSensorBinder;\n"
+            + "import com.dvoiss.sensorannotations.internal.SensorBinder;\n"
+            + "import com.dvoiss.sensorannotations.internal.SensorBinderFactory;\n"
+            + "import com.dvoiss.sensorannotations.internal.SensorEventListenerWrapper;\n"
+            + "import com.dvoiss.sensorannotations.internal.TriggerEventListenerWrapper;\n"
+            + "import java.lang.Override;\n"
+            + "\n"
+            + "final class Test$$SensorBinder extends AbstractSensorBinder<Test> {\n"
+            + "  public Test$$SensorBinder(Context context, final Test target) {\n"
+            + "    super(context, target);\n"
+            + "    addListener(new TriggerEventListenerWrapper(new TriggerEventListener() {\n"
+            + "          @java.lang.Override\n"
+            + "          public void onTrigger(android.hardware.TriggerEvent event) {\n"
+            + "            target.testTrigger(event);\n"
+            + "          }\n"
+            + "        }));\n"
+            + "    final SensorEventListener dispatcher = new SensorEventListener() {\n"
+            + "          private final com.dvoiss.sensorannotations.internal.SlidingWindowStats stats5 = new com.dvoiss.sensorannotations.internal.SlidingWindowStats(1000, 250);\n"
+            + "          @java.lang.Override\n"
+            + "          public void onSensorChanged(android.hardware.SensorEvent event) {\n"
+            + "            switch (event.sensor.getType()) {\n"
+            + "              case 1:\n"
+            + "                target.testAccelerometerSensorChanged(event);\n"
+            + "                break;\n"
+            + "              case 5:\n"
+            + "                if (stats5.add(event.timestamp, event.values)) {\n"
+            + "                  target.testLightStats(stats5);\n"
+            + "                }\n"
+            + "                break;\n"
+            + "            }\n"
+            + "          }\n"
+            + "          @java.lang.Override\n"
+            + "          public void onAccuracyChanged(android.hardware.Sensor sensor, int accuracy) {\n"
+            + "            switch (sensor.getType()) {\n"
+            + "              case 1:\n"
+            + "                target.testAccelerometerAccuracyChanged(sensor, accuracy);\n"
+            + "                break;\n"
+            + "            }\n"
+            + "          }\n"
+            + "        };\n"
+            + "    addListener(new SensorEventListenerWrapper(1, 3, dispatcher));\n"
+            + "    addListener(new SensorEventListenerWrapper(5, 3, dispatcher));\n"
+            + "  }\n"
+            + "\n"
+            + "  public static final class Factory implements SensorBinderFactory<Test> {\n"
+            + "    @Override\n"
+            + "    public SensorBinder<Test> create(Context context, Test target) {\n"
+            + "      return new Test$$SensorBinder(context, target);\n"
+            + "    }\n"
+            + "  }\n"
+            + "}\n";
+
+        shouldGenerateBindingSourceWithOptions(SOURCE, bindingSource, DISPATCH_TABLE_OPTION);
+    }
+
+    @Test
+    public void dispatchTableIsDisabledByDefault() {
+        String bindingSource = "// This class is generated code from Sensor Lib. Do not modify!\n"
+            + "package test;\n"
+            + "\n"
+            + "import android.content.Context;\n"
+            + "import android.hardware.SensorEventListener;\n"
+            + "import android.hardware.TriggerEventListener;\n"
+            + "import com.dvoiss.sensorannotations.internal.AbstractSensorBinder;\n"
+            + "import com.dvoiss.sensorannotations.internal.SensorBinder;\n"
+            + "import com.dvoiss.sensorannotations.internal.SensorBinderFactory;\n"
+            + "import com.dvoiss.sensorannotations.internal.SensorEventListenerWrapper;\n"
+            + "import com.dvoiss.sensorannotations.internal.TriggerEventListenerWrapper;\n"
+            + "import java.lang.Override;\n"
+            + "\n"
+            + "final class Test$$SensorBinder extends AbstractSensorBinder<Test> {\n"
+            + "  public Test$$SensorBinder(Context context, final Test target) {\n"
+            + "    super(context, target);\n"
+            + "    addListener(new SensorEventListenerWrapper(1, 3, new SensorEventListener() {\n"
+            + "          @java.lang.Override\n"
+            + "          public void onSensorChanged(android.hardware.SensorEvent event) {\n"
+            + "            target.testAccelerometerSensorChanged(event);\n"
+            + "          }\n"
+            + "          @java.lang.Override\n"
+            + "          public void onAccuracyChanged(android.hardware.Sensor sensor, int accuracy) {\n"
+            + "            target.testAccelerometerAccuracyChanged(sensor, accuracy);\n"
+            + "          }\n"
+            + "        }));\n"
+            + "    addListener(new SensorEventListenerWrapper(5, 3, new SensorEventListener() {\n"
+            + "          private final com.dvoiss.sensorannotations.internal.SlidingWindowStats stats = new com.dvoiss.sensorannotations.internal.SlidingWindowStats(1000, 250);\n"
+            + "          @java.lang.Override\n"
+            + "          public void onSensorChanged(android.hardware.SensorEvent event) {\n"
+            + "            if (stats.add(event.timestamp, event.values)) {\n"
+            + "              target.testLightStats(stats);\n"
+            + "            }\n"
+            + "          }\n"
+            + "          @java.lang.Override\n"
+            + "          public void onAccuracyChanged(android.hardware.Sensor sensor, int accuracy) {\n"
+            + "          }\n"
+            + "        }));\n"
+            + "    addListener(new TriggerEventListenerWrapper(new TriggerEventListener() {\n"
+            + "          @java.lang.Override\n"
+            + "          public void onTrigger(android.hardware.TriggerEvent event) {\n"
+            + "            target.testTrigger(event);\n"
+            + "          }\n"
+            + "        }));\n"
+            + "  }\n"
+            + "\n"
+            + "  public static final class Factory implements SensorBinderFactory<Test> {\n"
+            + "    @Override\n"
+            + "    public SensorBinder<Test> create(Context context, Test target) {\n"
+            + "      return new Test$$SensorBinder(context, target);\n"
+            + "    }\n"
+            + "  }\n"
+            + "}\n";
+
+        shouldGenerateBindingSource(SOURCE, bindingSource);
+    }
+}
@@ -0,0 +1,217 @@
+package com.dvoiss.sensorannotations;
+
+import com.google.testing.compile.JavaFileObjects;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.Filer;
+import javax.annotation.processing.Messager;
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.annotation.processing.RoundEnvironment;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.util.Elements;
+import javax.lang.model.util.Types;
+import javax.tools.FileObject;
+import javax.tools.JavaFileManager;
+import javax.tools.JavaFileObject;
+import org.junit.Test;
+
+import static com.google.common.truth.Truth.assertAbout;
+import static com.google.common.truth.Truth.assertThat;
+import static com.google.testing.compile.JavaSourcesSubjectFactory.javaSources;
+
+/**
+ * Gradle only treats the processor as isolating if every generated file has exactly one
+ * originating element. These tests record the calls made to the {@link Filer} to verify that a
+ * binder is only generated for the classes that are part of the compilation and that it is
+ * attributed to its annotated class.
+ */
+public class IncrementalProcessingTest {
+    private static final JavaFileObject FIRST_SOURCE =
+        JavaFileObjects.forSourceString("test.First", "package test;\n"
+            + "\n"
+            + "import android.hardware.Sensor;\n"
+            + "import android.hardware.SensorEvent;\n"
+            + "import com.dvoiss.sensorannotations.OnSensorChanged;\n"
+            + "\n"
+            + "public class First {\n"
+            + "    @OnSensorChanged(Sensor.TYPE_ACCELEROMETER)\n"
+            + "    void testAccelerometerSensorChanged(SensorEvent event) {}\n"
+            + "}\n");
+
+    private static final JavaFileObject SECOND_SOURCE =
+        JavaFileObjects.forSourceString("test.Second", "package test;\n"
+            + "\n"
+            + "import android.hardware.Sensor;\n"
+            + "import com.dvoiss.sensorannotations.OnSensorNotAvailable;\n"
+            + "\n"
+            + "public class Second {\n"
+            + "    @OnSensorNotAvailable(Sensor.TYPE_LIGHT)\n"
+            + "    void testLightSensorNotAvailable() {}\n"
+            + "}\n");
+
+    private static final JavaFileObject UNANNOTATED_SOURCE =
+        JavaFileObjects.forSourceString("test.Unannotated", "package test;\n"
+            + "\n"
+            + "public class Unannotated {}\n");
+
+    @Test
+    public void eachBinderHasItsAnnotatedClassAsSingleOriginatingElement() {
+        RecordingProcessor processor = new RecordingProcessor();
+        compile(processor, FIRST_SOURCE, SECOND_SOURCE, UNANNOTATED_SOURCE);
+
+        assertThat(processor.mGeneratedFiles.keySet()).containsExactly("test.First$$SensorBinder",
+            "test.Second$$SensorBinder");
+        assertThat(processor.mGeneratedFiles.get("test.First$$SensorBinder")).containsExactly(
+            "test.First");
+        assertThat(processor.mGeneratedFiles.get("test.Second$$SensorBinder")).containsExactly(
+            "test.Second");
+    }
+
+    @Test
+    public void recompilingOneClassOnlyRegeneratesItsBinder() {
+        RecordingProcessor processor = new RecordingProcessor();
+        compile(processor, FIRST_SOURCE, SECOND_SOURCE);
+        assertThat(processor.mGeneratedFiles).hasSize(2);
+
+        // An incremental build only passes the changed source to the processor again.
+        processor = new RecordingProcessor();
+        compile(processor, SECOND_SOURCE);
+        assertThat(processor.mGeneratedFiles.keySet()).containsExactly(
+            "test.Second$$SensorBinder");
+    }
+
+    @Test
+    public void laterRoundsDoNotRegenerateBinders() {
+        RecordingProcessor processor = new RecordingProcessor();
+        compile(processor, FIRST_SOURCE);
+
+        // The generated binder triggers a second round, the binder must only be created once.
+        assertThat(processor.mRounds).isGreaterThan(1);
+        assertThat(processor.mCreatedFileCount).isEqualTo(1);
+    }
+
+    private static void compile(RecordingProcessor processor, JavaFileObject... sources) {
+        assertAbout(javaSources()).that(Arrays.asList(sources))
+            .withCompilerOptions("-Xlint:-processing")
+            .processedWith(processor)
+            .compilesWithoutError();
+    }
+
+    /**
+     * Runs the {@link SensorAnnotationsProcessor} with a {@link Filer} that records every source
+     * file created and the names of its originating elements.
+     */
+    private static class RecordingProcessor extends AbstractProcessor {
+        private final SensorAnnotationsProcessor mDelegate = new SensorAnnotationsProcessor();
+        private final Map<String, List<String>> mGeneratedFiles = new LinkedHashMap<>();
+        private int mCreatedFileCount;
+        private int mRounds;
+
+        @Override
+        public synchronized void init(final ProcessingEnvironment env) {
+            super.init(env);
+            final Filer filer = new RecordingFiler(env.getFiler());
+            mDelegate.init(new ProcessingEnvironment() {
+                @Override
+                public Map<String, String> getOptions() {
+                    return env.getOptions();
+                }
+
+                @Override
+                public Messager getMessager() {
+                    return env.getMessager();
+                }
+
+                @Override
+                public Filer getFiler() {
+                    return filer;
+                }
+
+                @Override
+                public Elements getElementUtils() {
+                    return env.getElementUtils();
+                }
+
+                @Override
+                public Types getTypeUtils() {
+                    return env.getTypeUtils();
+                }
+
+                @Override
+                public SourceVersion getSourceVersion() {
+                    return env.getSourceVersion();
+                }
+
+                @Override
+                public Locale getLocale() {
+                    return env.getLocale();
+                }
+            });
+        }
+
+        @Override
+        public Set<String> getSupportedAnnotationTypes() {
+            return mDelegate.getSupportedAnnotationTypes();
+        }
+
+        @Override
+        public SourceVersion getSupportedSourceVersion() {
+            return mDelegate.getSupportedSourceVersion();
+        }
+
+        @Override
+        public boolean process(Set<? extends TypeElement> annotations,
+            RoundEnvironment roundEnv) {
+            mRounds++;
+            return mDelegate.process(annotations, roundEnv);
+        }
+
+        private class RecordingFiler implements Filer {
+            private final Filer mFiler;
+
+            RecordingFiler(Filer filer) {
+                mFiler = filer;
+            }
+
+            @Override
+            public JavaFileObject createSourceFile(CharSequence name,
+                Element... originatingElements) throws IOException {
+                List<String> names = new ArrayList<>();
+                for (Element element : originatingElements) {
+                    names.add(((TypeElement) element).getQualifiedName().toString());
+                }
+                mGeneratedFiles.put(name.toString(), names);
+                mCreatedFileCount++;
+                return mFiler.createSourceFile(name, originatingElements);
+            }
+
+            @Override
+            public JavaFileObject createClassFile(CharSequence name,
+                Element... originatingElements) throws IOException {
+                return mFiler.createClassFile(name, originatingElements);
+            }
+
+            @Override
+            public FileObject createResource(JavaFileManager.Location location,
+                CharSequence pkg, CharSequence relativeName, Element... originatingElements)
+                throws IOException {
+                return mFiler.createResource(location, pkg, relativeName, originatingElements);
+            }
+
+            @Override
+            public FileObject getResource(JavaFileManager.Location location, CharSequence pkg,
+                CharSequence relativeName) throws IOException {
+                return mFiler.getResource(location, pkg, relativeName);
+            }
+        }
+    }
+}
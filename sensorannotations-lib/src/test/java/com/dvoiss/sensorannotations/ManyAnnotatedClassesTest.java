@@ -0,0 +1,63 @@
+package com.dvoiss.sensorannotations;
+
+import com.google.testing.compile.JavaFileObjects;
+import java.util.ArrayList;
+import java.util.List;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardLocation;
+import org.junit.Test;
+
+import static com.google.common.truth.Truth.assertAbout;
+import static com.google.testing.compile.JavaSourcesSubjectFactory.javaSources;
+
+/**
+ * Compiles a synthetic source set with 5,000 annotated methods in one round, the types the
+ * processor looks up once per round are shared by every class.
+ */
+public class ManyAnnotatedClassesTest {
+    private static final int CLASS_COUNT = 1250;
+
+    @Test
+    public void processFiveThousandAnnotatedMethods() {
+        List<JavaFileObject> sources = new ArrayList<>();
+        for (int i = 0; i < CLASS_COUNT; i++) {
+            sources.add(createSource("Test" + i));
+        }
+
+        assertAbout(javaSources()).that(sources)
+            .withCompilerOptions("-Xlint:-processing")
+            .processedWith(new SensorAnnotationsProcessor())
+            .compilesWithoutError()
+            .and()
+            .generatesFileNamed(StandardLocation.SOURCE_OUTPUT, "test", "Test0$$SensorBinder.java")
+            .and()
+            .generatesFileNamed(StandardLocation.SOURCE_OUTPUT, "test",
+                "Test" + (CLASS_COUNT - 1) + "$$SensorBinder.java");
+    }
+
+    private static JavaFileObject createSource(String className) {
+        return JavaFileObjects.forSourceString("test." + className, "package test;\n"
+            + "\n"
+            + "import android.hardware.Sensor;\n"
+            + "import android.hardware.SensorEvent;\n"
+            + "import com.dvoiss.sensorannotations.OnAccuracyChanged;\n"
+            + "import com.dvoiss.sensorannotations.OnSensorChanged;\n"
+            + "import com.dvoiss.sensorannotations.OnSensorNotAvailable;\n"
+            + "import com.dvoiss.sensorannotations.OnSensorStats;\n"
+            + "import com.dvoiss.sensorannotations.SensorStats;\n"
+            + "\n"
+            + "public class " + className + " {\n"
+            + "    @OnSensorChanged(Sensor.TYPE_ACCELEROMETER)\n"
+            + "    void testSensorChanged(SensorEvent event) {}\n"
+            + "\n"
+            + "    @OnAccuracyChanged(Sensor.TYPE_ACCELEROMETER)\n"
+            + "    void testAccuracyChanged(Sensor sensor, int accuracy) {}\n"
+            + "\n"
+            + "    @OnSensorNotAvailable(Sensor.TYPE_ACCELEROMETER)\n"
+            + "    void testSensorNotAvailable() {}\n"
+            + "\n"
+            + "    @OnSensorStats(Sensor.TYPE_LIGHT)\n"
+            + "    void testSensorStats(SensorStats stats) {}\n"
+            + "}\n");
+    }
+}
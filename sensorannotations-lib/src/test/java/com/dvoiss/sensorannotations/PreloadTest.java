@@ -0,0 +1,230 @@
+package com.dvoiss.sensorannotations;
+
+import android.content.Context;
+import android.content.ContextWrapper;
+import android.hardware.Sensor;
+import android.hardware.SensorEvent;
+import android.hardware.SensorEventListener;
+import android.hardware.TriggerEventListener;
+import com.dvoiss.sensorannotations.internal.AbstractSensorBinder;
+import com.dvoiss.sensorannotations.internal.SensorCatalog;
+import com.dvoiss.sensorannotations.internal.SensorDriver;
+import com.dvoiss.sensorannotations.internal.SensorEventListenerWrapper;
+import com.dvoiss.sensorannotations.simulation.SensorSimulator;
+import com.dvoiss.sensorannotations.simulation.Waveforms;
+import com.google.testing.compile.JavaFileObjects;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import javax.tools.JavaFileObject;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static com.google.common.truth.Truth.assertAbout;
+import static com.google.common.truth.Truth.assertThat;
+import static com.google.testing.compile.JavaSourcesSubjectFactory.javaSources;
+
+public class PreloadTest {
+    private static final JavaFileObject FIRST_SOURCE =
+        JavaFileObjects.forSourceString("test.First", "package test;\n"
+            + "\n"
+            + "import android.hardware.Sensor;\n"
+            + "import android.hardware.SensorEvent;\n"
+            + "import com.dvoiss.sensorannotations.OnSensorChanged;\n"
+            + "\n"
+            + "public class First {\n"
+            + "    @OnSensorChanged(Sensor.TYPE_LIGHT)\n"
+            + "    void testLightSensorChanged(SensorEvent event) {}\n"
+            + "\n"
+            + "    public static class Nested {\n"
+            + "        @OnSensorChanged(Sensor.TYPE_ACCELEROMETER)\n"
+            + "        void testAccelerometerSensorChanged(SensorEvent event) {}\n"
+            + "    }\n"
+            + "}\n");
+
+    private static final JavaFileObject SECOND_SOURCE =
+        JavaFileObjects.forSourceString("test.Second", "package test;\n"
+            + "\n"
+            + "import android.hardware.Sensor;\n"
+            + "import com.dvoiss.sensorannotations.OnSensorNotAvailable;\n"
+            + "\n"
+            + "public class Second {\n"
+            + "    @OnSensorNotAvailable(Sensor.TYPE_LIGHT)\n"
+            + "    void testLightSensorNotAvailable() {}\n"
+            + "}\n");
+
+    private final Context mContext = new ContextWrapper(null);
+    private SensorSimulator mSimulator;
+    private CountingSensorDriver mSensorDriver;
+
+    @Before
+    public void setUp() {
+        SensorAnnotations.BINDER_CACHE.clear();
+        SensorAnnotations.BOUND_BINDERS.clear();
+        mSimulator = new SensorSimulator();
+        mSimulator.addSensor(Sensor.TYPE_ACCELEROMETER, "Accelerometer", 3,
+            Waveforms.constant(0, 0, 9.81f));
+        mSensorDriver = new CountingSensorDriver(mSimulator);
+        SensorCatalog.setInstance(new SensorCatalog(mSensorDriver));
+    }
+
+    @After
+    public void tearDown() {
+        mSimulator.close();
+        SensorCatalog.setInstance(null);
+    }
+
+    @Test
+    public void generatesIndexOfEveryBinder() {
+        String indexSource = "// This class is generated code from Sensor Lib. Do not modify!\n"
+            + "package test.index;\n"
+            + "\n"
+            + "import com.dvoiss.sensorannotations.SensorBinderIndex;\n"
+            + "import java.lang.Override;\n"
+            + "import java.lang.String;\n"
+            + "\n"
+            + "public final class SensorIndex implements SensorBinderIndex {\n"
+            + "  @Override\n"
+            + "  public String[] getTargetClassNames() {\n"
+            + "    return new String[] {\"test.First\", \"test.First$Nested\", \"test.Second\"};\n"
+            + "  }\n"
+            + "\n"
+            + "  @Override\n"
+            + "  public int[] getSensorTypes() {\n"
+            + "    return new int[] {1, 5};\n"
+            + "  }\n"
+            + "}\n";
+
+        assertAbout(javaSources()).that(Arrays.asList(FIRST_SOURCE, SECOND_SOURCE))
+            .withCompilerOptions("-Xlint:-processing",
+                "-Asensorannotations.index=test.index.SensorIndex")
+            .processedWith(new SensorAnnotationsProcessor())
+            .compilesWithoutError()
+            .and()
+            .generatesSources(
+                JavaFileObjects.forSourceString("test/index/SensorIndex", indexSource));
+    }
+
+    @Test
+    public void generatesIndexBeforeTheLastRound() {
+        assertAbout(javaSources()).that(Arrays.asList(FIRST_SOURCE, SECOND_SOURCE))
+            .withCompilerOptions("-Xlint:processing",
+                "-Asensorannotations.index=test.index.SensorIndex")
+            .processedWith(new SensorAnnotationsProcessor())
+            .compilesWithoutWarnings();
+    }
+
+    @Test
+    public void preloadResolvesConstructorsAndSensors() {
+        SensorAnnotations.preload(mContext, Collections.<Class<?>>singletonList(Target.class),
+            new int[] { Sensor.TYPE_ACCELEROMETER });
+        assertThat(SensorAnnotations.BINDER_CACHE.containsKey(Target.class)).isTrue();
+        assertThat(mSensorDriver.mLookupCount).isEqualTo(2);
+
+        SensorAnnotations.bind(new Target(), mContext);
+        assertThat(mSensorDriver.mLookupCount).isEqualTo(2);
+        assertThat(mSimulator.getListenerCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void preloadSkipsMissingClasses() {
+        SensorAnnotations.preload(mContext,
+            new String[] { "test.Missing", Target.class.getName(), Unannotated.class.getName() },
+            new int[0]);
+        assertThat(SensorAnnotations.BINDER_CACHE.size()).isEqualTo(2);
+        assertThat(SensorAnnotations.BINDER_CACHE.get(Target.class))
+            .isNotSameAs(SensorAnnotations.NO_OP_FACTORY);
+        assertThat(SensorAnnotations.BINDER_CACHE.get(Unannotated.class))
+            .isSameAs(SensorAnnotations.NO_OP_FACTORY);
+    }
+
+    @Test
+    public void preloadRunsInTheBackground() throws InterruptedException {
+        SensorAnnotations.preload(mContext, new SensorBinderIndex() {
+            @Override
+            public String[] getTargetClassNames() {
+                return new String[] { Target.class.getName() };
+            }
+
+            @Override
+            public int[] getSensorTypes() {
+                return new int[] { Sensor.TYPE_ACCELEROMETER };
+            }
+        });
+
+        for (int i = 0; i < 100 && SensorAnnotations.BINDER_CACHE.isEmpty(); i++) {
+            Thread.sleep(10);
+        }
+        assertThat(SensorAnnotations.BINDER_CACHE.containsKey(Target.class)).isTrue();
+    }
+
+    public static final class Target {
+        void onAccelerometerChanged(SensorEvent event) {}
+    }
+
+    public static final class Unannotated {}
+
+    /**
+     * The binder the processor generates for {@link Target}, found by its name.
+     */
+    public static final class Target$$SensorBinder extends AbstractSensorBinder<Target> {
+        public Target$$SensorBinder(Context context, final Target target) {
+            super(context, target);
+            addListener(new SensorEventListenerWrapper(Sensor.TYPE_ACCELEROMETER, 10000,
+                new SensorEventListener() {
+                    @Override
+                    public void onSensorChanged(SensorEvent event) {
+                        target.onAccelerometerChanged(event);
+                    }
+
+                    @Override
+                    public void onAccuracyChanged(Sensor sensor, int accuracy) {}
+                }));
+        }
+    }
+
+    /**
+     * Counts the sensor lookups, which the catalog caches.
+     */
+    private static final class CountingSensorDriver implements SensorDriver {
+        private final SensorDriver mSensorDriver;
+        private int mLookupCount;
+
+        CountingSensorDriver(SensorDriver sensorDriver) {
+            mSensorDriver = sensorDriver;
+        }
+
+        @Override
+        public Sensor getDefaultSensor(int sensorType) {
+            mLookupCount++;
+            return mSensorDriver.getDefaultSensor(sensorType);
+        }
+
+        @Override
+        public List<Sensor> getSensorList(int sensorType) {
+            mLookupCount++;
+            return mSensorDriver.getSensorList(sensorType);
+        }
+
+        @Override
+        public boolean registerListener(SensorEventListener listener, Sensor sensor, int delay) {
+            return mSensorDriver.registerListener(listener, sensor, delay);
+        }
+
+        @Override
+        public void unregisterListener(SensorEventListener listener, Sensor sensor) {
+            mSensorDriver.unregisterListener(listener, sensor);
+        }
+
+        @Override
+        public boolean requestTriggerSensor(TriggerEventListener listener, Sensor sensor) {
+            return mSensorDriver.requestTriggerSensor(listener, sensor);
+        }
+
+        @Override
+        public void cancelTriggerSensor(TriggerEventListener listener, Sensor sensor) {
+            mSensorDriver.cancelTriggerSensor(listener, sensor);
+        }
+    }
+}
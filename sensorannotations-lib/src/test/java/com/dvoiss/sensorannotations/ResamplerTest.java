@@ -0,0 +1,128 @@
+package com.dvoiss.sensorannotations;
+
+import com.dvoiss.sensorannotations.internal.Resampler;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.junit.Test;
+
+import static com.google.common.truth.Truth.assertThat;
+
+public class ResamplerTest {
+    private static final long START = TimeUnit.SECONDS.toNanos(100);
+    private static final long GRID_PERIOD = TimeUnit.MILLISECONDS.toNanos(10);
+    private static final double SIGNAL_HZ = 2;
+
+    private final List<Long> mTimestamps = new ArrayList<>();
+    private final List<Float> mValues = new ArrayList<>();
+
+    @Test
+    public void upsamplesAJitteryStream() {
+        Resampler resampler = new Resampler(100, Interpolation.LINEAR);
+        feedSine(resampler, 25, 0.2, TimeUnit.SECONDS.toNanos(2));
+
+        assertUniformGrid(200);
+        // Interpolating linearly between events up to h = 48 ms apart is off by at most
+        // h^2 / 8 * (2 pi f)^2, about 0.045 for a 2 Hz sine.
+        assertMatchesSine(0.05);
+    }
+
+    @Test
+    public void downsamplesAJitteryStream() {
+        Resampler resampler = new Resampler(100, Interpolation.LINEAR);
+        feedSine(resampler, 400, 0.2, TimeUnit.SECONDS.toNanos(2));
+
+        assertUniformGrid(200);
+        // About 2e-4 for events up to 3 ms apart.
+        assertMatchesSine(0.001);
+    }
+
+    @Test
+    public void nearestUsesTheClosestEvent() {
+        Resampler resampler = new Resampler(10, Interpolation.NEAREST);
+        add(resampler, START, 1);
+        add(resampler, START + TimeUnit.MILLISECONDS.toNanos(140), 2);
+        add(resampler, START + TimeUnit.MILLISECONDS.toNanos(200), 3);
+
+        assertThat(mTimestamps).containsExactly(START, START + 100000000L, START + 200000000L)
+            .inOrder();
+        assertThat(mValues).containsExactly(1f, 2f, 3f).inOrder();
+    }
+
+    @Test
+    public void keepsTheGridOfRatesWithoutAWholePeriod() {
+        Resampler resampler = new Resampler(3, Interpolation.LINEAR);
+        add(resampler, START, 0);
+        add(resampler, START + TimeUnit.SECONDS.toNanos(1), 3);
+        add(resampler, START + TimeUnit.SECONDS.toNanos(2), 6);
+
+        assertThat(mTimestamps).hasSize(7);
+        assertThat(mTimestamps.get(3)).isEqualTo(START + TimeUnit.SECONDS.toNanos(1));
+        assertThat(mTimestamps.get(6)).isEqualTo(START + TimeUnit.SECONDS.toNanos(2));
+        assertThat(mValues.get(1)).isWithin(1e-5f).of(1f);
+        assertThat(mValues.get(5)).isWithin(1e-5f).of(5f);
+    }
+
+    @Test
+    public void restartsTheGridAfterAGap() {
+        Resampler resampler = new Resampler(100, Interpolation.LINEAR);
+        add(resampler, START, 0);
+        add(resampler, START + GRID_PERIOD, 1);
+        long restart = START + TimeUnit.SECONDS.toNanos(60) + 1234;
+        add(resampler, restart, 2);
+
+        assertThat(mTimestamps).containsExactly(START, START + GRID_PERIOD, restart).inOrder();
+    }
+
+    @Test
+    public void ignoresEventsOutOfOrder() {
+        Resampler resampler = new Resampler(100, Interpolation.LINEAR);
+        add(resampler, START, 0);
+        add(resampler, START + 2 * GRID_PERIOD, 2);
+        add(resampler, START + GRID_PERIOD, 5);
+        add(resampler, START + 3 * GRID_PERIOD, 3);
+
+        assertThat(mValues).containsExactly(0f, 1f, 2f, 3f).inOrder();
+    }
+
+    /**
+     * Feed a {@link #SIGNAL_HZ} sine sampled at a rate with a random jitter of a fraction of the
+     * period, and drain the grid after every event like the generated listener.
+     */
+    private void feedSine(Resampler resampler, int hz, double jitter, long durationNanos) {
+        Random random = new Random(7);
+        long period = TimeUnit.SECONDS.toNanos(1) / hz;
+        for (long t = 0; t <= durationNanos; t += period) {
+            long timestamp = START + t + (long) ((random.nextDouble() - 0.5) * jitter * period);
+            add(resampler, Math.max(START, timestamp), (float) sine(timestamp - START));
+        }
+    }
+
+    private void add(Resampler resampler, long timestamp, float value) {
+        resampler.add(timestamp, new float[] { value, -value });
+        while (resampler.next()) {
+            assertThat(resampler.getValues()[1]).isEqualTo(-resampler.getValues()[0]);
+            mTimestamps.add(resampler.getTimestamp());
+            mValues.add(resampler.getValues()[0]);
+        }
+    }
+
+    private void assertUniformGrid(int minimumTicks) {
+        assertThat(mTimestamps.size()).isAtLeast(minimumTicks - 1);
+        for (int i = 0; i < mTimestamps.size(); i++) {
+            assertThat(mTimestamps.get(i) - mTimestamps.get(0)).isEqualTo(i * GRID_PERIOD);
+        }
+    }
+
+    private void assertMatchesSine(double tolerance) {
+        for (int i = 0; i < mTimestamps.size(); i++) {
+            assertThat((double) mValues.get(i)).isWithin(tolerance)
+                .of(sine(mTimestamps.get(i) - START));
+        }
+    }
+
+    private static double sine(long nanos) {
+        return Math.sin(2 * Math.PI * SIGNAL_HZ * nanos / 1e9);
+    }
+}
@@ -1,16 +1,22 @@
 package com.dvoiss.sensorannotations;
 
+import android.app.Activity;
+import android.app.Application;
 import android.content.Context;
+import com.dvoiss.sensorannotations.internal.AbstractSensorBinder;
 import com.dvoiss.sensorannotations.internal.SensorBinder;
+import java.util.ArrayList;
+import java.util.List;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
 import org.robolectric.RobolectricTestRunner;
 import org.robolectric.annotation.Config;
 import org.robolectric.shadows.ShadowApplication;
 import org.robolectric.shadows.ShadowLog;
 
-import static com.dvoiss.sensorannotations.SensorAnnotations.NO_OP_VIEW_BINDER;
+import static com.dvoiss.sensorannotations.SensorAnnotations.NO_OP_FACTORY;
 import static com.google.common.truth.Truth.assertThat;
 
 @RunWith(RobolectricTestRunner.class)
@@ -22,6 +28,7 @@ public class SensorAnnotationsTest {
     public void resetBinderCache() {
         ShadowLog.stream = System.out;
         SensorAnnotations.BINDER_CACHE.clear();
+        SensorAnnotations.BOUND_BINDERS.clear();
     }
 
     @Test(expected = RuntimeException.class)
@@ -40,12 +47,18 @@ public class SensorAnnotationsTest {
         SensorAnnotations.bind(null, mContext);
     }
 
+    @Test(expected = RuntimeException.class)
+    public void nullActivityParameterForLifecycleThrowsException() {
+        class Example {}
+        SensorAnnotations.bindToLifecycle(new Example(), null);
+    }
+
     @Test
     public void bindingFrameworkPackagesAreNotCached() {
         SensorAnnotations.bind(mContext);
-        assertThat(SensorAnnotations.BINDER_CACHE).isEmpty();
+        assertThat(SensorAnnotations.BINDER_CACHE.isEmpty()).isTrue();
         SensorAnnotations.bind(new Object(), mContext);
-        assertThat(SensorAnnotations.BINDER_CACHE).isEmpty();
+        assertThat(SensorAnnotations.BINDER_CACHE.isEmpty()).isTrue();
     }
 
     @Test
@@ -53,7 +66,99 @@ public class SensorAnnotationsTest {
         class Example {}
         Example example = new Example();
         SensorAnnotations.bind(example, mContext);
-        SensorBinder sensorBinder = SensorAnnotations.BINDER_CACHE.get(example.getClass());
-        assertThat(sensorBinder).isSameAs(NO_OP_VIEW_BINDER);
+        assertThat(SensorAnnotations.BINDER_CACHE.get(example.getClass())).isSameAs(NO_OP_FACTORY);
+    }
+
+    @Test
+    public void subclassIsBoundWithTheBinderOfItsSuperclass() {
+        Child child = new Child();
+        SensorAnnotations.bind(child, mContext);
+        assertThat(SensorAnnotations.BOUND_BINDERS.get(child)).isInstanceOf(
+            Parent$$SensorBinder.class);
+        assertThat(SensorAnnotations.BINDER_CACHE.get(Child.class))
+            .isSameAs(SensorAnnotations.BINDER_CACHE.get(Parent.class));
+        assertThat(SensorAnnotations.BINDER_CACHE.size()).isEqualTo(2);
+        SensorAnnotations.unbind(child);
+    }
+
+    @Test
+    public void everyClassWithoutABinderIsCached() {
+        class Base {}
+        class Example extends Base {}
+        Example example = new Example();
+        SensorAnnotations.bind(example, mContext);
+        assertThat(SensorAnnotations.BINDER_CACHE.get(Example.class)).isSameAs(NO_OP_FACTORY);
+        assertThat(SensorAnnotations.BINDER_CACHE.get(Base.class)).isSameAs(NO_OP_FACTORY);
+        assertThat(SensorAnnotations.BINDER_CACHE.containsKey(Object.class)).isFalse();
+    }
+
+    @Test
+    public void lifecycleBinderIsBound() {
+        Activity activity = Robolectric.buildActivity(Activity.class).create().get();
+        Parent parent = new Parent();
+        SensorAnnotations.bindToLifecycle(parent, activity);
+        SensorBinder sensorBinder = SensorAnnotations.BOUND_BINDERS.get(parent);
+        assertThat(sensorBinder).isInstanceOf(ActivityLifecycleBinder.class);
+
+        // Binding the target again uses the binder of the lifecycle.
+        SensorAnnotations.bind(parent, mContext);
+        assertThat(SensorAnnotations.BOUND_BINDERS.get(parent)).isSameAs(sensorBinder);
+        SensorAnnotations.unbind(parent);
+        assertThat(SensorAnnotations.BOUND_BINDERS).isEmpty();
+    }
+
+    @Test
+    @Config(application = CallbackApplication.class)
+    public void unbindRemovesTheLifecycleCallbacks() {
+        Activity activity = Robolectric.buildActivity(Activity.class).create().get();
+        CallbackApplication application = (CallbackApplication) activity.getApplication();
+        Parent parent = new Parent();
+        SensorAnnotations.bindToLifecycle(parent, activity);
+        assertThat(application.mCallbacks).contains(SensorAnnotations.BOUND_BINDERS.get(parent));
+
+        SensorAnnotations.unbind(parent);
+        for (Application.ActivityLifecycleCallbacks callbacks : application.mCallbacks) {
+            assertThat(callbacks).isNotInstanceOf(ActivityLifecycleBinder.class);
+        }
+    }
+
+    @Test(expected = RuntimeException.class)
+    public void boundTargetCantBeBoundToALifecycle() {
+        Activity activity = Robolectric.buildActivity(Activity.class).create().get();
+        Parent parent = new Parent();
+        SensorAnnotations.bind(parent, mContext);
+        SensorAnnotations.bindToLifecycle(parent, activity);
+    }
+
+    public static class Parent {}
+
+    /**
+     * Records the registered lifecycle callbacks.
+     */
+    public static final class CallbackApplication extends Application {
+        final List<ActivityLifecycleCallbacks> mCallbacks = new ArrayList<>();
+
+        @Override
+        public void registerActivityLifecycleCallbacks(ActivityLifecycleCallbacks callback) {
+            super.registerActivityLifecycleCallbacks(callback);
+            mCallbacks.add(callback);
+        }
+
+        @Override
+        public void unregisterActivityLifecycleCallbacks(ActivityLifecycleCallbacks callback) {
+            super.unregisterActivityLifecycleCallbacks(callback);
+            mCallbacks.remove(callback);
+        }
+    }
+
+    public static class Child extends Parent {}
+
+    /**
+     * A binder like the processor generates for {@link Parent}, without a factory.
+     */
+    public static final class Parent$$SensorBinder extends AbstractSensorBinder<Parent> {
+        public Parent$$SensorBinder(Context context, Parent target) {
+            super(context, target);
+        }
     }
 }
@@ -0,0 +1,90 @@
+package com.dvoiss.sensorannotations;
+
+import com.dvoiss.sensorannotations.internal.SensorClock;
+import com.google.common.collect.Range;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.junit.Test;
+
+import static com.google.common.truth.Truth.assertThat;
+
+public class SensorClockTest {
+    private static final long EPOCH_NANOS = TimeUnit.DAYS.toNanos(20000);
+    private static final long PERIOD_NANOS = TimeUnit.MILLISECONDS.toNanos(5);
+
+    private final FakeWallClock mWallClock = new FakeWallClock();
+    private final SensorClock mSensorClock = new SensorClock(mWallClock);
+
+    @Test
+    public void readsTheWallClockOncePerSecond() {
+        deliver(TimeUnit.SECONDS.toNanos(10), 0);
+        assertThat(mWallClock.mReadCount).isIn(Range.closed(10, 11));
+    }
+
+    @Test
+    public void estimatesTheOffsetWithoutTheDeliveryLatency() {
+        long latencyNanos = TimeUnit.MILLISECONDS.toNanos(2);
+        deliver(TimeUnit.SECONDS.toNanos(20), latencyNanos);
+
+        // The events with the smallest latency tell the offset.
+        long errorNanos = mSensorClock.getOffsetNanos() - EPOCH_NANOS;
+        assertThat(errorNanos).isAtLeast(0L);
+        assertThat(errorNanos).isLessThan(TimeUnit.MICROSECONDS.toNanos(100));
+    }
+
+    @Test
+    public void followsTheWallClockWhenItIsSet() {
+        deliver(TimeUnit.SECONDS.toNanos(10), 0);
+        // A later wall clock is followed at the end of the first window entirely after the step.
+        mWallClock.mStepNanos = TimeUnit.SECONDS.toNanos(3);
+        deliver(TimeUnit.SECONDS.toNanos(17), 0);
+        assertThat(mSensorClock.getOffsetNanos()).isEqualTo(EPOCH_NANOS + mWallClock.mStepNanos);
+
+        // An earlier one at the next calibration.
+        mWallClock.mStepNanos = -TimeUnit.SECONDS.toNanos(1);
+        deliver(TimeUnit.SECONDS.toNanos(1), 0);
+        assertThat(mSensorClock.getOffsetNanos()).isEqualTo(EPOCH_NANOS + mWallClock.mStepNanos);
+    }
+
+    @Test
+    public void convertsEveryEventWithTheOffset() {
+        long timestamp = mWallClock.mSensorTimeNanos;
+        mWallClock.mDelayNanos = 0;
+        long wallClockNanos = mSensorClock.getWallClockNanos(timestamp);
+        assertThat(wallClockNanos).isEqualTo(EPOCH_NANOS + timestamp);
+        assertThat(mSensorClock.getWallClockNanos(timestamp + PERIOD_NANOS))
+            .isEqualTo(wallClockNanos + PERIOD_NANOS);
+    }
+
+    /**
+     * Deliver events every {@link #PERIOD_NANOS} for a duration, each with a random latency of up
+     * to {@code maxLatencyNanos}.
+     */
+    private void deliver(long durationNanos, long maxLatencyNanos) {
+        Random random = new Random(42);
+        long end = mWallClock.mSensorTimeNanos + durationNanos;
+        while (mWallClock.mSensorTimeNanos < end) {
+            mWallClock.mDelayNanos = maxLatencyNanos == 0 ? 0
+                : (long) (random.nextDouble() * maxLatencyNanos);
+            mSensorClock.getWallClockNanos(mWallClock.mSensorTimeNanos);
+            mWallClock.mSensorTimeNanos += PERIOD_NANOS;
+        }
+    }
+
+    /**
+     * A wall clock {@link #EPOCH_NANOS} ahead of the sensors, reading the time an event is
+     * delivered at.
+     */
+    private static final class FakeWallClock implements SensorClock.WallClock {
+        long mSensorTimeNanos = TimeUnit.HOURS.toNanos(1);
+        long mDelayNanos;
+        long mStepNanos;
+        int mReadCount;
+
+        @Override
+        public long currentTimeNanos() {
+            mReadCount++;
+            return EPOCH_NANOS + mStepNanos + mSensorTimeNanos + mDelayNanos;
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package com.dvoiss.sensorannotations;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import org.junit.Test;
+
+import static com.google.common.truth.Truth.assertThat;
+
+public class SensorDirectReportReaderTest {
+    private static final int TYPE_ACCELEROMETER = 1;
+    private static final int TOKEN = 7;
+
+    @Test
+    public void readsTheFieldsOfAReport() {
+        ByteBuffer buffer = ByteBuffer.allocateDirect(4 * SensorDirectReportReader.REPORT_SIZE);
+        writeReport(buffer, 0, 1, 123456789L, 0.5f, -9.81f, 3f);
+
+        SensorDirectReportReader reader = new SensorDirectReportReader(buffer);
+        assertThat(reader.getReportCount()).isEqualTo(4);
+        assertThat(reader.next()).isTrue();
+        assertThat(reader.getToken()).isEqualTo(TOKEN);
+        assertThat(reader.getSensorType()).isEqualTo(TYPE_ACCELEROMETER);
+        assertThat(reader.getCounter()).isEqualTo(1L);
+        assertThat(reader.getTimestamp()).isEqualTo(123456789L);
+        assertThat(reader.getValue(1)).isEqualTo(-9.81f);
+
+        float[] values = new float[3];
+        reader.getValues(values);
+        assertThat(values).isEqualTo(new float[] { 0.5f, -9.81f, 3f }, 0f);
+
+        // Nothing new was written.
+        assertThat(reader.next()).isFalse();
+        assertThat(reader.getCounter()).isEqualTo(1L);
+    }
+
+    @Test
+    public void followsTheRingAcrossTheEnd() {
+        ByteBuffer buffer = ByteBuffer.allocateDirect(3 * SensorDirectReportReader.REPORT_SIZE);
+        SensorDirectReportReader reader = new SensorDirectReportReader(buffer);
+
+        for (int counter = 1; counter <= 10; counter++) {
+            writeReport(buffer, (counter - 1) % 3, counter, counter * 1000L, counter);
+            assertThat(reader.next()).isTrue();
+            assertThat(reader.getTimestamp()).isEqualTo(counter * 1000L);
+            assertThat(reader.getValue(0)).isEqualTo((float) counter);
+        }
+
+        assertThat(reader.next()).isFalse();
+        assertThat(reader.getDroppedCount()).isEqualTo(0L);
+    }
+
+    @Test
+    public void countsOverwrittenReports() {
+        ByteBuffer buffer = ByteBuffer.allocateDirect(3 * SensorDirectReportReader.REPORT_SIZE);
+        SensorDirectReportReader reader = new SensorDirectReportReader(buffer);
+
+        // The writer laps the reader: reports 1 to 5 are written before the first read.
+        for (int counter = 1; counter <= 5; counter++) {
+            writeReport(buffer, (counter - 1) % 3, counter, counter, counter);
+        }
+
+        int read = 0;
+        while (reader.next()) {
+            read++;
+        }
+
+        // Slot 0 holds report 4 and slot 1 report 5, slot 2 still holds the older report 3.
+        assertThat(read).isEqualTo(2);
+        assertThat(reader.getCounter()).isEqualTo(5L);
+        assertThat(reader.getDroppedCount()).isEqualTo(3L);
+    }
+
+    @Test
+    public void handlesTheCounterWrappingAround() {
+        ByteBuffer buffer = ByteBuffer.allocateDirect(2 * SensorDirectReportReader.REPORT_SIZE);
+        SensorDirectReportReader reader = new SensorDirectReportReader(buffer);
+
+        // Move the unsigned counter close to its maximum in steps of less than half its range.
+        int[] counters = { 0x70000000, 0xe0000000, 0xffffffff, 0, 1 };
+        for (int i = 0; i < counters.length; i++) {
+            writeReport(buffer, i % 2, counters[i], i, 0);
+            assertThat(reader.next()).isTrue();
+            assertThat(reader.getTimestamp()).isEqualTo((long) i);
+        }
+
+        assertThat(reader.getCounter()).isEqualTo(1L);
+        assertThat(reader.next()).isFalse();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void bufferSmallerThanAReportThrowsException() {
+        new SensorDirectReportReader(ByteBuffer.allocate(SensorDirectReportReader.REPORT_SIZE - 1));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void readingBeforeNextThrowsException() {
+        new SensorDirectReportReader(
+            ByteBuffer.allocate(SensorDirectReportReader.REPORT_SIZE)).getTimestamp();
+    }
+
+    private static void writeReport(ByteBuffer buffer, int slot, int counter, long timestamp,
+        float... values) {
+        ByteBuffer report = buffer.duplicate().order(ByteOrder.nativeOrder());
+        int offset = slot * SensorDirectReportReader.REPORT_SIZE;
+        report.putInt(offset, SensorDirectReportReader.REPORT_SIZE);
+        report.putInt(offset + 4, TOKEN);
+        report.putInt(offset + 8, TYPE_ACCELEROMETER);
+        report.putLong(offset + 16, timestamp);
+        for (int i = 0; i < SensorDirectReportReader.MAX_VALUE_COUNT; i++) {
+            report.putFloat(offset + 24 + i * 4, i < values.length ? values[i] : 0f);
+        }
+        // The counter is written last, like the sensor hardware does.
+        report.putInt(offset + 12, counter);
+    }
+}
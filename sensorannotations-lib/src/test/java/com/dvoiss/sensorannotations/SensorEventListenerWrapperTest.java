@@ -0,0 +1,44 @@
+package com.dvoiss.sensorannotations;
+
+import android.hardware.Sensor;
+import android.hardware.SensorEvent;
+import android.hardware.SensorEventListener;
+import android.hardware.SensorManager;
+import com.dvoiss.sensorannotations.internal.SensorBinder;
+import com.dvoiss.sensorannotations.internal.SensorEventListenerWrapper;
+import org.junit.Test;
+
+import static com.google.common.truth.Truth.assertThat;
+
+public class SensorEventListenerWrapperTest {
+    private static final SensorEventListener LISTENER = new SensorEventListener() {
+        @Override
+        public void onSensorChanged(SensorEvent event) {}
+
+        @Override
+        public void onAccuracyChanged(Sensor sensor, int accuracy) {}
+    };
+
+    @Test
+    public void minimumDelayOnlySlowsDownFasterListeners() {
+        SensorEventListenerWrapper game = new SensorEventListenerWrapper(
+            Sensor.TYPE_ACCELEROMETER, SensorManager.SENSOR_DELAY_GAME, LISTENER);
+        assertThat(game.setMinimumDelay(SensorManager.SENSOR_DELAY_NORMAL)).isTrue();
+        assertThat(game.getDelay()).isEqualTo(SensorManager.SENSOR_DELAY_NORMAL);
+
+        SensorEventListenerWrapper slow = new SensorEventListenerWrapper(
+            Sensor.TYPE_ACCELEROMETER, 500000, LISTENER);
+        assertThat(slow.setMinimumDelay(SensorManager.SENSOR_DELAY_NORMAL)).isFalse();
+        assertThat(slow.getDelay()).isEqualTo(500000);
+    }
+
+    @Test
+    public void clearingTheMinimumDelayRestoresTheDelay() {
+        SensorEventListenerWrapper wrapper = new SensorEventListenerWrapper(
+            Sensor.TYPE_ACCELEROMETER, SensorManager.SENSOR_DELAY_FASTEST, LISTENER);
+        wrapper.setMinimumDelay(SensorManager.SENSOR_DELAY_UI);
+        assertThat(wrapper.setMinimumDelay(SensorBinder.NO_MINIMUM_DELAY)).isTrue();
+        assertThat(wrapper.getDelay()).isEqualTo(SensorManager.SENSOR_DELAY_FASTEST);
+        assertThat(wrapper.setMinimumDelay(SensorBinder.NO_MINIMUM_DELAY)).isFalse();
+    }
+}
@@ -0,0 +1,141 @@
+package com.dvoiss.sensorannotations;
+
+import android.content.Context;
+import android.content.ContextWrapper;
+import android.hardware.Sensor;
+import android.hardware.SensorEvent;
+import android.hardware.SensorEventListener;
+import com.dvoiss.sensorannotations.internal.AbstractSensorBinder;
+import com.dvoiss.sensorannotations.internal.SensorCatalog;
+import com.dvoiss.sensorannotations.internal.SensorEventListenerWrapper;
+import com.dvoiss.sensorannotations.simulation.SensorSimulator;
+import com.dvoiss.sensorannotations.simulation.Waveforms;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static com.google.common.truth.Truth.assertThat;
+
+public class SensorScopeTest {
+    private final Context mContext = new ContextWrapper(null);
+    private SensorSimulator mSimulator;
+
+    @Before
+    public void setUp() {
+        SensorAnnotations.BINDER_CACHE.clear();
+        SensorAnnotations.BOUND_BINDERS.clear();
+        mSimulator = new SensorSimulator();
+        mSimulator.addSensor(Sensor.TYPE_ACCELEROMETER, "Accelerometer", 3,
+            Waveforms.constant(0, 0, 9.81f));
+        mSimulator.addSensor(Sensor.TYPE_LIGHT, "Light", 1, Waveforms.constant(100));
+        SensorCatalog.setInstance(new SensorCatalog(mSimulator));
+    }
+
+    @After
+    public void tearDown() {
+        mSimulator.close();
+        SensorCatalog.setInstance(null);
+    }
+
+    @Test
+    public void closeUnbindsEveryTarget() {
+        SensorScope scope = new SensorScope(mContext);
+        for (int i = 0; i < 100; i++) {
+            scope.bind(new Target());
+            scope.bind(new LightTarget());
+        }
+        assertThat(scope.getTargetCount()).isEqualTo(200);
+        assertThat(mSimulator.getListenerCount()).isEqualTo(2);
+
+        scope.close();
+        assertThat(scope.isClosed()).isTrue();
+        assertThat(scope.getTargetCount()).isEqualTo(0);
+        assertThat(mSimulator.getListenerCount()).isEqualTo(0);
+        assertThat(SensorAnnotations.BOUND_BINDERS).isEmpty();
+    }
+
+    @Test
+    public void closingAScopeKeepsTheTargetsOfAnotherScope() {
+        SensorScope scope = new SensorScope(mContext);
+        SensorScope otherScope = new SensorScope(mContext);
+        scope.bind(new Target());
+        otherScope.bind(new Target());
+
+        scope.close();
+        assertThat(mSimulator.getListenerCount()).isEqualTo(1);
+        otherScope.close();
+        assertThat(mSimulator.getListenerCount()).isEqualTo(0);
+    }
+
+    @Test
+    public void unbindRemovesTheTargetFromTheScope() {
+        SensorScope scope = new SensorScope(mContext);
+        Target target = new Target();
+        scope.bind(target);
+        scope.bind(target);
+        assertThat(scope.getTargetCount()).isEqualTo(1);
+
+        scope.unbind(target);
+        assertThat(scope.getTargetCount()).isEqualTo(0);
+        assertThat(mSimulator.getListenerCount()).isEqualTo(0);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void bindingInAClosedScopeThrowsException() {
+        SensorScope scope = new SensorScope(mContext);
+        scope.close();
+        scope.bind(new Target());
+    }
+
+    @Test(expected = RuntimeException.class)
+    public void nullContextParameterThrowsException() {
+        new SensorScope(null);
+    }
+
+    public static final class Target {
+        void onAccelerometerChanged(SensorEvent event) {}
+    }
+
+    public static final class LightTarget {
+        void onLightChanged(SensorEvent event) {}
+    }
+
+    /**
+     * The binder the processor generates for {@link Target}, found by its name.
+     */
+    public static final class Target$$SensorBinder extends AbstractSensorBinder<Target> {
+        public Target$$SensorBinder(Context context, final Target target) {
+            super(context, target);
+            addListener(new SensorEventListenerWrapper(Sensor.TYPE_ACCELEROMETER, 10000,
+                new SensorEventListener() {
+                    @Override
+                    public void onSensorChanged(SensorEvent event) {
+                        target.onAccelerometerChanged(event);
+                    }
+
+                    @Override
+                    public void onAccuracyChanged(Sensor sensor, int accuracy) {}
+                }));
+        }
+    }
+
+    /**
+     * The binder the processor generates for {@link LightTarget}, found by its name.
+     */
+    public static final class LightTarget$$SensorBinder
+        extends AbstractSensorBinder<LightTarget> {
+        public LightTarget$$SensorBinder(Context context, final LightTarget target) {
+            super(context, target);
+            addListener(new SensorEventListenerWrapper(Sensor.TYPE_LIGHT, 10000,
+                new SensorEventListener() {
+                    @Override
+                    public void onSensorChanged(SensorEvent event) {
+                        target.onLightChanged(event);
+                    }
+
+                    @Override
+                    public void onAccuracyChanged(Sensor sensor, int accuracy) {}
+                }));
+        }
+    }
+}
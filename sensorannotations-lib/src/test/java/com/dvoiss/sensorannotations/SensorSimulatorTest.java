@@ -0,0 +1,190 @@
+package com.dvoiss.sensorannotations;
+
+import android.content.Context;
+import android.hardware.Sensor;
+import android.hardware.SensorEvent;
+import android.hardware.SensorEventListener;
+import android.hardware.TriggerEvent;
+import android.hardware.TriggerEventListener;
+import com.dvoiss.sensorannotations.internal.AbstractSensorBinder;
+import com.dvoiss.sensorannotations.internal.SensorCatalog;
+import com.dvoiss.sensorannotations.internal.SensorEventListenerWrapper;
+import com.dvoiss.sensorannotations.internal.TriggerEventListenerWrapper;
+import com.dvoiss.sensorannotations.simulation.SensorSimulator;
+import com.dvoiss.sensorannotations.simulation.Waveforms;
+import com.google.common.collect.Range;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static com.google.common.truth.Truth.assertThat;
+
+public class SensorSimulatorTest {
+    private static final int TARGET_COUNT = 1000;
+    private static final int DELAY_US = 10000;
+
+    private SensorSimulator mSimulator;
+    private Sensor mAccelerometer;
+
+    @Before
+    public void setUp() {
+        mSimulator = new SensorSimulator();
+        mAccelerometer = mSimulator.addSensor(Sensor.TYPE_ACCELEROMETER, "Accelerometer", 3,
+            Waveforms.constant(0, 0, 9.81f));
+        SensorCatalog.setInstance(new SensorCatalog(mSimulator));
+    }
+
+    @After
+    public void tearDown() {
+        mSimulator.close();
+        SensorCatalog.setInstance(null);
+    }
+
+    @Test
+    public void deliversTheWaveformAtTheDelay() throws InterruptedException {
+        final AtomicInteger count = new AtomicInteger();
+        final float[] lastValues = new float[3];
+        SensorEventListenerWrapper wrapper = new SensorEventListenerWrapper(
+            Sensor.TYPE_ACCELEROMETER, DELAY_US, new SensorEventListener() {
+            @Override
+            public void onSensorChanged(SensorEvent event) {
+                System.arraycopy(event.values, 0, lastValues, 0, 3);
+                count.incrementAndGet();
+            }
+
+            @Override
+            public void onAccuracyChanged(Sensor sensor, int accuracy) {}
+        });
+
+        SensorCatalog catalog = SensorCatalog.getInstance(null);
+        assertThat(catalog.getDefaultSensor(Sensor.TYPE_ACCELEROMETER)).isSameAs(mAccelerometer);
+        wrapper.registerListener(catalog);
+        Thread.sleep(300);
+        wrapper.unregisterListener(catalog);
+
+        int delivered = count.get();
+        assertThat(delivered).isIn(Range.closed(10, 60));
+        assertThat(lastValues[2]).isEqualTo(9.81f);
+        assertThat(mSimulator.getListenerCount()).isEqualTo(0);
+        Thread.sleep(50);
+        assertThat(count.get()).isEqualTo(delivered);
+    }
+
+    @Test
+    public void deliversWithoutHoldingTheLock() throws InterruptedException {
+        final CountDownLatch unregistered = new CountDownLatch(1);
+        final SensorEventListener listener = new SensorEventListener() {
+            @Override
+            public void onSensorChanged(SensorEvent event) {
+                // Another thread unregisters the listener while it handles the event.
+                final SensorEventListener self = this;
+                Thread thread = new Thread(new Runnable() {
+                    @Override
+                    public void run() {
+                        mSimulator.unregisterListener(self, mAccelerometer);
+                        unregistered.countDown();
+                    }
+                });
+                thread.start();
+                try {
+                    unregistered.await(1, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+
+            @Override
+            public void onAccuracyChanged(Sensor sensor, int accuracy) {}
+        };
+
+        assertThat(mSimulator.registerListener(listener, mAccelerometer, DELAY_US)).isTrue();
+        assertThat(unregistered.await(2, TimeUnit.SECONDS)).isTrue();
+        assertThat(mSimulator.getListenerCount()).isEqualTo(0);
+        long delivered = mSimulator.getEventCount();
+        Thread.sleep(50);
+        assertThat(mSimulator.getEventCount()).isEqualTo(delivered);
+    }
+
+    @Test
+    public void triggersOnce() {
+        Sensor significantMotion = mSimulator.addSensor(Sensor.TYPE_SIGNIFICANT_MOTION,
+            "Significant motion", 1, Waveforms.constant(1));
+        final AtomicInteger count = new AtomicInteger();
+        TriggerEventListenerWrapper wrapper =
+            new TriggerEventListenerWrapper(new TriggerEventListener() {
+                @Override
+                public void onTrigger(TriggerEvent event) {
+                    count.incrementAndGet();
+                }
+            });
+
+        wrapper.registerListener(SensorCatalog.getInstance(null));
+        assertThat(mSimulator.trigger(significantMotion)).isEqualTo(1);
+        assertThat(mSimulator.trigger(significantMotion)).isEqualTo(0);
+        assertThat(count.get()).isEqualTo(1);
+    }
+
+    @Test
+    public void deliversToAThousandBoundTargets() throws InterruptedException {
+        // The events are delivered from the single scheduler thread.
+        List<LoadTarget> targets = new ArrayList<>();
+        List<LoadTarget$$SensorBinder> binders = new ArrayList<>();
+        for (int i = 0; i < TARGET_COUNT; i++) {
+            LoadTarget target = new LoadTarget();
+            LoadTarget$$SensorBinder binder = new LoadTarget$$SensorBinder(null, target);
+            binder.bind(target);
+            targets.add(target);
+            binders.add(binder);
+        }
+        // The listeners of all targets share one registration.
+        assertThat(mSimulator.getListenerCount()).isEqualTo(1);
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (mSimulator.getEventCount() < 10 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+
+        for (int i = 0; i < TARGET_COUNT; i++) {
+            binders.get(i).unbind();
+        }
+        assertThat(mSimulator.getListenerCount()).isEqualTo(0);
+        assertThat(mSimulator.getEventCount()).isAtLeast(10L);
+        for (LoadTarget target : targets) {
+            assertThat(target.mEventCount).isGreaterThan(0);
+        }
+    }
+
+    /**
+     * A target with an {@code @OnSensorChanged} method.
+     */
+    static final class LoadTarget {
+        volatile int mEventCount;
+
+        void onAccelerometerChanged(SensorEvent event) {
+            mEventCount++;
+        }
+    }
+
+    /**
+     * The binder the processor generates for {@link LoadTarget}.
+     */
+    static final class LoadTarget$$SensorBinder extends AbstractSensorBinder<LoadTarget> {
+        LoadTarget$$SensorBinder(Context context, final LoadTarget target) {
+            super(context, target);
+            addListener(new SensorEventListenerWrapper(1, DELAY_US, new SensorEventListener() {
+                @Override
+                public void onSensorChanged(SensorEvent event) {
+                    target.onAccelerometerChanged(event);
+                }
+
+                @Override
+                public void onAccuracyChanged(Sensor sensor, int accuracy) {}
+            }));
+        }
+    }
+}
@@ -0,0 +1,163 @@
+package com.dvoiss.sensorannotations;
+
+import com.dvoiss.sensorannotations.recording.SensorStreamReader;
+import com.dvoiss.sensorannotations.recording.SensorStreamWriter;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Random;
+import org.junit.Test;
+
+import static com.google.common.truth.Truth.assertThat;
+
+public class SensorStreamCodecTest {
+    private static final int TYPE_ACCELEROMETER = 1;
+    private static final long PERIOD_NANOS = 5000000L;
+
+    @Test
+    public void roundTripsSamplesExactly() throws IOException {
+        float[][] values = new float[3000][];
+        long[] timestamps = new long[values.length];
+        Random random = new Random(0);
+        long timestamp = 123456789L;
+        for (int i = 0; i < values.length; i++) {
+            // 200 Hz with some scheduling jitter and a few repeated values.
+            timestamp += PERIOD_NANOS + (random.nextInt(10) == 0 ? random.nextInt(20000) : 0);
+            timestamps[i] = timestamp;
+            values[i] = i % 7 == 0 && i > 0 ? values[i - 1] : accelerometer(random);
+        }
+        values[10] = new float[] { Float.NaN, Float.NEGATIVE_INFINITY, -0f };
+
+        byte[] bytes = write(timestamps, values, 256);
+
+        SensorStreamReader reader = new SensorStreamReader(new ByteArrayInputStream(bytes));
+        assertThat(reader.getSensorType()).isEqualTo(TYPE_ACCELEROMETER);
+        assertThat(reader.getAxisCount()).isEqualTo(3);
+        float[] decoded = new float[3];
+        for (int i = 0; i < values.length; i++) {
+            assertThat(reader.next()).isTrue();
+            assertThat(reader.getTimestamp()).isEqualTo(timestamps[i]);
+            reader.getValues(decoded);
+            for (int axis = 0; axis < 3; axis++) {
+                assertThat(Float.floatToRawIntBits(decoded[axis])).isEqualTo(
+                    Float.floatToRawIntBits(values[i][axis]));
+            }
+        }
+        assertThat(reader.next()).isFalse();
+    }
+
+    @Test
+    public void compressesARegularRecording() throws IOException {
+        int count = 200 * 60;
+        long[] timestamps = new long[count];
+        float[][] values = new float[count][];
+        Random random = new Random(1);
+        for (int i = 0; i < count; i++) {
+            timestamps[i] = i * PERIOD_NANOS;
+            values[i] = accelerometer(random);
+        }
+
+        byte[] bytes = write(timestamps, values, SensorStreamWriter.DEFAULT_BLOCK_SIZE);
+
+        // 8 bytes of timestamp and 3 floats per sample uncompressed.
+        int rawSize = count * 20;
+        assertThat(bytes.length).isLessThan(rawSize / 2);
+    }
+
+    @Test
+    public void skipsToATimestampAcrossBlocks() throws IOException {
+        int count = 1000;
+        long[] timestamps = new long[count];
+        float[][] values = new float[count][];
+        for (int i = 0; i < count; i++) {
+            timestamps[i] = i * PERIOD_NANOS;
+            values[i] = new float[] { i, -i, 0 };
+        }
+
+        byte[] bytes = write(timestamps, values, 64);
+        SensorStreamReader reader = new SensorStreamReader(new ByteArrayInputStream(bytes));
+
+        assertThat(reader.skipTo(700 * PERIOD_NANOS + 1)).isTrue();
+        assertThat(reader.getTimestamp()).isEqualTo(701 * PERIOD_NANOS);
+        assertThat(reader.getValue(0)).isEqualTo(701f);
+
+        // Skipping to an earlier timestamp stays on the next sample.
+        assertThat(reader.skipTo(0)).isTrue();
+        assertThat(reader.getValue(0)).isEqualTo(702f);
+
+        assertThat(reader.skipTo(count * PERIOD_NANOS)).isFalse();
+    }
+
+    @Test(expected = EOFException.class)
+    public void truncatedBlockThrowsException() throws IOException {
+        long[] timestamps = { 0, PERIOD_NANOS, 2 * PERIOD_NANOS };
+        float[][] values = { { 1, 2, 3 }, { 4, 5, 6 }, { 7, 8, 9 } };
+        byte[] bytes = write(timestamps, values, 64);
+
+        SensorStreamReader reader = new SensorStreamReader(
+            new ByteArrayInputStream(Arrays.copyOf(bytes, bytes.length - 2)));
+        while (reader.next()) {
+            // Read until the truncated block fails.
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void invalidHeaderThrowsException() throws IOException {
+        new SensorStreamReader(new ByteArrayInputStream(new byte[16]));
+    }
+
+    @Test
+    public void readsEveryBlockOfALongRecording() throws IOException {
+        int count = 100000;
+        Random random = new Random(2);
+        float[][] values = new float[1024][];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = accelerometer(random);
+        }
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        SensorStreamWriter writer = new SensorStreamWriter(output, TYPE_ACCELEROMETER, 3);
+        for (int i = 0; i < count; i++) {
+            writer.append(i * 1000000L, values[i & 1023]);
+        }
+        writer.close();
+
+        SensorStreamReader reader =
+            new SensorStreamReader(new ByteArrayInputStream(output.toByteArray()));
+        float[] decoded = new float[3];
+        int read = 0;
+        while (reader.next()) {
+            assertThat(reader.getTimestamp()).isEqualTo(read * 1000000L);
+            reader.getValues(decoded);
+            assertThat(decoded).isEqualTo(values[read & 1023], 0f);
+            read++;
+        }
+        assertThat(read).isEqualTo(count);
+    }
+
+    private static byte[] write(long[] timestamps, float[][] values, int blockSize)
+        throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        SensorStreamWriter writer =
+            new SensorStreamWriter(output, TYPE_ACCELEROMETER, 3, blockSize);
+        for (int i = 0; i < timestamps.length; i++) {
+            writer.append(timestamps[i], values[i]);
+        }
+        writer.close();
+        return output.toByteArray();
+    }
+
+    /**
+     * A device lying flat with sensor noise, quantized like a 16-bit accelerometer.
+     */
+    private static float[] accelerometer(Random random) {
+        float resolution = 0.0023956299f;
+        float[] values = new float[3];
+        values[0] = Math.round(random.nextGaussian() * 0.02 / resolution) * resolution;
+        values[1] = Math.round(random.nextGaussian() * 0.02 / resolution) * resolution;
+        values[2] = Math.round((9.81 + random.nextGaussian() * 0.02) / resolution) * resolution;
+        return values;
+    }
+}
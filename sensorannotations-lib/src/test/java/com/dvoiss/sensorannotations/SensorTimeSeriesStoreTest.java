@@ -0,0 +1,118 @@
+package com.dvoiss.sensorannotations;
+
+import com.dvoiss.sensorannotations.recording.SensorTimeSeriesStore;
+import com.dvoiss.sensorannotations.recording.TimeRangeCursor;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static com.google.common.truth.Truth.assertThat;
+
+public class SensorTimeSeriesStoreTest {
+    private static final int TYPE_ACCELEROMETER = 1;
+    private static final long PERIOD_NANOS = 5000000L;
+    private static final long SEGMENT_BYTES = 4096;
+
+    @Rule public TemporaryFolder mFolder = new TemporaryFolder();
+
+    @Test
+    public void queriesARangeAcrossSegments() throws IOException {
+        SensorTimeSeriesStore store = openStore(SensorTimeSeriesStore.UNLIMITED);
+        append(store, 0, 6000);
+        assertThat(store.getSegmentCount()).isGreaterThan(2);
+
+        assertRange(store.query(1500 * PERIOD_NANOS, 4500 * PERIOD_NANOS), 1500, 4500);
+        assertRange(store.query(Long.MIN_VALUE, Long.MAX_VALUE), 0, 5999);
+        assertThat(store.query(7000 * PERIOD_NANOS, Long.MAX_VALUE).next()).isFalse();
+        store.close();
+    }
+
+    @Test
+    public void recoversAfterReopening() throws IOException {
+        SensorTimeSeriesStore store = openStore(SensorTimeSeriesStore.UNLIMITED);
+        append(store, 0, 2000);
+        store.close();
+
+        // A block that was only partially written when the process died.
+        File[] segments = mFolder.getRoot().listFiles();
+        File last = segments[0];
+        for (File segment : segments) {
+            last = segment.getName().compareTo(last.getName()) > 0 ? segment : last;
+        }
+        OutputStream output = new FileOutputStream(last, true);
+        output.write(new byte[] { 0, 0, 1, 0, 0, 0 });
+        output.close();
+
+        store = openStore(SensorTimeSeriesStore.UNLIMITED);
+        assertRange(store.query(Long.MIN_VALUE, Long.MAX_VALUE), 0, 1999);
+        try {
+            store.append(10, new float[] { 0, 0, 0 });
+            throw new AssertionError("Expected an IllegalArgumentException.");
+        } catch (IllegalArgumentException expected) {
+        }
+
+        append(store, 2000, 3000);
+        assertRange(store.query(1900 * PERIOD_NANOS, Long.MAX_VALUE), 1900, 2999);
+        store.close();
+    }
+
+    @Test
+    public void deletesSegmentsOutsideTheRetention() throws IOException {
+        long retentionNanos = 2000 * PERIOD_NANOS;
+        SensorTimeSeriesStore store = openStore(retentionNanos);
+        append(store, 0, 8000);
+        store.runMaintenance();
+
+        TimeRangeCursor cursor = store.query(Long.MIN_VALUE, Long.MAX_VALUE);
+        assertThat(cursor.next()).isTrue();
+        long first = cursor.getTimestamp() / PERIOD_NANOS;
+        assertThat(first).isGreaterThan(0L);
+        assertThat(first).isAtMost(7999 - 2000L);
+        assertRange(store.query(Long.MIN_VALUE, Long.MAX_VALUE), (int) first, 7999);
+        store.close();
+    }
+
+    @Test
+    public void compactsSmallSegments() throws IOException {
+        for (int i = 0; i < 5; i++) {
+            SensorTimeSeriesStore store = openStore(SensorTimeSeriesStore.UNLIMITED);
+            append(store, i * 100, i * 100 + 100);
+            store.close();
+        }
+
+        SensorTimeSeriesStore store = openStore(SensorTimeSeriesStore.UNLIMITED);
+        assertThat(store.getSegmentCount()).isEqualTo(5);
+        store.runMaintenance();
+        assertThat(store.getSegmentCount()).isEqualTo(1);
+        assertThat(mFolder.getRoot().list()).hasLength(1);
+        assertRange(store.query(Long.MIN_VALUE, Long.MAX_VALUE), 0, 499);
+        store.close();
+    }
+
+    private SensorTimeSeriesStore openStore(long retentionNanos) throws IOException {
+        return new SensorTimeSeriesStore(mFolder.getRoot(), TYPE_ACCELEROMETER, 3, SEGMENT_BYTES,
+            retentionNanos, SensorTimeSeriesStore.UNLIMITED);
+    }
+
+    private static void append(SensorTimeSeriesStore store, int from, int to) throws IOException {
+        for (int i = from; i < to; i++) {
+            store.append(i * PERIOD_NANOS, new float[] { i, -i, i % 7 });
+        }
+    }
+
+    private static void assertRange(TimeRangeCursor cursor, int first, int last)
+        throws IOException {
+        float[] values = new float[3];
+        for (int i = first; i <= last; i++) {
+            assertThat(cursor.next()).isTrue();
+            assertThat(cursor.getTimestamp()).isEqualTo(i * PERIOD_NANOS);
+            cursor.getValues(values);
+            assertThat(values).isEqualTo(new float[] { i, -i, i % 7 }, 0f);
+        }
+        assertThat(cursor.next()).isFalse();
+    }
+}
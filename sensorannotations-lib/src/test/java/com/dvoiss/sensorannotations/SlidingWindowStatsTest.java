@@ -0,0 +1,106 @@
+package com.dvoiss.sensorannotations;
+
+import com.dvoiss.sensorannotations.internal.SlidingWindowStats;
+import java.util.Random;
+import org.junit.Test;
+
+import static com.google.common.truth.Truth.assertThat;
+
+public class SlidingWindowStatsTest {
+    private static final long MILLIS = 1000000L;
+
+    @Test
+    public void emitsOnlyAtTheEmitInterval() {
+        SlidingWindowStats stats = new SlidingWindowStats(1000, 250);
+
+        int emitted = 0;
+        for (int i = 0; i <= 1000; i++) {
+            if (stats.add(i * 10 * MILLIS, new float[] { i })) {
+                emitted++;
+            }
+        }
+
+        // 10 seconds of events at 100 Hz, emitting every 250 ms.
+        assertThat(emitted).isEqualTo(40);
+    }
+
+    @Test
+    public void evictsEventsOutsideTheWindow() {
+        SlidingWindowStats stats = new SlidingWindowStats(100, 100);
+
+        for (int i = 0; i < 50; i++) {
+            stats.add(i * 10 * MILLIS, new float[] { i });
+        }
+
+        // Events older than 100 ms relative to the last event (490 ms) are evicted.
+        assertThat(stats.getCount()).isEqualTo(10);
+        assertThat(stats.getStartTimestamp()).isEqualTo(400 * MILLIS);
+        assertThat(stats.getEndTimestamp()).isEqualTo(490 * MILLIS);
+        assertThat(stats.getMin(0)).isEqualTo(40f);
+        assertThat(stats.getMax(0)).isEqualTo(49f);
+        assertThat(stats.getMean(0)).isWithin(1e-9).of(44.5);
+    }
+
+    @Test
+    public void matchesBruteForceStatistics() {
+        Random random = new Random(42);
+        int windowMs = 500;
+        SlidingWindowStats stats = new SlidingWindowStats(windowMs, 10);
+
+        int eventCount = 20000;
+        long[] timestamps = new long[eventCount];
+        float[][] values = new float[eventCount][3];
+        long timestamp = 0;
+        for (int i = 0; i < eventCount; i++) {
+            // Jittery intervals between 1 and 9 ms so the window size changes over time.
+            timestamp += (1 + random.nextInt(9)) * MILLIS;
+            timestamps[i] = timestamp;
+            for (int axis = 0; axis < 3; axis++) {
+                values[i][axis] = (float) (random.nextGaussian() * 9.81 + axis);
+            }
+
+            if (!stats.add(timestamp, values[i])) {
+                continue;
+            }
+
+            int first = i;
+            while (first > 0 && timestamps[first - 1] > timestamp - windowMs * MILLIS) {
+                first--;
+            }
+
+            assertThat(stats.getCount()).isEqualTo(i - first + 1);
+            for (int axis = 0; axis < 3; axis++) {
+                double sum = 0;
+                double sumSquares = 0;
+                float min = Float.MAX_VALUE;
+                float max = -Float.MAX_VALUE;
+                for (int j = first; j <= i; j++) {
+                    float value = values[j][axis];
+                    sum += value;
+                    sumSquares += (double) value * value;
+                    min = Math.min(min, value);
+                    max = Math.max(max, value);
+                }
+                int count = i - first + 1;
+                double mean = sum / count;
+                double variance = 0;
+                for (int j = first; j <= i; j++) {
+                    variance += (values[j][axis] - mean) * (values[j][axis] - mean);
+                }
+                variance /= count;
+
+                assertThat(stats.getMean(axis)).isWithin(1e-6).of(mean);
+                assertThat(stats.getVariance(axis)).isWithin(1e-4).of(variance);
+                assertThat(stats.getRms(axis)).isWithin(1e-6).of(Math.sqrt(sumSquares / count));
+                assertThat(stats.getMin(axis)).isEqualTo(min);
+                assertThat(stats.getMax(axis)).isEqualTo(max);
+                assertThat(stats.getPeak(axis)).isEqualTo(Math.max(Math.abs(min), Math.abs(max)));
+            }
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void invalidWindowThrows() {
+        new SlidingWindowStats(0, 250);
+    }
+}
@@ -0,0 +1,188 @@
+package com.dvoiss.sensorannotations;
+
+import com.dvoiss.sensorannotations.internal.SpectralAnalyzer;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.junit.Assume;
+import org.junit.Test;
+
+import static com.google.common.truth.Truth.assertThat;
+
+public class SpectralAnalyzerTest {
+    private static final long START = TimeUnit.SECONDS.toNanos(100);
+    private static final int HZ = 100;
+    private static final long PERIOD = TimeUnit.SECONDS.toNanos(1) / HZ;
+    private static final float[] NO_BANDS = new float[0];
+
+    private final List<Long> mSpectrumTimestamps = new ArrayList<>();
+    private final float[] mValues = new float[3];
+
+    @Test
+    public void findsTheEnergyOfASineInTheMiddleOfABin() {
+        // 12.5 Hz is bin 32 of a 256 point window at 100 Hz.
+        SpectralAnalyzer analyzer =
+            new SpectralAnalyzer(HZ, 256, 256, 0, new float[] { 10, 15, 50 });
+        feedSine(analyzer, 0, 256, 12.5, 2);
+
+        assertThat(mSpectrumTimestamps).containsExactly(START + 255 * PERIOD);
+        assertThat(analyzer.getBinCount()).isEqualTo(129);
+        assertThat(analyzer.getPeakFrequency()).isWithin(0.01f).of(12.5f);
+        // A Hann window puts two thirds of the energy of a sine into the bin of its frequency.
+        assertThat(analyzer.getPeakPower()).isWithin(0.01f).of(4 / 3f);
+        assertThat(analyzer.getBandCount()).isEqualTo(2);
+        assertThat(analyzer.getBandEnergy(0)).isWithin(0.01f).of(2f);
+        assertThat(analyzer.getBandEnergy(1)).isWithin(0.001f).of(0f);
+        assertThat(analyzer.getBandEnergy(12f, 13f)).isWithin(0.01f).of(2f);
+    }
+
+    @Test
+    public void interpolatesThePeakOfASineBetweenBins() {
+        SpectralAnalyzer analyzer = new SpectralAnalyzer(HZ, 512, 512, 0, NO_BANDS);
+        feedSine(analyzer, 0, 512, 13.3, 1);
+
+        assertThat(mSpectrumTimestamps).hasSize(1);
+        // The bins are 0.2 Hz apart.
+        assertThat(analyzer.getPeakFrequency()).isWithin(0.05f).of(13.3f);
+        assertThat(analyzer.getBandEnergy(10f, 16f)).isWithin(0.01f).of(0.5f);
+    }
+
+    @Test
+    public void matchesADirectTransform() {
+        int size = 64;
+        SpectralAnalyzer analyzer = new SpectralAnalyzer(size, size, size, 1, NO_BANDS);
+        Random random = new Random(42);
+        double[] samples = new double[size];
+        for (int i = 0; i < size; i++) {
+            mValues[1] = (float) (random.nextGaussian() + 3);
+            samples[i] = mValues[1];
+            analyzer.add(START + i * TimeUnit.SECONDS.toNanos(1) / size, mValues);
+            assertThat(analyzer.next()).isEqualTo(i == size - 1);
+        }
+
+        double mean = 0;
+        for (double sample : samples) {
+            mean += sample / size;
+        }
+
+        // The sum of the squares of a periodic Hann window is 3 / 8 of its size.
+        double scale = 1 / (size * 3 * size / 8.0);
+        double total = 0;
+        for (int bin = 0; bin <= size / 2; bin++) {
+            double real = 0;
+            double imaginary = 0;
+            for (int i = 0; i < size; i++) {
+                double hann = 0.5 - 0.5 * Math.cos(2 * Math.PI * i / size);
+                double angle = 2 * Math.PI * bin * i / size;
+                real += (samples[i] - mean) * hann * Math.cos(angle);
+                imaginary -= (samples[i] - mean) * hann * Math.sin(angle);
+            }
+
+            double power = (real * real + imaginary * imaginary) * scale;
+            power = bin == 0 || bin == size / 2 ? power : 2 * power;
+            assertThat((double) analyzer.getPower(bin)).isWithin(1e-5).of(power);
+            total += power;
+        }
+        assertThat((double) analyzer.getBandEnergy(0f, size)).isWithin(1e-3).of(total);
+    }
+
+    @Test
+    public void transformsEveryHop() {
+        SpectralAnalyzer analyzer = new SpectralAnalyzer(HZ, 64, 16, 0, NO_BANDS);
+        feedSine(analyzer, 0, 200, 10, 1);
+
+        // The first spectrum once the window is full, then one every 16 samples.
+        assertThat(mSpectrumTimestamps).hasSize(9);
+        for (int i = 0; i < mSpectrumTimestamps.size(); i++) {
+            assertThat(mSpectrumTimestamps.get(i)).isEqualTo(START + (63 + 16 * i) * PERIOD);
+        }
+    }
+
+    @Test
+    public void transformsEveryHopOfLargeWindows() {
+        for (int size = 256; size <= 4096; size *= 2) {
+            // A hop of a quarter of the window, 64 spectra once the window is full.
+            int hop = size / 4;
+            SpectralAnalyzer analyzer = new SpectralAnalyzer(HZ, size, hop, 0, NO_BANDS);
+            mSpectrumTimestamps.clear();
+            feedSine(analyzer, 0, size + 63 * hop, 10, 1);
+            assertThat(mSpectrumTimestamps).hasSize(64);
+        }
+    }
+
+    @Test
+    public void restartsTheWindowAfterAGap() {
+        SpectralAnalyzer analyzer = new SpectralAnalyzer(HZ, 64, 64, 0, NO_BANDS);
+        feedSine(analyzer, 0, 64, 10, 1);
+        assertThat(mSpectrumTimestamps).hasSize(1);
+
+        // The next window only starts after the gap.
+        feedSine(analyzer, 564, 63, 10, 1);
+        assertThat(mSpectrumTimestamps).hasSize(1);
+        feedSine(analyzer, 627, 1, 10, 1);
+        assertThat(mSpectrumTimestamps).containsExactly(START + 63 * PERIOD, START + 627 * PERIOD)
+            .inOrder();
+    }
+
+    @Test
+    public void transformsTheMagnitudeOfTheVector() {
+        SpectralAnalyzer analyzer =
+            new SpectralAnalyzer(HZ, 256, 256, OnSpectrum.MAGNITUDE, NO_BANDS);
+        for (int i = 0; i < 256; i++) {
+            // A vector of length 9.81 + sin turning from the x axis to the y axis.
+            double length = 9.81 + Math.sin(2 * Math.PI * 12.5 * i / HZ);
+            double angle = Math.PI / 2 * i / 256;
+            mValues[0] = (float) (length * Math.cos(angle));
+            mValues[1] = (float) (length * Math.sin(angle));
+            analyzer.add(START + i * PERIOD, mValues);
+            assertThat(analyzer.next()).isEqualTo(i == 255);
+        }
+
+        assertThat(analyzer.getPeakFrequency()).isWithin(0.01f).of(12.5f);
+    }
+
+    @Test
+    public void doesNotAllocateAfterTheFirstEvent() {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        Assume.assumeTrue(bean instanceof com.sun.management.ThreadMXBean);
+        com.sun.management.ThreadMXBean threadBean = (com.sun.management.ThreadMXBean) bean;
+        Assume.assumeTrue(threadBean.isThreadAllocatedMemorySupported()
+            && threadBean.isThreadAllocatedMemoryEnabled());
+
+        SpectralAnalyzer analyzer = new SpectralAnalyzer(HZ, 1024, 256, 0, NO_BANDS);
+        long threadId = Thread.currentThread().getId();
+        countSpectra(analyzer, 0, 10000);
+        long allocatedBytes = threadBean.getThreadAllocatedBytes(threadId);
+        int spectra = countSpectra(analyzer, 10000, 100000);
+        allocatedBytes = threadBean.getThreadAllocatedBytes(threadId) - allocatedBytes;
+
+        assertThat(spectra).isEqualTo(100000 / 256);
+        // Anything allocated per event or per spectrum would add up to megabytes.
+        assertThat(allocatedBytes).isLessThan(1024L);
+    }
+
+    private void feedSine(SpectralAnalyzer analyzer, int first, int count, double hz,
+        double amplitude) {
+        for (int i = first; i < first + count; i++) {
+            mValues[0] = (float) (9.81 + amplitude * Math.sin(2 * Math.PI * hz * i / HZ));
+            analyzer.add(START + i * PERIOD, mValues);
+            while (analyzer.next()) {
+                mSpectrumTimestamps.add(analyzer.getTimestamp());
+            }
+        }
+    }
+
+    private int countSpectra(SpectralAnalyzer analyzer, int first, int count) {
+        int spectra = 0;
+        for (int i = first; i < first + count; i++) {
+            mValues[0] = (i & 7) - 3.5f;
+            analyzer.add(START + i * PERIOD, mValues);
+            while (analyzer.next()) {
+                spectra++;
+            }
+        }
+        return spectra;
+    }
+}
@@ -1,6 +1,9 @@
 package com.dvoiss.sensorannotations;
 
 import com.google.testing.compile.CompileTester;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 
 import static com.google.common.truth.Truth.assertAbout;
 import static com.google.testing.compile.JavaFileObjects.forSourceString;
@@ -12,14 +15,29 @@ class TestUtils {
     }
 
     static void shouldGenerateBindingSource(String source, String bindingSource) {
+        shouldGenerateBindingSource(source, "test/Test$$SensorBinder", bindingSource);
+    }
+
+    static void shouldGenerateBindingSource(String source, String bindingName,
+        String bindingSource) {
         getBaseCompileTester(source).compilesWithoutError()
+            .and()
+            .generatesSources(forSourceString(bindingName, bindingSource));
+    }
+
+    static void shouldGenerateBindingSourceWithOptions(String source, String bindingSource,
+        String... options) {
+        getBaseCompileTester(source, options).compilesWithoutError()
             .and()
             .generatesSources(forSourceString("test/Test$$SensorBinder", bindingSource));
     }
 
-    private static CompileTester getBaseCompileTester(String source) {
+    private static CompileTester getBaseCompileTester(String source, String... options) {
+        List<String> compilerOptions = new ArrayList<>();
+        compilerOptions.add("-Xlint:-processing");
+        compilerOptions.addAll(Arrays.asList(options));
         return assertAbout(javaSource()).that(forSourceString("test.Test", source))
-            .withCompilerOptions("-Xlint:-processing")
+            .withCompilerOptions(compilerOptions)
             .processedWith(new SensorAnnotationsProcessor());
     }
 }
@@ -0,0 +1,120 @@
+package com.dvoiss.sensorannotations;
+
+import com.dvoiss.sensorannotations.recording.MemorySampleSink;
+import com.dvoiss.sensorannotations.recording.SampleSink;
+import com.dvoiss.sensorannotations.recording.SensorStreamReader;
+import com.dvoiss.sensorannotations.recording.SensorStreamSink;
+import com.dvoiss.sensorannotations.recording.WriteBehindPipeline;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.Test;
+
+import static com.google.common.truth.Truth.assertThat;
+
+public class WriteBehindPipelineTest {
+    private static final int TYPE_ACCELEROMETER = 1;
+
+    @Test
+    public void commitsFullBatches() throws IOException {
+        MemorySampleSink sink = new MemorySampleSink();
+        // A long interval, only full batches and the final flush commit.
+        WriteBehindPipeline pipeline = new WriteBehindPipeline(sink, 3, 64, 16, 60000);
+        for (int i = 0; i < 1000; i++) {
+            while (!pipeline.offer(i, new float[] { i, -i, 2 * i })) {
+                Thread.yield();
+            }
+        }
+        pipeline.close();
+
+        assertThat(sink.isClosed()).isTrue();
+        assertThat(sink.getCount()).isEqualTo(1000);
+        for (int i = 0; i < 1000; i++) {
+            assertThat(sink.getTimestamp(i)).isEqualTo((long) i);
+            assertThat(sink.getValue(i, 0)).isEqualTo((float) i);
+            assertThat(sink.getValue(i, 2)).isEqualTo(2f * i);
+        }
+        assertThat(pipeline.getWrittenCount()).isEqualTo(1000L);
+        assertThat(pipeline.getDroppedCount()).isEqualTo(pipeline.getOfferedCount() - 1000);
+        assertThat(pipeline.getMaxPendingCount()).isAtMost(64);
+        assertThat(sink.getCommitCount()).isAtLeast(1000 / 64);
+    }
+
+    @Test
+    public void commitsAfterTheBatchInterval() throws IOException, InterruptedException {
+        MemorySampleSink sink = new MemorySampleSink();
+        WriteBehindPipeline pipeline = new WriteBehindPipeline(sink, 3, 64, 16, 20);
+        pipeline.offer(1, new float[] { 1, 2, 3 });
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (sink.getCount() == 0 && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+
+        assertThat(sink.getCount()).isEqualTo(1);
+        assertThat(pipeline.getLastLagNanos()).isAtLeast(TimeUnit.MILLISECONDS.toNanos(20));
+        pipeline.close();
+    }
+
+    @Test
+    public void dropsSamplesWhenTheRingIsFull() throws IOException, InterruptedException {
+        final CountDownLatch release = new CountDownLatch(1);
+        SampleSink blockingSink = new SampleSink() {
+            @Override
+            public void write(long[] timestamps, float[] values, int axisCount, int offset,
+                int count) {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+
+            @Override
+            public void commit() {}
+
+            @Override
+            public void close() {}
+        };
+
+        WriteBehindPipeline pipeline = new WriteBehindPipeline(blockingSink, 1, 8, 1, 1000);
+        int accepted = 0;
+        for (int i = 0; i < 100; i++) {
+            accepted += pipeline.offer(i, new float[] { i }) ? 1 : 0;
+        }
+
+        // The writer holds at most one batch while the ring is full.
+        assertThat(accepted).isAtMost(16);
+        assertThat(pipeline.getDroppedCount()).isEqualTo(100L - accepted);
+        release.countDown();
+        pipeline.close();
+        assertThat(pipeline.getWrittenCount()).isEqualTo((long) accepted);
+    }
+
+    @Test
+    public void writesAStreamThroughTheFileSink() throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        WriteBehindPipeline pipeline =
+            new WriteBehindPipeline(new SensorStreamSink(output, TYPE_ACCELEROMETER, 3), 3);
+        for (int i = 0; i < 500; i++) {
+            pipeline.offer(i * 5000000L, new float[] { i, 0, 9.81f });
+            if (i == 250) {
+                pipeline.flush();
+                assertThat(pipeline.getPendingCount()).isEqualTo(0);
+            }
+        }
+        pipeline.close();
+
+        SensorStreamReader reader =
+            new SensorStreamReader(new ByteArrayInputStream(output.toByteArray()));
+        for (int i = 0; i < 500; i++) {
+            assertThat(reader.next()).isTrue();
+            assertThat(reader.getTimestamp()).isEqualTo(i * 5000000L);
+            assertThat(reader.getValue(0)).isEqualTo((float) i);
+        }
+        assertThat(reader.next()).isFalse();
+        assertThat(pipeline.getWrittenCount()).isEqualTo(500L);
+    }
+}
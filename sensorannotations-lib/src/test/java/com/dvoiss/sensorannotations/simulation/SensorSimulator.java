@@ -0,0 +1,427 @@
+package com.dvoiss.sensorannotations.simulation;
+
+import android.hardware.Sensor;
+import android.hardware.SensorEvent;
+import android.hardware.SensorEventListener;
+import android.hardware.SensorManager;
+import android.hardware.TriggerEvent;
+import android.hardware.TriggerEventListener;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import com.dvoiss.sensorannotations.internal.SensorDriver;
+import com.dvoiss.sensorannotations.internal.SensorEventListenerWrapper;
+import java.io.Closeable;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A {@link SensorDriver} of simulated sensors for the JVM tests, to put the generated binders
+ * under load without a device:
+ *
+ * <pre>{@code
+ * SensorSimulator simulator = new SensorSimulator();
+ * simulator.addSensor(Sensor.TYPE_ACCELEROMETER, "Accelerometer", 3,
+ *     Waveforms.sine(0, 9.81f, 1));
+ * SensorCatalog.setInstance(new SensorCatalog(simulator));
+ * SensorAnnotations.bind(target, context);
+ * }</pre>
+ *
+ * Every registered listener receives events of the {@link Waveform} of its sensor at the period
+ * of its delay, from a single scheduler thread. The timestamp of an event is the {@link
+ * System#nanoTime()} it was scheduled at, so the delivery latency is the difference between
+ * {@code System.nanoTime()} in the listener and the timestamp. If the scheduler falls more than a
+ * second behind, the missed events are dropped like a full hardware FIFO would. The events are
+ * delivered without holding the lock of the simulator, so a listener can register, unregister
+ * or wait for another thread that does while handling an event.
+ *
+ * The {@link Sensor}, {@link SensorEvent} and {@link TriggerEvent} objects are created by
+ * reflection, which only works with the framework classes of the JVM test classpath.
+ */
+public final class SensorSimulator implements SensorDriver, Closeable {
+    public static final int DEFAULT_MIN_DELAY_US = 1000;
+
+    private static final long MAX_LAG_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    // Guarded by mLock.
+    @NonNull private final Object mLock = new Object();
+    @NonNull private final List<SimulatedSensor> mSensors = new ArrayList<>();
+    @NonNull private final List<Registration> mRegistrations = new ArrayList<>();
+    @NonNull private final PriorityQueue<Registration> mSchedule = new PriorityQueue<>();
+    @NonNull private final List<TriggerRequest> mTriggerRequests = new ArrayList<>();
+    @Nullable private Thread mSchedulerThread;
+    private long mEventCount;
+    private boolean mClosed;
+
+    @NonNull
+    public Sensor addSensor(int sensorType, @NonNull String name, int axisCount,
+        @NonNull Waveform waveform) {
+        return addSensor(sensorType, name, axisCount, DEFAULT_MIN_DELAY_US, waveform);
+    }
+
+    /**
+     * Add a simulated sensor, the first sensor of a type is its default sensor.
+     *
+     * @param sensorType The {@code Sensor} type.
+     * @param name The name of the sensor.
+     * @param axisCount The number of values of each event.
+     * @param minDelayUs The shortest period between events in microseconds.
+     * @param waveform The values of the events.
+     * @return The sensor.
+     */
+    @NonNull
+    public Sensor addSensor(int sensorType, @NonNull String name, int axisCount, int minDelayUs,
+        @NonNull Waveform waveform) {
+        Sensor sensor = newInstance(Sensor.class);
+        setField(sensor, "mType", sensorType);
+        setField(sensor, "mName", name);
+        setField(sensor, "mVendor", "SensorSimulator");
+        setField(sensor, "mMinDelay", minDelayUs);
+
+        synchronized (mLock) {
+            setField(sensor, "mHandle", mSensors.size() + 1);
+            mSensors.add(new SimulatedSensor(sensor, axisCount, minDelayUs, waveform));
+        }
+        return sensor;
+    }
+
+    @Nullable
+    @Override
+    public Sensor getDefaultSensor(int sensorType) {
+        synchronized (mLock) {
+            for (SimulatedSensor simulatedSensor : mSensors) {
+                if (simulatedSensor.mSensor.getType() == sensorType) {
+                    return simulatedSensor.mSensor;
+                }
+            }
+        }
+
+        return null;
+    }
+
+    @NonNull
+    @Override
+    public List<Sensor> getSensorList(int sensorType) {
+        List<Sensor> sensors = new ArrayList<>();
+        synchronized (mLock) {
+            for (SimulatedSensor simulatedSensor : mSensors) {
+                if (simulatedSensor.mSensor.getType() == sensorType) {
+                    sensors.add(simulatedSensor.mSensor);
+                }
+            }
+        }
+
+        return sensors;
+    }
+
+    @Override
+    public boolean registerListener(@NonNull SensorEventListener listener, @NonNull Sensor sensor,
+        int delay) {
+        synchronized (mLock) {
+            SimulatedSensor simulatedSensor = findSensor(sensor);
+            if (mClosed || simulatedSensor == null || findRegistration(listener, sensor) != null) {
+                return false;
+            }
+
+            long periodUs = Math.max(SensorEventListenerWrapper.getDelayPeriodUs(delay),
+                simulatedSensor.mMinDelayUs);
+            Registration registration = new Registration(listener, simulatedSensor,
+                TimeUnit.MICROSECONDS.toNanos(Math.max(1, periodUs)));
+            registration.mNextNanos = System.nanoTime() + registration.mPeriodNanos;
+            registration.mRegistered = true;
+            mRegistrations.add(registration);
+            mSchedule.add(registration);
+
+            if (mSchedulerThread == null) {
+                mSchedulerThread = new Thread(new Runnable() {
+                    @Override
+                    public void run() {
+                        runScheduler();
+                    }
+                }, "SensorSimulator");
+                mSchedulerThread.setDaemon(true);
+                mSchedulerThread.start();
+            }
+            mLock.notifyAll();
+            return true;
+        }
+    }
+
+    @Override
+    public void unregisterListener(@NonNull SensorEventListener listener, @NonNull Sensor sensor) {
+        synchronized (mLock) {
+            Registration registration = findRegistration(listener, sensor);
+            if (registration != null) {
+                registration.mRegistered = false;
+                mRegistrations.remove(registration);
+                mSchedule.remove(registration);
+            }
+        }
+    }
+
+    @Override
+    public boolean requestTriggerSensor(@NonNull TriggerEventListener listener,
+        @NonNull Sensor sensor) {
+        synchronized (mLock) {
+            if (mClosed || findSensor(sensor) == null) {
+                return false;
+            }
+
+            cancelTriggerSensor(listener, sensor);
+            mTriggerRequests.add(new TriggerRequest(listener, sensor));
+            return true;
+        }
+    }
+
+    @Override
+    public void cancelTriggerSensor(@NonNull TriggerEventListener listener,
+        @NonNull Sensor sensor) {
+        synchronized (mLock) {
+            Iterator<TriggerRequest> iterator = mTriggerRequests.iterator();
+            while (iterator.hasNext()) {
+                TriggerRequest request = iterator.next();
+                if (request.mListener == listener && request.mSensor == sensor) {
+                    iterator.remove();
+                }
+            }
+        }
+    }
+
+    /**
+     * Fire a trigger sensor on the calling thread. Like on a device the requests are cancelled
+     * once they fired.
+     *
+     * @param sensor A simulated sensor.
+     * @return The number of notified listeners.
+     */
+    public int trigger(@NonNull Sensor sensor) {
+        List<TriggerEventListener> listeners = new ArrayList<>();
+        synchronized (mLock) {
+            Iterator<TriggerRequest> iterator = mTriggerRequests.iterator();
+            while (iterator.hasNext()) {
+                TriggerRequest request = iterator.next();
+                if (request.mSensor == sensor) {
+                    listeners.add(request.mListener);
+                    iterator.remove();
+                }
+            }
+        }
+
+        for (TriggerEventListener listener : listeners) {
+            TriggerEvent event = newInstance(TriggerEvent.class, 1);
+            event.sensor = sensor;
+            event.timestamp = System.nanoTime();
+            event.values[0] = 1;
+            listener.onTrigger(event);
+        }
+        return listeners.size();
+    }
+
+    /**
+     * @return The number of registered {@link SensorEventListener}s.
+     */
+    public int getListenerCount() {
+        synchronized (mLock) {
+            return mRegistrations.size();
+        }
+    }
+
+    /**
+     * @return The number of events delivered so far.
+     */
+    public long getEventCount() {
+        synchronized (mLock) {
+            return mEventCount;
+        }
+    }
+
+    /**
+     * Stop delivering events, the listeners stay registered.
+     */
+    @Override
+    public void close() {
+        Thread schedulerThread;
+        synchronized (mLock) {
+            mClosed = true;
+            mLock.notifyAll();
+            schedulerThread = mSchedulerThread;
+        }
+
+        if (schedulerThread != null && schedulerThread != Thread.currentThread()) {
+            try {
+                schedulerThread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private void runScheduler() {
+        try {
+            Registration registration;
+            while ((registration = takeDueRegistration()) != null) {
+                deliver(registration);
+
+                synchronized (mLock) {
+                    // The listener may have unregistered while handling the event.
+                    if (registration.mRegistered) {
+                        registration.mNextNanos += registration.mPeriodNanos;
+                        mSchedule.add(registration);
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            // Stop delivering events.
+        }
+    }
+
+    /**
+     * Wait for the next due event and take its registration off the schedule, it's added again
+     * once the event was delivered.
+     *
+     * @return The registration, or null once the simulator is closed.
+     */
+    @Nullable
+    private Registration takeDueRegistration() throws InterruptedException {
+        synchronized (mLock) {
+            while (!mClosed) {
+                Registration registration = mSchedule.peek();
+                if (registration == null) {
+                    mLock.wait();
+                    continue;
+                }
+
+                long now = System.nanoTime();
+                if (registration.mNextNanos > now) {
+                    TimeUnit.NANOSECONDS.timedWait(mLock, registration.mNextNanos - now);
+                    continue;
+                }
+
+                mSchedule.poll();
+                registration.mNextNanos = Math.max(registration.mNextNanos, now - MAX_LAG_NANOS);
+                mEventCount++;
+                return registration;
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Deliver the next event of a registration on the scheduler thread without holding the lock.
+     * Only the scheduler thread writes the event and the time of the registration while it's off
+     * the schedule.
+     */
+    private void deliver(@NonNull Registration registration) {
+        SensorEvent event = registration.mEvent;
+        event.sensor = registration.mSensor.mSensor;
+        event.accuracy = SensorManager.SENSOR_STATUS_ACCURACY_HIGH;
+        event.timestamp = registration.mNextNanos;
+        registration.mSensor.mWaveform.sample(event.timestamp, event.values);
+        registration.mListener.onSensorChanged(event);
+    }
+
+    @Nullable
+    private SimulatedSensor findSensor(@NonNull Sensor sensor) {
+        for (SimulatedSensor simulatedSensor : mSensors) {
+            if (simulatedSensor.mSensor == sensor) {
+                return simulatedSensor;
+            }
+        }
+
+        return null;
+    }
+
+    @Nullable
+    private Registration findRegistration(@NonNull SensorEventListener listener,
+        @NonNull Sensor sensor) {
+        for (Registration registration : mRegistrations) {
+            if (registration.mListener == listener && registration.mSensor.mSensor == sensor) {
+                return registration;
+            }
+        }
+
+        return null;
+    }
+
+    @NonNull
+    private static <T> T newInstance(@NonNull Class<T> type, @NonNull Object... arguments) {
+        try {
+            Class<?>[] parameterTypes = new Class<?>[arguments.length];
+            for (int i = 0; i < arguments.length; i++) {
+                parameterTypes[i] = int.class;
+            }
+
+            Constructor<T> constructor = type.getDeclaredConstructor(parameterTypes);
+            constructor.setAccessible(true);
+            return constructor.newInstance(arguments);
+        } catch (NoSuchMethodException | InstantiationException | IllegalAccessException
+            | InvocationTargetException e) {
+            throw new IllegalStateException("Can't create a simulated " + type.getSimpleName(), e);
+        }
+    }
+
+    private static void setField(@NonNull Object object, @NonNull String name,
+        @NonNull Object value) {
+        try {
+            Field field = object.getClass().getDeclaredField(name);
+            field.setAccessible(true);
+            field.set(object, value);
+        } catch (NoSuchFieldException | IllegalAccessException e) {
+            throw new IllegalStateException("Can't set " + name + " of a simulated sensor", e);
+        }
+    }
+
+    private static final class SimulatedSensor {
+        @NonNull private final Sensor mSensor;
+        private final int mMinDelayUs;
+        @NonNull private final Waveform mWaveform;
+        private final int mAxisCount;
+
+        SimulatedSensor(@NonNull Sensor sensor, int axisCount, int minDelayUs,
+            @NonNull Waveform waveform) {
+            mSensor = sensor;
+            mAxisCount = axisCount;
+            mMinDelayUs = minDelayUs;
+            mWaveform = waveform;
+        }
+    }
+
+    private static final class Registration implements Comparable<Registration> {
+        @NonNull private final SensorEventListener mListener;
+        @NonNull private final SimulatedSensor mSensor;
+        private final long mPeriodNanos;
+        @NonNull private final SensorEvent mEvent;
+        private long mNextNanos;
+        private boolean mRegistered;
+
+        Registration(@NonNull SensorEventListener listener, @NonNull SimulatedSensor sensor,
+            long periodNanos) {
+            mListener = listener;
+            mSensor = sensor;
+            mPeriodNanos = periodNanos;
+            // Like the framework, the event object of a listener is reused for every event.
+            mEvent = newInstance(SensorEvent.class, sensor.mAxisCount);
+        }
+
+        @Override
+        public int compareTo(@NonNull Registration other) {
+            return mNextNanos < other.mNextNanos ? -1 : (mNextNanos == other.mNextNanos ? 0 : 1);
+        }
+    }
+
+    private static final class TriggerRequest {
+        @NonNull private final TriggerEventListener mListener;
+        @NonNull private final Sensor mSensor;
+
+        TriggerRequest(@NonNull TriggerEventListener listener, @NonNull Sensor sensor) {
+            mListener = listener;
+            mSensor = sensor;
+        }
+    }
+}
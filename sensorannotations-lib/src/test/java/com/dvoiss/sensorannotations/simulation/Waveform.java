@@ -0,0 +1,14 @@
+package com.dvoiss.sensorannotations.simulation;
+
+import android.support.annotation.NonNull;
+
+/**
+ * Produces the values of a simulated sensor.
+ */
+public interface Waveform {
+    /**
+     * @param timestampNanos The timestamp of the event in nanoseconds.
+     * @param values Receives the values of the event.
+     */
+    void sample(long timestampNanos, @NonNull float[] values);
+}
@@ -0,0 +1,68 @@
+package com.dvoiss.sensorannotations.simulation;
+
+import android.support.annotation.NonNull;
+import java.util.Random;
+
+/**
+ * Common {@link Waveform}s, the same value is produced on every axis unless noted otherwise.
+ */
+public final class Waveforms {
+    private Waveforms() {}
+
+    /**
+     * @param values The values of the axes, missing axes are 0.
+     */
+    @NonNull
+    public static Waveform constant(@NonNull final float... values) {
+        return new Waveform() {
+            @Override
+            public void sample(long timestampNanos, @NonNull float[] output) {
+                for (int axis = 0; axis < output.length; axis++) {
+                    output[axis] = axis < values.length ? values[axis] : 0;
+                }
+            }
+        };
+    }
+
+    /**
+     * A sine wave, the phase of each axis is shifted by a quarter period from the previous axis.
+     *
+     * @param offset The mean value.
+     * @param amplitude The amplitude.
+     * @param frequencyHz The frequency in Hz.
+     */
+    @NonNull
+    public static Waveform sine(final float offset, final float amplitude,
+        final double frequencyHz) {
+        return new Waveform() {
+            @Override
+            public void sample(long timestampNanos, @NonNull float[] output) {
+                double phase = 2 * Math.PI * frequencyHz * timestampNanos / 1e9;
+                for (int axis = 0; axis < output.length; axis++) {
+                    output[axis] =
+                        offset + amplitude * (float) Math.sin(phase + axis * Math.PI / 2);
+                }
+            }
+        };
+    }
+
+    /**
+     * Gaussian noise, each axis is drawn independently.
+     *
+     * @param offset The mean value.
+     * @param standardDeviation The standard deviation.
+     * @param seed The seed of the random numbers, the same seed produces the same values.
+     */
+    @NonNull
+    public static Waveform noise(final float offset, final float standardDeviation, long seed) {
+        final Random random = new Random(seed);
+        return new Waveform() {
+            @Override
+            public void sample(long timestampNanos, @NonNull float[] output) {
+                for (int axis = 0; axis < output.length; axis++) {
+                    output[axis] = offset + standardDeviation * (float) random.nextGaussian();
+                }
+            }
+        };
+    }
+}